@@ -0,0 +1,51 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 基准测试入口
+ * 在 JMH 命令行参数的基础上默认开启 GC 分析器（输出每次操作的分配字节数 gc.alloc.rate.norm），
+ * 并把结果以 JSON 格式写入 target/jmh 目录，便于不同提交之间对比
+ *
+ * 用法：java -jar benchmarks/target/benchmarks.jar [JMH参数] [基准测试名正则]
+ * - -Djmh.label=xxx 结果文件名后缀，例如当前提交号
+ * - 命令行中指定了 -rf/-rff 时以命令行为准
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class);
+        if (!commandLine.getResultFormat().hasValue() && !commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result(resultFile().getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static File resultFile() {
+        File dir = new File("target/jmh");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalStateException("无法创建结果目录：" + dir.getAbsolutePath());
+        }
+        String name = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String label = System.getProperty("jmh.label");
+        if (label != null && !label.isBlank()) {
+            name += "-" + label.trim();
+        }
+        return new File(dir, name + ".json");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.benchmarks;
+
+import com.example.consumer.config.GlobalFeignConfiguration;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign错误解码器
+ * 每个非2xx响应都会解码一次，503 还会包装为 RetryableException，包含两次异常构造（填充栈）的开销，
+ * 另外每次解码都会按状态码累加一次 feign.client.errors 计数器
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorDecoderBenchmark {
+
+    private static final String METHOD_KEY = "ProviderFeignClient#getUserById(String)";
+
+    @Param({"404", "500", "503", "418"})
+    private int status;
+
+    private GlobalFeignConfiguration.GlobalFeignErrorDecoder decoder;
+
+    private Response response;
+
+    @Setup
+    public void setup() {
+        decoder = new GlobalFeignConfiguration.GlobalFeignErrorDecoder(new SimpleMeterRegistry());
+        Request request = Request.create(Request.HttpMethod.GET, "http://service-provider/provider/user/42",
+                Collections.emptyMap(), Request.Body.empty(), null);
+        response = Response.builder()
+                .status(status)
+                .reason("benchmark")
+                .request(request)
+                .headers(Collections.emptyMap())
+                .body("error", StandardCharsets.UTF_8)
+                .build();
+    }
+
+    @Benchmark
+    public Exception decode() {
+        return decoder.decode(METHOD_KEY, response);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.example.consumer.feign.FailureCategory;
+import com.example.consumer.feign.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 降级响应判断
+ * TestController 原来的 isFallbackResponse 按关键词匹配响应文本，现在改为读取 Result 的降级标记；
+ * 旧实现已从 TestController 删除，这里保留一份作为对照
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FallbackDetectionBenchmark {
+
+    /**
+     * normal：正常响应，需要匹配完所有关键词；fallback：最后一个关键词才命中的降级响应
+     */
+    @Param({"normal", "fallback"})
+    private String kind;
+
+    private Result<String> result;
+
+    @Setup
+    public void setup() {
+        result = "normal".equals(kind)
+                ? Result.success("用户ID: 42, 来自服务: service-provider, 端口: 18081", 1_000_000L)
+                : Result.fallback(FailureCategory.NOT_FOUND, "请求的资源不存在");
+    }
+
+    @Benchmark
+    public boolean textSniffing() {
+        return isFallbackResponse(result.data());
+    }
+
+    @Benchmark
+    public boolean resultFlag() {
+        return result.fallback();
+    }
+
+    /**
+     * 原 TestController.isFallbackResponse 的实现
+     */
+    private static boolean isFallbackResponse(String response) {
+        if (response == null) {
+            return false;
+        }
+        return response.contains("服务调用失败") ||
+               response.contains("服务暂时不可用") ||
+               response.contains("服务不可用") ||
+               response.contains("服务健康检查失败") ||
+               response.contains("用户服务暂时不可用") ||
+               response.contains("用户不存在") ||
+               response.contains("服务内部错误") ||
+               response.contains("请求的资源不存在");
+    }
+}
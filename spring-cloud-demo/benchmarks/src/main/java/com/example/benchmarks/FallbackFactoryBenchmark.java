@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.consumer.config.GlobalFeignConfiguration;
+import com.example.consumer.feign.ProviderFeignClient;
+import com.example.consumer.feign.ProviderFeignClientFallbackFactory;
+import com.example.consumer.feign.Result;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 降级工厂
+ * 故障期间每次失败的调用都会执行 create() 和一次降级方法，这里按失败分类分别测量
+ * 异常对象在准备阶段创建，只测量分类、查表、限频日志和降级响应的构造
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FallbackFactoryBenchmark {
+
+    private static final List<String> IDS = List.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+
+    @Param({"SERVICE_UNAVAILABLE", "NOT_FOUND", "CIRCUIT_OPEN", "TIMEOUT", "OTHER"})
+    private String category;
+
+    private ProviderFeignClientFallbackFactory factory;
+
+    private Throwable cause;
+
+    @Setup
+    public void setup() {
+        factory = new ProviderFeignClientFallbackFactory();
+        cause = switch (category) {
+            case "SERVICE_UNAVAILABLE" -> new GlobalFeignConfiguration.ServiceUnavailableException("服务不可用");
+            case "NOT_FOUND" -> new GlobalFeignConfiguration.NotFoundException("资源未找到");
+            case "CIRCUIT_OPEN" -> CallNotPermittedException.createCallNotPermittedException(
+                    CircuitBreaker.ofDefaults("benchmark"));
+            case "TIMEOUT" -> new TimeoutException("TimeLimiter 'benchmark' recorded a timeout exception.");
+            // 沿 cause 链查找到最大深度仍无法分类
+            default -> new IllegalStateException("调用失败", new RuntimeException(new RuntimeException()));
+        };
+    }
+
+    @Benchmark
+    public ProviderFeignClient create() {
+        return factory.create(cause);
+    }
+
+    @Benchmark
+    public Result<String> createAndInvoke() {
+        return factory.create(cause).getUserById("42");
+    }
+
+    @Benchmark
+    public Result<Map<String, String>> createAndInvokeBatch() {
+        return factory.create(cause).getUsersByIds(IDS);
+    }
+}
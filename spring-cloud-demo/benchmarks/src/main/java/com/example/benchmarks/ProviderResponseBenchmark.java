@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.provider.controller.ProviderController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生产者响应构造
+ * controller* 直接调用 ProviderController，其余方法是同样输出的候选写法，用于评估
+ * 每次调用 DateTimeFormatter.ofPattern 和 String.format 的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProviderResponseBenchmark {
+
+    private static final String SERVICE_NAME = "service-provider";
+
+    private static final String PORT = "18081";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private String id = "42";
+
+    private ProviderController controller;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        controller = new ProviderController();
+        set("serviceName", SERVICE_NAME);
+        set("port", PORT);
+    }
+
+    private void set(String name, String value) throws ReflectiveOperationException {
+        Field field = ProviderController.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(controller, value);
+    }
+
+    @Benchmark
+    public String controllerInfo() {
+        return controller.getInfo();
+    }
+
+    @Benchmark
+    public String controllerUser() {
+        return controller.getUserById(id);
+    }
+
+    /**
+     * 缓存 DateTimeFormatter，仍使用 String.format
+     */
+    @Benchmark
+    public String infoCachedFormatter() {
+        return String.format("服务名称: %s, 端口: %s, 时间: %s",
+                SERVICE_NAME, PORT, LocalDateTime.now().format(FORMATTER));
+    }
+
+    /**
+     * 缓存 DateTimeFormatter 并直接拼接字符串
+     */
+    @Benchmark
+    public String infoConcat() {
+        return "服务名称: " + SERVICE_NAME + ", 端口: " + PORT + ", 时间: " + LocalDateTime.now().format(FORMATTER);
+    }
+
+    @Benchmark
+    public String userConcat() {
+        return "用户ID: " + id + ", 来自服务: " + SERVICE_NAME + ", 端口: " + PORT;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.benchmarks;
+
+import com.example.provider.config.SkopeoUtil;
+import com.example.provider.skopeo.ImageReferenceParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 镜像仓库地址校验
+ * 覆盖IP仓库、带端口的域名仓库、带协议前缀的地址，以及在不同位置失败的非法地址；
+ * 最后两个参数是较长的合法地址和大量仓库分段后才失败的地址
+ *
+ * 对比当前的单次扫描解析器（isValidDockerRepositoryUrl）、原来的正则（legacyRegex），
+ * 以及带结构化结果的解析（parse，只对合法地址有意义）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkopeoUtilBenchmark {
+
+    /**
+     * 替换前 SkopeoUtil 中的正则，作为对比基线
+     */
+    private static final Pattern LEGACY_REGEX = Pattern.compile("^"
+            + "(?:"
+            + "(?:[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?"
+            + "(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?)*)"
+            + "|"
+            + "(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)"
+            + ")"
+            + "(?::[1-9][0-9]{0,4})?"
+            + "/"
+            + "[a-z0-9]+(?:[._-][a-z0-9]+)*"
+            + "/"
+            + "[a-z0-9]+(?:[._-][a-z0-9]+)*"
+            + "(?::[a-zA-Z0-9_][a-zA-Z0-9._-]{0,127})?$");
+
+    @Param({
+            "192.168.50.103/flow/cust-cont:20250617191632-x86",
+            "registry.example.com:5000/project/image:v1.0",
+            "docker://registry.example.com/namespace/repository:tag",
+            "ubuntu:20.04",
+            "19280:8080/flow/cust-cont:20250618174715-x86",
+            "registry.example.com/namespace/Repository:tag",
+            "harbor-registry-01.build.internal.example.com:30002/release-images/cust-cont.backend_service-v2:20250617191632-x86_64-release",
+            "a1-b2-c3-d4-e5-f6-g7-h8-i9-j0-k1-l2-m3-n4-o5-p6-q7-r8-s9-t0.a.b.c.d.e.f.g.h.i.j.k.l.m.n.o.p.q.r.s.t.u.v.w.x.y.z.0.1.2.3.4.5.6.7.8.9!"
+    })
+    private String url;
+
+    @Benchmark
+    public boolean isValidDockerRepositoryUrl() {
+        return SkopeoUtil.isValidDockerRepositoryUrl(url);
+    }
+
+    @Benchmark
+    public boolean legacyRegex() {
+        if (url == null || url.trim().isEmpty()) {
+            return false;
+        }
+        String trimmedUrl = url.trim();
+        if (trimmedUrl.startsWith("docker://")) {
+            trimmedUrl = trimmedUrl.substring(9);
+        }
+        return LEGACY_REGEX.matcher(trimmedUrl).matches();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return ImageReferenceParser.validate(url, true) == null ? ImageReferenceParser.parse(url, true) : null;
+    }
+}
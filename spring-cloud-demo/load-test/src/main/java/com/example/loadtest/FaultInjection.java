@@ -0,0 +1,103 @@
+package com.example.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 生产者故障注入
+ * 每个生产者实例持有一个 FaultInjection，压测过程中切换故障模式；
+ * 过滤器排在并发限制之后，注入的延迟会被并发限制器计入响应时间
+ */
+public class FaultInjection {
+
+    private static final byte[] ERROR_BODY = "故障注入".getBytes(StandardCharsets.UTF_8);
+
+    private volatile int errorStatus;
+
+    private volatile long delayNanos;
+
+    /**
+     * 对所有请求返回该状态码
+     */
+    public void fail(int status) {
+        this.delayNanos = 0;
+        this.errorStatus = status;
+    }
+
+    /**
+     * 每个请求额外延迟
+     */
+    public void delay(long delay, TimeUnit unit) {
+        this.errorStatus = 0;
+        this.delayNanos = unit.toNanos(delay);
+    }
+
+    /**
+     * 清除故障
+     */
+    public void clear() {
+        this.errorStatus = 0;
+        this.delayNanos = 0;
+    }
+
+    public String describe() {
+        if (errorStatus != 0) {
+            return "返回" + errorStatus;
+        }
+        if (delayNanos != 0) {
+            return "延迟" + TimeUnit.NANOSECONDS.toMillis(delayNanos) + "ms";
+        }
+        return "正常";
+    }
+
+    private class Filter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            int status = errorStatus;
+            if (status != 0) {
+                response.setStatus(status);
+                response.setContentLength(ERROR_BODY.length);
+                response.getOutputStream().write(ERROR_BODY);
+                return;
+            }
+            long delay = delayNanos;
+            if (delay != 0) {
+                long deadline = System.nanoTime() + delay;
+                for (long remaining = delay; remaining > 0; remaining = deadline - System.nanoTime()) {
+                    LockSupport.parkNanos(remaining);
+                }
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * 加入生产者应用的配置，FaultInjection 实例由压测入口在启动前注册
+     */
+    @Configuration(proxyBeanMethods = false)
+    public static class FaultInjectionConfiguration {
+
+        @Bean
+        public FilterRegistrationBean<OncePerRequestFilter> faultInjectionFilter(FaultInjection faultInjection) {
+            FilterRegistrationBean<OncePerRequestFilter> registration =
+                    new FilterRegistrationBean<>(faultInjection.new Filter());
+            registration.addUrlPatterns("/provider/*");
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+            return registration;
+        }
+    }
+}
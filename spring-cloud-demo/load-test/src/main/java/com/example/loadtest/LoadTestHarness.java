@@ -0,0 +1,287 @@
+package com.example.loadtest;
+
+import com.example.consumer.ServiceConsumerApplication;
+import com.example.loadtest.LoadTestOptions.Scenario;
+import com.example.loadtest.OpenLoadGenerator.PhaseResult;
+import com.example.provider.ServiceProviderApplication;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测入口
+ * 在同一个JVM中启动多个 ServiceProviderApplication 和一个 ServiceConsumerApplication，
+ * 关闭 Nacos，消费者通过 spring.cloud.discovery.client.simple 的静态实例列表发现生产者，
+ * 然后按开放模型压测 /consumer/** 接口，依次执行各个故障场景并输出吞吐量和延迟分位数
+ *
+ * 每个应用通过 spring.config.location 读取自己模块中的 application.yml（两个模块的配置文件同名），
+ * 因此需要在各模块独立的 classes 目录或 jar 上运行，不能合并为单个 fat jar
+ */
+public class LoadTestHarness {
+
+    /**
+     * 生产者的正常响应中包含的内容，不包含这些内容的 200 响应视为消费者的降级响应
+     */
+    private static final List<String> PROVIDER_MARKERS = List.of("服务名称:", "用户ID:", "服务运行正常");
+
+    /**
+     * 消费者本地处理、不调用生产者的接口（注册表快照），响应中没有生产者的内容，200 响应都视为正常
+     */
+    private static final Set<String> LOCAL_PATHS = Set.of("/consumer/instances", "/consumer/services");
+
+    /**
+     * 每个阶段结束后读取的消费者和生产者指标
+     */
+    private static final Map<String, String> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("断路器拒绝", "resilience4j.circuitbreaker.not.permitted.calls");
+        METRICS.put("断路器失败", "resilience4j.circuitbreaker.calls|kind=failed");
+        METRICS.put("重试", "feign.retry.attempts");
+        METRICS.put("重试预算耗尽", "feign.retry.budget.exhausted");
+        METRICS.put("对冲请求", "feign.hedge.sent");
+        METRICS.put("跨集群溢出", "loadbalancer.affinity.spillover");
+        METRICS.put("生产者限流", "provider.concurrency.rejected");
+    }
+
+    private final LoadTestOptions options;
+
+    private final List<ConfigurableApplicationContext> providers = new ArrayList<>();
+
+    private final List<FaultInjection> faults = new ArrayList<>();
+
+    private ConfigurableApplicationContext consumer;
+
+    public LoadTestHarness(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestHarness harness = new LoadTestHarness(new LoadTestOptions(args));
+        int exitCode = 0;
+        try {
+            harness.start();
+            harness.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            harness.stop();
+        }
+        System.exit(exitCode);
+    }
+
+    private void start() throws IOException {
+        List<Integer> providerPorts = new ArrayList<>();
+        for (int i = 0; i < options.getProviders(); i++) {
+            int port = freePort();
+            FaultInjection fault = new FaultInjection();
+            List<String> args = commonArgs(port, ServiceProviderApplication.class);
+            args.add("--app.name=load-test");
+            args.add("--mysql.db=load-test");
+            providers.add(new SpringApplicationBuilder(ServiceProviderApplication.class,
+                    FaultInjection.FaultInjectionConfiguration.class)
+                    .initializers(context -> context.getBeanFactory().registerSingleton("faultInjection", fault))
+                    .run(args.toArray(new String[0])));
+            faults.add(fault);
+            providerPorts.add(port);
+            log("生产者 #%d 已启动，端口：%d", i + 1, port);
+        }
+
+        int consumerPort = freePort();
+        List<String> args = commonArgs(consumerPort, ServiceConsumerApplication.class);
+        // 生产者模块的 bootstrap.yml 也在类路径上，消费者不读取它
+        args.add("--spring.cloud.bootstrap.name=load-test-consumer-bootstrap");
+        for (int i = 0; i < providerPorts.size(); i++) {
+            String instance = "--spring.cloud.discovery.client.simple.instances.service-provider[" + i + "]";
+            args.add(instance + ".uri=http://127.0.0.1:" + providerPorts.get(i));
+            args.add(instance + ".metadata.version=1.0.0");
+            args.add(instance + ".metadata[nacos.cluster]=DEFAULT");
+        }
+        consumer = new SpringApplicationBuilder(ServiceConsumerApplication.class).run(args.toArray(new String[0]));
+        log("消费者已启动，端口：%d，生产者实例：%s", consumerPort, providerPorts);
+    }
+
+    /**
+     * 两个应用共用的参数：关闭 Nacos，读取各自模块的 application.yml，降低日志级别避免控制台输出影响压测
+     * 以命令行参数传入，优先级高于 application.yml；其余配置可通过 -D 系统属性覆盖
+     */
+    private static List<String> commonArgs(int port, Class<?> applicationClass) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=" + port);
+        args.add("--spring.config.location=" + applicationYml(applicationClass));
+        args.add("--spring.main.banner-mode=off");
+        args.add("--spring.cloud.nacos.discovery.enabled=false");
+        args.add("--spring.cloud.nacos.config.enabled=false");
+        args.add("--spring.cloud.nacos.config.import-check.enabled=false");
+        args.add("--spring.cloud.service-registry.auto-registration.enabled=false");
+        String level = System.getProperty("loadtest.log-level", "warn");
+        for (String logger : List.of("root", "com.example.provider", "com.example.consumer",
+                "com.example.consumer.feign", "com.alibaba.cloud.nacos.config")) {
+            args.add("--logging.level." + logger + "=" + level);
+        }
+        // 关闭上下文时 Tomcat 会对共用线程池中的线程逐个告警
+        args.add("--logging.level.org.apache.catalina.loader=error");
+        return args;
+    }
+
+    private static String applicationYml(Class<?> applicationClass) {
+        URL location = applicationClass.getProtectionDomain().getCodeSource().getLocation();
+        String base = location.toString();
+        if (base.endsWith(".jar")) {
+            return "jar:" + base + "!/application.yml";
+        }
+        return base + (base.endsWith("/") ? "" : "/") + "application.yml";
+    }
+
+    private void run() {
+        String baseUrl = "http://127.0.0.1:" + consumer.getEnvironment().getProperty("local.server.port");
+        OpenLoadGenerator.ResponseClassifier classifier = (path, body) -> LOCAL_PATHS.contains(path)
+                || PROVIDER_MARKERS.stream().anyMatch(body::contains) ? "ok" : "fallback";
+        List<Row> rows = new ArrayList<>();
+        try (OpenLoadGenerator generator = new OpenLoadGenerator(baseUrl, options)) {
+            log("预热 %ds，速率 %d/s，接口：%s", options.getWarmup().toSeconds(), options.getRate(), options.getPaths());
+            printPhase(generator.run("warmup", options.getWarmup(), classifier), Map.of());
+            // 冷启动时的超时可能已经打开熔断器，从关闭状态开始统计
+            consumer.getBean(CircuitBreakerRegistry.class).getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+            for (Scenario scenario : options.getScenarios()) {
+                String faultDescription = applyFaults(scenario);
+                log("场景 %s：%s", scenario.name().toLowerCase(), faultDescription);
+                Map<String, Double> before = metrics();
+                PhaseResult result = generator.run(scenario.name().toLowerCase(), options.getPhaseDuration(),
+                        classifier);
+                Map<String, Double> after = metrics();
+                Map<String, Long> deltas = new LinkedHashMap<>();
+                after.forEach((name, value) -> deltas.put(name, Math.round(value - before.getOrDefault(name, 0.0))));
+                rows.add(new Row(result, faultDescription, deltas));
+                printPhase(result, deltas);
+            }
+        }
+        printSummary(rows);
+    }
+
+    private String applyFaults(Scenario scenario) {
+        int affected = switch (scenario) {
+            case ERRORS, SLOW -> Math.min(options.getFaultInstances(), faults.size());
+            case OUTAGE -> faults.size();
+            default -> 0;
+        };
+        for (int i = 0; i < faults.size(); i++) {
+            FaultInjection fault = faults.get(i);
+            if (i >= affected) {
+                fault.clear();
+            } else if (scenario == Scenario.SLOW) {
+                fault.delay(options.getFaultDelay().toNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                fault.fail(options.getFaultStatus());
+            }
+        }
+        List<String> states = new ArrayList<>();
+        for (int i = 0; i < faults.size(); i++) {
+            states.add("#" + (i + 1) + " " + faults.get(i).describe());
+        }
+        return String.join("，", states);
+    }
+
+    /**
+     * 汇总消费者和所有生产者上下文中的计数类指标
+     */
+    private Map<String, Double> metrics() {
+        List<MeterRegistry> registries = new ArrayList<>();
+        registries.add(consumer.getBean(MeterRegistry.class));
+        providers.forEach(provider -> registries.add(provider.getBean(MeterRegistry.class)));
+        Map<String, Double> values = new LinkedHashMap<>();
+        METRICS.forEach((label, spec) -> {
+            String[] parts = spec.split("\\|");
+            double total = 0;
+            for (MeterRegistry registry : registries) {
+                var search = registry.find(parts[0]);
+                if (parts.length > 1) {
+                    String[] tag = parts[1].split("=");
+                    search = search.tag(tag[0], tag[1]);
+                }
+                for (Meter meter : search.meters()) {
+                    total += count(meter);
+                }
+            }
+            values.put(label, total);
+        });
+        return values;
+    }
+
+    private static double count(Meter meter) {
+        if (meter instanceof Counter counter) {
+            return counter.count();
+        }
+        if (meter instanceof FunctionCounter counter) {
+            return counter.count();
+        }
+        if (meter instanceof Timer timer) {
+            return timer.count();
+        }
+        return 0;
+    }
+
+    private static void printPhase(PhaseResult result, Map<String, Long> deltas) {
+        log("  发出 %d，完成 %d，丢弃 %d，未完成 %d，吞吐量 %.1f/s", result.getSent(), result.getCompleted(),
+                result.getDropped(), result.getUnfinished(), result.getThroughput());
+        log("  延迟(ms) p50=%.2f p99=%.2f p999=%.2f max=%.2f", result.percentileMillis(50),
+                result.percentileMillis(99), result.percentileMillis(99.9), result.maxMillis());
+        log("  结果 %s", result.getOutcomes());
+        if (!deltas.isEmpty()) {
+            log("  指标 %s", deltas);
+        }
+    }
+
+    private static void printSummary(List<Row> rows) {
+        System.out.println();
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s  %s%n",
+                "场景", "吞吐量/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "降级率", "结果");
+        for (Row row : rows) {
+            PhaseResult result = row.result();
+            long fallback = result.getOutcomes().getOrDefault("200:fallback", 0L);
+            System.out.printf("%-10s %10.1f %10.2f %10.2f %10.2f %10.2f %9.1f%%  %s%n",
+                    result.getName(), result.getThroughput(), result.percentileMillis(50),
+                    result.percentileMillis(99), result.percentileMillis(99.9), result.maxMillis(),
+                    result.getCompleted() == 0 ? 0.0 : fallback * 100.0 / result.getCompleted(),
+                    result.getOutcomes());
+        }
+    }
+
+    private void stop() {
+        if (consumer != null) {
+            consumer.close();
+        }
+        providers.forEach(ConfigurableApplicationContext::close);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[load-test] " + String.format(format, args));
+    }
+
+    private record Row(PhaseResult result, String faults, Map<String, Long> deltas) {
+    }
+}
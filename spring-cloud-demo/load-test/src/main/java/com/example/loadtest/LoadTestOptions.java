@@ -0,0 +1,196 @@
+package com.example.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数
+ * 从命令行参数（--loadtest.rate=500）或系统属性（-Dloadtest.rate=500）读取，命令行参数优先
+ */
+public class LoadTestOptions {
+
+    private static final String PREFIX = "loadtest.";
+
+    /**
+     * 生产者实例数
+     */
+    private final int providers;
+
+    /**
+     * 每秒发出的请求数，按固定间隔发出，不等待前一个请求完成（开放模型）
+     */
+    private final int rate;
+
+    /**
+     * 压测的消费者接口，多个接口轮流调用，{id} 替换为 1..idRange 之间的随机用户ID
+     */
+    private final List<String> paths;
+
+    private final int idRange;
+
+    /**
+     * 预热时长，预热期间的结果不计入报告；冷启动时的超时可能打开熔断器，预热结束后会重置熔断器
+     */
+    private final Duration warmup;
+
+    /**
+     * 每个场景的压测时长
+     */
+    private final Duration phaseDuration;
+
+    /**
+     * 依次执行的场景，见 Scenario
+     */
+    private final List<Scenario> scenarios;
+
+    /**
+     * 故障场景中受影响的生产者实例数（outage 场景影响全部实例）
+     */
+    private final int faultInstances;
+
+    /**
+     * 注入错误时生产者返回的状态码
+     */
+    private final int faultStatus;
+
+    /**
+     * 注入延迟时生产者额外等待的时间
+     */
+    private final Duration faultDelay;
+
+    /**
+     * 单个请求的超时时间，超时计为失败
+     */
+    private final Duration requestTimeout;
+
+    /**
+     * 未完成请求数上限，超过后新请求直接计为客户端丢弃，避免压测端自身无限堆积
+     */
+    private final int maxOutstanding;
+
+    public LoadTestOptions(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--" + PREFIX) && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                values.put(arg.substring(2 + PREFIX.length(), eq), arg.substring(eq + 1));
+            }
+        }
+        this.providers = Integer.parseInt(value(values, "providers", "3"));
+        this.rate = Integer.parseInt(value(values, "rate", "200"));
+        this.paths = split(value(values, "paths", "/consumer/info,/consumer/user/{id}"));
+        this.idRange = Integer.parseInt(value(values, "id-range", "1000"));
+        this.warmup = DurationStyle.detectAndParse(value(values, "warmup", "30s"));
+        this.phaseDuration = DurationStyle.detectAndParse(value(values, "phase-duration", "20s"));
+        this.scenarios = split(value(values, "scenarios", "baseline,errors,slow,outage,recovery")).stream()
+                .map(name -> Scenario.valueOf(name.toUpperCase()))
+                .toList();
+        this.faultInstances = Integer.parseInt(value(values, "fault.instances", "1"));
+        this.faultStatus = Integer.parseInt(value(values, "fault.status", "503"));
+        this.faultDelay = DurationStyle.detectAndParse(value(values, "fault.delay", "2s"));
+        this.requestTimeout = DurationStyle.detectAndParse(value(values, "request-timeout", "10s"));
+        this.maxOutstanding = Integer.parseInt(value(values, "max-outstanding", "10000"));
+        if (providers < 1 || rate < 1 || paths.isEmpty()) {
+            throw new IllegalArgumentException("providers、rate 必须大于0，paths 不能为空");
+        }
+    }
+
+    private static String value(Map<String, String> values, String key, String defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            value = System.getProperty(PREFIX + key, defaultValue);
+        }
+        return value.trim();
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<>();
+        Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).forEach(items::add);
+        return items;
+    }
+
+    public int getProviders() {
+        return providers;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public int getIdRange() {
+        return idRange;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getPhaseDuration() {
+        return phaseDuration;
+    }
+
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+
+    public int getFaultInstances() {
+        return faultInstances;
+    }
+
+    public int getFaultStatus() {
+        return faultStatus;
+    }
+
+    public Duration getFaultDelay() {
+        return faultDelay;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getMaxOutstanding() {
+        return maxOutstanding;
+    }
+
+    /**
+     * 压测场景
+     */
+    public enum Scenario {
+
+        /**
+         * 所有生产者正常
+         */
+        BASELINE,
+
+        /**
+         * 部分生产者对所有请求返回 fault.status
+         */
+        ERRORS,
+
+        /**
+         * 部分生产者每个请求额外延迟 fault.delay
+         */
+        SLOW,
+
+        /**
+         * 全部生产者返回 fault.status，熔断器打开，只剩降级响应
+         */
+        OUTAGE,
+
+        /**
+         * 清除故障，观察熔断器半开和恢复
+         */
+        RECOVERY
+    }
+}
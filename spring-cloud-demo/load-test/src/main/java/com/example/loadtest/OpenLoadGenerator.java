@@ -0,0 +1,207 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型的压测客户端
+ * 请求按固定速率在计划时间点发出，不等待前面的请求完成；延迟从计划发出时间算起，
+ * 被测服务变慢时排队的时间也计入延迟，避免闭环压测的协调遗漏（coordinated omission）
+ */
+public class OpenLoadGenerator implements AutoCloseable {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final String baseUrl;
+
+    private final LoadTestOptions options;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private final HttpClient client;
+
+    public OpenLoadGenerator(String baseUrl, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 按配置的速率压测指定时长，返回该阶段的统计结果
+     */
+    public PhaseResult run(String name, Duration duration, ResponseClassifier classifier) {
+        PhaseResult result = new PhaseResult(name);
+        AtomicInteger outstanding = new AtomicInteger();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<String> paths = options.getPaths();
+        long sequence = 0;
+        for (long intended = start; intended < end; intended = start + (++sequence) * intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (outstanding.get() >= options.getMaxOutstanding()) {
+                result.dropped.increment();
+                continue;
+            }
+            String path = paths.get((int) (sequence % paths.size()));
+            send(path, intended, outstanding, result, classifier);
+        }
+        // 等待本阶段发出的请求全部完成，最长等待一个请求超时时间
+        long drainDeadline = System.nanoTime() + options.getRequestTimeout().toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        result.finish(System.nanoTime() - start, outstanding.get());
+        return result;
+    }
+
+    private void send(String path, long intended, AtomicInteger outstanding, PhaseResult result,
+                      ResponseClassifier classifier) {
+        String resolved = path.replace("{id}",
+                String.valueOf(ThreadLocalRandom.current().nextInt(1, options.getIdRange() + 1)));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + resolved))
+                .timeout(options.getRequestTimeout())
+                .GET()
+                .build();
+        outstanding.incrementAndGet();
+        result.sent.increment();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - intended;
+                    result.latency.recordValue(Math.min(latency, MAX_LATENCY_NANOS));
+                    if (error != null) {
+                        result.outcome("error:" + rootCause(error).getClass().getSimpleName());
+                    } else {
+                        result.outcome(response.statusCode() + ":" + classifier.classify(path, response.body()));
+                    }
+                    outstanding.decrementAndGet();
+                });
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable current = error;
+        while (current.getCause() != null && current.getCause() != current) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 把 200 响应区分为生产者的正常数据和消费者的降级响应
+     */
+    @FunctionalInterface
+    public interface ResponseClassifier {
+
+        /**
+         * @param path 配置的接口路径，{id} 尚未替换
+         */
+        String classify(String path, String body);
+    }
+
+    /**
+     * 单个阶段的统计结果
+     */
+    public static class PhaseResult {
+
+        private final String name;
+
+        private final Recorder latency = new Recorder(MAX_LATENCY_NANOS, 3);
+
+        private final LongAdder sent = new LongAdder();
+
+        private final LongAdder dropped = new LongAdder();
+
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        private Histogram histogram;
+
+        private long elapsedNanos;
+
+        private int unfinished;
+
+        PhaseResult(String name) {
+            this.name = name;
+        }
+
+        void outcome(String key) {
+            outcomes.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+
+        void finish(long elapsedNanos, int unfinished) {
+            this.elapsedNanos = elapsedNanos;
+            this.unfinished = unfinished;
+            this.histogram = latency.getIntervalHistogram();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public int getUnfinished() {
+            return unfinished;
+        }
+
+        public long getCompleted() {
+            return histogram.getTotalCount();
+        }
+
+        public double getThroughput() {
+            return getCompleted() / (elapsedNanos / 1e9);
+        }
+
+        public Map<String, Long> getOutcomes() {
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.forEach((key, count) -> counts.put(key, count.sum()));
+            return counts;
+        }
+
+        /**
+         * 延迟分位数（毫秒）
+         */
+        public double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        public double maxMillis() {
+            return histogram.getMaxValue() / 1e6;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.consumer;
 
 import com.example.consumer.config.GlobalFeignConfiguration;
+import com.example.consumer.loadbalancer.ProviderLoadBalancerConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 
 /**
@@ -12,6 +14,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients(defaultConfiguration = GlobalFeignConfiguration.class)
+@LoadBalancerClient(name = "service-provider", configuration = ProviderLoadBalancerConfiguration.class)
 public class ServiceConsumerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package com.example.consumer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 就近路由配置
+ * 优先调用与消费者处于同一集群（机房/可用区）且版本相同的生产者实例，本地实例不可用或饱和时溢出到其他集群
+ */
+@Component
+@ConfigurationProperties(prefix = "consumer.loadbalancer.affinity")
+public class AffinityProperties {
+
+    /**
+     * 是否启用就近路由
+     */
+    private boolean enabled = true;
+
+    /**
+     * 消费者所在集群，为空时取 spring.cloud.nacos.discovery.cluster-name
+     */
+    private String cluster;
+
+    /**
+     * 优先调用的生产者版本，为空时取 spring.cloud.nacos.discovery.metadata.version
+     */
+    private String version;
+
+    /**
+     * 本地集群至少需要的可用实例数，不足时把下一优先级的实例加入候选
+     */
+    private int minAvailable = 1;
+
+    /**
+     * 单个实例进行中的请求数达到该值视为饱和，建议与 max-connections-per-route 保持一致
+     */
+    private int maxInflightPerInstance = 50;
+
+    /**
+     * 连续失败达到该次数的实例视为不健康
+     */
+    private int maxConsecutiveFailures = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(String cluster) {
+        this.cluster = cluster;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public int getMinAvailable() {
+        return minAvailable;
+    }
+
+    public void setMinAvailable(int minAvailable) {
+        this.minAvailable = minAvailable;
+    }
+
+    public int getMaxInflightPerInstance() {
+        return maxInflightPerInstance;
+    }
+
+    public void setMaxInflightPerInstance(int maxInflightPerInstance) {
+        this.maxInflightPerInstance = maxInflightPerInstance;
+    }
+
+    public int getMaxConsecutiveFailures() {
+        return maxConsecutiveFailures;
+    }
+
+    public void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+    }
+}
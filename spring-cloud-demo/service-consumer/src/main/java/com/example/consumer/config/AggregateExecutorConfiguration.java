@@ -0,0 +1,37 @@
+package com.example.consumer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 聚合调用线程池配置
+ * 聚合接口把多个生产者调用并发提交到该线程池，整体耗时由最慢的一次调用决定
+ */
+@Configuration
+public class AggregateExecutorConfiguration {
+
+    /**
+     * 生产者调用线程池
+     * 队列有界，线程和队列都满时拒绝新任务（TaskRejectedException），由提交方把该次调用单独标记为失败；
+     * 不在提交线程上执行，否则聚合接口的整体超时和批量合并的调度线程都会被阻塞的调用拖住
+     */
+    @Bean(name = "providerCallExecutor")
+    public ThreadPoolTaskExecutor providerCallExecutor(
+            @Value("${consumer.aggregate.executor.core-size:16}") int coreSize,
+            @Value("${consumer.aggregate.executor.max-size:64}") int maxSize,
+            @Value("${consumer.aggregate.executor.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("provider-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
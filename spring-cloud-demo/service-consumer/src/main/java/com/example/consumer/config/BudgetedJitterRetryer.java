@@ -0,0 +1,181 @@
+package com.example.consumer.config;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.RetryableException;
+import feign.Retryer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带重试预算的指数退避重试策略
+ * - 只重试幂等方法（GET、HEAD、OPTIONS、PUT、DELETE）
+ * - 只重试可安全重试的失败：服务不可用（502/503/504）和建连失败/建连超时；读超时、404等一律不重试
+ * - 退避间隔使用 decorrelated jitter：sleep = min(maxBackoff, random(baseBackoff, 上次间隔 × 3))
+ * - 每次重试都要从进程级 RetryBudget 中占用额度，额度耗尽时直接放弃重试
+ *
+ * Feign 每次调用都会 clone 一个新实例，因此实例内的状态只属于一次调用
+ */
+public class BudgetedJitterRetryer implements Retryer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetedJitterRetryer.class);
+
+    private final int maxAttempts;
+
+    private final long baseBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final RetryBudget retryBudget;
+
+    private final Meter.MeterProvider<Counter> budgetExhausted;
+
+    private final Meter.MeterProvider<Counter> attempts;
+
+    private int attempt = 1;
+
+    private long lastBackoffMillis;
+
+    public BudgetedJitterRetryer(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis,
+                                 RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        this(maxAttempts, baseBackoffMillis, maxBackoffMillis, retryBudget,
+                Counter.builder("feign.retry.budget.exhausted")
+                        .description("因重试预算耗尽而放弃的重试次数")
+                        .withRegistry(meterRegistry),
+                Counter.builder("feign.retry.attempts")
+                        .description("Feign调用的重试次数")
+                        .withRegistry(meterRegistry));
+    }
+
+    /**
+     * clone 时沿用已创建的计数器，每次调用不再重新构建
+     */
+    private BudgetedJitterRetryer(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis,
+                                  RetryBudget retryBudget, Meter.MeterProvider<Counter> budgetExhausted,
+                                  Meter.MeterProvider<Counter> attempts) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryBudget = retryBudget;
+        this.budgetExhausted = budgetExhausted;
+        this.attempts = attempts;
+        this.lastBackoffMillis = baseBackoffMillis;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        long backoff = nextBackoffOrPropagate(e);
+        try {
+            TimeUnit.MILLISECONDS.sleep(backoff);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 判断是否还能重试并占用一次重试额度，返回本次重试前应等待的毫秒数，不能重试时抛出原异常
+     * 不在当前线程上等待，供异步调用通过定时任务发起下一次尝试
+     */
+    public long nextBackoffOrPropagate(RetryableException e) {
+        if (attempt >= maxAttempts || !isIdempotent(e.method()) || !isRetryableCause(e)) {
+            throw e;
+        }
+        String client = clientName(e);
+        String method = methodName(e);
+        if (!retryBudget.tryAcquire()) {
+            budgetExhausted.withTags("client", client, "method", method).increment();
+            logger.debug("重试预算已耗尽，放弃重试：{}", e.getMessage());
+            throw e;
+        }
+
+        long backoff = nextBackoff(e);
+        attempt++;
+        attempts.withTags("client", client, "method", method).increment();
+        return backoff;
+    }
+
+    @Override
+    public Retryer clone() {
+        // clone 发生在每次调用开始时，借此统计请求量作为重试预算的基数
+        retryBudget.recordRequest();
+        return new BudgetedJitterRetryer(maxAttempts, baseBackoffMillis, maxBackoffMillis, retryBudget,
+                budgetExhausted, attempts);
+    }
+
+    /**
+     * 计算下一次退避间隔，服务端返回 Retry-After 时以其为准（不超过最大间隔）
+     */
+    private long nextBackoff(RetryableException e) {
+        if (e.retryAfter() != null) {
+            long retryAfter = e.retryAfter() - System.currentTimeMillis();
+            return Math.max(0L, Math.min(retryAfter, maxBackoffMillis));
+        }
+        long upper = Math.max(baseBackoffMillis + 1, lastBackoffMillis * 3);
+        lastBackoffMillis = Math.min(maxBackoffMillis, ThreadLocalRandom.current().nextLong(baseBackoffMillis, upper));
+        return lastBackoffMillis;
+    }
+
+    private static boolean isIdempotent(Request.HttpMethod method) {
+        if (method == null) {
+            return false;
+        }
+        switch (method) {
+            case GET:
+            case HEAD:
+            case OPTIONS:
+            case PUT:
+            case DELETE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 只有请求确定没有被生产者处理，或生产者明确表示暂时不可用时才重试
+     */
+    private static boolean isRetryableCause(RetryableException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof GlobalFeignConfiguration.ServiceUnavailableException
+                || cause instanceof ConnectException
+                || cause instanceof ConnectTimeoutException
+                || cause instanceof HttpConnectTimeoutException) {
+            return true;
+        }
+        if (cause instanceof SocketTimeoutException && cause.getMessage() != null
+                && cause.getMessage().toLowerCase().contains("connect")) {
+            return true;
+        }
+        // 服务端通过 Retry-After 明确要求稍后重试
+        return cause == null && e.retryAfter() != null;
+    }
+
+    private static String clientName(RetryableException e) {
+        Request request = e.request();
+        RequestTemplate template = request != null ? request.requestTemplate() : null;
+        if (template != null && template.feignTarget() != null) {
+            return template.feignTarget().name();
+        }
+        return "unknown";
+    }
+
+    private static String methodName(RetryableException e) {
+        Request request = e.request();
+        RequestTemplate template = request != null ? request.requestTemplate() : null;
+        if (template != null && template.methodMetadata() != null && template.methodMetadata().method() != null) {
+            return template.methodMetadata().method().getName();
+        }
+        return "unknown";
+    }
+}
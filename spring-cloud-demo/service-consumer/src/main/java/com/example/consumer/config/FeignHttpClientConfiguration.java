@@ -0,0 +1,95 @@
+package com.example.consumer.config;
+
+import feign.hc5.AsyncApacheHttp5Client;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Feign HTTP客户端配置
+ * 默认使用 Apache HttpClient 5 连接池替代 HttpURLConnection，复用长连接以省去每次请求的建连握手：
+ * - 连接池总大小、单路由大小、连接存活时间沿用 spring.cloud.openfeign.httpclient.* 配置
+ * - 空闲连接回收和 keep-alive 时长通过 spring.cloud.openfeign.httpclient.hc5.* 配置
+ * - 连接池的租用、等待、空闲连接数以 httpcomponents.httpclient.pool.* 指标暴露
+ * - 异步客户端（ProviderAsyncFeignClient）使用独立的 HttpClient 5 异步连接池，池参数与同步连接池一致
+ * 开启 spring.cloud.openfeign.http2client.enabled 并关闭 hc5 时改用 JDK HttpClient，通过 HTTP/2 多路复用连接
+ *
+ * 该类只注册在主容器中，GlobalFeignConfiguration 会被每个FeignClient子容器重复加载，不适合放置共享的连接池相关Bean
+ */
+@Configuration
+@ConditionalOnProperty(value = "spring.cloud.openfeign.httpclient.hc5.enabled", havingValue = "true", matchIfMissing = true)
+public class FeignHttpClientConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeignHttpClientConfiguration.class);
+
+    /**
+     * 空闲连接回收与 keep-alive 策略
+     * keep-alive 时长应小于生产者（Tomcat）的 keepAliveTimeout，避免复用已被服务端关闭的连接
+     */
+    @Bean
+    public HttpClientBuilderCustomizer feignHttpClientPoolCustomizer(
+            @Value("${spring.cloud.openfeign.httpclient.hc5.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${spring.cloud.openfeign.httpclient.hc5.keep-alive:15s}") Duration keepAlive) {
+        logger.info("Feign使用HttpClient5连接池，空闲连接回收时间：{}，keep-alive时长：{}", maxIdleTime, keepAlive);
+        TimeValue keepAliveValue = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        return builder -> builder
+                .evictIdleConnections(TimeValue.ofMilliseconds(maxIdleTime.toMillis()))
+                .setKeepAliveStrategy((response, context) -> keepAliveValue);
+    }
+
+    /**
+     * 连接池指标：leased（租用中）、available（空闲）、pending（等待连接）以及池上限
+     */
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> {
+            if (connectionManager.getIfAvailable() instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        };
+    }
+
+    /**
+     * 异步调用使用的 HttpClient 5 异步客户端
+     * 基于NIO，等待生产者响应期间不占用线程；自动重试关闭，是否重试由 BudgetedJitterRetryer 决定
+     */
+    @Bean(destroyMethod = "close")
+    public AsyncApacheHttp5Client feignAsyncHttpClient(FeignHttpClientProperties properties,
+            @Value("${spring.cloud.openfeign.httpclient.hc5.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${spring.cloud.openfeign.httpclient.hc5.keep-alive:15s}") Duration keepAlive) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setTimeToLive(TimeValue.of(properties.getTimeToLive(), properties.getTimeToLiveUnit()))
+                        .build())
+                .build();
+        TimeValue keepAliveValue = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(TimeValue.ofMilliseconds(maxIdleTime.toMillis()))
+                .setKeepAliveStrategy((response, context) -> keepAliveValue)
+                .disableAutomaticRetries()
+                .build();
+        client.start();
+        return new AsyncApacheHttp5Client(client);
+    }
+}
@@ -1,12 +1,38 @@
 package com.example.consumer.config;
 
+import com.example.consumer.feign.ResultDecoder;
+import feign.codec.Decoder;
 import feign.codec.ErrorDecoder;
+import feign.ExceptionPropagationPolicy;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
 import feign.Response;
+import feign.RetryableException;
 import feign.Retryer;
+import feign.optionals.OptionalDecoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 全局Feign配置类
@@ -19,34 +45,76 @@ public class GlobalFeignConfiguration {
     
     /**
      * 自定义错误解码器
-     * 根据HTTP状态码返回不同的异常类型
+     * 根据HTTP状态码返回不同的异常类型，并按状态码计数
+     */
+    @Bean
+    public ErrorDecoder errorDecoder(MeterRegistry meterRegistry) {
+        return new GlobalFeignErrorDecoder(meterRegistry);
+    }
+    
+    /**
+     * 响应解码器
+     * 在默认解码器外包装 ResultDecoder，支持 Result<T> 返回类型
      */
     @Bean
-    public ErrorDecoder errorDecoder() {
-        return new GlobalFeignErrorDecoder();
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        return new ResultDecoder(new OptionalDecoder(
+                new ResponseEntityDecoder(new SpringDecoder(messageConverters, customizers))));
+    }
+    
+    /**
+     * 记录请求开始时间，用于计算 Result 中的调用耗时
+     */
+    @Bean
+    public RequestInterceptor resultTimingInterceptor() {
+        return ResultDecoder.timingInterceptor();
     }
     
     /**
      * 自定义重试策略
-     * 配置重试间隔和最大重试次数
+     * 指数退避加随机抖动，只重试幂等方法和可安全重试的失败，并受进程级重试预算限制
+     * 该Bean也会在FeignClient子容器中创建，子容器没有Boot的类型转换服务，时长配置需手动解析
+     */
+    @Bean
+    public Retryer retryer(RetryBudget retryBudget, MeterRegistry meterRegistry,
+                           @Value("${consumer.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${consumer.retry.base-backoff:100ms}") String baseBackoff,
+                           @Value("${consumer.retry.max-backoff:1s}") String maxBackoff) {
+        return new BudgetedJitterRetryer(maxAttempts, DurationStyle.detectAndParse(baseBackoff).toMillis(),
+                DurationStyle.detectAndParse(maxBackoff).toMillis(), retryBudget, meterRegistry);
+    }
+    
+    /**
+     * 重试结束后抛出原始异常（如 ServiceUnavailableException）而不是 RetryableException，
+     * 保证降级工厂和全局异常处理器仍能按异常类型区分处理
      */
     @Bean
-    public Retryer retryer() {
-        // 初始间隔1秒，最大间隔3秒，最大重试3次
-        return new Retryer.Default(1000, 3000, 3);
+    public ExceptionPropagationPolicy exceptionPropagationPolicy() {
+        return ExceptionPropagationPolicy.UNWRAP;
     }
     
     /**
      * 全局Feign错误解码器
+     * 每个错误响应按客户端、方法、状态码记录到计数器 feign.client.errors
      */
     public static class GlobalFeignErrorDecoder implements ErrorDecoder {
         
         private final ErrorDecoder defaultErrorDecoder = new ErrorDecoder.Default();
         
+        private final Meter.MeterProvider<Counter> errors;
+        
+        public GlobalFeignErrorDecoder(MeterRegistry meterRegistry) {
+            this.errors = Counter.builder("feign.client.errors")
+                    .description("Feign调用返回的错误响应数，按状态码统计")
+                    .withRegistry(meterRegistry);
+        }
+        
         @Override
         public Exception decode(String methodKey, Response response) {
             logger.error("Feign调用失败，方法：{}，状态码：{}，原因：{}", 
                 methodKey, response.status(), response.reason());
+            record(response);
             
             switch (response.status()) {
                 case 400:
@@ -59,14 +127,66 @@ public class GlobalFeignConfiguration {
                     return new NotFoundException("资源未找到");
                 case 500:
                     return new InternalServerErrorException("服务内部错误");
+                case 429:
                 case 502:
                 case 503:
                 case 504:
-                    return new ServiceUnavailableException("服务不可用");
+                    return serviceUnavailable(response);
                 default:
                     return defaultErrorDecoder.decode(methodKey, response);
             }
         }
+        
+        private void record(Response response) {
+            Request request = response.request();
+            RequestTemplate template = request != null ? request.requestTemplate() : null;
+            String client = "unknown";
+            String method = "unknown";
+            if (template != null && template.feignTarget() != null) {
+                client = template.feignTarget().name();
+            }
+            if (template != null && template.methodMetadata() != null && template.methodMetadata().method() != null) {
+                method = template.methodMetadata().method().getName();
+            }
+            errors.withTags("client", client, "method", method, "status", String.valueOf(response.status()))
+                    .increment();
+        }
+        
+        /**
+         * 服务不可用（包括生产者并发限制拒绝返回的 429/503）：包装为 RetryableException 交给重试策略判断是否重试，
+         * 重试策略只会重试幂等方法，重试结束后按 UNWRAP 策略抛出原始的 ServiceUnavailableException；
+         * 响应带 Retry-After 时，重试策略按其给出的时间退避
+         */
+        private Exception serviceUnavailable(Response response) {
+            ServiceUnavailableException exception = new ServiceUnavailableException("服务不可用");
+            Request request = response.request();
+            if (request == null) {
+                return exception;
+            }
+            return new RetryableException(response.status(), exception.getMessage(), request.httpMethod(),
+                    exception, retryAfter(response), request);
+        }
+        
+        /**
+         * 解析 Retry-After 响应头，支持秒数和 HTTP 日期两种格式，返回允许重试的时间点（毫秒时间戳）；
+         * 没有该响应头或无法解析时返回 null，由重试策略按自身的退避间隔处理
+         */
+        static Long retryAfter(Response response) {
+            Collection<String> values = response.headers().get(HttpHeaders.RETRY_AFTER);
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            String value = values.iterator().next().trim();
+            try {
+                if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                    return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+                }
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (NumberFormatException | DateTimeParseException e) {
+                logger.debug("无法解析 Retry-After 响应头：{}", value);
+                return null;
+            }
+        }
     }
     
     /**
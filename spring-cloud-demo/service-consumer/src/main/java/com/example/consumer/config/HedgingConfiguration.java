@@ -0,0 +1,52 @@
+package com.example.consumer.config;
+
+import com.example.consumer.feign.FeignMetricsCapability;
+import com.example.consumer.feign.HedgingFeignClient;
+import com.example.consumer.loadbalancer.HedgeRegistry;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对冲请求配置
+ * 开启 consumer.hedging.enabled 后，用 HedgingFeignClient 包装自动配置的负载均衡Feign Client
+ * 被包装的客户端先由 FeignMetricsCapability 计时，主请求和对冲请求分别记录到 feign.client.requests
+ */
+@Configuration
+@ConditionalOnProperty(value = "consumer.hedging.enabled", havingValue = "true")
+public class HedgingConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingConfiguration.class);
+
+    /**
+     * BeanPostProcessor 需要声明为 static，依赖通过 ObjectProvider 延迟获取，避免相关Bean被提前初始化
+     */
+    @Bean
+    public static BeanPostProcessor hedgingFeignClientPostProcessor(ObjectProvider<HedgingProperties> properties,
+                                                                    ObjectProvider<HedgeRegistry> hedgeRegistry,
+                                                                    ObjectProvider<MeterRegistry> meterRegistry,
+                                                                    ObjectProvider<FeignMetricsCapability> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof Client client && !(bean instanceof HedgingFeignClient)) {
+                    HedgingProperties hedgingProperties = properties.getObject();
+                    logger.info("Feign对冲请求已启用，方法：{}，延迟分位数：{}，额外负载上限：{}",
+                            hedgingProperties.getMethods(), hedgingProperties.getDelayPercentile(),
+                            hedgingProperties.getMaxExtraLoad());
+                    FeignMetricsCapability capability = metrics.getIfAvailable();
+                    Client attempts = capability != null ? capability.instrument(client) : client;
+                    return new HedgingFeignClient(attempts, hedgingProperties, hedgeRegistry.getObject(),
+                            meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
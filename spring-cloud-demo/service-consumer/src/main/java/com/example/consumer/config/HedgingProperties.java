@@ -0,0 +1,121 @@
+package com.example.consumer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 对冲请求配置
+ * 幂等的GET方法在一段时间内没有响应时，向另一个生产者实例再发一次相同的请求，先返回的结果生效
+ */
+@Component
+@ConfigurationProperties(prefix = "consumer.hedging")
+public class HedgingProperties {
+
+    /**
+     * 是否启用对冲请求，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 允许对冲的Feign方法名，只对GET请求生效
+     */
+    private Set<String> methods = new LinkedHashSet<>();
+
+    /**
+     * 对冲延迟取该方法最近响应时间的分位数，例如 0.95 表示等待超过 p95 后发出对冲请求
+     */
+    private double delayPercentile = 0.95;
+
+    /**
+     * 对冲延迟的下限，避免响应很快时几乎每个请求都被对冲
+     */
+    private Duration minDelay = Duration.ofMillis(10);
+
+    /**
+     * 计算分位数前至少需要的样本数，样本不足时不发对冲请求
+     */
+    private int minSamples = 50;
+
+    /**
+     * 对冲请求占总请求数的比例上限，限制对冲带来的额外负载
+     */
+    private double maxExtraLoad = 0.05;
+
+    /**
+     * 每秒保底的对冲额度，低流量时也能对冲少量请求
+     */
+    private int minHedgesPerSecond = 1;
+
+    /**
+     * 执行对冲请求的线程数上限，线程耗尽时退回普通调用
+     */
+    private int maxThreads = 256;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Set<String> methods) {
+        this.methods = methods;
+    }
+
+    public double getDelayPercentile() {
+        return delayPercentile;
+    }
+
+    public void setDelayPercentile(double delayPercentile) {
+        this.delayPercentile = delayPercentile;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public double getMaxExtraLoad() {
+        return maxExtraLoad;
+    }
+
+    public void setMaxExtraLoad(double maxExtraLoad) {
+        this.maxExtraLoad = maxExtraLoad;
+    }
+
+    public int getMinHedgesPerSecond() {
+        return minHedgesPerSecond;
+    }
+
+    public void setMinHedgesPerSecond(int minHedgesPerSecond) {
+        this.minHedgesPerSecond = minHedgesPerSecond;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.consumer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 生产者响应缓存配置
+ * 按Feign方法名分别配置，未配置或未启用的方法不走缓存
+ */
+@Component
+@ConfigurationProperties(prefix = "consumer.cache")
+public class ProviderCacheProperties {
+
+    /**
+     * 方法名 -> 缓存配置
+     */
+    private Map<String, MethodCache> methods = new LinkedHashMap<>();
+
+    public Map<String, MethodCache> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Map<String, MethodCache> methods) {
+        this.methods = methods;
+    }
+
+    /**
+     * 返回指定方法的缓存配置，未配置时返回一个未启用的默认配置
+     */
+    public MethodCache forMethod(String methodName) {
+        return methods.getOrDefault(methodName, new MethodCache());
+    }
+
+    /**
+     * 单个方法的缓存配置
+     */
+    public static class MethodCache {
+
+        /**
+         * 是否启用缓存，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最大缓存条目数，超过后按 W-TinyLFU 策略淘汰
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * 写入后的过期时间，过期后的条目不再返回
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+        /**
+         * 写入后的刷新时间，超过后仍返回旧值，同时在后台异步刷新
+         * 应小于 expireAfterWrite，为 null 时不做后台刷新
+         */
+        private Duration refreshAfterWrite = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.consumer.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程级重试预算
+ * 在最近一个时间窗口内，允许的重试次数 = 每秒保底重试数 × 窗口秒数 + 请求数 × 重试比例。
+ * 下游故障时请求大量失败，重试很快耗尽预算，避免重试把下游的压力放大数倍
+ *
+ * 窗口由若干个一秒的槽组成，按秒滚动复用，读写均无锁；并发下的少量计数误差可以接受
+ */
+@Component
+public class RetryBudget {
+
+    private final double retryRatio;
+
+    private final int minRetriesPerSecond;
+
+    private final int windowSeconds;
+
+    /**
+     * 每个槽对应的秒数（epoch second），用于判断槽是否过期
+     */
+    private final AtomicLongArray slotSeconds;
+
+    private final AtomicLongArray requests;
+
+    private final AtomicLongArray retries;
+
+    @Autowired
+    public RetryBudget(@Value("${consumer.retry.budget.ratio:0.1}") double retryRatio,
+                       @Value("${consumer.retry.budget.min-retries-per-second:5}") int minRetriesPerSecond,
+                       @Value("${consumer.retry.budget.window-seconds:10}") int windowSeconds,
+                       MeterRegistry meterRegistry) {
+        this(retryRatio, minRetriesPerSecond, windowSeconds);
+        Gauge.builder("feign.retry.budget.available", this, RetryBudget::available)
+                .description("当前窗口内剩余可用的重试次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 创建一个独立的预算实例，例如对冲请求使用自己的额外请求预算
+     */
+    public RetryBudget(double retryRatio, int minRetriesPerSecond, int windowSeconds) {
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.windowSeconds = windowSeconds;
+        this.slotSeconds = new AtomicLongArray(windowSeconds);
+        this.requests = new AtomicLongArray(windowSeconds);
+        this.retries = new AtomicLongArray(windowSeconds);
+    }
+
+    /**
+     * 记录一次新请求（不含重试），为预算存入 retryRatio 次重试额度
+     */
+    public void recordRequest() {
+        requests.incrementAndGet(slot(currentSecond()));
+    }
+
+    /**
+     * 尝试占用一次重试额度
+     *
+     * @return true 表示允许重试
+     */
+    public boolean tryAcquire() {
+        long now = currentSecond();
+        if (available(now) < 1) {
+            return false;
+        }
+        retries.incrementAndGet(slot(now));
+        return true;
+    }
+
+    /**
+     * 当前窗口内剩余可用的重试次数
+     */
+    public double available() {
+        return available(currentSecond());
+    }
+
+    private double available(long now) {
+        long requestCount = 0;
+        long retryCount = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            long second = slotSeconds.get(i);
+            if (now - second < windowSeconds) {
+                requestCount += requests.get(i);
+                retryCount += retries.get(i);
+            }
+        }
+        return (double) minRetriesPerSecond * windowSeconds + requestCount * retryRatio - retryCount;
+    }
+
+    /**
+     * 返回当前秒对应的槽，槽属于更早的秒时先清零再复用
+     */
+    private int slot(long second) {
+        int index = (int) (second % windowSeconds);
+        long slotSecond = slotSeconds.get(index);
+        if (slotSecond != second && slotSeconds.compareAndSet(index, slotSecond, second)) {
+            requests.set(index, 0);
+            retries.set(index, 0);
+        }
+        return index;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
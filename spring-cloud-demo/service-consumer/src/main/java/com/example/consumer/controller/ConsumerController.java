@@ -1,15 +1,25 @@
 package com.example.consumer.controller;
 
+import com.example.consumer.discovery.RegistrySnapshot;
+import com.example.consumer.discovery.RegistrySnapshotService;
+import com.example.consumer.feign.CachingProviderClient;
+import com.example.consumer.feign.ProviderAsyncFeignClient;
 import com.example.consumer.feign.ProviderFeignClient;
+import com.example.consumer.feign.Result;
+import com.example.consumer.feign.UserRequestCollapser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 服务消费者控制器
@@ -22,7 +32,16 @@ public class ConsumerController {
     private ProviderFeignClient providerFeignClient;
 
     @Autowired
-    private DiscoveryClient discoveryClient;
+    private CachingProviderClient cachingProviderClient;
+
+    @Autowired
+    private ProviderAsyncFeignClient providerAsyncFeignClient;
+
+    @Autowired
+    private UserRequestCollapser userRequestCollapser;
+
+    @Autowired
+    private RegistrySnapshotService registrySnapshotService;
 
     @Value("${server.port}")
     private String port;
@@ -32,36 +51,71 @@ public class ConsumerController {
 
     /**
      * 使用Feign调用服务生产者获取信息
+     * 启用缓存时优先读取本地缓存
      */
     @GetMapping("/info")
     public String getProviderInfo() {
-        String result = providerFeignClient.getInfo();
-        return String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result);
+        Result<String> result = cachingProviderClient.getInfo();
+        return String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result.data());
     }
 
     /**
      * 使用Feign调用服务生产者获取用户信息
+     * 启用缓存时优先读取本地缓存，未命中的并发请求会经合并器合并为批量请求
      */
     @GetMapping("/user/{id}")
     public String getUserById(@PathVariable String id) {
-        String result = providerFeignClient.getUserById(id);
-        return String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result);
+        Result<String> result = cachingProviderClient.getUserById(id);
+        return String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result.data());
+    }
+
+    /**
+     * 异步调用服务生产者获取信息
+     * 返回 CompletableFuture，等待生产者响应期间不占用Web容器线程
+     */
+    @GetMapping("/async/info")
+    public CompletableFuture<String> getProviderInfoAsync() {
+        return providerAsyncFeignClient.getInfo()
+                .thenApply(result -> String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result.data()));
+    }
+
+    /**
+     * 异步调用服务生产者获取用户信息
+     * 可以合并时直接挂到合并批次上，否则单独异步调用
+     */
+    @GetMapping("/async/user/{id}")
+    public CompletableFuture<String> getUserByIdAsync(@PathVariable("id") String id) {
+        CompletableFuture<Result<String>> future = userRequestCollapser.accepts(id)
+                ? userRequestCollapser.submit(id)
+                : providerAsyncFeignClient.getUserById(id);
+        return future.thenApply(result -> String.format("消费者[%s:%s] 调用结果: %s", serviceName, port, result.data()));
+    }
+
+    /**
+     * 异步健康检查
+     */
+    @GetMapping("/async/health")
+    public CompletableFuture<String> healthAsync() {
+        return providerAsyncFeignClient.health()
+                .thenApply(providerHealth -> String.format("消费者服务正常, 生产者状态: %s", providerHealth.data()));
     }
 
     /**
      * 获取服务实例列表
+     * 直接返回注册表快照中预先序列化的结果，If-None-Match 与ETag一致时返回 304；
+     * 启动后第一份快照生成之前返回 503
      */
     @GetMapping("/instances")
-    public List<ServiceInstance> getServiceInstances() {
-        return discoveryClient.getInstances("service-provider");
+    public ResponseEntity<byte[]> getServiceInstances(WebRequest request) {
+        return snapshotResponse(registrySnapshotService.instancesView("service-provider"), request);
     }
 
     /**
      * 获取所有服务列表
      */
     @GetMapping("/services")
-    public List<String> getServices() {
-        return discoveryClient.getServices();
+    public ResponseEntity<byte[]> getServices(WebRequest request) {
+        return snapshotResponse(registrySnapshotService.servicesView(), request);
     }
 
     /**
@@ -69,8 +123,23 @@ public class ConsumerController {
      */
     @GetMapping("/health")
     public String health() {
-        String providerHealth = providerFeignClient.health();
-        return String.format("消费者服务正常, 生产者状态: %s", providerHealth);
+        Result<String> providerHealth = providerFeignClient.health();
+        return String.format("消费者服务正常, 生产者状态: %s", providerHealth.data());
+    }
+
+    private static ResponseEntity<byte[]> snapshotResponse(RegistrySnapshot.View view, WebRequest request) {
+        if (view == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        if (request.checkNotModified(view.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(view.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(view.body());
     }
 
 }
\ No newline at end of file
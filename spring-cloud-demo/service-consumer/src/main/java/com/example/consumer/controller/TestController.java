@@ -1,13 +1,24 @@
 package com.example.consumer.controller;
 
+import com.example.consumer.feign.ProviderAsyncFeignClient;
 import com.example.consumer.feign.ProviderFeignClient;
+import com.example.consumer.feign.Result;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * 测试控制器
@@ -20,23 +31,34 @@ public class TestController {
     @Autowired
     private ProviderFeignClient providerFeignClient;
     
+    @Autowired
+    private ProviderAsyncFeignClient providerAsyncFeignClient;
+    
+    /**
+     * 聚合调用的整体超时时间
+     */
+    @Value("${consumer.aggregate.timeout:3s}")
+    private Duration aggregateTimeout;
+    
     /**
      * 测试获取服务信息
      */
     @GetMapping("/info")
     public Map<String, Object> testGetInfo() {
         Map<String, Object> result = new HashMap<>();
-        String info = providerFeignClient.getInfo();
+        Result<String> info = providerFeignClient.getInfo();
         
         // 检查是否为降级响应
-        if (isFallbackResponse(info)) {
+        if (info.fallback()) {
             result.put("success", false);
             result.put("data", null);
-            result.put("message", info);
+            result.put("message", info.data());
+            result.put("cause", info.cause());
         } else {
             result.put("success", true);
-            result.put("data", info);
+            result.put("data", info.data());
             result.put("message", "调用成功");
+            result.put("latencyMillis", info.latencyMillis());
         }
         return result;
     }
@@ -47,17 +69,19 @@ public class TestController {
     @GetMapping("/user/{id}")
     public Map<String, Object> testGetUserById(@PathVariable String id) {
         Map<String, Object> result = new HashMap<>();
-        String userInfo = providerFeignClient.getUserById(id);
+        Result<String> userInfo = providerFeignClient.getUserById(id);
         
         // 检查是否为降级响应
-        if (isFallbackResponse(userInfo)) {
+        if (userInfo.fallback()) {
             result.put("success", false);
             result.put("data", null);
-            result.put("message", userInfo);
+            result.put("message", userInfo.data());
+            result.put("cause", userInfo.cause());
         } else {
             result.put("success", true);
-            result.put("data", userInfo);
+            result.put("data", userInfo.data());
             result.put("message", "调用成功");
+            result.put("latencyMillis", userInfo.latencyMillis());
         }
         return result;
     }
@@ -68,86 +92,111 @@ public class TestController {
     @GetMapping("/health")
     public Map<String, Object> testHealth() {
         Map<String, Object> result = new HashMap<>();
-        String health = providerFeignClient.health();
+        Result<String> health = providerFeignClient.health();
         
         // 检查是否为降级响应
-        if (isFallbackResponse(health)) {
+        if (health.fallback()) {
             result.put("success", false);
             result.put("data", null);
-            result.put("message", health);
+            result.put("message", health.data());
+            result.put("cause", health.cause());
         } else {
             result.put("success", true);
-            result.put("data", health);
+            result.put("data", health.data());
             result.put("message", "调用成功");
+            result.put("latencyMillis", health.latencyMillis());
         }
         return result;
     }
     
-    /**
-     * 判断是否为降级响应
-     * 根据降级工厂返回的特定消息模式来判断
-     */
-    private boolean isFallbackResponse(String response) {
-        if (response == null) {
-            return false;
-        }
-        // 检查是否包含降级响应的关键词
-        return response.contains("服务调用失败") ||
-               response.contains("服务暂时不可用") || 
-               response.contains("服务不可用") ||
-               response.contains("服务健康检查失败") ||
-               response.contains("用户服务暂时不可用") ||
-               response.contains("用户不存在") ||
-               response.contains("服务内部错误") ||
-               response.contains("请求的资源不存在");
-    }
-    
     /**
      * 测试所有接口
+     * 默认并发调用各接口，整体受 consumer.aggregate.timeout 限制，超时的调用单独标记为超时；
+     * parallel=false 时退回逐个串行调用
      */
     @GetMapping("/all")
-    public Map<String, Object> testAll() {
+    public Map<String, Object> testAll(@RequestParam(name = "parallel", defaultValue = "true") boolean parallel) {
+        long start = System.nanoTime();
         Map<String, Object> result = new HashMap<>();
-        Map<String, Object> results = new HashMap<>();
-        
-        // 测试info接口
-        try {
-            String info = providerFeignClient.getInfo();
-            if (isFallbackResponse(info)) {
-                results.put("info", Map.of("success", false, "message", info));
-            } else {
-                results.put("info", Map.of("success", true, "data", info));
+        Map<String, Object> results = parallel ? testAllParallel() : testAllSequential();
+
+        result.put("results", results);
+        result.put("parallel", parallel);
+        result.put("costMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        result.put("message", "批量测试完成");
+        return result;
+    }
+
+    /**
+     * 串行调用各接口，总耗时为各次调用耗时之和
+     */
+    private Map<String, Object> testAllSequential() {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("info", invoke(providerFeignClient::getInfo));
+        results.put("user", invoke(() -> providerFeignClient.getUserById("123")));
+        results.put("health", invoke(providerFeignClient::health));
+        return results;
+    }
+
+    /**
+     * 并发调用各接口，总耗时约等于最慢一次调用的耗时，且不超过整体超时时间
+     */
+    private Map<String, Object> testAllParallel() {
+        Map<String, CompletableFuture<Result<String>>> futures = new LinkedHashMap<>();
+        futures.put("info", providerAsyncFeignClient.getInfo());
+        futures.put("user", providerAsyncFeignClient.getUserById("123"));
+        futures.put("health", providerAsyncFeignClient.health());
+
+        // 所有调用共享同一个截止时间，先完成的调用不会被后面的调用拖慢
+        long deadline = System.nanoTime() + aggregateTimeout.toNanos();
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Result<String>>> entry : futures.entrySet()) {
+            CompletableFuture<Result<String>> future = entry.getValue();
+            try {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                results.put(entry.getKey(), toResult(future.get(remaining, TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException e) {
+                // 异步调用不占用线程，cancel 只是不再等待其结果，已发出的请求仍会等到响应或读超时
+                future.cancel(false);
+                results.put(entry.getKey(), Map.of("success", false, "timeout", true,
+                        "error", "调用超时，超过 " + aggregateTimeout.toMillis() + "ms"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(false);
+                results.put(entry.getKey(), Map.of("success", false, "error", "调用被中断"));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.put(entry.getKey(), Map.of("success", false, "error", String.valueOf(cause.getMessage())));
             }
-        } catch (Exception e) {
-            results.put("info", Map.of("success", false, "error", e.getMessage()));
         }
-        
-        // 测试user接口
+        return results;
+    }
+
+    /**
+     * 执行单次调用并转换为统一的结果结构
+     */
+    private Map<String, Object> invoke(Supplier<Result<String>> call) {
         try {
-            String userInfo = providerFeignClient.getUserById("123");
-            if (isFallbackResponse(userInfo)) {
-                results.put("user", Map.of("success", false, "message", userInfo));
-            } else {
-                results.put("user", Map.of("success", true, "data", userInfo));
-            }
+            return toResult(call.get());
         } catch (Exception e) {
-            results.put("user", Map.of("success", false, "error", e.getMessage()));
+            return Map.of("success", false, "error", String.valueOf(e.getMessage()));
         }
-        
-        // 测试health接口
-        try {
-            String health = providerFeignClient.health();
-            if (isFallbackResponse(health)) {
-                results.put("health", Map.of("success", false, "message", health));
-            } else {
-                results.put("health", Map.of("success", true, "data", health));
-            }
-        } catch (Exception e) {
-            results.put("health", Map.of("success", false, "error", e.getMessage()));
+    }
+
+    /**
+     * 根据 Result 的降级标记转换结果，不再检查响应文本
+     * 降级结果的 data、cause 和成功解码出的 data 都可能为 null，Map.of 不接受 null，这里用 LinkedHashMap
+     */
+    private Map<String, Object> toResult(Result<String> response) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", !response.fallback());
+        if (response.fallback()) {
+            result.put("message", response.data());
+            result.put("cause", response.cause());
+        } else {
+            result.put("data", response.data());
+            result.put("latencyMillis", response.latencyMillis());
         }
-        
-        result.put("results", results);
-        result.put("message", "批量测试完成");
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.example.consumer.discovery;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务注册表的不可变快照
+ * 除实例列表外，还保存了每个视图预先序列化好的JSON和对应的ETag，读取时无需再次序列化
+ *
+ * @param version   快照版本，注册表内容变化时递增
+ * @param instances 服务名 -> 实例列表
+ * @param services  服务列表视图
+ * @param views     服务名 -> 实例列表视图
+ */
+public record RegistrySnapshot(long version,
+                               Map<String, List<ServiceInstance>> instances,
+                               View services,
+                               Map<String, View> views) {
+
+    public static final RegistrySnapshot EMPTY = new RegistrySnapshot(0, Map.of(), null, Map.of());
+
+    /**
+     * 返回指定服务的实例列表视图，服务不存在时返回 null
+     */
+    public View instancesView(String serviceId) {
+        return views.get(serviceId);
+    }
+
+    /**
+     * 预先序列化的响应体
+     *
+     * @param body JSON字节
+     * @param etag 响应体的MD5，内容不变时ETag不变
+     */
+    public record View(byte[] body, String etag) {
+    }
+}
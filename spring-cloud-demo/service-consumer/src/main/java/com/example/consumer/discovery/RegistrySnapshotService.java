@@ -0,0 +1,253 @@
+package com.example.consumer.discovery;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 服务注册表快照
+ * 在内存中维护一份不可变的注册表快照，/consumer/instances 和 /consumer/services 直接读取快照，不再每次请求都查询注册中心：
+ * - 读取只是一次 volatile 读，无锁
+ * - 每个视图的JSON在快照生成时序列化一次，并计算ETag，轮询方可以通过 If-None-Match 得到 304
+ * - 启用Nacos时订阅每个服务的实例变更推送，收到推送后只重建对应服务的视图
+ * - 服务列表的变化Nacos不会推送，按 consumer.registry.refresh-interval 定期全量刷新兜底
+ * - 所有刷新都在后台线程上执行；第一份快照生成之前，视图返回 null，由调用方返回 503
+ */
+@Component
+public class RegistrySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrySnapshotService.class);
+
+    private final DiscoveryClient discoveryClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectProvider<NacosServiceManager> nacosServiceManager;
+
+    private final ObjectProvider<NacosDiscoveryProperties> nacosDiscoveryProperties;
+
+    private final Duration refreshInterval;
+
+    private final AtomicReference<RegistrySnapshot> snapshot = new AtomicReference<>(RegistrySnapshot.EMPTY);
+
+    /**
+     * 已订阅的服务名 -> Nacos监听器
+     */
+    private final Map<String, com.alibaba.nacos.api.naming.listener.EventListener> subscriptions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final RegistrySnapshot.View emptyListView;
+
+    /**
+     * 是否已经提交了生成第一份快照的后台任务，避免就绪前的每个请求都提交一次
+     */
+    private final AtomicBoolean initialRefreshPending = new AtomicBoolean();
+
+    public RegistrySnapshotService(DiscoveryClient discoveryClient,
+                                   ObjectMapper objectMapper,
+                                   ObjectProvider<NacosServiceManager> nacosServiceManager,
+                                   ObjectProvider<NacosDiscoveryProperties> nacosDiscoveryProperties,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${consumer.registry.refresh-interval:30s}") Duration refreshInterval) {
+        this.discoveryClient = discoveryClient;
+        this.objectMapper = objectMapper;
+        this.nacosServiceManager = nacosServiceManager;
+        this.nacosDiscoveryProperties = nacosDiscoveryProperties;
+        this.refreshInterval = refreshInterval;
+        this.emptyListView = view(List.of());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "registry-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("consumer.registry.snapshot.version", snapshot, current -> current.get().version())
+                .description("当前注册表快照的版本")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用就绪后在后台生成第一份快照，并开始定期全量刷新
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshAll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        NacosServiceManager manager = nacosServiceManager.getIfAvailable();
+        if (manager == null) {
+            return;
+        }
+        subscriptions.forEach((serviceId, listener) -> {
+            try {
+                manager.getNamingService().unsubscribe(serviceId, group(), listener);
+            } catch (NacosException e) {
+                logger.debug("取消订阅服务 {} 失败: {}", serviceId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 当前快照；第一份快照生成之前返回版本为 0 的空快照，并提交一次后台刷新，不在请求线程上查询注册中心
+     */
+    public RegistrySnapshot current() {
+        RegistrySnapshot current = snapshot.get();
+        if (current.version() == 0 && initialRefreshPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    refreshAll();
+                } finally {
+                    // 刷新失败时仍没有快照，允许后续请求再次触发
+                    initialRefreshPending.set(false);
+                }
+            });
+        }
+        return current;
+    }
+
+    /**
+     * 指定服务的实例列表视图，服务不存在时返回空列表视图；第一份快照生成之前返回 null
+     */
+    public RegistrySnapshot.View instancesView(String serviceId) {
+        RegistrySnapshot current = current();
+        if (current.version() == 0) {
+            return null;
+        }
+        RegistrySnapshot.View view = current.instancesView(serviceId);
+        return view != null ? view : emptyListView;
+    }
+
+    /**
+     * 服务列表视图；第一份快照生成之前返回 null
+     */
+    public RegistrySnapshot.View servicesView() {
+        RegistrySnapshot current = current();
+        return current.version() == 0 ? null : current.services();
+    }
+
+    /**
+     * 全量刷新：重新读取服务列表和所有服务的实例，并订阅新出现的服务
+     */
+    synchronized void refreshAll() {
+        try {
+            List<String> services = discoveryClient.getServices();
+            Map<String, List<ServiceInstance>> instances = new LinkedHashMap<>();
+            for (String serviceId : services) {
+                instances.put(serviceId, discoveryClient.getInstances(serviceId));
+                subscribe(serviceId);
+            }
+            publish(services, instances);
+        } catch (RuntimeException e) {
+            logger.warn("刷新注册表快照失败，继续使用版本 {}: {}", snapshot.get().version(), e.getMessage());
+        }
+    }
+
+    /**
+     * 单个服务的实例发生变化：只替换该服务的实例列表
+     */
+    synchronized void refreshService(String serviceId) {
+        try {
+            RegistrySnapshot current = snapshot.get();
+            Map<String, List<ServiceInstance>> instances = new LinkedHashMap<>(current.instances());
+            instances.put(serviceId, discoveryClient.getInstances(serviceId));
+            List<String> services = instances.keySet().stream().toList();
+            publish(services, instances);
+        } catch (RuntimeException e) {
+            logger.warn("刷新服务 {} 的实例快照失败: {}", serviceId, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成新快照；所有视图内容都没有变化时保留原快照，版本号不变
+     */
+    private void publish(List<String> services, Map<String, List<ServiceInstance>> instances) {
+        RegistrySnapshot current = snapshot.get();
+        RegistrySnapshot.View servicesView = view(services);
+        Map<String, RegistrySnapshot.View> views = new LinkedHashMap<>();
+        instances.forEach((serviceId, list) -> views.put(serviceId, view(list)));
+
+        boolean changed = current.services() == null
+                || !Objects.equals(current.services().etag(), servicesView.etag())
+                || !etags(current.views()).equals(etags(views));
+        if (!changed) {
+            return;
+        }
+        long version = current.version() + 1;
+        Map<String, List<ServiceInstance>> frozenInstances = new LinkedHashMap<>();
+        instances.forEach((serviceId, list) -> frozenInstances.put(serviceId, List.copyOf(list)));
+        snapshot.set(new RegistrySnapshot(version, Collections.unmodifiableMap(frozenInstances),
+                servicesView, Collections.unmodifiableMap(views)));
+        logger.debug("注册表快照更新到版本 {}，服务数：{}", version, services.size());
+    }
+
+    private void subscribe(String serviceId) {
+        NacosServiceManager manager = nacosServiceManager.getIfAvailable();
+        if (manager == null || subscriptions.containsKey(serviceId)) {
+            return;
+        }
+        com.alibaba.nacos.api.naming.listener.EventListener listener = event -> {
+            if (event instanceof NamingEvent) {
+                scheduler.execute(() -> refreshService(serviceId));
+            }
+        };
+        try {
+            manager.getNamingService().subscribe(serviceId, group(), listener);
+            subscriptions.put(serviceId, listener);
+        } catch (NacosException e) {
+            logger.warn("订阅服务 {} 的实例变更失败，改为依赖定期刷新: {}", serviceId, e.getMessage());
+        }
+    }
+
+    private String group() {
+        NacosDiscoveryProperties properties = nacosDiscoveryProperties.getIfAvailable();
+        return properties != null ? properties.getGroup() : "DEFAULT_GROUP";
+    }
+
+    private RegistrySnapshot.View view(Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new RegistrySnapshot.View(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化注册表快照失败", e);
+        }
+    }
+
+    private static Map<String, String> etags(Map<String, RegistrySnapshot.View> views) {
+        Map<String, String> etags = new LinkedHashMap<>();
+        views.forEach((serviceId, view) -> etags.put(serviceId, view.etag()));
+        return etags;
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 全局异常处理器
@@ -115,6 +116,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result);
     }
     
+    /**
+     * 处理生产者调用线程池已满的拒绝，调用没有发出，按服务繁忙返回
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> handleRejectedExecutionException(RejectedExecutionException e) {
+        logger.warn("生产者调用线程池已满，调用被拒绝：{}", e.getMessage());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", "服务繁忙，请稍后重试");
+        result.put("code", 503);
+        result.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result);
+    }
+    
     /**
      * 处理安全异常
      */
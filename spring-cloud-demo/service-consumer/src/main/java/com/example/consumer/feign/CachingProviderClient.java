@@ -0,0 +1,131 @@
+package com.example.consumer.feign;
+
+import com.example.consumer.config.ProviderCacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * 带本地缓存的生产者客户端
+ * 在 ProviderFeignClient 前面按方法提供读穿透缓存：
+ * - 容量有界，按 W-TinyLFU 淘汰
+ * - 同一个键并发未命中时只发起一次上游调用
+ * - 超过刷新时间的条目先返回旧值，再在后台刷新
+ * - 降级响应不写入缓存
+ * 命中、未命中、淘汰等统计通过 actuator 的 metrics 端点暴露（cache.* 指标）
+ */
+@Component
+public class CachingProviderClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingProviderClient.class);
+
+    private static final String INFO_KEY = "info";
+
+    private final ProviderFeignClient providerFeignClient;
+
+    private final UserRequestCollapser userRequestCollapser;
+
+    private final LoadingCache<String, Result<String>> infoCache;
+
+    private final LoadingCache<String, Result<String>> userCache;
+
+    public CachingProviderClient(ProviderFeignClient providerFeignClient,
+                                 UserRequestCollapser userRequestCollapser,
+                                 ProviderCacheProperties cacheProperties,
+                                 @Qualifier("providerCallExecutor") TaskExecutor providerCallExecutor,
+                                 MeterRegistry meterRegistry) {
+        this.providerFeignClient = providerFeignClient;
+        this.userRequestCollapser = userRequestCollapser;
+        this.infoCache = buildCache("getInfo", cacheProperties, providerCallExecutor, meterRegistry,
+                key -> providerFeignClient.getInfo());
+        this.userCache = buildCache("getUserById", cacheProperties, providerCallExecutor, meterRegistry,
+                userRequestCollapser::getUserById);
+    }
+
+    /**
+     * 获取服务信息
+     */
+    public Result<String> getInfo() {
+        if (infoCache == null) {
+            return providerFeignClient.getInfo();
+        }
+        return get(infoCache, INFO_KEY);
+    }
+
+    /**
+     * 根据ID获取用户信息
+     */
+    public Result<String> getUserById(String id) {
+        if (userCache == null) {
+            return userRequestCollapser.getUserById(id);
+        }
+        return get(userCache, id);
+    }
+
+    private static Result<String> get(LoadingCache<String, Result<String>> cache, String key) {
+        try {
+            return cache.get(key);
+        } catch (UncacheableResponseException e) {
+            return e.getResponse();
+        }
+    }
+
+    /**
+     * 按方法配置构建缓存，未启用时返回 null
+     */
+    private static LoadingCache<String, Result<String>> buildCache(String methodName,
+                                                                   ProviderCacheProperties cacheProperties,
+                                                                   TaskExecutor executor,
+                                                                   MeterRegistry meterRegistry,
+                                                                   Function<String, Result<String>> loader) {
+        ProviderCacheProperties.MethodCache config = cacheProperties.forMethod(methodName);
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .executor(executor)
+                .recordStats();
+        if (config.getRefreshAfterWrite() != null) {
+            builder.refreshAfterWrite(config.getRefreshAfterWrite());
+        }
+        LoadingCache<String, Result<String>> cache = builder.build(key -> {
+            Result<String> response = loader.apply(key);
+            // 降级响应不缓存；后台刷新时抛出该异常会保留旧值，直到其过期
+            if (response.fallback()) {
+                throw new UncacheableResponseException(response);
+            }
+            return response;
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "provider." + methodName);
+        logger.info("已启用生产者响应缓存，方法：{}，最大条目数：{}，过期时间：{}，刷新时间：{}", methodName,
+                config.getMaximumSize(), config.getExpireAfterWrite(), config.getRefreshAfterWrite());
+        return cache;
+    }
+
+    /**
+     * 上游返回了不应缓存的响应（例如降级响应）
+     */
+    private static class UncacheableResponseException extends RuntimeException {
+
+        private final Result<String> response;
+
+        UncacheableResponseException(Result<String> response) {
+            super("上游返回降级响应，不写入缓存", null, false, false);
+            this.response = response;
+        }
+
+        Result<String> getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.consumer.feign;
+
+import com.example.consumer.config.BudgetedJitterRetryer;
+import feign.AsyncClient;
+import feign.AsyncFeign;
+import feign.Feign;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import feign.hc5.AsyncApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 服务生产者异步客户端默认实现
+ * 基于 AsyncFeign 和 HttpClient 5 的异步（NIO）客户端，请求发出到响应返回期间不占用任何线程：
+ * - 请求经 LoadBalancedAsyncClient 负载均衡，实例选择和实例统计与同步调用共用
+ * - 解码器、错误解码器与同步调用相同（GlobalFeignConfiguration），返回相同的 Result 和异常类型
+ * - 每次HTTP请求由 FeignMetricsCapability 记录到 feign.client.requests，标签与同步调用相同
+ * - 重试沿用 BudgetedJitterRetryer 的判断和重试预算，退避期间不占用线程，到时由延迟调度发起下一次尝试
+ * - 每个方法与同步调用共用同名的断路器（如 ProviderFeignClientgetInfo），超时取同名 TimeLimiter 的配置，
+ *   失败、超时、熔断、舱壁满时都交给 ProviderFeignClientFallbackFactory，降级结果与同步调用一致
+ * 关闭 hc5 时改用 JDK HttpClient 的 sendAsync
+ *
+ * 舱壁统一使用信号量：异步调用不占线程，线程池舱壁没有意义，配置了线程池舱壁的方法按默认信号量舱壁限制并发。
+ * 超时后 future 立即以 TimeoutException 失败并降级，但已发出的HTTP请求不会被取消，直到收到响应或读超时
+ */
+@Component
+public class DefaultProviderAsyncFeignClient implements ProviderAsyncFeignClient {
+
+    private static final String SERVICE_ID = "service-provider";
+
+    private final ProviderAsyncApi api;
+
+    private final Retryer retryer;
+
+    private final ProviderFeignClientFallbackFactory fallbackFactory;
+
+    private final MethodGuard getInfoGuard;
+
+    private final MethodGuard getUserByIdGuard;
+
+    private final MethodGuard getUsersByIdsGuard;
+
+    private final MethodGuard healthGuard;
+
+    public DefaultProviderAsyncFeignClient(
+            ObjectProvider<AsyncApacheHttp5Client> asyncHttpClient, LoadBalancerClientFactory loadBalancerClientFactory,
+            Decoder feignDecoder, ErrorDecoder errorDecoder, Retryer retryer,
+            ProviderFeignClientFallbackFactory fallbackFactory, FeignMetricsCapability metricsCapability,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            TimeLimiterRegistry timeLimiterRegistry, BulkheadRegistry bulkheadRegistry,
+            ObjectProvider<CircuitBreakerNameResolver> nameResolver,
+            @Value("${spring.cloud.openfeign.client.config.default.connect-timeout:5000}") int connectTimeoutMillis,
+            @Value("${spring.cloud.openfeign.client.config.default.read-timeout:5000}") int readTimeoutMillis) {
+        AsyncApacheHttp5Client hc5 = asyncHttpClient.getIfAvailable();
+        AsyncClient<Object> transport = hc5 != null
+                ? (request, options, context) -> hc5.execute(request, options, Optional.empty())
+                : new Http2Client();
+        this.api = AsyncFeign.builder()
+                .client(new LoadBalancedAsyncClient(transport, loadBalancerClientFactory))
+                .addCapability(metricsCapability)
+                .contract(new SpringMvcContract())
+                .decoder(feignDecoder)
+                .errorDecoder(errorDecoder)
+                // 重试由 withRetry 异步调度，AsyncFeign 内置的重试会在响应线程上 sleep
+                .retryer(Retryer.NEVER_RETRY)
+                .options(new Request.Options(connectTimeoutMillis, TimeUnit.MILLISECONDS,
+                        readTimeoutMillis, TimeUnit.MILLISECONDS, true))
+                .target(new Target.HardCodedTarget<>(ProviderAsyncApi.class, SERVICE_ID,
+                        "http://" + SERVICE_ID));
+        this.retryer = retryer;
+        this.fallbackFactory = fallbackFactory;
+
+        Target<ProviderFeignClient> target = new Target.HardCodedTarget<>(ProviderFeignClient.class, SERVICE_ID,
+                "http://" + SERVICE_ID);
+        Map<String, String> tags = Map.of("group", SERVICE_ID);
+        Function<String, MethodGuard> guard = name -> {
+            String guardName = guardName(nameResolver.getIfAvailable(), target, method(name));
+            return new MethodGuard(circuitBreakerRegistry.circuitBreaker(guardName, tags),
+                    bulkheadRegistry.bulkhead(guardName, tags),
+                    timeLimiterRegistry.timeLimiter(guardName, tags).getTimeLimiterConfig().getTimeoutDuration());
+        };
+        this.getInfoGuard = guard.apply("getInfo");
+        this.getUserByIdGuard = guard.apply("getUserById");
+        this.getUsersByIdsGuard = guard.apply("getUsersByIds");
+        this.healthGuard = guard.apply("health");
+    }
+
+    @Override
+    public CompletableFuture<Result<String>> getInfo() {
+        return execute(getInfoGuard, api::getInfo, ProviderFeignClient::getInfo);
+    }
+
+    @Override
+    public CompletableFuture<Result<String>> getUserById(String id) {
+        return execute(getUserByIdGuard, () -> api.getUserById(id), fallback -> fallback.getUserById(id));
+    }
+
+    @Override
+    public CompletableFuture<Result<Map<String, String>>> getUsersByIds(List<String> ids) {
+        return execute(getUsersByIdsGuard, () -> api.getUsersByIds(ids), fallback -> fallback.getUsersByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Result<String>> health() {
+        return execute(healthGuard, api::health, ProviderFeignClient::health);
+    }
+
+    /**
+     * 按 断路器 -> 舱壁 -> 超时 -> 重试 的顺序执行一次调用，任何失败都转为降级结果
+     */
+    private <T> CompletableFuture<Result<T>> execute(MethodGuard guard, Supplier<CompletableFuture<Result<T>>> call,
+                                                     Function<ProviderFeignClient, Result<T>> fallback) {
+        Supplier<CompletionStage<Result<T>>> timed = () -> withRetry(call)
+                .orTimeout(guard.timeout().toNanos(), TimeUnit.NANOSECONDS);
+        Supplier<CompletionStage<Result<T>>> guarded = CircuitBreaker.decorateCompletionStage(guard.circuitBreaker(),
+                Bulkhead.decorateCompletionStage(guard.bulkhead(), timed));
+        return guarded.get().toCompletableFuture()
+                .exceptionally(error -> fallback.apply(fallbackFactory.create(unwrap(error))));
+    }
+
+    private <T> CompletableFuture<Result<T>> withRetry(Supplier<CompletableFuture<Result<T>>> call) {
+        CompletableFuture<Result<T>> result = new CompletableFuture<>();
+        attempt(call, retryer.clone(), result);
+        return result;
+    }
+
+    /**
+     * 发起一次尝试；可重试的失败按重试策略计算退避时间后延迟发起下一次尝试，调用已超时则不再重试
+     */
+    private <T> void attempt(Supplier<CompletableFuture<Result<T>>> call, Retryer attemptRetryer,
+                             CompletableFuture<Result<T>> result) {
+        long start = System.nanoTime();
+        call.get().whenComplete((value, error) -> {
+            if (error == null) {
+                // ResultDecoder 的计时依赖调用线程，异步调用在这里按本次尝试的耗时重新填写
+                result.complete(new Result<>(value.data(), value.fallback(), value.cause(),
+                        System.nanoTime() - start));
+                return;
+            }
+            Throwable cause = unwrapCompletion(error);
+            if (!(cause instanceof RetryableException retryable)
+                    || !(attemptRetryer instanceof BudgetedJitterRetryer budgeted)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long backoff;
+            try {
+                backoff = budgeted.nextBackoffOrPropagate(retryable);
+            } catch (RetryableException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> {
+                if (!result.isDone()) {
+                    attempt(call, attemptRetryer, result);
+                }
+            });
+        });
+    }
+
+    /**
+     * 与同步调用的 UNWRAP 策略一致：重试结束后交给降级工厂的是原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = unwrapCompletion(error);
+        if (cause instanceof RetryableException && cause.getCause() != null) {
+            return cause.getCause();
+        }
+        return cause;
+    }
+
+    private static Throwable unwrapCompletion(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 与 MethodBulkheadCapability 以及 Spring Cloud 的断路器命名规则一致
+     */
+    private static String guardName(CircuitBreakerNameResolver resolver, Target<?> target, Method method) {
+        if (resolver != null) {
+            return resolver.resolveCircuitBreakerName(target.name(), target, method);
+        }
+        return Feign.configKey(target.type(), method).replaceAll("[^a-zA-Z0-9]", "");
+    }
+
+    private static Method method(String name) {
+        for (Method method : ProviderFeignClient.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("ProviderFeignClient 没有方法：" + name);
+    }
+
+    /**
+     * 单个方法的断路器、舱壁和超时时间
+     */
+    private record MethodGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Duration timeout) {
+    }
+
+    /**
+     * AsyncFeign 的目标接口，路径和参数与 ProviderFeignClient 一致
+     */
+    interface ProviderAsyncApi {
+
+        @GetMapping("/provider/info")
+        CompletableFuture<Result<String>> getInfo();
+
+        @GetMapping("/provider/user/{id}")
+        CompletableFuture<Result<String>> getUserById(@PathVariable("id") String id);
+
+        @GetMapping("/provider/users")
+        CompletableFuture<Result<Map<String, String>>> getUsersByIds(@RequestParam("ids") List<String> ids);
+
+        @GetMapping("/provider/health")
+        CompletableFuture<Result<String>> health();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.consumer.feign;
+
+import com.example.consumer.config.GlobalFeignConfiguration;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Feign调用失败的原因分类
+ * 降级工厂按分类缓存降级实例、汇总日志，分类沿异常的 cause 链查找，兼容被熔断器包装过的异常
+ */
+public enum FailureCategory {
+
+    /**
+     * 服务不可用（502/503/504 或重试后仍不可用）
+     */
+    SERVICE_UNAVAILABLE,
+
+    /**
+     * 资源不存在（404）
+     */
+    NOT_FOUND,
+
+    /**
+     * 服务内部错误（500）
+     */
+    INTERNAL_SERVER_ERROR,
+
+    /**
+     * 熔断器打开，调用未发出
+     */
+    CIRCUIT_OPEN,
+
+    /**
+     * 方法舱壁已满，调用被拒绝
+     */
+    BULKHEAD_FULL,
+
+    /**
+     * 调用超时
+     */
+    TIMEOUT,
+
+    /**
+     * 其他失败
+     */
+    OTHER;
+
+    /**
+     * 沿 cause 链查找的最大深度
+     */
+    private static final int MAX_DEPTH = 5;
+
+    public static FailureCategory of(Throwable cause) {
+        Throwable current = cause;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++) {
+            if (current instanceof GlobalFeignConfiguration.ServiceUnavailableException
+                    || current instanceof FeignException.ServiceUnavailable) {
+                return SERVICE_UNAVAILABLE;
+            }
+            if (current instanceof GlobalFeignConfiguration.NotFoundException
+                    || current instanceof FeignException.NotFound) {
+                return NOT_FOUND;
+            }
+            if (current instanceof GlobalFeignConfiguration.InternalServerErrorException
+                    || current instanceof FeignException.InternalServerError) {
+                return INTERNAL_SERVER_ERROR;
+            }
+            if (current instanceof CallNotPermittedException) {
+                return CIRCUIT_OPEN;
+            }
+            if (current instanceof BulkheadFullException) {
+                return BULKHEAD_FULL;
+            }
+            if (current instanceof TimeoutException) {
+                return TIMEOUT;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return OTHER;
+    }
+}
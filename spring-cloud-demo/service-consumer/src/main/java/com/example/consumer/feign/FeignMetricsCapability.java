@@ -0,0 +1,129 @@
+package com.example.consumer.feign;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign调用的耗时指标
+ * 每次HTTP请求（重试、对冲各算一次）记录到 feign.client.requests，按客户端、方法、状态码分别统计，
+ * 并输出百分位直方图，Prometheus 中可用 histogram_quantile 计算任意分位数，作为调整读超时和断路器慢调用阈值的依据
+ *
+ * 开启对冲请求时，HedgingFeignClient 的主请求和对冲请求都经由 instrument 包装的客户端发出，各自计时；
+ * enrich 不再包装 HedgingFeignClient，避免一次对冲调用只按先返回的一方记录一次；
+ * DefaultProviderAsyncFeignClient 通过 addCapability 包装异步客户端，异步调用按相同的标签记录
+ *
+ * 标签：
+ * - client：FeignClient 名称（如 service-provider）
+ * - method：Feign 接口的方法名
+ * - status：HTTP状态码，未收到响应时为 IO_ERROR
+ * - outcome：SUCCESS、CLIENT_ERROR、SERVER_ERROR 等，未收到响应时为 UNKNOWN
+ * - exception：未收到响应时的异常类名，否则为 none
+ *
+ * 耗时截止到收到响应头，不含响应体的解码；熔断或舱壁已满被拒绝的调用没有发出请求，不计入，见 feign.fallback
+ */
+@Component
+public class FeignMetricsCapability implements Capability {
+
+    private final Meter.MeterProvider<Timer> requests;
+
+    public FeignMetricsCapability(MeterRegistry meterRegistry) {
+        this.requests = Timer.builder("feign.client.requests")
+                .description("Feign调用生产者的HTTP请求耗时")
+                .publishPercentileHistogram()
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        if (client instanceof HedgingFeignClient) {
+            return client;
+        }
+        return instrument(client);
+    }
+
+    /**
+     * 异步调用在返回的 future 完成时记录，发送失败（如连接失败、读超时）记为 IO_ERROR
+     */
+    @Override
+    public AsyncClient<Object> enrich(AsyncClient<Object> client) {
+        return (request, options, context) -> execute(client, request, options, context);
+    }
+
+    /**
+     * 包装实际发出HTTP请求的客户端，每次 execute 记录一次耗时
+     */
+    public Client instrument(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Response response = client.execute(request, options);
+            record(request, start, String.valueOf(response.status()), outcome(response.status()), "none");
+            return response;
+        } catch (IOException | RuntimeException e) {
+            record(request, start, "IO_ERROR", "UNKNOWN", e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Response> execute(AsyncClient<Object> client, Request request, Request.Options options,
+                                                Optional<Object> context) {
+        long start = System.nanoTime();
+        CompletableFuture<Response> response;
+        try {
+            response = client.execute(request, options, context);
+        } catch (RuntimeException e) {
+            record(request, start, "IO_ERROR", "UNKNOWN", e.getClass().getSimpleName());
+            throw e;
+        }
+        return response.whenComplete((value, error) -> {
+            if (error == null) {
+                record(request, start, String.valueOf(value.status()), outcome(value.status()), "none");
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                record(request, start, "IO_ERROR", "UNKNOWN", cause.getClass().getSimpleName());
+            }
+        });
+    }
+
+    private void record(Request request, long start, String status, String outcome, String exception) {
+        RequestTemplate template = request.requestTemplate();
+        MethodMetadata metadata = template != null ? template.methodMetadata() : null;
+        String client = template != null && template.feignTarget() != null ? template.feignTarget().name() : "unknown";
+        String method = metadata != null && metadata.method() != null ? metadata.method().getName() : "unknown";
+        requests.withTags("client", client, "method", method, "status", status, "outcome", outcome,
+                        "exception", exception)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 300) {
+            return "REDIRECTION";
+        }
+        return status >= 200 ? "SUCCESS" : "INFORMATIONAL";
+    }
+}
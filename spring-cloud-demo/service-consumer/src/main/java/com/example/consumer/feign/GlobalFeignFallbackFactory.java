@@ -1,124 +1,290 @@
 package com.example.consumer.feign;
 
-import com.example.consumer.config.GlobalFeignConfiguration;
-import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.openfeign.FallbackFactory;
-import org.springframework.stereotype.Component;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 全局Feign降级处理工厂
  * 使用动态代理统一处理所有FeignClient的降级逻辑
+ *
+ * 故障期间每次失败的调用都会调用 create()，因此这里尽量不做额外的工作：
+ * - 降级实例按失败分类预先创建并缓存，create() 只做一次分类和一次查表
+ * - 每个方法的降级策略在构造时解析一次，调用时不再匹配方法名
+ * - 降级日志按分类限频，每个间隔最多输出一条，并汇总该间隔内的降级次数；异常堆栈只在 debug 级别输出
+ * - 降级次数按客户端、方法、失败分类记录到计数器 feign.fallback，计数器在注入 MeterRegistry 时预先创建
+ * 方法返回 Result 时，降级响应包装为带降级标记和失败分类的 Result，调用方无需检查响应文本
+ *
+ * 目标接口由泛型参数确定，每个FeignClient声明一个子类即可，例如：
+ * {@code @Component public class ProviderFeignClientFallbackFactory extends GlobalFeignFallbackFactory<ProviderFeignClient> {}}
  */
-@Component
 public class GlobalFeignFallbackFactory<T> implements FallbackFactory<T> {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(GlobalFeignFallbackFactory.class);
-    
-    @Override
-    @SuppressWarnings("unchecked")
-    public T create(Throwable cause) {
-        logger.error("Feign调用失败，异常信息：{}", cause.getMessage(), cause);
-        
-        return (T) Proxy.newProxyInstance(
-            this.getClass().getClassLoader(),
-            new Class[]{getTargetClass()},
-            new FallbackInvocationHandler(cause)
-        );
-    }
-    
+
+    private final Class<T> targetType;
+
+    private final Map<Method, MethodFallback> dispatch;
+
+    private final Map<FailureCategory, T> fallbacks = new EnumMap<>(FailureCategory.class);
+
+    private final Map<FailureCategory, FailureLog> failureLogs = new EnumMap<>(FailureCategory.class);
+
+    private volatile long logIntervalNanos = TimeUnit.SECONDS.toNanos(10);
+
     /**
-     * 获取目标接口类型，子类可以重写此方法指定具体的接口类型
-     * 默认返回 Object.class，实际使用时应该通过泛型或其他方式确定
+     * 每个方法按失败分类的降级计数器，未注入 MeterRegistry 时为空
      */
-    protected Class<?> getTargetClass() {
-        // 这里可以通过反射获取泛型类型，或者由具体实现类重写
-        return ProviderFeignClient.class;
-    }
-    
+    private volatile Map<Method, Map<FailureCategory, Counter>> fallbackCounters = Map.of();
+
     /**
-     * 动态代理处理器
+     * 子类使用：从子类声明的泛型参数解析目标接口
      */
-    private class FallbackInvocationHandler implements InvocationHandler {
-        private final Throwable cause;
-        
-        public FallbackInvocationHandler(Throwable cause) {
-            this.cause = cause;
-        }
-        
-        @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            return handleFallback(method.getName(), args, cause);
+    @SuppressWarnings("unchecked")
+    protected GlobalFeignFallbackFactory() {
+        Class<?> resolved = ResolvableType.forClass(getClass()).as(GlobalFeignFallbackFactory.class)
+                .getGeneric(0).resolve();
+        if (resolved == null || !resolved.isInterface()) {
+            throw new IllegalStateException("无法从泛型参数解析FeignClient接口：" + getClass().getName());
         }
+        this.targetType = (Class<T>) resolved;
+        this.dispatch = resolveDispatch(targetType);
+        initFallbacks();
     }
-    
+
     /**
-     * 处理降级逻辑
-     * 根据异常类型返回不同的降级响应
+     * 直接指定目标接口
      */
-    private String handleFallback(String methodName, Object[] args, Throwable cause) {
-        // 记录详细的降级信息
-        logger.warn("方法 {} 触发降级，参数：{}, 异常类型：{}", methodName, args, cause.getClass().getSimpleName());
-        
-        // 根据异常类型提供不同的降级策略
-        if (cause instanceof GlobalFeignConfiguration.ServiceUnavailableException ||
-            cause instanceof FeignException.ServiceUnavailable) {
-            return getServiceUnavailableResponse(methodName, args);
-        } else if (cause instanceof GlobalFeignConfiguration.NotFoundException ||
-                   cause instanceof FeignException.NotFound) {
-            return getNotFoundResponse(methodName, args);
-        } else if (cause instanceof GlobalFeignConfiguration.InternalServerErrorException ||
-                   cause instanceof FeignException.InternalServerError) {
-            return getInternalServerErrorResponse(methodName, args);
-        } else {
-            return getDefaultResponse(methodName, args);
+    public GlobalFeignFallbackFactory(Class<T> targetType) {
+        this.targetType = targetType;
+        this.dispatch = resolveDispatch(targetType);
+        initFallbacks();
+    }
+
+    @Value("${consumer.fallback.log-interval:10s}")
+    public void setLogInterval(Duration logInterval) {
+        this.logIntervalNanos = logInterval.toNanos();
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        String client = clientName(targetType);
+        Map<Method, Map<FailureCategory, Counter>> counters = new HashMap<>();
+        for (Method method : dispatch.keySet()) {
+            Map<FailureCategory, Counter> byCategory = new EnumMap<>(FailureCategory.class);
+            for (FailureCategory category : FailureCategory.values()) {
+                byCategory.put(category, Counter.builder("feign.fallback")
+                        .description("Feign调用降级次数，按失败分类统计")
+                        .tag("client", client)
+                        .tag("method", method.getName())
+                        .tag("cause", category.name())
+                        .register(meterRegistry));
+            }
+            counters.put(method, byCategory);
         }
+        this.fallbackCounters = counters;
     }
-    
+
+    @Override
+    public T create(Throwable cause) {
+        FailureCategory category = FailureCategory.of(cause);
+        failureLogs.get(category).record(cause);
+        return fallbacks.get(category);
+    }
+
     /**
-     * 服务不可用时的降级响应
+     * 目标接口类型
      */
-    private String getServiceUnavailableResponse(String methodName, Object[] args) {
-        if (methodName.contains("health") || methodName.contains("Health")) {
-            return "服务健康检查失败，服务暂时不可用";
-        } else if (methodName.contains("user") || methodName.contains("User")) {
-            String userId = args != null && args.length > 0 ? String.valueOf(args[0]) : "unknown";
-            return String.format("用户服务暂时不可用，用户ID: %s", userId);
-        } else {
-            return "服务暂时不可用，请稍后重试";
+    public Class<T> getTargetType() {
+        return targetType;
+    }
+
+    private void initFallbacks() {
+        for (FailureCategory category : FailureCategory.values()) {
+            fallbacks.put(category, targetType.cast(Proxy.newProxyInstance(targetType.getClassLoader(),
+                    new Class<?>[]{targetType}, new FallbackInvocationHandler(category))));
+            failureLogs.put(category, new FailureLog(category));
         }
     }
-    
+
     /**
-     * 资源未找到时的降级响应
+     * FeignClient 名称，与 feign.client.requests 的 client 标签一致
      */
-    private String getNotFoundResponse(String methodName, Object[] args) {
-        if (methodName.contains("user") || methodName.contains("User")) {
-            String userId = args != null && args.length > 0 ? String.valueOf(args[0]) : "unknown";
-            return String.format("用户不存在，用户ID: %s", userId);
-        } else {
-            return "请求的资源不存在";
+    private static String clientName(Class<?> targetType) {
+        FeignClient feignClient = AnnotatedElementUtils.findMergedAnnotation(targetType, FeignClient.class);
+        if (feignClient != null && !feignClient.name().isEmpty()) {
+            return feignClient.name();
+        }
+        return targetType.getSimpleName();
+    }
+
+    private static Map<Method, MethodFallback> resolveDispatch(Class<?> targetType) {
+        Map<Method, MethodFallback> dispatch = new HashMap<>();
+        for (Method method : targetType.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && !method.isDefault()) {
+                dispatch.put(method, MethodFallback.of(method));
+            }
         }
+        return dispatch;
     }
-    
+
     /**
-     * 服务内部错误时的降级响应
+     * 动态代理处理器，每个失败分类一个实例
      */
-    private String getInternalServerErrorResponse(String methodName, Object[] args) {
-        return "服务内部错误，请联系管理员";
+    private class FallbackInvocationHandler implements InvocationHandler {
+
+        private final FailureCategory category;
+
+        FallbackInvocationHandler(FailureCategory category) {
+            this.category = category;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            MethodFallback fallback = dispatch.get(method);
+            if (fallback != null) {
+                Map<FailureCategory, Counter> counters = fallbackCounters.get(method);
+                if (counters != null) {
+                    counters.get(category).increment();
+                }
+                return fallback.apply(category, args);
+            }
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return targetType.getSimpleName() + "Fallback[" + category + "]";
+                default:
+                    throw new UnsupportedOperationException("方法 " + method.getName() + " 没有降级实现");
+            }
+        }
     }
-    
+
     /**
-     * 默认降级响应
+     * 单个方法的降级策略，构造时按方法名和签名确定
      */
-    private String getDefaultResponse(String methodName, Object[] args) {
-        return "服务调用失败，请稍后重试";
+    private record MethodFallback(Kind kind, boolean batch, boolean wrapped) {
+
+        static MethodFallback of(Method method) {
+            String name = method.getName();
+            Kind kind;
+            if (name.contains("health") || name.contains("Health")) {
+                kind = Kind.HEALTH;
+            } else if (name.contains("user") || name.contains("User")) {
+                kind = Kind.USER;
+            } else {
+                kind = Kind.OTHER;
+            }
+            ResolvableType returnType = ResolvableType.forMethodReturnType(method);
+            boolean wrapped = Result.class == returnType.resolve();
+            Class<?> dataType = wrapped ? returnType.getGeneric(0).resolve(Object.class) : returnType.resolve(Object.class);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean batch = Map.class.isAssignableFrom(dataType)
+                    && parameterTypes.length > 0 && Collection.class.isAssignableFrom(parameterTypes[0]);
+            return new MethodFallback(kind, batch, wrapped);
+        }
+
+        Object apply(FailureCategory category, Object[] args) {
+            Object data;
+            // 批量接口：对集合参数中的每个元素分别生成降级响应
+            if (batch && args != null && args.length > 0 && args[0] instanceof Collection<?> keys) {
+                Map<Object, String> responses = new LinkedHashMap<>();
+                for (Object key : keys) {
+                    responses.put(key, response(category, key));
+                }
+                data = responses;
+            } else {
+                data = response(category, args != null && args.length > 0 ? args[0] : null);
+            }
+            return wrapped ? Result.fallback(category, data) : data;
+        }
+
+        /**
+         * 根据失败分类返回不同的降级响应
+         */
+        private String response(FailureCategory category, Object firstArg) {
+            switch (category) {
+                case SERVICE_UNAVAILABLE:
+                    if (kind == Kind.HEALTH) {
+                        return "服务健康检查失败，服务暂时不可用";
+                    }
+                    if (kind == Kind.USER) {
+                        return String.format("用户服务暂时不可用，用户ID: %s", userId(firstArg));
+                    }
+                    return "服务暂时不可用，请稍后重试";
+                case NOT_FOUND:
+                    if (kind == Kind.USER) {
+                        return String.format("用户不存在，用户ID: %s", userId(firstArg));
+                    }
+                    return "请求的资源不存在";
+                case INTERNAL_SERVER_ERROR:
+                    return "服务内部错误，请联系管理员";
+                case BULKHEAD_FULL:
+                    return "服务繁忙，请稍后重试";
+                default:
+                    return "服务调用失败，请稍后重试";
+            }
+        }
+
+        private static String userId(Object firstArg) {
+            return firstArg != null ? String.valueOf(firstArg) : "unknown";
+        }
+    }
+
+    private enum Kind {
+        HEALTH, USER, OTHER
     }
-    
 
-}
\ No newline at end of file
+    /**
+     * 按失败分类限频的降级日志：每个间隔内第一次失败时输出一条，附带上个间隔以来的累计次数
+     */
+    private class FailureLog {
+
+        private final FailureCategory category;
+
+        private final LongAdder pending = new LongAdder();
+
+        private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+
+        FailureLog(FailureCategory category) {
+            this.category = category;
+        }
+
+        void record(Throwable cause) {
+            pending.increment();
+            long now = System.nanoTime();
+            long next = nextLogNanos.get();
+            if (now - next < 0 || !nextLogNanos.compareAndSet(next, now + logIntervalNanos)) {
+                return;
+            }
+            long count = pending.sumThenReset();
+            logger.warn("{} 调用降级[{}]，自上次输出以来共 {} 次，最近一次异常：{}", targetType.getSimpleName(), category,
+                    count, cause.toString());
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} 调用降级[{}] 异常堆栈", targetType.getSimpleName(), category, cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.consumer.feign;
+
+import com.example.consumer.config.HedgingProperties;
+import com.example.consumer.config.RetryBudget;
+import com.example.consumer.loadbalancer.HedgeRegistry;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求客户端
+ * 包装负载均衡的Feign Client：配置中的GET方法发出后，如果超过该方法最近响应时间的分位数仍未返回，
+ * 就向另一个实例再发一次相同的请求，采用先成功返回的响应，另一个请求被取消，迟到的响应直接关闭。
+ *
+ * 对冲请求数量受独立的预算限制（默认不超过请求数的5%），样本不足或线程池满时退回普通调用
+ */
+public class HedgingFeignClient implements Client {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingFeignClient.class);
+
+    /**
+     * 每个方法保留的最近响应时间样本数
+     */
+    private static final int SAMPLE_SIZE = 512;
+
+    /**
+     * 每记录多少个样本重新计算一次对冲延迟
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final Client delegate;
+
+    private final HedgingProperties properties;
+
+    private final HedgeRegistry hedgeRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final RetryBudget hedgeBudget;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final AtomicLong hedgeIds = new AtomicLong();
+
+    public HedgingFeignClient(Client delegate, HedgingProperties properties, HedgeRegistry hedgeRegistry,
+                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.hedgeRegistry = hedgeRegistry;
+        this.meterRegistry = meterRegistry;
+        this.hedgeBudget = new RetryBudget(properties.getMaxExtraLoad(), properties.getMinHedgesPerSecond(), 10);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, properties.getMaxThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "feign-hedge-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String method = hedgeableMethod(request);
+        if (method == null) {
+            return delegate.execute(request, options);
+        }
+        LatencyTracker tracker = trackers.computeIfAbsent(method, LatencyTracker::new);
+        hedgeBudget.recordRequest();
+        long hedgeDelay = tracker.hedgeDelayNanos();
+        if (hedgeDelay < 0) {
+            long start = System.nanoTime();
+            Response response = delegate.execute(request, options);
+            tracker.record(System.nanoTime() - start);
+            return response;
+        }
+
+        String hedgeId = Long.toString(hedgeIds.incrementAndGet());
+        // 先登记再发出主请求，主请求选定实例时只更新登记中的ID，release 之后不会再留下记录
+        hedgeRegistry.register(hedgeId);
+        HedgedCall call = new HedgedCall();
+        Future<?> primary = submit(call, withHedgeHeaders(request, hedgeId, false), options, tracker, false);
+        if (primary == null) {
+            hedgeRegistry.release(hedgeId);
+            return delegate.execute(request, options);
+        }
+        Future<?> hedge = null;
+        try {
+            Attempt first = call.poll(hedgeDelay);
+            if (first == null) {
+                if (hedgeBudget.tryAcquire()) {
+                    hedge = submit(call, withHedgeHeaders(request, hedgeId, true), options, tracker, true);
+                    if (hedge != null) {
+                        tracker.sent.increment();
+                    }
+                } else {
+                    tracker.budgetExhausted.increment();
+                }
+                first = call.poll(Long.MAX_VALUE);
+            }
+            Attempt winner = first;
+            if (first.error != null && hedge != null) {
+                // 先返回的一方失败了，等待另一方的结果
+                Attempt second = call.poll(Long.MAX_VALUE);
+                if (second.error == null) {
+                    winner = second;
+                }
+            }
+            if (winner.hedge && winner.error == null) {
+                tracker.won.increment();
+            }
+            if (winner.error instanceof IOException e) {
+                throw e;
+            }
+            if (winner.error instanceof RuntimeException e) {
+                throw e;
+            }
+            if (winner.error != null) {
+                throw new IOException(winner.error);
+            }
+            return winner.response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("对冲请求等待被中断");
+        } finally {
+            call.finish();
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            hedgeRegistry.release(hedgeId);
+        }
+    }
+
+    /**
+     * 返回可以对冲的Feign方法名，不满足条件时返回 null
+     */
+    private String hedgeableMethod(Request request) {
+        if (!properties.isEnabled() || request.httpMethod() != Request.HttpMethod.GET
+                || request.requestTemplate() == null) {
+            return null;
+        }
+        MethodMetadata metadata = request.requestTemplate().methodMetadata();
+        if (metadata == null || metadata.method() == null) {
+            return null;
+        }
+        String method = metadata.method().getName();
+        return properties.getMethods().contains(method) ? method : null;
+    }
+
+    private Future<?> submit(HedgedCall call, Request request, Request.Options options, LatencyTracker tracker,
+                             boolean hedge) {
+        try {
+            return executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    Response response = delegate.execute(request, options);
+                    tracker.record(System.nanoTime() - start);
+                    if (!call.offer(new Attempt(response, null, hedge))) {
+                        response.close();
+                    }
+                } catch (Throwable e) {
+                    call.offer(new Attempt(null, e, hedge));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("对冲线程池已满，退回普通调用");
+            return null;
+        }
+    }
+
+    private static Request withHedgeHeaders(Request request, String hedgeId, boolean hedge) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(HedgeRegistry.HEDGE_ID_HEADER, Collections.singletonList(hedgeId));
+        if (hedge) {
+            headers.put(HedgeRegistry.HEDGE_ATTEMPT_HEADER, Collections.singletonList(HedgeRegistry.HEDGE_ATTEMPT));
+        }
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(), request.charset(),
+                request.requestTemplate());
+    }
+
+    /**
+     * 一次调用的结果：成功时 response 非空，失败时 error 非空
+     */
+    private record Attempt(Response response, Throwable error, boolean hedge) {
+    }
+
+    /**
+     * 一组对冲请求的结果汇合点
+     * 调用方拿到结果后 finish()，之后到达的响应由执行线程自行关闭，未被取走的响应在 finish() 时关闭
+     */
+    private static final class HedgedCall {
+
+        private final ArrayDeque<Attempt> attempts = new ArrayDeque<>(2);
+
+        private boolean finished;
+
+        synchronized boolean offer(Attempt attempt) {
+            if (finished) {
+                return false;
+            }
+            attempts.add(attempt);
+            notifyAll();
+            return true;
+        }
+
+        synchronized Attempt poll(long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (attempts.isEmpty()) {
+                long remaining = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return attempts.poll();
+        }
+
+        synchronized void finish() {
+            finished = true;
+            for (Attempt attempt : attempts) {
+                if (attempt.response != null) {
+                    attempt.response.close();
+                }
+            }
+            attempts.clear();
+        }
+    }
+
+    /**
+     * 单个方法的响应时间统计，维护最近 SAMPLE_SIZE 个样本并定期计算对冲延迟
+     */
+    private final class LatencyTracker {
+
+        private final long[] samples = new long[SAMPLE_SIZE];
+
+        private long count;
+
+        private volatile long hedgeDelayNanos = -1;
+
+        private final Counter sent;
+
+        private final Counter won;
+
+        private final Counter budgetExhausted;
+
+        LatencyTracker(String method) {
+            this.sent = Counter.builder("feign.hedge.sent")
+                    .description("发出的对冲请求数")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            this.won = Counter.builder("feign.hedge.won")
+                    .description("对冲请求先于主请求返回的次数")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            this.budgetExhausted = Counter.builder("feign.hedge.budget.exhausted")
+                    .description("因预算耗尽未发出的对冲请求数")
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+
+        long hedgeDelayNanos() {
+            return hedgeDelayNanos;
+        }
+
+        void record(long latencyNanos) {
+            long[] snapshot = null;
+            int size = 0;
+            synchronized (this) {
+                samples[(int) (count % SAMPLE_SIZE)] = latencyNanos;
+                count++;
+                if (count >= properties.getMinSamples() && count % RECOMPUTE_INTERVAL == 0) {
+                    size = (int) Math.min(count, SAMPLE_SIZE);
+                    snapshot = Arrays.copyOf(samples, size);
+                }
+            }
+            if (snapshot != null) {
+                Arrays.sort(snapshot);
+                int index = (int) Math.min(size - 1, Math.ceil(properties.getDelayPercentile() * size) - 1);
+                hedgeDelayNanos = Math.max(snapshot[Math.max(index, 0)], properties.getMinDelay().toNanos());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.consumer.feign;
+
+import feign.AsyncClient;
+import feign.Request;
+import feign.Response;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 负载均衡的异步Feign客户端
+ * 与同步调用使用的 FeignBlockingLoadBalancerClient 逻辑一致，但选择实例和发送请求都不阻塞调用线程：
+ * - 通过服务的 ReactiveLoadBalancer（service-provider 即 PeakEwmaLoadBalancer）选择实例
+ * - 把 http://服务名/... 重写为实例地址后交给异步HTTP客户端发送
+ * - 依次回调负载均衡生命周期的 onStart、onStartRequest、onComplete，选择实例失败时以 FAILED 回调 onComplete，
+ *   InstanceStatsRegistry 记录的响应时间和进行中请求数同时包含同步和异步调用
+ * 没有可用实例时返回 503 响应，由错误解码器按服务不可用处理
+ */
+public class LoadBalancedAsyncClient implements AsyncClient<Object> {
+
+    private final AsyncClient<Object> delegate;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+
+    public LoadBalancedAsyncClient(AsyncClient<Object> delegate, LoadBalancerClientFactory loadBalancerClientFactory) {
+        this.delegate = delegate;
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CompletableFuture<Response> execute(Request request, Request.Options options,
+                                               Optional<Object> requestContext) {
+        URI originalUri = URI.create(request.url());
+        String serviceId = originalUri.getHost();
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancerClientFactory.getInstance(serviceId);
+        if (loadBalancer == null) {
+            return CompletableFuture.completedFuture(noInstance(request, serviceId));
+        }
+        Set<LoadBalancerLifecycle> lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                loadBalancerClientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+        String hint = loadBalancerClientFactory.getProperties(serviceId).getHint().getOrDefault(serviceId, "default");
+        RequestData requestData = requestData(request);
+        DefaultRequest<RequestDataContext> lbRequest = new DefaultRequest<>(new RequestDataContext(requestData, hint));
+        lifecycles.forEach(lifecycle -> lifecycle.onStart(lbRequest));
+
+        // choose 失败（包括直接抛出异常）时 thenCompose 不会执行，在这里结束已经 onStart 的生命周期
+        return Mono.defer(() -> Mono.from(loadBalancer.choose(lbRequest))).toFuture().whenComplete((chosen, error) -> {
+            if (error != null) {
+                lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.FAILED, error, lbRequest, null)));
+            }
+        }).thenCompose(lbResponse -> {
+            if (lbResponse == null || !lbResponse.hasServer()) {
+                lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.DISCARD, lbRequest, lbResponse)));
+                return CompletableFuture.completedFuture(noInstance(request, serviceId));
+            }
+            URI uri = LoadBalancerUriTools.reconstructURI(lbResponse.getServer(), originalUri);
+            Request instanceRequest = Request.create(request.httpMethod(), uri.toString(), request.headers(),
+                    request.body(), request.charset(), request.requestTemplate());
+            lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(lbRequest, lbResponse));
+            return delegate.execute(instanceRequest, options, requestContext).whenComplete((response, error) -> {
+                CompletionContext completion = error != null
+                        ? new CompletionContext<>(CompletionContext.Status.FAILED, error, lbRequest, lbResponse)
+                        : new CompletionContext<>(CompletionContext.Status.SUCCESS, lbRequest, lbResponse,
+                        new ResponseData(HttpStatusCode.valueOf(response.status()), headers(response.headers()),
+                                null, requestData));
+                lifecycles.forEach(lifecycle -> lifecycle.onComplete(completion));
+            });
+        });
+    }
+
+    private static RequestData requestData(Request request) {
+        return new RequestData(HttpMethod.valueOf(request.httpMethod().name()), URI.create(request.url()),
+                headers(request.headers()), new LinkedMultiValueMap<>(), new HashMap<>());
+    }
+
+    private static HttpHeaders headers(Map<String, ? extends Collection<String>> source) {
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        return headers;
+    }
+
+    private static Response noInstance(Request request, String serviceId) {
+        return Response.builder()
+                .request(request)
+                .status(503)
+                .reason("Service Unavailable")
+                .headers(Map.of())
+                .body("Load balancer does not contain an instance for the service " + serviceId,
+                        StandardCharsets.UTF_8)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.consumer.feign;
+
+import feign.Capability;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 按Feign方法隔离的舱壁
+ * 每个Feign方法使用独立的舱壁，某个方法的慢调用积压时只会耗尽自己的并发额度，不会拖垮同一客户端的其他方法
+ *
+ * 舱壁名称与该方法的断路器ID一致（如 ProviderFeignClientgetUserByIdString），配置写在 resilience4j 配置段：
+ * - resilience4j.thread-pool-bulkhead.instances 中配置了的方法使用有界线程池加队列
+ * - 其余方法使用信号量舱壁，未单独配置时取 resilience4j.bulkhead.configs.default
+ *
+ * 舱壁包在断路器执行的调用内部，舱壁满时抛出的 BulkheadFullException 与其他失败一样交给降级工厂处理；
+ * 并发数、线程池和队列深度由 resilience4j 的 Micrometer 指标（resilience4j.bulkhead.*）输出
+ *
+ * 这里只包装方法调用，Spring Cloud CircuitBreaker 自带的按组舱壁需通过
+ * spring.cloud.circuitbreaker.bulkhead.resilience4j.enabled=false 关闭，避免所有方法再共用一个舱壁
+ */
+@Component
+public class MethodBulkheadCapability implements Capability {
+
+    private static final Logger logger = LoggerFactory.getLogger(MethodBulkheadCapability.class);
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry;
+
+    private final ObjectProvider<CircuitBreakerNameResolver> nameResolver;
+
+    public MethodBulkheadCapability(BulkheadRegistry bulkheadRegistry,
+                                    ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry,
+                                    ObjectProvider<CircuitBreakerNameResolver> nameResolver) {
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.threadPoolBulkheadRegistry = threadPoolBulkheadRegistry;
+        this.nameResolver = nameResolver;
+    }
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> invocationHandlerFactory.create(target, decorate(target, dispatch));
+    }
+
+    private Map<Method, MethodHandler> decorate(Target<?> target, Map<Method, MethodHandler> dispatch) {
+        Map<Method, MethodHandler> decorated = new LinkedHashMap<>(dispatch);
+        Map<String, String> tags = Map.of("group", target.name());
+        for (Map.Entry<Method, MethodHandler> entry : decorated.entrySet()) {
+            Method method = entry.getKey();
+            if (method.isDefault()) {
+                continue;
+            }
+            String name = bulkheadName(target, method);
+            // 与 Spring Cloud CircuitBreaker 的规则一致：显式配置了线程池舱壁的使用线程池，否则使用信号量
+            if (threadPoolBulkheadRegistry.find(name).isPresent()) {
+                ThreadPoolBulkhead bulkhead = threadPoolBulkheadRegistry.bulkhead(name, tags);
+                entry.setValue(threadPoolBulkhead(bulkhead, entry.getValue()));
+                logger.debug("Feign方法 {} 使用线程池舱壁，核心线程数：{}，最大线程数：{}，队列容量：{}", name,
+                        bulkhead.getBulkheadConfig().getCoreThreadPoolSize(),
+                        bulkhead.getBulkheadConfig().getMaxThreadPoolSize(),
+                        bulkhead.getBulkheadConfig().getQueueCapacity());
+            } else {
+                Bulkhead bulkhead = bulkheadRegistry.bulkhead(name, tags);
+                entry.setValue(semaphoreBulkhead(bulkhead, entry.getValue()));
+                logger.debug("Feign方法 {} 使用信号量舱壁，最大并发数：{}", name,
+                        bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+            }
+        }
+        return decorated;
+    }
+
+    /**
+     * 舱壁名称，优先使用断路器的命名规则，保证同一方法的断路器和舱壁同名
+     */
+    private String bulkheadName(Target<?> target, Method method) {
+        CircuitBreakerNameResolver resolver = nameResolver.getIfAvailable();
+        if (resolver != null) {
+            return resolver.resolveCircuitBreakerName(target.name(), target, method);
+        }
+        return Feign.configKey(target.type(), method).replaceAll("[^a-zA-Z0-9]", "");
+    }
+
+    private static MethodHandler semaphoreBulkhead(Bulkhead bulkhead, MethodHandler handler) {
+        return args -> bulkhead.executeCheckedSupplier(() -> handler.invoke(args));
+    }
+
+    /**
+     * 在舱壁线程池上执行调用，当前线程等待结果；线程和队列都满时 submit 直接抛出 BulkheadFullException
+     */
+    private static MethodHandler threadPoolBulkhead(ThreadPoolBulkhead bulkhead, MethodHandler handler) {
+        return args -> {
+            CompletableFuture<Object> future = bulkhead.submit(() -> {
+                try {
+                    return handler.invoke(args);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                }
+            }).toCompletableFuture();
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            } catch (InterruptedException e) {
+                // 断路器超时会中断等待线程，舱壁线程上的调用继续占用额度直到Feign读超时
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.consumer.feign;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 服务生产者异步客户端
+ * 与 ProviderFeignClient 方法一一对应，返回 CompletableFuture，调用方无需阻塞等待生产者响应
+ */
+public interface ProviderAsyncFeignClient {
+
+    /**
+     * 获取服务信息
+     */
+    CompletableFuture<Result<String>> getInfo();
+
+    /**
+     * 根据ID获取用户信息
+     */
+    CompletableFuture<Result<String>> getUserById(String id);
+
+    /**
+     * 根据ID批量获取用户信息
+     */
+    CompletableFuture<Result<Map<String, String>>> getUsersByIds(List<String> ids);
+
+    /**
+     * 健康检查
+     */
+    CompletableFuture<Result<String>> health();
+
+}
@@ -3,29 +3,41 @@ package com.example.consumer.feign;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 服务生产者Feign客户端
+ * 返回 Result，调用方通过 Result.fallback() 判断响应是否来自降级逻辑
  */
-@FeignClient(name = "service-provider", fallbackFactory = GlobalFeignFallbackFactory.class)
+@FeignClient(name = "service-provider", fallbackFactory = ProviderFeignClientFallbackFactory.class)
 public interface ProviderFeignClient {
 
     /**
      * 获取服务信息
      */
     @GetMapping("/provider/info")
-    String getInfo();
+    Result<String> getInfo();
 
     /**
      * 根据ID获取用户信息
      */
     @GetMapping("/provider/user/{id}")
-    String getUserById(@PathVariable("id") String id);
+    Result<String> getUserById(@PathVariable("id") String id);
+
+    /**
+     * 根据ID批量获取用户信息
+     * 返回以用户ID为键的用户信息；每个ID展开为一个 ids 参数，生产者拒绝包含逗号的ID
+     */
+    @GetMapping("/provider/users")
+    Result<Map<String, String>> getUsersByIds(@RequestParam("ids") List<String> ids);
 
     /**
      * 健康检查
      */
     @GetMapping("/provider/health")
-    String health();
+    Result<String> health();
 
 }
\ No newline at end of file
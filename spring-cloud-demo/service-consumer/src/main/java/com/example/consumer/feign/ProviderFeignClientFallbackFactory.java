@@ -0,0 +1,11 @@
+package com.example.consumer.feign;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * ProviderFeignClient 的降级工厂
+ * 降级逻辑全部由 GlobalFeignFallbackFactory 提供，这里只通过泛型参数指定目标接口
+ */
+@Component
+public class ProviderFeignClientFallbackFactory extends GlobalFeignFallbackFactory<ProviderFeignClient> {
+}
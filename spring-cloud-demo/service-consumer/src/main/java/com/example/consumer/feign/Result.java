@@ -0,0 +1,43 @@
+package com.example.consumer.feign;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign调用结果
+ * 在响应数据之外携带是否降级、失败分类和调用耗时，调用方通过 fallback 标记判断降级，无需检查响应文本
+ *
+ * @param data         响应数据，降级时为降级响应
+ * @param fallback     是否来自降级逻辑
+ * @param cause        降级时的失败分类，正常响应时为 null
+ * @param latencyNanos 调用耗时（纳秒，从发出请求到解码完成），降级结果为 -1
+ */
+public record Result<T>(T data, boolean fallback, FailureCategory cause, long latencyNanos) {
+
+    /**
+     * 正常响应
+     */
+    public static <T> Result<T> success(T data, long latencyNanos) {
+        return new Result<>(data, false, null, latencyNanos);
+    }
+
+    /**
+     * 降级响应
+     */
+    public static <T> Result<T> fallback(FailureCategory cause, T data) {
+        return new Result<>(data, true, cause, -1);
+    }
+
+    /**
+     * 保留降级标记、失败分类和耗时，替换响应数据，例如从批量结果中取出单个用户
+     */
+    public <R> Result<R> withData(R newData) {
+        return new Result<>(newData, fallback, cause, latencyNanos);
+    }
+
+    /**
+     * 调用耗时（毫秒），降级结果为 -1
+     */
+    public long latencyMillis() {
+        return latencyNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.consumer.feign;
+
+import feign.FeignException;
+import feign.RequestInterceptor;
+import feign.Response;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Result 返回类型的解码器
+ * 方法返回 Result<T> 时，先用原解码器把响应体解码为 T，再包装为正常的 Result 并记录耗时；其他返回类型直接交给原解码器
+ *
+ * 耗时从 timingInterceptor 记录的请求开始时间算起。拦截器、HTTP调用和解码都在 Feign 的同一个调用线程上执行，
+ * 因此开始时间放在 ThreadLocal 中；发生重试时记录的是最后一次尝试的耗时
+ * 异步调用（DefaultProviderAsyncFeignClient）的解码在响应线程上执行，不经过该拦截器，耗时由异步客户端自行填写
+ */
+public class ResultDecoder implements Decoder {
+
+    private static final ThreadLocal<long[]> REQUEST_START = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Decoder delegate;
+
+    public ResultDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 记录请求开始时间的拦截器
+     */
+    public static RequestInterceptor timingInterceptor() {
+        return template -> REQUEST_START.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        if (!(type instanceof ParameterizedType parameterizedType) || parameterizedType.getRawType() != Result.class) {
+            return delegate.decode(response, type);
+        }
+        Object data = delegate.decode(response, parameterizedType.getActualTypeArguments()[0]);
+        long[] start = REQUEST_START.get();
+        long latency = start[0] != 0 ? System.nanoTime() - start[0] : -1;
+        start[0] = 0;
+        return Result.success(data, latency);
+    }
+}
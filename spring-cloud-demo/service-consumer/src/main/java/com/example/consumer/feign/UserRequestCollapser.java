@@ -0,0 +1,220 @@
+package com.example.consumer.feign;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户查询请求合并器
+ * 在一个很短的时间窗口内收集并发的 getUserById 调用，合并为一次批量请求发送给生产者，
+ * 再把批量结果按用户ID分发给各个调用方
+ * 批量请求用多个 ids 参数传递用户ID，生产者拒绝包含逗号的ID，这样的ID不参与合并，单独调用
+ */
+@Component
+public class UserRequestCollapser {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserRequestCollapser.class);
+
+    private final ProviderFeignClient providerFeignClient;
+
+    private final TaskExecutor providerCallExecutor;
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    /**
+     * 调用方最长等待时间：合并窗口加上 Feign 的读取超时，批次在线程池中排队过久时按超时降级
+     */
+    private final Duration timeout;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer waitTimer;
+
+    private final Object lock = new Object();
+
+    /**
+     * 当前正在收集请求的批次，为 null 表示没有待发送的批次
+     */
+    private Batch currentBatch;
+
+    public UserRequestCollapser(ProviderFeignClient providerFeignClient,
+                                @Qualifier("providerCallExecutor") TaskExecutor providerCallExecutor,
+                                MeterRegistry meterRegistry,
+                                @Value("${consumer.collapser.enabled:true}") boolean enabled,
+                                @Value("${consumer.collapser.window:5ms}") Duration window,
+                                @Value("${consumer.collapser.max-batch-size:100}") int maxBatchSize,
+                                @Value("${spring.cloud.openfeign.client.config.default.read-timeout:5000}")
+                                int readTimeoutMillis) {
+        this.providerFeignClient = providerFeignClient;
+        this.providerCallExecutor = providerCallExecutor;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = window.plusMillis(readTimeoutMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-request-collapser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSizeSummary = DistributionSummary.builder("consumer.collapser.batch.size")
+                .description("合并后每次批量请求包含的调用数")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("consumer.collapser.wait")
+                .description("调用在合并窗口中等待的时间")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否合并该ID的查询：未启用合并或ID包含逗号时返回 false，由调用方单独调用
+     */
+    public boolean accepts(String id) {
+        return enabled && id.indexOf(',') < 0;
+    }
+
+    /**
+     * 根据ID获取用户信息，阻塞直到所在批次返回，最长等待合并窗口加读取超时
+     */
+    public Result<String> getUserById(String id) {
+        if (!accepts(id)) {
+            return providerFeignClient.getUserById(id);
+        }
+        try {
+            return submit(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 提交一次用户查询，返回该用户的结果；超过等待时间仍未返回时以 TIMEOUT 降级
+     * 只应提交 accepts 返回 true 的ID
+     */
+    public CompletableFuture<Result<String>> submit(String id) {
+        PendingRequest request = new PendingRequest(id);
+        request.future.completeOnTimeout(Result.fallback(FailureCategory.TIMEOUT,
+                String.format("用户服务响应超时，用户ID: %s", id)), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        Batch fullBatch = null;
+        synchronized (lock) {
+            if (currentBatch == null) {
+                Batch batch = new Batch();
+                currentBatch = batch;
+                scheduler.schedule(() -> flush(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            currentBatch.requests.add(request);
+            if (currentBatch.requests.size() >= maxBatchSize) {
+                fullBatch = currentBatch;
+                currentBatch = null;
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return request.future;
+    }
+
+    /**
+     * 合并窗口到期，发送该批次（若尚未因批次已满而提前发送）
+     */
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = null;
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * 把批次交给生产者调用线程池执行；线程池已满时该批次的调用直接失败，
+     * 调度线程不能自己执行阻塞的批量请求，否则其他批次的合并窗口都会被拖住
+     */
+    private void dispatch(Batch batch) {
+        try {
+            providerCallExecutor.execute(() -> execute(batch.requests));
+        } catch (RejectedExecutionException e) {
+            logger.warn("生产者调用线程池已满，批量请求被拒绝，批次大小：{}", batch.requests.size());
+            batch.requests.forEach(request -> request.future.completeExceptionally(e));
+        } catch (RuntimeException e) {
+            batch.requests.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    private void execute(List<PendingRequest> requests) {
+        long dispatchTime = System.nanoTime();
+        Set<String> ids = new LinkedHashSet<>();
+        for (PendingRequest request : requests) {
+            ids.add(request.id);
+            waitTimer.record(dispatchTime - request.enqueueTime, TimeUnit.NANOSECONDS);
+        }
+        batchSizeSummary.record(requests.size());
+
+        try {
+            Result<Map<String, String>> result = providerFeignClient.getUsersByIds(new ArrayList<>(ids));
+            Map<String, String> users = result.data();
+            for (PendingRequest request : requests) {
+                String user = users != null ? users.get(request.id) : null;
+                request.future.complete(user != null
+                        ? result.withData(user)
+                        : Result.fallback(FailureCategory.NOT_FOUND, String.format("用户不存在，用户ID: %s", request.id)));
+            }
+        } catch (Exception e) {
+            logger.warn("批量获取用户信息失败，批次大小：{}，原因：{}", requests.size(), e.getMessage());
+            requests.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 一个合并窗口内收集到的请求
+     */
+    private static class Batch {
+        private final List<PendingRequest> requests = new ArrayList<>();
+    }
+
+    /**
+     * 等待批量结果的单个调用
+     */
+    private static class PendingRequest {
+        private final String id;
+        private final long enqueueTime = System.nanoTime();
+        private final CompletableFuture<Result<String>> future = new CompletableFuture<>();
+
+        PendingRequest(String id) {
+            this.id = id;
+        }
+    }
+}
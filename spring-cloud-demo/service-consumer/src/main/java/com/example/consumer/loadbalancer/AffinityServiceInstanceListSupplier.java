@@ -0,0 +1,132 @@
+package com.example.consumer.loadbalancer;
+
+import com.example.consumer.config.AffinityProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 就近路由实例过滤
+ * 按优先级把实例分成四档：同集群同版本 -> 同集群 -> 其他集群同版本 -> 其他实例。
+ * 从第一档开始累加，直到可用实例（Nacos健康、未饱和、未处于连续失败状态）数达到 min-available，只返回这些可用实例；
+ * 本地实例全部故障或饱和时自动溢出到其他集群，所有实例都不可用时返回原列表
+ *
+ * 实例集群取 Nacos 元数据 nacos.cluster（没有时取 zone），版本取元数据 version
+ */
+public class AffinityServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private static final int TIERS = 4;
+
+    private final AffinityProperties properties;
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    private final String cluster;
+
+    private final String version;
+
+    private final Counter spillover;
+
+    public AffinityServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, AffinityProperties properties,
+                                               InstanceStatsRegistry statsRegistry, MeterRegistry meterRegistry,
+                                               String cluster, String version) {
+        super(delegate);
+        this.properties = properties;
+        this.statsRegistry = statsRegistry;
+        this.cluster = cluster;
+        this.version = version;
+        this.spillover = Counter.builder("loadbalancer.affinity.spillover")
+                .description("本地集群可用实例不足、溢出到其他实例的次数")
+                .tag("service", delegate.getServiceId())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get().map(this::filter);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return getDelegate().get(request).map(this::filter);
+    }
+
+    private List<ServiceInstance> filter(List<ServiceInstance> instances) {
+        if (!properties.isEnabled() || instances.size() <= 1) {
+            return instances;
+        }
+        List<List<ServiceInstance>> tiers = new ArrayList<>(TIERS);
+        for (int i = 0; i < TIERS; i++) {
+            tiers.add(new ArrayList<>());
+        }
+        for (ServiceInstance instance : instances) {
+            if (available(instance)) {
+                tiers.get(tier(instance)).add(instance);
+            }
+        }
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (int i = 0; i < TIERS; i++) {
+            candidates.addAll(tiers.get(i));
+            if (candidates.size() >= properties.getMinAvailable()) {
+                if (i >= 2 && hasLocalInstance(instances)) {
+                    spillover.increment();
+                }
+                return candidates;
+            }
+        }
+        return candidates.isEmpty() ? instances : candidates;
+    }
+
+    private boolean hasLocalInstance(List<ServiceInstance> instances) {
+        for (ServiceInstance instance : instances) {
+            if (matches(cluster, clusterOf(instance))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 实例的优先级，0 最高
+     */
+    private int tier(ServiceInstance instance) {
+        boolean sameCluster = matches(cluster, clusterOf(instance));
+        boolean sameVersion = matches(version, instance.getMetadata().get("version"));
+        if (sameCluster) {
+            return sameVersion ? 0 : 1;
+        }
+        return sameVersion ? 2 : 3;
+    }
+
+    /**
+     * Nacos标记为健康、进行中请求未饱和、没有连续失败的实例视为可用
+     */
+    private boolean available(ServiceInstance instance) {
+        if ("false".equals(instance.getMetadata().get("nacos.healthy"))) {
+            return false;
+        }
+        InstanceStats stats = statsRegistry.stats(instance);
+        return stats.getInflight() < properties.getMaxInflightPerInstance()
+                && !stats.isFailing(properties.getMaxConsecutiveFailures());
+    }
+
+    private static String clusterOf(ServiceInstance instance) {
+        String nacosCluster = instance.getMetadata().get("nacos.cluster");
+        return nacosCluster != null ? nacosCluster : instance.getMetadata().get("zone");
+    }
+
+    /**
+     * 本地没有配置该维度时视为匹配
+     */
+    private static boolean matches(String local, String value) {
+        return !StringUtils.hasText(local) || local.equals(value);
+    }
+}
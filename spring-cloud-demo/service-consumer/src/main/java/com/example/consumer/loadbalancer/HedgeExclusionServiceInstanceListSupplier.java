@@ -0,0 +1,48 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对冲请求实例过滤
+ * 对冲请求从候选实例中去掉主请求所在的实例；只剩这一个实例时保留原列表，由负载均衡照常选择
+ */
+public class HedgeExclusionServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final HedgeRegistry hedgeRegistry;
+
+    public HedgeExclusionServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, HedgeRegistry hedgeRegistry) {
+        super(delegate);
+        this.hedgeRegistry = hedgeRegistry;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        String excluded = hedgeRegistry.excludedInstance(request);
+        if (excluded == null) {
+            return getDelegate().get(request);
+        }
+        return getDelegate().get(request).map(instances -> exclude(instances, excluded));
+    }
+
+    private static List<ServiceInstance> exclude(List<ServiceInstance> instances, String excluded) {
+        List<ServiceInstance> filtered = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!excluded.equals(HedgeRegistry.instanceKey(instance))) {
+                filtered.add(instance);
+            }
+        }
+        return filtered.isEmpty() ? instances : filtered;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对冲请求登记表
+ * 记录每组对冲请求中主请求被负载均衡选中的实例，对冲请求据此避开同一个实例
+ *
+ * 主请求和对冲请求通过请求头 X-Hedge-Id 关联，对冲请求额外带上 X-Hedge-Attempt: hedge
+ *
+ * 对冲ID在发出主请求前登记，结束时移除；主请求只更新仍在登记中的ID，
+ * 对冲请求先返回、主请求之后才选定实例时不会留下无人清理的记录
+ */
+@Component
+public class HedgeRegistry implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    public static final String HEDGE_ID_HEADER = "X-Hedge-Id";
+
+    public static final String HEDGE_ATTEMPT_HEADER = "X-Hedge-Attempt";
+
+    public static final String HEDGE_ATTEMPT = "hedge";
+
+    /**
+     * 已登记但主请求尚未选定实例
+     */
+    private static final String PENDING = "";
+
+    /**
+     * 对冲ID -> 主请求选中的实例（host:port）
+     */
+    private final Map<String, String> primaryInstances = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        HttpHeaders headers = headers(request);
+        String hedgeId = headers != null ? headers.getFirst(HEDGE_ID_HEADER) : null;
+        if (hedgeId != null && !HEDGE_ATTEMPT.equals(headers.getFirst(HEDGE_ATTEMPT_HEADER))) {
+            String instance = instanceKey(lbResponse.getServer());
+            primaryInstances.computeIfPresent(hedgeId, (id, current) -> instance);
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+    }
+
+    /**
+     * 返回对冲请求需要避开的实例，不是对冲请求或主请求尚未选定实例时返回 null，此时对冲请求可能选中同一个实例
+     */
+    public String excludedInstance(Request<?> request) {
+        if (!(request.getContext() instanceof RequestDataContext context) || context.getClientRequest() == null) {
+            return null;
+        }
+        HttpHeaders headers = context.getClientRequest().getHeaders();
+        if (headers == null || !HEDGE_ATTEMPT.equals(headers.getFirst(HEDGE_ATTEMPT_HEADER))) {
+            return null;
+        }
+        String hedgeId = headers.getFirst(HEDGE_ID_HEADER);
+        String instance = hedgeId != null ? primaryInstances.get(hedgeId) : null;
+        return PENDING.equals(instance) ? null : instance;
+    }
+
+    /**
+     * 发出主请求前登记对冲ID，之后必须调用 release
+     */
+    public void register(String hedgeId) {
+        primaryInstances.put(hedgeId, PENDING);
+    }
+
+    /**
+     * 一组对冲请求结束后清理登记信息
+     */
+    public void release(String hedgeId) {
+        primaryInstances.remove(hedgeId);
+    }
+
+    public static String instanceKey(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static HttpHeaders headers(Request<RequestDataContext> request) {
+        RequestDataContext context = request.getContext();
+        return context != null && context.getClientRequest() != null ? context.getClientRequest().getHeaders() : null;
+    }
+}
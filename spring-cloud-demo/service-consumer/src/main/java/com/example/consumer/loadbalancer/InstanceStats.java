@@ -0,0 +1,146 @@
+package com.example.consumer.loadbalancer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务实例的调用统计
+ * 维护进行中的请求数和峰值敏感的指数加权平均响应时间（peak EWMA）：
+ * - 新样本高于当前均值时直接取新样本，慢实例立刻被识别
+ * - 新样本低于当前均值时按距上次更新的时间衰减，时间越久新样本权重越大；每个样本的权重不低于 MIN_WEIGHT，
+ *   高频调用下偶发的慢请求（如预热）在几十个样本后就会被淡化
+ * - 读取时按空闲时间继续向 0 衰减，长时间没有流量的实例会重新得到试探请求，恢复后的实例因此能回到轮换中
+ *
+ * 评分 = (EWMA毫秒数 + 0.001) × (进行中请求数 + 1)，越小越好；加上的常数让没有样本的实例也按进行中请求数区分
+ *
+ * 记录最近一次被选中或调用的时间，长期闲置的统计（通常是已下线的实例）由 InstanceStatsRegistry 清理
+ */
+public class InstanceStats {
+
+    /**
+     * 单个新样本的最小权重
+     */
+    private static final double MIN_WEIGHT = 0.05;
+
+    private final String instance;
+
+    private final long decayNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final LongAdder picks = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long lastFailureNanos;
+
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    private double ewmaNanos;
+
+    private long stampNanos = System.nanoTime();
+
+    InstanceStats(String instance, long decayNanos) {
+        this.instance = instance;
+        this.decayNanos = decayNanos;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getPicks() {
+        return picks.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 连续失败次数，成功一次后清零
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * 是否处于故障状态：连续失败达到阈值，且最近一次失败距今不超过衰减时间。
+     * 超过衰减时间后实例重新参与选择，成功一次即恢复
+     */
+    public boolean isFailing(int maxConsecutiveFailures) {
+        return consecutiveFailures.get() >= maxConsecutiveFailures
+                && System.nanoTime() - lastFailureNanos < decayNanos;
+    }
+
+    /**
+     * 没有进行中的请求，且超过指定时间没有被选中或调用
+     */
+    boolean isIdle(long nowNanos, long idleNanos) {
+        return inflight.get() == 0 && nowNanos - lastUsedNanos > idleNanos;
+    }
+
+    void picked() {
+        picks.increment();
+        lastUsedNanos = System.nanoTime();
+    }
+
+    void requestStarted() {
+        inflight.incrementAndGet();
+        lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录一次请求结束
+     *
+     * @param latencyNanos 响应时间，失败的请求由调用方替换为惩罚时间
+     * @param failed       是否失败
+     */
+    void requestFinished(long latencyNanos, boolean failed) {
+        inflight.updateAndGet(current -> current > 0 ? current - 1 : 0);
+        lastUsedNanos = System.nanoTime();
+        if (failed) {
+            failures.increment();
+            consecutiveFailures.incrementAndGet();
+            lastFailureNanos = System.nanoTime();
+        } else {
+            consecutiveFailures.set(0);
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (latencyNanos > ewmaNanos) {
+                ewmaNanos = latencyNanos;
+            } else {
+                double weight = Math.min(Math.exp(-(double) (now - stampNanos) / decayNanos), 1 - MIN_WEIGHT);
+                ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            stampNanos = now;
+        }
+    }
+
+    /**
+     * 当前的EWMA响应时间（纳秒），已按空闲时间衰减
+     */
+    public synchronized double ewmaNanos() {
+        long idle = System.nanoTime() - stampNanos;
+        return ewmaNanos * Math.exp(-(double) idle / decayNanos);
+    }
+
+    public double getEwmaMillis() {
+        return ewmaNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 负载均衡评分，越小越好
+     */
+    public double score() {
+        return (getEwmaMillis() + 0.001) * (inflight.get() + 1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 服务实例调用统计登记表
+ * 作为负载均衡生命周期回调，在每次Feign调用开始和结束时更新对应实例的进行中请求数和EWMA响应时间，
+ * 同时保存负载均衡器最近的选择记录，供 /actuator/loadbalancer 查看
+ *
+ * 统计按实例地址创建，实例下线或地址变化后旧统计不会再被访问；负载均衡选择时顺带清理
+ * 超过 consumer.loadbalancer.stats-idle-expiry 没有被选中或调用、也没有进行中请求的实例，每隔该时间的四分之一最多清理一次
+ */
+@Component
+public class InstanceStatsRegistry implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    /**
+     * 保留的最近选择记录条数
+     */
+    private static final int RECENT_DECISIONS = 32;
+
+    private final long decayNanos;
+
+    private final long failurePenaltyNanos;
+
+    private final long idleExpiryNanos;
+
+    private final AtomicLong nextExpiryNanos;
+
+    /**
+     * 服务名 -> (host:port -> 统计)
+     */
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<Decision> recentDecisions = new AtomicReferenceArray<>(RECENT_DECISIONS);
+
+    private final AtomicLong decisionCount = new AtomicLong();
+
+    public InstanceStatsRegistry(@Value("${consumer.loadbalancer.decay-time:10s}") Duration decayTime,
+                                 @Value("${consumer.loadbalancer.failure-penalty:1s}") Duration failurePenalty,
+                                 @Value("${consumer.loadbalancer.stats-idle-expiry:5m}") Duration idleExpiry) {
+        this.decayNanos = decayTime.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.idleExpiryNanos = idleExpiry.toNanos();
+        this.nextExpiryNanos = new AtomicLong(System.nanoTime() + idleExpiryNanos / 4);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() != null) {
+            request.getContext().setRequestStartTime(System.nanoTime());
+        }
+        stats(lbResponse.getServer()).requestStarted();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null
+                || !lbResponse.hasServer()) {
+            return;
+        }
+        RequestDataContext context = completionContext.getLoadBalancerRequest().getContext();
+        long start = context != null ? context.getRequestStartTime() : 0;
+        long latency = start != 0 ? System.nanoTime() - start : 0;
+        ResponseData response = completionContext.getClientResponse();
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        stats(lbResponse.getServer()).requestFinished(failed ? Math.max(latency, failurePenaltyNanos) : latency, failed);
+    }
+
+    /**
+     * 返回实例的统计信息，不存在时创建
+     */
+    public InstanceStats stats(ServiceInstance instance) {
+        return services.computeIfAbsent(instance.getServiceId(), serviceId -> new ConcurrentHashMap<>())
+                .computeIfAbsent(HedgeRegistry.instanceKey(instance), key -> new InstanceStats(key, decayNanos));
+    }
+
+    /**
+     * 记录一次负载均衡选择
+     */
+    void recordDecision(String serviceId, InstanceStats first, double firstScore, InstanceStats second,
+                        double secondScore, InstanceStats chosen) {
+        chosen.picked();
+        expireIdle();
+        long index = decisionCount.getAndIncrement();
+        recentDecisions.set((int) (index % RECENT_DECISIONS), new Decision(System.currentTimeMillis(), serviceId,
+                first.getInstance(), firstScore, second != null ? second.getInstance() : null, secondScore,
+                chosen.getInstance()));
+    }
+
+    /**
+     * 移除闲置实例的统计；只在到达清理时间时由一个线程执行，其余调用直接返回
+     */
+    private void expireIdle() {
+        long now = System.nanoTime();
+        long next = nextExpiryNanos.get();
+        if (now - next < 0 || !nextExpiryNanos.compareAndSet(next, now + idleExpiryNanos / 4)) {
+            return;
+        }
+        for (Map<String, InstanceStats> instances : services.values()) {
+            instances.values().removeIf(stats -> stats.isIdle(now, idleExpiryNanos));
+        }
+    }
+
+    public Map<String, Map<String, InstanceStats>> getServices() {
+        return Collections.unmodifiableMap(services);
+    }
+
+    public long getDecisionCount() {
+        return decisionCount.get();
+    }
+
+    /**
+     * 最近的选择记录，按时间从新到旧排列
+     */
+    public List<Decision> getRecentDecisions() {
+        long count = decisionCount.get();
+        int size = (int) Math.min(count, RECENT_DECISIONS);
+        List<Decision> decisions = new ArrayList<>(size);
+        for (long i = count - 1; i >= count - size; i--) {
+            Decision decision = recentDecisions.get((int) (i % RECENT_DECISIONS));
+            if (decision != null) {
+                decisions.add(decision);
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * 一次负载均衡选择：两个候选实例及其评分，以及最终选中的实例
+     */
+    public record Decision(long timestamp, String serviceId, String first, double firstScore, String second,
+                           double secondScore, String chosen) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 负载均衡监控端点：/actuator/loadbalancer
+ * 展示每个服务实例的EWMA响应时间、进行中请求数、评分、被选中次数，以及最近的选择记录
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LoadBalancerEndpoint(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> loadBalancer() {
+        Map<String, Object> services = new LinkedHashMap<>();
+        statsRegistry.getServices().forEach((serviceId, instances) -> {
+            List<Map<String, Object>> instanceList = new ArrayList<>();
+            instances.values().forEach(stats -> {
+                Map<String, Object> instance = new LinkedHashMap<>();
+                instance.put("instance", stats.getInstance());
+                instance.put("ewmaMillis", stats.getEwmaMillis());
+                instance.put("inflight", stats.getInflight());
+                instance.put("score", stats.score());
+                instance.put("picks", stats.getPicks());
+                instance.put("failures", stats.getFailures());
+                instanceList.add(instance);
+            });
+            services.put(serviceId, instanceList);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("services", services);
+        result.put("decisions", statsRegistry.getDecisionCount());
+        result.put("recentDecisions", statsRegistry.getRecentDecisions());
+        return result;
+    }
+}
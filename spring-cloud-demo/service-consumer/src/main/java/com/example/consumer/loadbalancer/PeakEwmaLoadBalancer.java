@@ -0,0 +1,83 @@
+package com.example.consumer.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于响应时间的负载均衡器（power of two choices + peak EWMA）
+ * 每次从候选实例中随机取两个，选择评分（EWMA响应时间 × 进行中请求数）较低的一个。
+ * 只比较两个实例既能避开慢实例，又不会让所有消费者同时涌向同一个“最快”实例
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeakEwmaLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final String serviceId;
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, InstanceStatsRegistry statsRegistry) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            logger.warn("服务 {} 没有可用实例", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            ServiceInstance instance = instances.get(0);
+            InstanceStats stats = statsRegistry.stats(instance);
+            statsRegistry.recordDecision(serviceId, stats, stats.score(), null, 0, stats);
+            return new DefaultResponse(instance);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIndex = random.nextInt(instances.size());
+        int secondIndex = random.nextInt(instances.size() - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+        ServiceInstance first = instances.get(firstIndex);
+        ServiceInstance second = instances.get(secondIndex);
+        InstanceStats firstStats = statsRegistry.stats(first);
+        InstanceStats secondStats = statsRegistry.stats(second);
+        double firstScore = firstStats.score();
+        double secondScore = secondStats.score();
+        boolean firstWins = firstScore <= secondScore;
+        statsRegistry.recordDecision(serviceId, firstStats, firstScore, secondStats, secondScore,
+                firstWins ? firstStats : secondStats);
+        return new DefaultResponse(firstWins ? first : second);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.consumer.loadbalancer;
+
+import com.example.consumer.config.AffinityProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * service-provider 的负载均衡配置
+ * 该类由 @LoadBalancerClient 注册到负载均衡子容器中，不能加 @Configuration，否则会被主容器扫描成全局配置
+ */
+public class ProviderLoadBalancerConfiguration {
+
+    /**
+     * 实例列表：服务发现 -> 缓存 -> 对冲请求实例过滤 -> 就近路由
+     * 对冲过滤放在就近路由之前，本地集群只有主请求所在的实例时，对冲请求可以溢出到其他集群
+     */
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                   Environment environment) {
+        return ServiceInstanceListSupplier.builder()
+                .withBlockingDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new HedgeExclusionServiceInstanceListSupplier(delegate,
+                        ctx.getBean(HedgeRegistry.class)))
+                .with((ctx, delegate) -> {
+                    AffinityProperties properties = ctx.getBean(AffinityProperties.class);
+                    String cluster = properties.getCluster() != null ? properties.getCluster()
+                            : environment.getProperty("spring.cloud.nacos.discovery.cluster-name");
+                    String version = properties.getVersion() != null ? properties.getVersion()
+                            : environment.getProperty("spring.cloud.nacos.discovery.metadata.version");
+                    return new AffinityServiceInstanceListSupplier(delegate, properties,
+                            ctx.getBean(InstanceStatsRegistry.class), ctx.getBean(MeterRegistry.class),
+                            cluster, version);
+                })
+                .build(context);
+    }
+
+    /**
+     * 负载均衡策略：按实例的EWMA响应时间和进行中请求数做 power of two choices，替代默认的轮询
+     */
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory, InstanceStatsRegistry statsRegistry) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, statsRegistry);
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.provider.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * docker-archive / oci-archive 镜像 tar 包的结构信息
+ * - 通过 TarIndex 按头部偏移定位 manifest、config 和各层，不解压、不复制层数据
+ * - 打开耗时只与 tar 包的条目数有关，几 GB 的 tar 包也只读取几十 KB
+ * - 层的摘要优先取自 manifest、blobs/sha256/ 文件名或 config 的 diff_ids，都拿不到时由 computeDigest 流式计算
+ */
+public final class ImageArchive {
+
+    public enum Format {
+        /**
+         * docker save 生成的 tar 包，以 manifest.json 描述镜像
+         */
+        DOCKER_ARCHIVE,
+        /**
+         * OCI 镜像布局打成的 tar 包，以 index.json 描述镜像
+         */
+        OCI_ARCHIVE
+    }
+
+    /**
+     * manifest、config 等 JSON 文件的大小上限
+     */
+    private static final int MAX_METADATA_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * 流式计算摘要时每次读取的字节数
+     * 使用堆内缓冲区：MessageDigest 直接读取数组，FileChannel 读取时借用 JDK 按线程缓存的临时直接缓冲区，
+     * 每次计算不再单独分配直接内存
+     */
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private static final String DOCKER_CONFIG = "application/vnd.docker.container.image.v1+json";
+
+    private static final String DOCKER_LAYER = "application/vnd.docker.image.rootfs.diff.tar";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+
+    private final Format format;
+
+    private final List<String> repoTags;
+
+    private final ImageBlob config;
+
+    private final List<ImageBlob> layers;
+
+    /**
+     * oci-archive 中的原始 manifest，推送时原样上传以保持摘要不变；docker-archive 为空
+     */
+    private final byte[] manifest;
+
+    private final String manifestMediaType;
+
+    private ImageArchive(Path path, Format format, List<String> repoTags, ImageBlob config, List<ImageBlob> layers,
+                         byte[] manifest, String manifestMediaType) {
+        this.path = path;
+        this.format = format;
+        this.repoTags = repoTags;
+        this.config = config;
+        this.layers = layers;
+        this.manifest = manifest;
+        this.manifestMediaType = manifestMediaType;
+    }
+
+    /**
+     * 读取镜像 tar 包的结构，同时包含 manifest.json 和 index.json 时（docker 25 及以后）按 docker-archive 处理
+     *
+     * @throws IOException 不是 tar 包、缺少 manifest 或引用的文件不存在
+     */
+    public static ImageArchive open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            TarIndex index = TarIndex.read(channel);
+            if (index.find("manifest.json") != null) {
+                return readDockerArchive(path, channel, index);
+            }
+            if (index.find("index.json") != null) {
+                return readOciArchive(path, channel, index);
+            }
+            throw new IOException("tar包中没有 manifest.json 或 index.json，不是镜像tar包：" + path);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * 镜像自带的标签，例如 docker save 时指定的 cust-cont:20250617105631-x86
+     */
+    public List<String> getRepoTags() {
+        return repoTags;
+    }
+
+    public ImageBlob getConfig() {
+        return config;
+    }
+
+    public List<ImageBlob> getLayers() {
+        return layers;
+    }
+
+    /**
+     * oci-archive 的原始 manifest 内容，docker-archive 为空
+     */
+    public byte[] getManifest() {
+        return manifest == null ? null : manifest.clone();
+    }
+
+    public String getManifestMediaType() {
+        return manifestMediaType;
+    }
+
+    /**
+     * 需要推送的总字节数（config 和全部层）
+     */
+    public long getImageBytes() {
+        long total = config.size();
+        for (ImageBlob layer : layers) {
+            total += layer.size();
+        }
+        return total;
+    }
+
+    /**
+     * 流式计算 config 或层的 sha256 摘要
+     * 每次调用分配一块最多 64KB 的堆内缓冲区，按位置分块读取，不整体映射也不整体读入，内存占用与层大小无关
+     */
+    public String computeDigest(ImageBlob blob) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return sha256(channel, blob.offset(), blob.size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format + " " + path + "，标签：" + repoTags + "，config：" + config.digest() + "，层数：" + layers.size()
+                + "，大小：" + getImageBytes() + "字节";
+    }
+
+    /**
+     * manifest.json 是数组，skopeo 的 docker-archive 在未指定镜像时只接受一个镜像，这里同样取第一个
+     */
+    private static ImageArchive readDockerArchive(Path path, FileChannel channel, TarIndex index) throws IOException {
+        JsonNode manifest = readJson(channel, index, "manifest.json");
+        if (!manifest.isArray() || manifest.isEmpty()) {
+            throw new IOException("manifest.json 中没有镜像：" + path);
+        }
+        JsonNode image = manifest.get(0);
+        TarEntry configEntry = require(index, image.path("Config").asText(), path);
+        byte[] configBytes = TarIndex.readBytes(channel, configEntry, MAX_METADATA_SIZE);
+        ImageBlob config = new ImageBlob(configEntry.name(), configEntry.dataOffset(), configEntry.size(),
+                DOCKER_CONFIG, sha256(configBytes));
+        // docker save 写出的层是未压缩的 tar，摘要等于 config 中对应的 diff_id
+        JsonNode diffIds = MAPPER.readTree(configBytes).path("rootfs").path("diff_ids");
+        JsonNode layerNames = image.path("Layers");
+        List<ImageBlob> layers = new ArrayList<>(layerNames.size());
+        for (int i = 0; i < layerNames.size(); i++) {
+            TarEntry entry = require(index, layerNames.get(i).asText(), path);
+            String mediaType = layerMediaType(channel, entry);
+            String digest = digestFromName(entry.name());
+            if (digest == null && mediaType.equals(DOCKER_LAYER) && diffIds.size() == layerNames.size()) {
+                digest = diffIds.get(i).asText(null);
+            }
+            layers.add(new ImageBlob(entry.name(), entry.dataOffset(), entry.size(), mediaType, digest));
+        }
+        return new ImageArchive(path, Format.DOCKER_ARCHIVE, texts(image.path("RepoTags")), config,
+                List.copyOf(layers), null, null);
+    }
+
+    /**
+     * index.json 指向镜像 manifest，多架构镜像的 index 取其中第一个 manifest
+     */
+    private static ImageArchive readOciArchive(Path path, FileChannel channel, TarIndex index) throws IOException {
+        JsonNode descriptors = readJson(channel, index, "index.json").path("manifests");
+        if (descriptors.isEmpty()) {
+            throw new IOException("index.json 中没有镜像：" + path);
+        }
+        JsonNode descriptor = descriptors.get(0);
+        List<String> repoTags = new ArrayList<>();
+        for (JsonNode candidate : descriptors) {
+            String name = candidate.path("annotations").path("org.opencontainers.image.ref.name").asText(null);
+            if (name != null) {
+                repoTags.add(name);
+            }
+        }
+        byte[] manifestBytes = readBytes(channel, index, blobPath(descriptor, path));
+        JsonNode manifest = MAPPER.readTree(manifestBytes);
+        while (manifest.has("manifests")) {
+            if (manifest.path("manifests").isEmpty()) {
+                throw new IOException("镜像索引中没有 manifest：" + path);
+            }
+            descriptor = manifest.path("manifests").get(0);
+            manifestBytes = readBytes(channel, index, blobPath(descriptor, path));
+            manifest = MAPPER.readTree(manifestBytes);
+        }
+        String mediaType = manifest.path("mediaType").asText(descriptor.path("mediaType")
+                .asText("application/vnd.oci.image.manifest.v1+json"));
+        ImageBlob config = ociBlob(index, manifest.path("config"), path);
+        JsonNode layerDescriptors = manifest.path("layers");
+        List<ImageBlob> layers = new ArrayList<>(layerDescriptors.size());
+        for (JsonNode layer : layerDescriptors) {
+            layers.add(ociBlob(index, layer, path));
+        }
+        return new ImageArchive(path, Format.OCI_ARCHIVE, List.copyOf(repoTags), config, List.copyOf(layers),
+                manifestBytes, mediaType);
+    }
+
+    private static ImageBlob ociBlob(TarIndex index, JsonNode descriptor, Path path) throws IOException {
+        TarEntry entry = require(index, blobPath(descriptor, path), path);
+        long size = descriptor.path("size").asLong(-1);
+        if (size >= 0 && size != entry.size()) {
+            throw new IOException(entry.name() + " 的大小 " + entry.size() + " 与 manifest 中的 " + size + " 不一致");
+        }
+        return new ImageBlob(entry.name(), entry.dataOffset(), entry.size(), descriptor.path("mediaType").asText(null),
+                descriptor.path("digest").asText());
+    }
+
+    /**
+     * OCI 布局中摘要 sha256:abc 对应的文件为 blobs/sha256/abc
+     */
+    private static String blobPath(JsonNode descriptor, Path path) throws IOException {
+        String digest = descriptor.path("digest").asText();
+        int colon = digest.indexOf(':');
+        if (colon <= 0 || colon == digest.length() - 1 || digest.indexOf('/') >= 0) {
+            throw new IOException("摘要格式不正确：" + digest + "，tar包：" + path);
+        }
+        return "blobs/" + digest.substring(0, colon) + "/" + digest.substring(colon + 1);
+    }
+
+    /**
+     * 文件名为 blobs/sha256/abc 时摘要为 sha256:abc，否则为空
+     */
+    private static String digestFromName(String name) {
+        String[] parts = name.split("/");
+        if (parts.length == 3 && parts[0].equals("blobs") && !parts[1].isEmpty() && !parts[2].isEmpty()) {
+            return parts[1] + ":" + parts[2];
+        }
+        return null;
+    }
+
+    /**
+     * docker-archive 的层通常未压缩，按开头的魔数识别 gzip 和 zstd 压缩的层
+     */
+    private static String layerMediaType(FileChannel channel, TarEntry entry) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        channel.read(magic, entry.dataOffset());
+        byte[] bytes = magic.array();
+        if (magic.position() >= 2 && bytes[0] == (byte) 0x1f && bytes[1] == (byte) 0x8b) {
+            return DOCKER_LAYER + ".gzip";
+        }
+        if (magic.position() == 4 && bytes[0] == (byte) 0x28 && bytes[1] == (byte) 0xb5 && bytes[2] == (byte) 0x2f
+                && bytes[3] == (byte) 0xfd) {
+            return "application/vnd.oci.image.layer.v1.tar+zstd";
+        }
+        return DOCKER_LAYER;
+    }
+
+    private static TarEntry require(TarIndex index, String name, Path path) throws IOException {
+        TarEntry entry = name.isEmpty() ? null : index.find(name);
+        if (entry == null) {
+            throw new IOException("镜像tar包中缺少文件：" + name + "，tar包：" + path);
+        }
+        return entry;
+    }
+
+    private static JsonNode readJson(FileChannel channel, TarIndex index, String name) throws IOException {
+        return MAPPER.readTree(readBytes(channel, index, name));
+    }
+
+    private static byte[] readBytes(FileChannel channel, TarIndex index, String name) throws IOException {
+        TarEntry entry = index.find(name);
+        if (entry == null) {
+            throw new IOException("镜像tar包中缺少文件：" + name);
+        }
+        return TarIndex.readBytes(channel, entry, MAX_METADATA_SIZE);
+    }
+
+    private static List<String> texts(JsonNode array) {
+        List<String> values = new ArrayList<>(array.size());
+        for (JsonNode value : array) {
+            values.add(value.asText());
+        }
+        return List.copyOf(values);
+    }
+
+    private static String sha256(byte[] bytes) {
+        return "sha256:" + HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static String sha256(FileChannel channel, long offset, long size) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(DIGEST_BUFFER_SIZE, Math.max(size, 1)));
+        long position = offset;
+        long end = offset + size;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("tar包已截断，位置：" + position);
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+        return "sha256:" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 不支持 SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.provider.archive;
+
+/**
+ * 镜像 tar 包中的 config 或层，记录数据在 tar 包中的位置，推送时可按位置直接读取
+ *
+ * @param entryName tar 包中的文件路径，链接已解析为实际文件
+ * @param offset    数据在 tar 包中的起始位置
+ * @param size      字节数
+ * @param mediaType 媒体类型，docker-archive 按内容推断
+ * @param digest    摘要（如 sha256:...），无法从 manifest、文件名或 config 得知时为空，需要 ImageArchive.computeDigest 计算
+ */
+public record ImageBlob(String entryName, long offset, long size, String mediaType, String digest) {
+}
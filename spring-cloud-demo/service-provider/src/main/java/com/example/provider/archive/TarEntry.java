@@ -0,0 +1,21 @@
+package com.example.provider.archive;
+
+/**
+ * tar 包中的一个条目，只记录头部信息和数据所在位置，不读取数据
+ *
+ * @param name       条目路径，已合并 ustar 前缀、PAX 和 GNU 长文件名，去掉开头的 ./
+ * @param type       类型标志，'0' 普通文件、'1' 硬链接、'2' 符号链接、'5' 目录
+ * @param linkName   链接目标，非链接时为空
+ * @param dataOffset 数据在 tar 包中的起始位置
+ * @param size       数据字节数
+ */
+public record TarEntry(String name, char type, String linkName, long dataOffset, long size) {
+
+    public boolean isFile() {
+        return type == '0' || type == '\0' || type == '7';
+    }
+
+    public boolean isLink() {
+        return type == '1' || type == '2';
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.provider.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * tar 包条目索引
+ * 只按偏移读取每个条目的 512 字节头部，数据部分直接跳过，扫描耗时与条目数有关，与 tar 包大小无关
+ * 支持 ustar、PAX（path、linkpath、size）和 GNU 长文件名，不支持稀疏文件和多卷 tar
+ */
+public final class TarIndex {
+
+    static final int BLOCK = 512;
+
+    /**
+     * PAX 头和 GNU 长文件名条目的数据上限，超过时认为 tar 包已损坏
+     */
+    static final int MAX_EXTENDED_HEADER = 1024 * 1024;
+
+    /**
+     * 解析链接时最多跟随的次数，防止循环链接
+     */
+    private static final int MAX_LINK_DEPTH = 16;
+
+    private final Map<String, TarEntry> entries;
+
+    private TarIndex(Map<String, TarEntry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * 从通道开头扫描全部条目
+     *
+     * @throws IOException 不是 tar 格式（例如压缩过的 tar.gz）、头部校验和不对或 tar 包被截断
+     */
+    public static TarIndex read(FileChannel channel) throws IOException {
+        Map<String, TarEntry> entries = new LinkedHashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(BLOCK);
+        byte[] block = header.array();
+        long fileSize = channel.size();
+        long position = 0;
+        String longName = null;
+        String longLinkName = null;
+        Map<String, String> pax = Map.of();
+        while (position + BLOCK <= fileSize) {
+            header.clear();
+            readFully(channel, header, position);
+            if (isZero(block)) {
+                // 结束标记，后面是两个全零块和填充
+                break;
+            }
+            verifyChecksum(block, position);
+            char type = (char) block[156];
+            long size = pax.containsKey("size") ? paxSize(pax.get("size")) : parseNumber(block, 124, 12);
+            long dataOffset = position + BLOCK;
+            if (size < 0 || dataOffset + size > fileSize) {
+                throw new EOFException("tar包已截断，条目位置：" + position + "，大小：" + size);
+            }
+            switch (type) {
+                case 'x' -> pax = parsePax(readExtended(channel, dataOffset, size));
+                case 'g' -> {
+                    // 全局 PAX 头只影响时间、属主等元数据，这里用不到
+                }
+                case 'L' -> longName = readLongName(channel, dataOffset, size);
+                case 'K' -> longLinkName = readLongName(channel, dataOffset, size);
+                default -> {
+                    String name = pax.getOrDefault("path", longName != null ? longName : headerName(block));
+                    String linkName = pax.getOrDefault("linkpath",
+                            longLinkName != null ? longLinkName : string(block, 157, 100));
+                    name = normalize(name);
+                    entries.put(name, new TarEntry(name, type, linkName.isEmpty() ? null : linkName,
+                            dataOffset, size));
+                    longName = null;
+                    longLinkName = null;
+                    pax = Map.of();
+                }
+            }
+            position = dataOffset + (size + BLOCK - 1) / BLOCK * BLOCK;
+        }
+        return new TarIndex(entries);
+    }
+
+    public Collection<TarEntry> entries() {
+        return entries.values();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 按路径查找普通文件，路径是链接时跟随到最终的文件
+     *
+     * @return 不存在、不是文件或链接目标不存在时为空
+     */
+    public TarEntry find(String name) {
+        TarEntry entry = entries.get(normalize(name));
+        for (int depth = 0; entry != null && entry.isLink(); depth++) {
+            if (depth >= MAX_LINK_DEPTH) {
+                return null;
+            }
+            entry = entries.get(linkTarget(entry));
+        }
+        return entry != null && entry.isFile() ? entry : null;
+    }
+
+    /**
+     * 读取小文件（manifest、config 等）的全部内容
+     *
+     * @param maxBytes 文件超过该大小时抛出异常，避免把层数据读入内存
+     */
+    public static byte[] readBytes(FileChannel channel, TarEntry entry, int maxBytes) throws IOException {
+        if (entry.size() > maxBytes) {
+            throw new IOException(entry.name() + " 超过 " + maxBytes + " 字节，不按小文件读取");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) entry.size());
+        readFully(channel, buffer, entry.dataOffset());
+        return buffer.array();
+    }
+
+    /**
+     * 硬链接目标是 tar 包内的完整路径，符号链接目标相对于链接所在目录
+     */
+    private static String linkTarget(TarEntry link) {
+        String target = link.linkName();
+        if (link.type() == '1' || target.startsWith("/")) {
+            return normalize(target);
+        }
+        int slash = link.name().lastIndexOf('/');
+        return normalize(slash < 0 ? target : link.name().substring(0, slash + 1) + target);
+    }
+
+    /**
+     * 去掉开头的 / 和 ./，处理路径中的 . 和 ..，目录条目去掉结尾的 /
+     */
+    static String normalize(String path) {
+        Deque<String> parts = new ArrayDeque<>();
+        for (String part : path.split("/")) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..")) {
+                parts.pollLast();
+            } else {
+                parts.addLast(part);
+            }
+        }
+        return String.join("/", parts);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("tar包已截断，位置：" + position);
+            }
+            position += read;
+        }
+    }
+
+    private static byte[] readExtended(FileChannel channel, long offset, long size) throws IOException {
+        if (size > MAX_EXTENDED_HEADER) {
+            throw new IOException("tar扩展头过大：" + size + " 字节，位置：" + offset);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        readFully(channel, buffer, offset);
+        return buffer.array();
+    }
+
+    /**
+     * PAX 记录格式为 "长度 键=值\n"，长度包含整条记录
+     */
+    static Map<String, String> parsePax(byte[] bytes) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        int position = 0;
+        while (position < bytes.length) {
+            int space = position;
+            while (space < bytes.length && bytes[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(bytes, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("PAX扩展头格式不正确");
+            }
+            // 至少包含长度、空格和结尾的换行
+            if (length < space - position + 2 || position + length > bytes.length) {
+                throw new IOException("PAX扩展头格式不正确");
+            }
+            String record = new String(bytes, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                values.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            position += length;
+        }
+        return values;
+    }
+
+    static String headerName(byte[] block) {
+        String name = string(block, 0, 100);
+        // ustar 格式的长路径拆成前缀和名称两部分
+        if (block[257] == 'u' && block[258] == 's' && block[259] == 't' && block[260] == 'a' && block[261] == 'r') {
+            String prefix = string(block, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    static String string(byte[] block, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && block[end] != 0) {
+            end++;
+        }
+        return new String(block, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * GNU 长文件名条目的数据是以 NUL 结尾的路径
+     */
+    private static String readLongName(FileChannel channel, long offset, long size) throws IOException {
+        byte[] bytes = readExtended(channel, offset, size);
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * PAX 头的 size 是十进制文本，格式不对时按 tar 包损坏处理
+     */
+    static long paxSize(String value) throws IOException {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("PAX扩展头的size不是有效数字：" + value);
+        }
+    }
+
+    /**
+     * 数字字段为八进制文本；最高位为1时是 GNU 的 base-256 二进制格式，用于超过 8GB 的文件
+     */
+    static long parseNumber(byte[] block, int offset, int length) throws IOException {
+        if ((block[offset] & 0x80) != 0) {
+            long value = block[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (block[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end && block[i] == ' ') {
+            i++;
+        }
+        for (; i < end && block[i] != 0 && block[i] != ' '; i++) {
+            if (block[i] < '0' || block[i] > '7') {
+                throw new IOException("不是tar格式：头部数字字段包含非八进制字符");
+            }
+            value = (value << 3) | (block[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 校验和是头部所有字节的和，计算时校验和字段本身按8个空格计
+     */
+    static void verifyChecksum(byte[] block, long position) throws IOException {
+        long expected = parseNumber(block, 148, 8);
+        long actual = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            actual += i >= 148 && i < 156 ? ' ' : block[i] & 0xff;
+        }
+        if (actual != expected) {
+            throw new IOException("不是tar格式或tar包已损坏：头部校验和不一致，位置：" + position);
+        }
+    }
+
+    static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.provider.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * 按顺序扫描正在接收的 tar 数据流，每个普通文件接收完成时给出其位置和 sha256 摘要
+ * 与 TarIndex 解析规则相同（ustar、PAX、GNU 长文件名），但不需要回读文件，数据只经过一次
+ * 只缓存 512 字节头部和扩展头，内存占用与 tar 包大小无关
+ */
+public final class TarStreamScanner {
+
+    /**
+     * 普通文件接收完成时调用，在接收数据的线程中执行
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param entry  条目，dataOffset 为数据在 tar 包中的起始位置
+         * @param digest 数据的摘要，例如 sha256:...
+         */
+        void entryCompleted(TarEntry entry, String digest) throws IOException;
+    }
+
+    private enum State {
+        HEADER, DATA, PADDING, END
+    }
+
+    private final Listener listener;
+
+    private final MessageDigest digest;
+
+    private final byte[] header = new byte[TarIndex.BLOCK];
+
+    private State state = State.HEADER;
+
+    /**
+     * 已扫描的字节数，即下一个字节在 tar 包中的位置
+     */
+    private long position;
+
+    private int headerFill;
+
+    private long remaining;
+
+    private TarEntry entry;
+
+    /**
+     * PAX 头和 GNU 长文件名条目的数据
+     */
+    private byte[] extended;
+
+    private int extendedFill;
+
+    private String longName;
+
+    private String longLinkName;
+
+    private Map<String, String> pax = Map.of();
+
+    private int entries;
+
+    public TarStreamScanner(Listener listener) {
+        this.listener = listener;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 扫描接下来的数据，不改变 data 的位置
+     *
+     * @throws IOException 不是 tar 格式、头部校验和不对或条目摘要校验失败
+     */
+    public void update(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate();
+        while (buffer.hasRemaining()) {
+            switch (state) {
+                case HEADER -> readHeader(buffer);
+                case DATA -> readData(buffer);
+                case PADDING -> skip(buffer);
+                case END -> {
+                    // 结束标记之后是全零块和填充
+                    position += buffer.remaining();
+                    buffer.position(buffer.limit());
+                }
+            }
+        }
+    }
+
+    /**
+     * 数据接收完毕时调用
+     *
+     * @throws EOFException tar 包在条目中间截断
+     */
+    public void finish() throws IOException {
+        if (state == State.END || (state == State.HEADER && headerFill == 0 && entries > 0)) {
+            return;
+        }
+        throw new EOFException("tar包不完整，已接收 " + position + " 字节");
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * 已扫描的条目数，不含 PAX 头和 GNU 长文件名条目
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    private void readHeader(ByteBuffer buffer) throws IOException {
+        int length = Math.min(buffer.remaining(), TarIndex.BLOCK - headerFill);
+        buffer.get(header, headerFill, length);
+        headerFill += length;
+        position += length;
+        if (headerFill < TarIndex.BLOCK) {
+            return;
+        }
+        headerFill = 0;
+        long headerPosition = position - TarIndex.BLOCK;
+        if (TarIndex.isZero(header)) {
+            state = State.END;
+            return;
+        }
+        TarIndex.verifyChecksum(header, headerPosition);
+        char type = (char) header[156];
+        long size = pax.containsKey("size") ? TarIndex.paxSize(pax.get("size")) : TarIndex.parseNumber(header, 124, 12);
+        if (size < 0) {
+            throw new IOException("tar条目大小不正确，位置：" + headerPosition);
+        }
+        switch (type) {
+            case 'x', 'L', 'K' -> {
+                if (size > TarIndex.MAX_EXTENDED_HEADER) {
+                    throw new IOException("tar扩展头过大：" + size + " 字节，位置：" + headerPosition);
+                }
+                extended = new byte[(int) size];
+                extendedFill = 0;
+                entry = new TarEntry(null, type, null, position, size);
+            }
+            case 'g' -> entry = new TarEntry(null, type, null, position, size);
+            default -> {
+                String name = pax.getOrDefault("path", longName != null ? longName : TarIndex.headerName(header));
+                String linkName = pax.getOrDefault("linkpath",
+                        longLinkName != null ? longLinkName : TarIndex.string(header, 157, 100));
+                name = TarIndex.normalize(name);
+                entry = new TarEntry(name, type, linkName.isEmpty() ? null : linkName, position, size);
+                longName = null;
+                longLinkName = null;
+                pax = Map.of();
+                entries++;
+                digest.reset();
+            }
+        }
+        remaining = size;
+        state = State.DATA;
+        if (size == 0) {
+            completeEntry();
+        }
+    }
+
+    private void readData(ByteBuffer buffer) throws IOException {
+        int length = (int) Math.min(buffer.remaining(), remaining);
+        char type = entry.type();
+        if (type == 'x' || type == 'L' || type == 'K') {
+            buffer.get(extended, extendedFill, length);
+            extendedFill += length;
+        } else {
+            ByteBuffer slice = buffer.slice(buffer.position(), length);
+            if (entry.isFile()) {
+                digest.update(slice);
+            }
+            buffer.position(buffer.position() + length);
+        }
+        position += length;
+        remaining -= length;
+        if (remaining == 0) {
+            completeEntry();
+        }
+    }
+
+    private void completeEntry() throws IOException {
+        switch (entry.type()) {
+            case 'x' -> pax = TarIndex.parsePax(extended);
+            case 'L' -> longName = nulTerminated(extended);
+            case 'K' -> longLinkName = nulTerminated(extended);
+            default -> {
+                if (entry.isFile()) {
+                    listener.entryCompleted(entry, "sha256:" + HexFormat.of().formatHex(digest.digest()));
+                }
+            }
+        }
+        extended = null;
+        entry = null;
+        remaining = (TarIndex.BLOCK - position % TarIndex.BLOCK) % TarIndex.BLOCK;
+        state = remaining == 0 ? State.HEADER : State.PADDING;
+    }
+
+    private void skip(ByteBuffer buffer) {
+        int length = (int) Math.min(buffer.remaining(), remaining);
+        buffer.position(buffer.position() + length);
+        position += length;
+        remaining -= length;
+        if (remaining == 0) {
+            state = State.HEADER;
+        }
+    }
+
+    private static String nulTerminated(byte[] bytes) {
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.provider.config;
+
+import com.example.provider.limit.ConcurrencyLimitFilter;
+import com.example.provider.limit.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 自适应并发限制配置
+ * 在 /provider/** 接口前注册 ConcurrencyLimitFilter，监控端点不受限制
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(value = "provider.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+
+    @Bean
+    public GradientConcurrencyLimiter gradientConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        log.info("自适应并发限制已启用，初始上限：{}，范围：[{}, {}]，拒绝状态码：{}", properties.getInitialLimit(),
+                properties.getMinLimit(), properties.getMaxLimit(), properties.getRejectStatus());
+        return new GradientConcurrencyLimiter(properties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(GradientConcurrencyLimiter limiter,
+                                                                                 ConcurrencyLimitProperties properties,
+                                                                                 MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limiter, properties, meterRegistry));
+        registration.setUrlPatterns(properties.getUrlPatterns());
+        // 尽早拒绝，被拒绝的请求不再经过后面的过滤器
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自适应并发限制配置
+ * 并发上限根据实测响应时间按梯度算法自动调整，超过上限的请求立即拒绝
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否启用自适应并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 需要限流的路径
+     */
+    private List<String> urlPatterns = new ArrayList<>(List.of("/provider/*"));
+
+    /**
+     * 不限流的路径前缀，用于耗时取决于镜像本身的接口：tar 包上传与包大小成正比，镜像检查要等 skopeo 访问仓库，
+     * 其响应时间不能作为调整上限的依据，长时间占用许可也会挤占快速接口的并发额度
+     */
+    private List<String> excludedPaths = new ArrayList<>(List.of("/provider/push/uploads", "/provider/images/inspect"));
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 10;
+
+    /**
+     * 并发上限的上限，不应超过 Tomcat 的最大线程数
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 响应时间不超过基线的该倍数时不降低上限，越大越能容忍响应时间的波动
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 响应时间未变慢时每次调整额外增加的并发数，用于探测更高的上限
+     */
+    private int queueSize = 4;
+
+    /**
+     * 新计算的上限所占的权重，越小调整越平缓
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 长期响应时间基线的样本窗口（按样本数计的指数移动平均）
+     */
+    private int longWindow = 600;
+
+    /**
+     * 采样窗口：窗口时间到期且样本数足够后，用窗口内的平均响应时间调整一次上限
+     */
+    private Duration window = Duration.ofMillis(100);
+
+    /**
+     * 采样窗口的最少样本数
+     */
+    private int windowMinSamples = 10;
+
+    /**
+     * 拒绝请求时返回的状态码，503 或 429，消费者的错误解码器都会按服务不可用处理
+     */
+    private int rejectStatus = 503;
+
+    /**
+     * 拒绝请求时返回的 Retry-After 秒数
+     */
+    private int retryAfterSeconds = 1;
+}
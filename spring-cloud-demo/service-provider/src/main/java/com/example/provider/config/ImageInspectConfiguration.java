@@ -0,0 +1,30 @@
+package com.example.provider.config;
+
+import com.example.provider.inspect.ImageExistenceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * 镜像检查配置
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ImageInspectProperties.class)
+public class ImageInspectConfiguration {
+
+    /**
+     * 检查通过 SkopeoUtil 执行 skopeo inspect，依赖 skopeoInspectExecutor 先设置好 SkopeoUtil 使用的 inspect 执行器
+     */
+    @Bean
+    @DependsOn("skopeoInspectExecutor")
+    public ImageExistenceService imageExistenceService(ImageInspectProperties properties,
+                                                       MeterRegistry meterRegistry) {
+        log.info("镜像检查缓存已启用，存在结果缓存：{}，不存在结果缓存：{}，批量并发数：{}", properties.getPositiveTtl(),
+                properties.getNegativeTtl(), properties.getBatchParallelism());
+        return new ImageExistenceService(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 镜像检查配置
+ * 检查结果按镜像地址和凭据缓存，存在和不存在分别设置有效期，检查失败不缓存
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.inspect")
+public class ImageInspectProperties {
+
+    /**
+     * 镜像存在的结果的缓存时间；推送任务据此跳过推送，镜像在仓库中被删除后最多延迟该时间才会重新推送
+     */
+    private Duration positiveTtl = Duration.ofMinutes(5);
+
+    /**
+     * 镜像不存在的结果的缓存时间，推送成功后立即失效
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * 缓存的检查结果数上限（同一镜像的不同凭据各占一项），超过后先清理过期项，仍超过时清理最早过期的项
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * 批量检查时同时执行的 skopeo inspect 数，不应超过 provider.skopeo.worker-threads 与 queue-capacity 之和
+     */
+    private int batchParallelism = 4;
+
+    /**
+     * 单次批量检查的镜像数上限
+     */
+    private int maxBatchSize = 1000;
+}
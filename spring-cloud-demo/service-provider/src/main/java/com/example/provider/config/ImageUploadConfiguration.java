@@ -0,0 +1,35 @@
+package com.example.provider.config;
+
+import com.example.provider.push.PushJobService;
+import com.example.provider.registry.RegistryClient;
+import com.example.provider.upload.ImageUploadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 镜像 tar 包上传配置
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ImageUploadProperties.class)
+public class ImageUploadConfiguration {
+
+    @Bean
+    public ImageUploadService imageUploadService(ImageUploadProperties properties, PushJobProperties pushProperties,
+                                                 PushJobService pushJobService, RegistryClient registryClient)
+            throws IOException {
+        Path directory = properties.getDirectory() == null || properties.getDirectory().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "provider-uploads")
+                : Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        boolean prefetch = properties.isPrefetch() && pushProperties.getBackend() == PushJobProperties.Backend.NATIVE;
+        log.info("镜像上传已启用，保存目录：{}，大小上限：{}，边接收边上传层：{}", directory, properties.getMaxSize(), prefetch);
+        return new ImageUploadService(properties, directory, prefetch, pushJobService, registryClient);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 镜像 tar 包上传配置
+ * 上传的 tar 包边接收边写入本地目录，接收完成后提交推送任务
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.upload")
+public class ImageUploadProperties {
+
+    /**
+     * 保存上传 tar 包的目录，为空时使用系统临时目录下的 provider-uploads
+     */
+    private String directory;
+
+    /**
+     * 单个 tar 包的大小上限，超过后中止接收并删除已写入的部分
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(50);
+
+    /**
+     * 每次从请求读取、写入磁盘的缓冲区大小，每个上传请求使用一个
+     */
+    private DataSize bufferSize = DataSize.ofMegabytes(1);
+
+    /**
+     * 使用原生推送（provider.push.backend=native）时，每个层接收完成后立即上传到目标仓库，不等整个 tar 包接收完
+     */
+    private boolean prefetch = true;
+
+    /**
+     * 接收完成后等待预先上传结束的最长时间，超过后取消其余的预先上传，直接提交推送任务
+     * 应小于 spring.mvc.async.request-timeout，否则上传请求先超时
+     */
+    private Duration prefetchWaitTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 推送任务结束后删除上传的 tar 包
+     */
+    private boolean deleteAfterPush = true;
+}
@@ -0,0 +1,55 @@
+package com.example.provider.config;
+
+import com.example.provider.inspect.ImageExistenceService;
+import com.example.provider.push.PushBackend;
+import com.example.provider.push.PushJobService;
+import com.example.provider.push.RegistryPushBackend;
+import com.example.provider.push.ReplicationService;
+import com.example.provider.push.SkopeoPushBackend;
+import com.example.provider.registry.RegistryClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * 镜像推送任务和多目标推送配置
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(PushJobProperties.class)
+public class PushJobConfiguration {
+
+    /**
+     * 使用 skopeo 时任务通过 SkopeoUtil 执行命令，依赖 skopeoExecutor 先设置好 SkopeoUtil 使用的执行器；
+     * 跳过已存在镜像时的检查走单独的 inspect 执行器，不占用推送的线程
+     */
+    @Bean
+    @DependsOn("skopeoExecutor")
+    public PushJobService pushJobService(PushJobProperties properties, SkopeoProperties skopeoProperties,
+                                         ImageExistenceService imageExistenceService,
+                                         RegistryClient registryClient) {
+        PushBackend backend;
+        if (properties.getBackend() == PushJobProperties.Backend.NATIVE) {
+            backend = new RegistryPushBackend(registryClient);
+        } else {
+            // 多出的任务只能在执行器中排队，排队时间不受超时控制，队列满时还会被拒绝
+            if (properties.getParallelism() > skopeoProperties.getWorkerThreads()) {
+                throw new IllegalStateException("推送任务并发数 " + properties.getParallelism()
+                        + " 不能超过 skopeo 执行器的线程数 " + skopeoProperties.getWorkerThreads()
+                        + "，请调整 provider.push.parallelism 或 provider.skopeo.worker-threads");
+            }
+            backend = new SkopeoPushBackend(imageExistenceService);
+        }
+        log.info("镜像推送任务队列已启用，推送方式：{}，并发数：{}，排队上限：{}，跳过已存在镜像：{}", properties.getBackend(),
+                properties.getParallelism(), properties.getMaxQueuedJobs(), properties.isSkipExisting());
+        return new PushJobService(properties, backend);
+    }
+
+    @Bean
+    public ReplicationService replicationService(PushJobProperties properties, RegistryClient registryClient,
+                                                 ImageExistenceService imageExistenceService) {
+        return new ReplicationService(properties, registryClient, imageExistenceService);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 镜像推送任务配置
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.push")
+public class PushJobProperties {
+
+    public enum Backend {
+        /**
+         * 启动 skopeo 进程执行 inspect / copy
+         */
+        SKOPEO,
+        /**
+         * 进程内按 OCI distribution 协议推送，配置见 provider.registry
+         */
+        NATIVE
+    }
+
+    /**
+     * 推送方式
+     */
+    private Backend backend = Backend.SKOPEO;
+
+    /**
+     * 同时执行的推送任务数；使用 skopeo 时每个任务同一时间只占用一个 skopeo 进程，不应超过 provider.skopeo.worker-threads
+     */
+    private int parallelism = 4;
+
+    /**
+     * 等待执行的任务数上限，超过后提交失败
+     */
+    private int maxQueuedJobs = 1000;
+
+    /**
+     * 推送前先检查目标镜像，已存在时跳过推送
+     */
+    private boolean skipExisting = true;
+
+    /**
+     * 已结束任务的保留时间，超过后不能再查询
+     */
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,25 @@
+package com.example.provider.config;
+
+import com.example.provider.registry.RegistryClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 原生镜像仓库推送客户端配置
+ * 推送任务在 provider.push.backend=native 时使用，多目标推送总是使用；线程在首次推送时才创建
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(RegistryProperties.class)
+public class RegistryConfiguration {
+
+    @Bean
+    public RegistryClient registryClient(RegistryProperties properties) {
+        log.info("原生镜像推送客户端已创建，上传线程数：{}，分块大小：{}，重试次数：{}，校验证书：{}",
+                properties.getUploadThreads(), properties.getChunkSize(), properties.getMaxRetries(),
+                properties.isTlsVerify());
+        return new RegistryClient(properties);
+    }
+}
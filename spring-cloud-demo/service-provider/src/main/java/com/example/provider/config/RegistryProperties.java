@@ -0,0 +1,64 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 原生镜像仓库推送配置，用于 provider.push.backend=native 的推送任务和多目标推送
+ * 按 OCI distribution 协议在进程内推送 tar 包中的镜像，不启动 skopeo 进程
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.registry")
+public class RegistryProperties {
+
+    /**
+     * 是否校验仓库的 HTTPS 证书，同 skopeo 的 --tls-verify
+     * 不校验时信任任意证书，并且 HTTPS 连接失败时改用 HTTP
+     */
+    private boolean tlsVerify = false;
+
+    /**
+     * 所有推送任务共用的层上传线程数；多目标推送中每个目标按顺序逐个上传，不占用这些线程
+     */
+    private int uploadThreads = 4;
+
+    /**
+     * 超过该大小的层分块上传，每块失败后从仓库已接收的位置续传；0 表示全部整体上传
+     */
+    private DataSize chunkSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 每个层（或分块）上传失败后的重试次数
+     */
+    private int maxRetries = 3;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 单个 HTTP 请求的超时时间，整体上传的大层和分块都在一个请求内完成
+     */
+    private Duration requestTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 多目标推送时每个目标每个层最多缓存的数据量，上传较慢的目标落后超过该值后改为自行从 tar 包读取
+     */
+    private DataSize replicationBuffer = DataSize.ofMegabytes(32);
+
+    /**
+     * 一次多目标推送的目标数上限
+     */
+    private int maxDestinations = 20;
+
+    /**
+     * 同时执行的多目标推送数，上传和读取线程数为 replication-parallelism × max-destinations × 2
+     */
+    private int replicationParallelism = 2;
+
+    /**
+     * 等待执行的多目标推送数上限，超过后提交失败
+     */
+    private int maxQueuedReplications = 100;
+}
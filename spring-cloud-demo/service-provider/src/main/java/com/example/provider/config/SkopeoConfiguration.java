@@ -0,0 +1,36 @@
+package com.example.provider.config;
+
+import com.example.provider.skopeo.SkopeoExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * skopeo 命令执行器配置
+ * 创建的执行器同时交给 SkopeoUtil 的静态方法使用；inspect 使用单独的执行器，不会排在推送的 copy 之后
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SkopeoProperties.class)
+public class SkopeoConfiguration {
+
+    @Bean
+    public SkopeoExecutor skopeoExecutor(SkopeoProperties properties) {
+        log.info("skopeo执行器已创建，可执行文件：{}，并发数：{}，队列容量：{}，超时：{}", properties.getBinary(),
+                properties.getWorkerThreads(), properties.getQueueCapacity(), properties.getTimeout());
+        SkopeoExecutor executor = new SkopeoExecutor(properties);
+        SkopeoUtil.setExecutor(executor);
+        return executor;
+    }
+
+    @Bean
+    public SkopeoExecutor skopeoInspectExecutor(SkopeoProperties properties) {
+        log.info("skopeo inspect执行器已创建，并发数：{}，队列容量：{}，超时：{}", properties.getInspectWorkerThreads(),
+                properties.getInspectQueueCapacity(), properties.getInspectTimeout());
+        SkopeoExecutor executor = new SkopeoExecutor(properties, properties.getInspectWorkerThreads(),
+                properties.getInspectQueueCapacity(), "skopeo-inspect");
+        SkopeoUtil.setInspectExecutor(executor);
+        return executor;
+    }
+}
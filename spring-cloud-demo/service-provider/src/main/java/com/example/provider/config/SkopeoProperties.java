@@ -0,0 +1,68 @@
+package com.example.provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * skopeo 命令执行配置
+ * 命令在有界线程池中执行，排队已满时立即拒绝；超时后终止 skopeo 及其子进程
+ * inspect 与 copy 分别使用各自的线程池，互不占用
+ */
+@Data
+@ConfigurationProperties(prefix = "provider.skopeo")
+public class SkopeoProperties {
+
+    /**
+     * skopeo 可执行文件，不在 PATH 中时配置绝对路径，也可以换成行为相同的脚本
+     */
+    private String binary = "skopeo";
+
+    /**
+     * skopeo copy 使用的签名策略文件
+     */
+    private String policyPath = "/home/app/skopeo/default-policy.json";
+
+    /**
+     * 同时执行的 skopeo 进程数
+     */
+    private int workerThreads = 4;
+
+    /**
+     * 等待执行的命令数上限，超过后提交的命令直接失败
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * 同时执行的 skopeo inspect 进程数
+     * inspect 使用单独的执行器，推送占满 worker-threads 时镜像检查不必排在耗时的 copy 之后
+     */
+    private int inspectWorkerThreads = 4;
+
+    /**
+     * 等待执行的 inspect 命令数上限，超过后提交的检查直接失败
+     */
+    private int inspectQueueCapacity = 64;
+
+    /**
+     * copy 等耗时命令的超时时间
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * inspect 命令的超时时间
+     */
+    private Duration inspectTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 保留的输出上限，超过后只保留开头和结尾各一半
+     */
+    private DataSize maxOutputSize = DataSize.ofKilobytes(64);
+
+    /**
+     * 超时终止时先发送 SIGTERM，等待该时间后仍未退出则强制终止
+     */
+    private Duration killGracePeriod = Duration.ofSeconds(5);
+}
@@ -1,40 +1,24 @@
 package com.example.provider.config;
 
+import com.example.provider.archive.ImageArchive;
+import com.example.provider.skopeo.ImageReferenceParser;
+import com.example.provider.skopeo.SkopeoExecutor;
+import com.example.provider.skopeo.SkopeoResult;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.regex.Pattern;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @Slf4j
 public class SkopeoUtil {
 
-    // Docker仓库地址格式校验的正则表达式 - 只支持私有仓库和IP地址仓库格式
-    private static final String DOCKER_REGISTRY_PATTERN = 
-        "^" +
-        // Registry部分 (必需): 域名或IP地址，可包含端口
-        "(?:" +
-            // 域名格式 - 必须包含至少一个点
-            "(?:[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?)*)" +
-            "|" +
-            // IP地址格式
-            "(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)" +
-        ")" +
-        // 端口号 (可选)
-        "(?::[1-9][0-9]{0,4})?" +
-        "/" +
-        // 命名空间/项目名 (必需)
-        "[a-z0-9]+(?:[._-][a-z0-9]+)*" +
-        "/" +
-        // 镜像名 (必需)
-        "[a-z0-9]+(?:[._-][a-z0-9]+)*" +
-        // 标签部分 (可选)
-        "(?::[a-zA-Z0-9_][a-zA-Z0-9._-]{0,127})?$";
-
-    private static final Pattern DOCKER_REGISTRY_REGEX = Pattern.compile(DOCKER_REGISTRY_PATTERN);
-
     /**
      * 校验Docker仓库地址格式是否标准
      * 仅支持私有仓库和IP地址仓库格式：
@@ -44,93 +28,119 @@ public class SkopeoUtil {
      * - 192.168.50.103/flow/cust-cont:20250617191632-x86 (IP地址仓库)
      * 
      * 注意：不支持Docker Hub简单格式（如ubuntu:20.04）
+     * 由 ImageReferenceParser 单次扫描校验，不分配对象
      * 
      * @param repositoryUrl Docker仓库地址
      * @return true 如果格式标准，false 如果格式不标准
      */
     public static boolean isValidDockerRepositoryUrl(String repositoryUrl) {
-        if (repositoryUrl == null || repositoryUrl.trim().isEmpty()) {
-            return false;
-        }
-        
-        String trimmedUrl = repositoryUrl.trim();
-        
-        // 移除可能的协议前缀 (docker://)
-        if (trimmedUrl.startsWith("docker://")) {
-            trimmedUrl = trimmedUrl.substring(9);
-        }
-        
-        return DOCKER_REGISTRY_REGEX.matcher(trimmedUrl).matches();
+        return ImageReferenceParser.isValid(repositoryUrl);
     }
 
     /**
-     * 校验Docker仓库地址格式并返回详细信息
+     * 校验Docker仓库地址格式，不合法时记录原因
      * 
      * @param repositoryUrl Docker仓库地址
-     * @return 包含校验结果和详细信息的字符串
+     * @return true 如果格式标准，false 如果格式不标准
      */
     public static boolean validateDockerRepositoryUrl(String repositoryUrl) {
-        if (repositoryUrl == null || repositoryUrl.trim().isEmpty()) {
+        ImageReferenceParser.Reason reason = ImageReferenceParser.validate(repositoryUrl, false);
+        if (reason == ImageReferenceParser.Reason.EMPTY) {
             log.error("Docker仓库地址不能为空");
-            return false;
+        } else if (reason != null) {
+            log.warn("Docker仓库地址格式不正确：{}，原因：{}", repositoryUrl, reason.getDescription());
         }
-        
-        String trimmedUrl = repositoryUrl.trim();
-        //String originalUrl = trimmedUrl;
-        
-        // 移除可能的协议前缀
-        if (trimmedUrl.startsWith("docker://")) {
-            trimmedUrl = trimmedUrl.substring(9);
+        return reason == null;
+    }
+
+    /**
+     * skopeo命令执行器，Spring 容器中由 SkopeoConfiguration 设置，容器外首次使用时按默认配置创建
+     */
+    private static volatile SkopeoExecutor executor;
+
+    /**
+     * 只执行 skopeo inspect 的执行器，与推送使用的执行器分开，推送占满线程时检查不必排队等待
+     */
+    private static volatile SkopeoExecutor inspectExecutor;
+
+    public static void setExecutor(SkopeoExecutor skopeoExecutor) {
+        executor = skopeoExecutor;
+    }
+
+    public static void setInspectExecutor(SkopeoExecutor skopeoExecutor) {
+        inspectExecutor = skopeoExecutor;
+    }
+
+    private static SkopeoExecutor executor() {
+        SkopeoExecutor current = executor;
+        if (current == null || current.isClosed()) {
+            synchronized (SkopeoUtil.class) {
+                current = executor;
+                if (current == null || current.isClosed()) {
+                    current = new SkopeoExecutor(new SkopeoProperties());
+                    executor = current;
+                }
+            }
         }
-        
-        if (DOCKER_REGISTRY_REGEX.matcher(trimmedUrl).matches()) {
-            //return "Docker仓库地址格式正确: " + originalUrl;
-            return true;
-        } else {
-            return false;
-            // return "Docker仓库地址格式不正确: " + originalUrl + 
-            //        "\n支持的格式示例:" +
-            //        "\n- ubuntu:20.04" +
-            //        "\n- library/ubuntu:latest" +
-            //        "\n- username/repository:tag" +
-            //        "\n- registry.example.com/namespace/repository:tag" +
-            //        "\n- registry.example.com:5000/project/image:v1.0" +
-            //        "\n- 192.168.1.100:5000/namespace/repository:tag";
+        return current;
+    }
+
+    private static SkopeoExecutor inspectExecutor() {
+        SkopeoExecutor current = inspectExecutor;
+        if (current == null || current.isClosed()) {
+            synchronized (SkopeoUtil.class) {
+                current = inspectExecutor;
+                if (current == null || current.isClosed()) {
+                    SkopeoProperties properties = new SkopeoProperties();
+                    current = new SkopeoExecutor(properties, properties.getInspectWorkerThreads(),
+                            properties.getInspectQueueCapacity(), "skopeo-inspect");
+                    inspectExecutor = current;
+                }
+            }
         }
+        return current;
     }
 
-       /**
+    /**
      * 通用的skopeo命令执行方法
-     * @param skopeoCommand skopeo命令数组
+     * 在执行器的线程池中执行并等待结果，超时后进程被终止，调用线程不会无限期阻塞
+     * @param skopeoExecutor 执行命令的执行器
+     * @param arguments skopeo命令参数，不含可执行文件
+     * @param timeout 超时时间
      * @return 返回命令的执行结果
      */
-    private static String executeSkopeoCommand(String[] skopeoCommand) {
-      ProcessBuilder processBuilder = new ProcessBuilder(skopeoCommand);
-      processBuilder.redirectErrorStream(true); // 将错误输出流重定向到标准输出流
+    private static String executeSkopeoCommand(SkopeoExecutor skopeoExecutor, List<String> arguments,
+                                               Duration timeout) {
+        try {
+            return toText(skopeoExecutor.execute(arguments, timeout).join(), timeout);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                return "skopeo任务队列已满，请稍后重试！\n";
+            }
+            if (cause instanceof IOException) {
+                return "启动skopeo进程失败！\n";
+            }
+            return "skopeo进程执行失败：" + cause + "\n";
+        } catch (CancellationException e) {
+            return "skopeo进程被取消！\n";
+        }
+    }
 
-      StringBuilder output = new StringBuilder();
-      try {
-          Process process = processBuilder.start(); // 启动进程
-          BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream())); // 获取输出流
-          String line;
-          while ((line = reader.readLine()) != null) { // 读取输出
-              output.append(line).append("\n");
-          }
-          int exitCode = process.waitFor(); // 等待进程结束
-          if (exitCode == 0) {
-              System.out.println("命令执行成功 exitCode = " + exitCode);
-          } else {
-              output.append("镜像操作失败，退出码：").append(exitCode).append("\n");
-          }
-      } catch (IOException e) {
-          output.append("启动skopeo进程失败！\n");
-          e.printStackTrace();
-      } catch (InterruptedException e) {
-          output.append("skopeo进程被中断！\n");
-          e.printStackTrace();
-      }
-      return output.toString();
-  }
+    /**
+     * 把执行结果转换为原有的文本格式：命令输出，失败时追加失败原因
+     */
+    private static String toText(SkopeoResult result, Duration timeout) {
+        StringBuilder output = new StringBuilder(result.output());
+        if (result.timedOut()) {
+            output.append("skopeo命令执行超时（").append(timeout.toSeconds()).append("秒），已终止进程\n");
+        } else if (result.exitCode() != 0) {
+            output.append("镜像操作失败，退出码：").append(result.exitCode()).append("\n");
+        } else {
+            log.debug("命令执行成功 exitCode = {}，耗时：{}ms", result.exitCode(), result.duration().toMillis());
+        }
+        return output.toString();
+    }
 
 
     /**
@@ -138,33 +148,54 @@ public class SkopeoUtil {
      * skopeo inspect --creds flow:Nvx_1024 --tls-verify=false docker://192.168.50.103/flow/cust-cont:20250617191632-x86
      */
   public static String  checkImageExist(String harborUrl, String harborUsername, String harborPassword) {
-//      String[] command = {
-//              "skopeo",
-//              "inspect",
-//              "--src-tls-verify=false",
-//              "--dest-tls-verify=false",
-//              "--dest-creds=" + harborUsername + ":" + harborPassword,
-//              "docker://" + harborUrl
-//      };
-      String[] command = {
-              "skopeo",
+      String rst = executeSkopeoCommand(inspectExecutor(),
+              inspectArguments(harborUrl, harborUsername, harborPassword),
+              inspectExecutor().getProperties().getInspectTimeout());
+
+      log.info("命令执行判断镜像是否存在结果：" + rst);
+
+      return rst;
+  }
+
+  /**
+   * 异步判断镜像是否存在，退出码为0表示镜像存在
+   */
+  public static CompletableFuture<SkopeoResult> checkImageExistAsync(String harborUrl, String harborUsername,
+                                                                     String harborPassword) {
+      SkopeoExecutor inspector = inspectExecutor();
+      return inspector.execute(inspectArguments(harborUrl, harborUsername, harborPassword),
+              inspector.getProperties().getInspectTimeout());
+  }
+
+  private static List<String> inspectArguments(String harborUrl, String harborUsername, String harborPassword) {
+      return List.of(
               "inspect",
               "--tls-verify=false",
               "--creds",
               harborUsername + ":" + harborPassword,
               "docker://" + harborUrl
-      };
-
-      String rst = executeSkopeoCommand(command);
-
-      log.info("命令执行判断镜像是否存在结果：" + rst);
-
-      return rst;
+      );
   }
 
 
 
 
+  /**
+   * 读取本地镜像tar包的结构（格式、标签、config摘要、各层大小和位置），不解压
+   * @param tarFilePath 本地tar包路径
+   * @return 不是镜像tar包或读取失败时返回null，此时仍可交给skopeo处理（例如压缩过的tar包）
+   */
+  public static ImageArchive inspectTarArchive(String tarFilePath) {
+      try {
+          ImageArchive archive = ImageArchive.open(Path.of(tarFilePath));
+          log.debug("镜像tar包：{}", archive);
+          return archive;
+      } catch (IOException e) {
+          log.warn("读取镜像tar包结构失败：{}，原因：{}", tarFilePath, e.getMessage());
+          return null;
+      }
+  }
+
   /**
    * 将本地tar包中的镜像推送到Harbor仓库
    * @param harborUrl Harbor仓库地址
@@ -180,19 +211,42 @@ public class SkopeoUtil {
                                        String tarFilePath, String harborProject,
                                        String imageName, String imageTag) {
       String harborImage = harborUrl + "/" + harborProject + "/" + imageName + ":" + imageTag;
+      ImageArchive archive = inspectTarArchive(tarFilePath);
+      if (archive != null) {
+          log.info("正在将镜像推送到Harbor仓库：{}，层数：{}，大小：{}字节", harborImage, archive.getLayers().size(),
+                  archive.getImageBytes());
+      } else {
+          log.info("正在将镜像推送到Harbor仓库：" + harborImage);
+      }
+      List<String> arguments = pushArguments(harborUsername, harborPassword, tarFilePath, harborImage);
+      String result = executeSkopeoCommand(executor(), arguments, executor().getProperties().getTimeout());
+      log.info("命令执行结果：" + result);
+      return result;
+  }
+
+  /**
+   * 异步将本地tar包中的镜像推送到Harbor仓库，参数同 pushTarToHarbor
+   */
+  public static CompletableFuture<SkopeoResult> pushTarToHarborAsync(String harborUrl, String harborUsername,
+                                                                     String harborPassword, String tarFilePath,
+                                                                     String harborProject, String imageName,
+                                                                     String imageTag) {
+      String harborImage = harborUrl + "/" + harborProject + "/" + imageName + ":" + imageTag;
       log.info("正在将镜像推送到Harbor仓库：" + harborImage);
-      String[] command = {
-          "skopeo", "copy", "--policy", "/home/app/skopeo/default-policy.json",
+      return executor().execute(pushArguments(harborUsername, harborPassword, tarFilePath, harborImage));
+  }
+
+  private static List<String> pushArguments(String harborUsername, String harborPassword, String tarFilePath,
+                                            String harborImage) {
+      List<String> arguments = List.of(
+          "copy", "--policy", executor().getProperties().getPolicyPath(),
           "--src-tls-verify=false", "--dest-tls-verify=false",
           "--dest-creds=" + harborUsername + ":" + harborPassword,
           "docker-archive:" + tarFilePath,
           "docker://" + harborImage
-      };
-
-      log.info("执行命令：" + String.join(" ", command));
-      String result = executeSkopeoCommand(command);
-      log.info("命令执行结果：" + result);
-      return result;
+      );
+      log.info("执行命令：skopeo " + SkopeoExecutor.describe(arguments));
+      return arguments;
   }
 
   /**
@@ -0,0 +1,53 @@
+package com.example.provider.controller;
+
+import com.example.provider.inspect.ImageExistenceService;
+import com.example.provider.inspect.ImageInspectRequest;
+import com.example.provider.inspect.ImageInspection;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 镜像检查接口
+ * 结果带缓存，cached 为 true 表示来自缓存；仓库凭据放在请求体中，不出现在 URL 和访问日志里
+ */
+@RestController
+@RequestMapping("/provider/images/inspect")
+public class ImageInspectController {
+
+    private final ImageExistenceService imageExistenceService;
+
+    public ImageInspectController(ImageExistenceService imageExistenceService) {
+        this.imageExistenceService = imageExistenceService;
+    }
+
+    /**
+     * 检查单个镜像
+     */
+    @PostMapping
+    public CompletableFuture<ImageInspection> inspect(@RequestBody ImageInspectRequest request) {
+        return imageExistenceService.check(request.getReference(), request.getUsername(), request.getPassword(),
+                request.isRefresh());
+    }
+
+    /**
+     * 批量检查，按请求顺序返回，单个镜像检查失败时对应结果的 status 为 ERROR
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<List<ImageInspection>> inspectAll(@RequestBody ImageInspectRequest request) {
+        List<String> references = request.getReferences() == null ? List.of() : request.getReferences();
+        return imageExistenceService.checkAll(references, request.getUsername(), request.getPassword(),
+                request.isRefresh());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
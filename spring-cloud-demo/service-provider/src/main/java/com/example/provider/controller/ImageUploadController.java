@@ -0,0 +1,95 @@
+package com.example.provider.controller;
+
+import com.example.provider.push.PushJobRequest;
+import com.example.provider.upload.ImageUploadService;
+import com.example.provider.upload.ImageUploadView;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 镜像 tar 包上传接口
+ * 请求体为 docker-archive 或 OCI 格式的 tar 包，接收完成后提交推送任务，返回任务后通过 /provider/push/jobs 查询
+ * 接收完请求体后异步等待预先上传结束，等待期间不占用请求线程
+ * 目标通过查询参数指定，仓库凭据通过请求头 X-Harbor-Username、X-Harbor-Password 传递
+ */
+@RestController
+@RequestMapping("/provider/push/uploads")
+public class ImageUploadController {
+
+    private final ImageUploadService imageUploadService;
+
+    public ImageUploadController(ImageUploadService imageUploadService) {
+        this.imageUploadService = imageUploadService;
+    }
+
+    /**
+     * 上传请求体中的 tar 包，例如 curl -T image.tar，支持分块传输
+     */
+    @PutMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CompletableFuture<ImageUploadView> upload(@RequestParam("harborUrl") String harborUrl,
+                                                     @RequestParam("harborProject") String harborProject,
+                                                     @RequestParam("imageName") String imageName,
+                                                     @RequestParam("imageTag") String imageTag,
+                                                     @RequestHeader(value = "X-Harbor-Username", required = false)
+                                                     String username,
+                                                     @RequestHeader(value = "X-Harbor-Password", required = false)
+                                                     String password,
+                                                     HttpServletRequest request) throws IOException {
+        PushJobRequest target = target(harborUrl, harborProject, imageName, imageTag, username, password);
+        return imageUploadService.upload(target, request.getInputStream());
+    }
+
+    /**
+     * 以 multipart/form-data 上传，例如 curl -F file=@image.tar，使用第一个文件部分
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CompletableFuture<ImageUploadView> uploadMultipart(@RequestParam("harborUrl") String harborUrl,
+                                                              @RequestParam("harborProject") String harborProject,
+                                                              @RequestParam("imageName") String imageName,
+                                                              @RequestParam("imageTag") String imageTag,
+                                                              @RequestHeader(value = "X-Harbor-Username",
+                                                                      required = false) String username,
+                                                              @RequestHeader(value = "X-Harbor-Password",
+                                                                      required = false) String password,
+                                                              HttpServletRequest request) throws IOException {
+        PushJobRequest target = target(harborUrl, harborProject, imageName, imageTag, username, password);
+        return imageUploadService.uploadMultipart(target, request.getContentType(), request.getInputStream());
+    }
+
+    private static PushJobRequest target(String harborUrl, String harborProject, String imageName, String imageTag,
+                                         String username, String password) {
+        PushJobRequest target = new PushJobRequest();
+        target.setHarborUrl(harborUrl);
+        target.setHarborProject(harborProject);
+        target.setImageName(imageName);
+        target.setImageTag(imageTag);
+        target.setHarborUsername(username);
+        target.setHarborPassword(password);
+        return target;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> queueFull(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
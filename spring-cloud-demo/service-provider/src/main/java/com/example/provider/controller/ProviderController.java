@@ -2,9 +2,13 @@ package com.example.provider.controller;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.annotation.PostConstruct;
@@ -12,6 +16,8 @@ import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,6 +64,37 @@ public class ProviderController {
      */
     @GetMapping("/user/{id}")
     public String getUserById(@PathVariable String id) {
+        return buildUserInfo(id);
+    }
+
+    /**
+     * 根据ID批量获取用户信息，每个ID一个 ids 参数（ids=1&ids=2）
+     * 返回结果按请求顺序排列，重复的ID只返回一次
+     * 直接读取参数原值：绑定到 List 时只有一个参数值会按逗号拆分，包含逗号的ID会被拆成多个，
+     * 因此包含逗号的ID（包括 ids=1,2 这种写法）按参数错误拒绝
+     */
+    @GetMapping("/users")
+    public Map<String, String> getUsersByIds(@RequestParam MultiValueMap<String, String> params) {
+        List<String> ids = params.get("ids");
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("缺少参数 ids");
+        }
+        Map<String, String> users = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (id.indexOf(',') >= 0) {
+                throw new IllegalArgumentException("用户ID不能包含逗号，多个ID请使用多个 ids 参数：" + id);
+            }
+            users.computeIfAbsent(id, this::buildUserInfo);
+        }
+        return users;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private String buildUserInfo(String id) {
         return String.format("用户ID: %s, 来自服务: %s, 端口: %s", id, serviceName, port);
     }
 
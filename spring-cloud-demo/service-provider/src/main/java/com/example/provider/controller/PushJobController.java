@@ -0,0 +1,88 @@
+package com.example.provider.controller;
+
+import com.example.provider.push.PushJobRequest;
+import com.example.provider.push.PushJobService;
+import com.example.provider.push.PushJobState;
+import com.example.provider.push.PushJobView;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 镜像推送任务接口
+ * 提交后立即返回任务，通过任务ID查询状态、耗时，或取消任务
+ */
+@RestController
+@RequestMapping("/provider/push/jobs")
+public class PushJobController {
+
+    private final PushJobService pushJobService;
+
+    public PushJobController(PushJobService pushJobService) {
+        this.pushJobService = pushJobService;
+    }
+
+    /**
+     * 提交推送任务，相同目标镜像正在处理时返回已有任务
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PushJobView submit(@RequestBody PushJobRequest request) {
+        return pushJobService.submit(request);
+    }
+
+    /**
+     * 批量提交推送任务，按请求顺序返回
+     * 遇到不合法的请求时返回400，其前面的请求已经提交，重新提交整批时会合并到已有任务
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<PushJobView> submitAll(@RequestBody List<PushJobRequest> requests) {
+        return requests.stream().map(pushJobService::submit).toList();
+    }
+
+    /**
+     * 查询任务列表，可按状态过滤
+     */
+    @GetMapping
+    public List<PushJobView> list(@RequestParam(value = "state", required = false) PushJobState state) {
+        return pushJobService.list(state);
+    }
+
+    /**
+     * 查询任务
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<PushJobView> get(@PathVariable("id") String id) {
+        return ResponseEntity.of(pushJobService.get(id));
+    }
+
+    /**
+     * 取消任务
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<PushJobView> cancel(@PathVariable("id") String id) {
+        return ResponseEntity.of(pushJobService.cancel(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> queueFull(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
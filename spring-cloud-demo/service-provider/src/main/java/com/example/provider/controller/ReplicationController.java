@@ -0,0 +1,67 @@
+package com.example.provider.controller;
+
+import com.example.provider.push.ReplicationRequest;
+import com.example.provider.push.ReplicationService;
+import com.example.provider.push.ReplicationView;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 多目标推送接口
+ * 一个 tar 包推送到多个 Harbor 实例或项目，提交后立即返回，通过ID查询每个目标的结果
+ */
+@RestController
+@RequestMapping("/provider/replications")
+public class ReplicationController {
+
+    private final ReplicationService replicationService;
+
+    public ReplicationController(ReplicationService replicationService) {
+        this.replicationService = replicationService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReplicationView submit(@RequestBody ReplicationRequest request) {
+        return replicationService.submit(request);
+    }
+
+    @GetMapping
+    public List<ReplicationView> list() {
+        return replicationService.list();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReplicationView> get(@PathVariable("id") String id) {
+        return ResponseEntity.of(replicationService.get(id));
+    }
+
+    /**
+     * 取消尚未结束的目标
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ReplicationView> cancel(@PathVariable("id") String id) {
+        return ResponseEntity.of(replicationService.cancel(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> queueFull(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.provider.inspect;
+
+import com.example.provider.config.ImageInspectProperties;
+import com.example.provider.config.SkopeoUtil;
+import com.example.provider.skopeo.ImageReferenceParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 镜像存在性检查
+ * - 通过 skopeo inspect 检查，输出解析为 ImageInspection
+ * - 结果按镜像地址和凭据缓存：存在和不存在分别有有效期，检查失败（认证、网络、超时）不缓存；
+ *   不同凭据的结果互不共用，避免用一个账号的检查结果回答另一个账号
+ * - 同一镜像、同一凭据的并发检查共用一次 skopeo inspect
+ * - 批量检查按 provider.inspect.batch-parallelism 限制同时执行的 skopeo 进程数，命中缓存的不占用名额
+ */
+@Slf4j
+public class ImageExistenceService {
+
+    private final ImageInspectProperties properties;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter shared;
+
+    private final MeterRegistry meterRegistry;
+
+    public ImageExistenceService(ImageInspectProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // hit：命中缓存；miss：执行 skopeo inspect；shared：与进行中的相同检查共用结果
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.shared = lookups(meterRegistry, "shared");
+        Gauge.builder("provider.image.inspect.cache.size", cache, Map::size)
+                .description("缓存的镜像检查结果数")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("provider.image.inspect.lookups")
+                .tag("result", result)
+                .description("镜像检查次数，按是否命中缓存区分")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 检查镜像是否存在
+     *
+     * @param reference 镜像地址，可以带摘要
+     * @param refresh   为 true 时忽略缓存重新检查
+     * @throws IllegalArgumentException 镜像地址格式不正确
+     */
+    public CompletableFuture<ImageInspection> check(String reference, String username, String password,
+                                                    boolean refresh) {
+        ImageReferenceParser.Reason reason = ImageReferenceParser.validate(reference, true);
+        if (reason != null) {
+            throw new IllegalArgumentException("镜像地址格式不正确：" + reference + "，" + reason.getDescription());
+        }
+        long now = System.nanoTime();
+        Entry created = new Entry();
+        Key key = Key.of(reference, username, password);
+        Entry entry = cache.compute(key, (ignored, current) -> {
+            if (current == null || current.isExpired(now) || (refresh && current.future.isDone())) {
+                return created;
+            }
+            return current;
+        });
+        if (entry != created) {
+            if (entry.future.isDone()) {
+                hits.increment();
+                return entry.future.thenApply(ImageInspection::asCached);
+            }
+            shared.increment();
+            return entry.future;
+        }
+        misses.increment();
+        evictIfFull();
+        inspect(key, username, password, entry);
+        return entry.future;
+    }
+
+    /**
+     * 批量检查，按请求顺序返回，单个镜像的地址不合法或检查失败时对应结果为 ERROR，不影响其他镜像
+     *
+     * @throws IllegalArgumentException 镜像数超过上限
+     */
+    public CompletableFuture<List<ImageInspection>> checkAll(List<String> references, String username,
+                                                             String password, boolean refresh) {
+        if (references.size() > properties.getMaxBatchSize()) {
+            throw new IllegalArgumentException("单次最多检查 " + properties.getMaxBatchSize() + " 个镜像，本次："
+                    + references.size());
+        }
+        Batch batch = new Batch(references, username, password, refresh);
+        for (int i = 0; i < Math.max(1, properties.getBatchParallelism()); i++) {
+            batch.launchNext();
+        }
+        return CompletableFuture.allOf(batch.results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> batch.results.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * 使该镜像所有凭据下已完成的缓存失效，推送成功后调用
+     */
+    public void invalidate(String reference) {
+        cache.entrySet().removeIf(item -> item.getKey().reference().equals(reference)
+                && item.getValue().future.isDone());
+    }
+
+    private void inspect(Key key, String username, String password, Entry entry) {
+        String reference = key.reference();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<ImageInspection> inspection;
+        try {
+            inspection = SkopeoUtil.checkImageExistAsync(reference, username, password)
+                    .thenApply(result -> SkopeoInspectParser.parse(reference, result));
+        } catch (RuntimeException e) {
+            inspection = CompletableFuture.failedFuture(e);
+        }
+        inspection.whenComplete((result, error) -> {
+            ImageInspection value = result != null ? result : ImageInspection.error(reference, describe(error));
+            sample.stop(Timer.builder("provider.image.inspect.duration")
+                    .tag("status", value.status().name().toLowerCase(Locale.ROOT))
+                    .description("skopeo inspect 的耗时，不含命中缓存的检查")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            switch (value.status()) {
+                case EXISTS -> entry.expiresAt = System.nanoTime() + properties.getPositiveTtl().toNanos();
+                case MISSING -> entry.expiresAt = System.nanoTime() + properties.getNegativeTtl().toNanos();
+                default -> {
+                    cache.remove(key, entry);
+                    log.warn("检查镜像 {} 失败：{}", reference, value.error());
+                }
+            }
+            entry.future.complete(value);
+        });
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return "skopeo任务队列已满，请稍后重试";
+        }
+        return "skopeo inspect 执行失败：" + cause;
+    }
+
+    /**
+     * 超过上限时先清理过期项，仍超过时按过期时间从早到晚清理已完成的项
+     */
+    private void evictIfFull() {
+        if (cache.size() <= properties.getMaxEntries()) {
+            return;
+        }
+        long now = System.nanoTime();
+        cache.entrySet().removeIf(item -> item.getValue().isExpired(now));
+        int excess = cache.size() - properties.getMaxEntries();
+        if (excess > 0) {
+            cache.entrySet().stream()
+                    .filter(item -> item.getValue().future.isDone())
+                    .sorted(Comparator.comparingLong(item -> item.getValue().expiresAt))
+                    .limit(excess)
+                    .toList()
+                    .forEach(item -> cache.remove(item.getKey(), item.getValue()));
+        }
+    }
+
+    /**
+     * 缓存键，密码只保存 SHA-256 摘要
+     */
+    private record Key(String reference, String username, String passwordDigest) {
+
+        static Key of(String reference, String username, String password) {
+            if (password == null) {
+                return new Key(reference, username, null);
+            }
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+                return new Key(reference, username, HexFormat.of().formatHex(digest));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("JDK 不支持 SHA-256", e);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<ImageInspection> future = new CompletableFuture<>();
+
+        /**
+         * 结果的过期时间（System.nanoTime），检查完成前不过期
+         */
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(long now) {
+            return future.isDone() && now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * 一次批量检查：同时进行的检查不超过并发数，一个检查完成后启动下一个
+     * 命中缓存的检查同步完成，在循环中继续启动下一个，不递归
+     */
+    private final class Batch {
+
+        private final List<String> references;
+
+        private final String username;
+
+        private final String password;
+
+        private final boolean refresh;
+
+        private final List<CompletableFuture<ImageInspection>> results;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        Batch(List<String> references, String username, String password, boolean refresh) {
+            this.references = references;
+            this.username = username;
+            this.password = password;
+            this.refresh = refresh;
+            this.results = new ArrayList<>(references.size());
+            references.forEach(reference -> results.add(new CompletableFuture<>()));
+        }
+
+        void launchNext() {
+            int index;
+            while ((index = next.getAndIncrement()) < references.size()) {
+                String reference = references.get(index);
+                CompletableFuture<ImageInspection> inspection;
+                try {
+                    inspection = check(reference, username, password, refresh);
+                } catch (IllegalArgumentException e) {
+                    inspection = CompletableFuture.completedFuture(ImageInspection.error(reference, e.getMessage()));
+                }
+                CompletableFuture<ImageInspection> result = results.get(index);
+                if (inspection.isDone()) {
+                    result.complete(inspection.join());
+                    continue;
+                }
+                inspection.whenComplete((value, error) -> {
+                    result.complete(value != null ? value : ImageInspection.error(reference, describe(error)));
+                    launchNext();
+                });
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.provider.inspect;
+
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 镜像检查请求，单个检查使用 reference，批量检查使用 references
+ */
+@Data
+public class ImageInspectRequest {
+
+    /**
+     * 镜像地址，例如 192.168.50.103/flow/cust-cont:20250617191632-x86
+     */
+    private String reference;
+
+    private List<String> references;
+
+    private String username;
+
+    @ToString.Exclude
+    private String password;
+
+    /**
+     * 为 true 时忽略缓存重新检查
+     */
+    private boolean refresh;
+}
@@ -0,0 +1,53 @@
+package com.example.provider.inspect;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 镜像检查结果，由 skopeo inspect 的输出解析而来
+ *
+ * @param reference 检查的镜像地址
+ * @param status    检查结论
+ * @param digest    manifest 摘要，镜像不存在或检查失败时为空，下同
+ * @param size      各层大小之和，skopeo 版本较旧、未输出 LayersData 时为空
+ * @param created   镜像创建时间
+ * @param layers    各层摘要
+ * @param error     检查失败的原因
+ * @param checkedAt 实际执行检查的时间，命中缓存时早于本次查询
+ * @param cached    是否来自缓存
+ */
+public record ImageInspection(String reference, Status status, String digest, Long size, Instant created,
+                              List<String> layers, String error, Instant checkedAt, boolean cached) {
+
+    public enum Status {
+        /**
+         * 镜像存在
+         */
+        EXISTS,
+        /**
+         * 仓库明确返回镜像不存在
+         */
+        MISSING,
+        /**
+         * 认证、网络、超时等原因导致无法判断，不缓存
+         */
+        ERROR
+    }
+
+    public static ImageInspection missing(String reference) {
+        return new ImageInspection(reference, Status.MISSING, null, null, null, List.of(), null, Instant.now(), false);
+    }
+
+    public static ImageInspection error(String reference, String error) {
+        return new ImageInspection(reference, Status.ERROR, null, null, null, List.of(), error, Instant.now(), false);
+    }
+
+    public boolean exists() {
+        return status == Status.EXISTS;
+    }
+
+    ImageInspection asCached() {
+        return cached ? this : new ImageInspection(reference, status, digest, size, created, layers, error, checkedAt,
+                true);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.provider.inspect;
+
+import com.example.provider.skopeo.SkopeoResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 解析 skopeo inspect 的输出
+ * 退出码为0时输出是镜像信息的 JSON；非0时按错误信息区分镜像不存在和其他失败
+ */
+final class SkopeoInspectParser {
+
+    /**
+     * 仓库表示镜像或仓库路径不存在时的错误信息（docker distribution 和 Harbor 的错误码）
+     */
+    private static final List<String> MISSING_MARKERS = List.of("manifest unknown", "name unknown", "not found");
+
+    /**
+     * 错误信息中保留的输出上限
+     */
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SkopeoInspectParser() {
+    }
+
+    static ImageInspection parse(String reference, SkopeoResult result) {
+        String output = result.output() == null ? "" : result.output();
+        if (result.timedOut()) {
+            return ImageInspection.error(reference, "skopeo inspect 执行超时");
+        }
+        if (result.exitCode() != 0) {
+            String lower = output.toLowerCase(Locale.ROOT);
+            for (String marker : MISSING_MARKERS) {
+                if (lower.contains(marker)) {
+                    return ImageInspection.missing(reference);
+                }
+            }
+            return ImageInspection.error(reference, abbreviate(output.strip()));
+        }
+        // 输出合并了标准错误，JSON 前后可能有警告信息
+        int start = output.indexOf('{');
+        int end = output.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return ImageInspection.error(reference, "无法解析 skopeo inspect 的输出：" + abbreviate(output.strip()));
+        }
+        try {
+            JsonNode json = MAPPER.readTree(output.substring(start, end + 1));
+            List<String> layers = new ArrayList<>();
+            json.path("Layers").forEach(layer -> layers.add(layer.asText()));
+            Long size = null;
+            if (json.path("LayersData").isArray()) {
+                long total = 0;
+                for (JsonNode layer : json.path("LayersData")) {
+                    total += layer.path("Size").asLong();
+                }
+                size = total;
+            }
+            return new ImageInspection(reference, ImageInspection.Status.EXISTS, json.path("Digest").asText(null),
+                    size, created(json.path("Created").asText(null)), List.copyOf(layers), null, Instant.now(), false);
+        } catch (IOException e) {
+            return ImageInspection.error(reference, "无法解析 skopeo inspect 的输出：" + e.getMessage());
+        }
+    }
+
+    /**
+     * Created 是带时区的 RFC 3339 时间，例如 2025-06-17T10:56:31.123456789+08:00
+     */
+    private static Instant created(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String abbreviate(String output) {
+        return output.length() > MAX_ERROR_LENGTH ? output.substring(0, MAX_ERROR_LENGTH) + "..." : output;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.provider.limit;
+
+import com.example.provider.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 自适应并发限制过滤器
+ * 进行中的请求数达到 GradientConcurrencyLimiter 的上限时立即返回 503（或配置的 429），不再占用 Tomcat 线程排队，
+ * 消费者的错误解码器把它当作服务不可用，重试时换到其他实例
+ *
+ * 异步接口（返回 CompletableFuture 等）的 doFilter 在异步处理开始后就返回，此时不释放并发额度，
+ * 而是等异步处理结束（完成、超时或出错）时再释放，记录的响应时间覆盖整个异步处理过程
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] REJECT_BODY = "服务繁忙，请稍后重试".getBytes(StandardCharsets.UTF_8);
+
+    private final GradientConcurrencyLimiter limiter;
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimiter limiter, ConcurrencyLimitProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.properties = properties;
+        this.rejected = Counter.builder("provider.concurrency.rejected")
+                .description("超过并发上限被拒绝的请求数")
+                .register(meterRegistry);
+        Gauge.builder("provider.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .description("当前的自适应并发上限")
+                .register(meterRegistry);
+        Gauge.builder("provider.concurrency.inflight", limiter, GradientConcurrencyLimiter::getInflight)
+                .description("进行中的请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getExcludedPaths().stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnAsyncEnd(start));
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(properties.getRejectStatus());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(REJECT_BODY.length);
+        response.getOutputStream().write(REJECT_BODY);
+    }
+
+    /**
+     * 异步处理结束时释放并发额度；超时或出错后容器还会回调 onComplete，因此只释放一次
+     */
+    private class ReleaseOnAsyncEnd implements AsyncListener {
+
+        private final long start;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnAsyncEnd(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 再次开始异步处理时容器会清空监听器，需要重新注册
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.provider.limit;
+
+import com.example.provider.config.ConcurrencyLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于响应时间梯度的自适应并发限制器（参考 Netflix concurrency-limits 的 Gradient2 算法）
+ *
+ * 用长期响应时间基线和当前窗口的响应时间之比作为梯度：
+ * - 响应时间没有变慢（梯度为 1）时，上限每个窗口增加 queueSize，持续探测更高的并发
+ * - 响应时间变慢说明请求开始排队，上限按梯度收缩，最多减半
+ * - 进行中的请求不到上限的一半时说明负载不足，不调整上限，避免空闲时上限无限增长
+ * 新上限与旧上限按 smoothing 加权平均，并限制在 [minLimit, maxLimit] 之间
+ *
+ * 获取许可只做一次 CAS，响应时间按窗口汇总后才重新计算上限，锁只在窗口汇总时短暂持有
+ */
+@Slf4j
+public class GradientConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final long windowNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double longRtt;
+
+    private long longSamples;
+
+    private long windowStart = System.nanoTime();
+
+    private long windowRttSum;
+
+    private int windowSamples;
+
+    private int windowMaxInflight;
+
+    public GradientConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 尝试获取许可，进行中的请求数已达上限时返回 false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并记录本次请求的响应时间
+     */
+    public void release(long rttNanos) {
+        int current = inflight.getAndDecrement();
+        sample(rttNanos, current);
+    }
+
+    private synchronized void sample(long rttNanos, int inflightAtCompletion) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtCompletion);
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || windowSamples < properties.getWindowMinSamples()) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInflight = windowMaxInflight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+        update(shortRtt, maxInflight);
+    }
+
+    private void update(double shortRtt, int maxInflight) {
+        // 长期基线：样本不足时取累计平均，之后取指数移动平均
+        longSamples++;
+        if (longSamples <= properties.getLongWindow()) {
+            longRtt += (shortRtt - longRtt) / longSamples;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2.0 / (properties.getLongWindow() + 1);
+        }
+        // 响应时间明显恢复后让基线更快下降，避免基线停留在拥塞期间的高位
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (maxInflight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + properties.getQueueSize();
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        newLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+        int previous = limit;
+        estimatedLimit = newLimit;
+        limit = (int) newLimit;
+        if (limit != previous && log.isTraceEnabled()) {
+            log.trace("并发上限调整：{} -> {}，窗口响应时间：{}us，基线：{}us，梯度：{}", previous, limit,
+                    (long) shortRtt / 1000, (long) longRtt / 1000, String.format("%.2f", gradient));
+        }
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 进行中的请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.provider.push;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 推送任务的执行方式，由 provider.push.backend 选择
+ * 返回的 CompletableFuture 被取消时应终止对应的操作
+ */
+public interface PushBackend {
+
+    /**
+     * 检查目标镜像是否已存在，成功表示已存在
+     */
+    CompletableFuture<PushOutcome> check(PushJobRequest request);
+
+    /**
+     * 把 tar 包中的镜像推送到目标地址
+     */
+    CompletableFuture<PushOutcome> push(PushJobRequest request);
+
+    /**
+     * 是否只能推送可解析的镜像 tar 包，是时提交任务就拒绝无法解析的 tar 包
+     */
+    default boolean requiresImageArchive() {
+        return false;
+    }
+
+    /**
+     * 转换操作的结果，取消转换后的 CompletableFuture 时一并取消原操作
+     */
+    static <T> CompletableFuture<PushOutcome> map(CompletableFuture<T> operation, Function<T, PushOutcome> mapper) {
+        CompletableFuture<PushOutcome> outcome = operation.thenApply(mapper);
+        outcome.whenComplete((result, error) -> {
+            if (outcome.isCancelled()) {
+                operation.cancel(true);
+            }
+        });
+        return outcome;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.provider.push;
+
+import com.example.provider.archive.ImageArchive;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 推送任务
+ * 状态变更都在任务自身的锁内完成，取消和正常结束之间不会交错
+ */
+public class PushJob {
+
+    private final String id;
+
+    private final PushJobRequest request;
+
+    private final long tarBytes;
+
+    /**
+     * tar 包的结构，无法读取时为空
+     */
+    private final ImageArchive archive;
+
+    private final Instant submittedAt = Instant.now();
+
+    /**
+     * 提交次数，执行期间重复提交相同目标时加一
+     */
+    private final AtomicInteger submissions = new AtomicInteger(1);
+
+    private PushJobState state = PushJobState.QUEUED;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private Integer exitCode;
+
+    private String message;
+
+    /**
+     * 当前正在执行的步骤，取消任务时一并取消
+     */
+    private CompletableFuture<PushOutcome> current;
+
+    private boolean released;
+
+    /**
+     * 任务结束（成功、跳过、失败或取消）时完成
+     */
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    PushJob(String id, PushJobRequest request, long tarBytes, ImageArchive archive) {
+        this.id = id;
+        this.request = request;
+        this.tarBytes = tarBytes;
+        this.archive = archive;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    PushJobRequest getRequest() {
+        return request;
+    }
+
+    public String getTarget() {
+        return request.target();
+    }
+
+    public String getConfigDigest() {
+        return archive == null ? null : archive.getConfig().digest();
+    }
+
+    public synchronized PushJobState getState() {
+        return state;
+    }
+
+    public synchronized Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    CompletableFuture<Void> finished() {
+        return finished;
+    }
+
+    int addSubmission() {
+        return submissions.incrementAndGet();
+    }
+
+    /**
+     * 进入下一阶段，任务已取消时返回 false
+     */
+    synchronized boolean begin(PushJobState next) {
+        if (state.isFinished()) {
+            return false;
+        }
+        if (startedAt == null) {
+            startedAt = Instant.now();
+        }
+        state = next;
+        return true;
+    }
+
+    /**
+     * 记录当前阶段正在执行的步骤，任务已取消时取消该步骤并返回 false
+     */
+    synchronized boolean attach(CompletableFuture<PushOutcome> command) {
+        if (state.isFinished()) {
+            command.cancel(true);
+            return false;
+        }
+        current = command;
+        return true;
+    }
+
+    synchronized boolean finish(PushJobState finalState, Integer exitCode, String message) {
+        if (state.isFinished()) {
+            return false;
+        }
+        this.state = finalState;
+        this.exitCode = exitCode;
+        this.message = message;
+        this.finishedAt = Instant.now();
+        this.current = null;
+        finished.complete(null);
+        return true;
+    }
+
+    synchronized boolean cancel() {
+        CompletableFuture<PushOutcome> command = current;
+        if (!finish(PushJobState.CANCELLED, null, "已取消")) {
+            return false;
+        }
+        if (command != null) {
+            command.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * 任务开始执行后占用一个并发名额，结束时释放且只释放一次
+     */
+    synchronized boolean release() {
+        if (released) {
+            return false;
+        }
+        released = true;
+        return true;
+    }
+
+    public synchronized PushJobView toView() {
+        Duration duration = startedAt == null ? null
+                : Duration.between(startedAt, finishedAt == null ? Instant.now() : finishedAt);
+        return new PushJobView(id, getTarget(), state, submissions.get(), tarBytes, getConfigDigest(),
+                archive == null ? null : archive.getLayers().size(), archive == null ? null : archive.getImageBytes(),
+                submittedAt, startedAt, finishedAt, duration == null ? null : duration.toMillis(), exitCode, message);
+    }
+}
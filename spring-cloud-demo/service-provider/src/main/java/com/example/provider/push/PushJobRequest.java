@@ -0,0 +1,36 @@
+package com.example.provider.push;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * 推送任务请求，参数含义同 SkopeoUtil.pushTarToHarbor
+ */
+@Data
+public class PushJobRequest {
+
+    private String harborUrl;
+
+    private String harborUsername;
+
+    @ToString.Exclude
+    private String harborPassword;
+
+    /**
+     * 本地 docker-archive 格式的 tar 包路径
+     */
+    private String tarFilePath;
+
+    private String harborProject;
+
+    private String imageName;
+
+    private String imageTag;
+
+    /**
+     * 目标镜像地址，相同目标的任务在执行期间只推送一次
+     */
+    public String target() {
+        return harborUrl + "/" + harborProject + "/" + imageName + ":" + imageTag;
+    }
+}
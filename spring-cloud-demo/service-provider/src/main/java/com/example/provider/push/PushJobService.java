@@ -0,0 +1,286 @@
+package com.example.provider.push;
+
+import com.example.provider.archive.ImageArchive;
+import com.example.provider.config.PushJobProperties;
+import com.example.provider.config.SkopeoUtil;
+import com.example.provider.skopeo.ImageReferenceParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 镜像推送任务队列
+ * - 任务按提交顺序排队，同时执行的任务数不超过 provider.push.parallelism
+ * - 相同目标镜像的任务在排队或执行期间重复提交时返回已有任务，不会重复推送
+ * - 提交时读取 tar 包的结构（层数、大小、config 摘要），不解压，耗时与 tar 包大小无关
+ * - 推送前先检查目标镜像，已存在时跳过
+ * - 每个任务依次检查目标镜像和推送，由 PushBackend 执行（skopeo 进程或进程内的原生推送）
+ */
+@Slf4j
+public class PushJobService {
+
+    private final PushJobProperties properties;
+
+    private final PushBackend backend;
+
+    private final Map<String, PushJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 排队或执行中的任务，按目标镜像地址去重
+     */
+    private final Map<String, PushJob> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 排队中的任务，和 running 一起由 this 加锁保护
+     */
+    private final Deque<PushJob> queue = new ArrayDeque<>();
+
+    private int running;
+
+    /**
+     * 正在 dispatch 中启动任务；后端同步完成时 release 会在同一线程内再次调用 dispatch，
+     * 此时直接返回，由外层循环继续启动，调用深度不随排队任务数增长
+     */
+    private boolean dispatching;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PushJobService(PushJobProperties properties, PushBackend backend) {
+        this.properties = properties;
+        this.backend = backend;
+    }
+
+    /**
+     * 提交推送任务
+     *
+     * @return 新建的任务，或执行中的相同目标任务
+     * @throws IllegalArgumentException 参数不完整、目标地址不合法、tar 包不存在或推送方式不支持该 tar 包
+     * @throws IllegalStateException    排队任务数已达上限
+     */
+    public PushJobView submit(PushJobRequest request) {
+        long tarBytes = validate(request);
+        // 读取失败（例如压缩过的 tar 包）时不拒绝，交给 skopeo 处理
+        ImageArchive archive = SkopeoUtil.inspectTarArchive(request.getTarFilePath());
+        if (archive == null && backend.requiresImageArchive()) {
+            throw new IllegalArgumentException("无法解析镜像tar包，原生推送只支持未压缩的 docker-archive / oci-archive："
+                    + request.getTarFilePath());
+        }
+        purgeExpired();
+        String target = request.target();
+        synchronized (this) {
+            PushJob existing = inFlight.get(target);
+            if (existing != null) {
+                int submissions = existing.addSubmission();
+                log.info("推送任务 {} 的目标 {} 正在处理中，合并重复提交（第{}次）", existing.getId(), target, submissions);
+                String configDigest = archive == null ? null : archive.getConfig().digest();
+                if (configDigest != null && existing.getConfigDigest() != null
+                        && !configDigest.equals(existing.getConfigDigest())) {
+                    log.warn("推送任务 {} 的目标 {} 被重复提交，但镜像不同（{} / {}），以已有任务为准", existing.getId(),
+                            target, existing.getConfigDigest(), configDigest);
+                }
+                return existing.toView();
+            }
+            if (queue.size() >= properties.getMaxQueuedJobs()) {
+                throw new IllegalStateException("推送任务排队数已达上限：" + properties.getMaxQueuedJobs());
+            }
+            PushJob job = new PushJob("push-" + sequence.incrementAndGet(), request, tarBytes, archive);
+            jobs.put(job.getId(), job);
+            inFlight.put(target, job);
+            queue.addLast(job);
+            log.info("推送任务 {} 已提交，目标：{}，tar包：{}（{}字节），排队：{}", job.getId(), target,
+                    request.getTarFilePath(), tarBytes, queue.size());
+            dispatch();
+            return job.toView();
+        }
+    }
+
+    public Optional<PushJobView> get(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(PushJob::toView);
+    }
+
+    /**
+     * 任务结束后完成，给出结束时的状态；任务不存在时为空
+     */
+    public Optional<CompletableFuture<PushJobView>> whenFinished(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(job -> job.finished().thenApplyAsync(ignored -> job.toView()));
+    }
+
+    /**
+     * 按提交顺序列出任务
+     *
+     * @param state 为空时返回全部任务
+     */
+    public List<PushJobView> list(PushJobState state) {
+        purgeExpired();
+        return jobs.values().stream()
+                .map(PushJob::toView)
+                .filter(view -> state == null || view.state() == state)
+                .sorted(Comparator.comparing(PushJobView::submittedAt).thenComparing(PushJobView::id))
+                .toList();
+    }
+
+    /**
+     * 取消任务；执行中的任务会终止正在运行的 skopeo 进程或原生推送
+     *
+     * @return 任务不存在时为空
+     */
+    public Optional<PushJobView> cancel(String id) {
+        PushJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        boolean queued;
+        synchronized (this) {
+            queued = queue.remove(job);
+        }
+        if (job.cancel()) {
+            log.info("推送任务 {} 已取消，目标：{}", id, job.getTarget());
+            if (queued) {
+                // 未开始执行的任务不会经过 release，这里直接移出去重表
+                inFlight.remove(job.getTarget(), job);
+            }
+        }
+        return Optional.of(job.toView());
+    }
+
+    private long validate(PushJobRequest request) {
+        if (isBlank(request.getHarborUrl()) || isBlank(request.getHarborProject())
+                || isBlank(request.getImageName()) || isBlank(request.getImageTag())
+                || isBlank(request.getTarFilePath())) {
+            throw new IllegalArgumentException("harborUrl、harborProject、imageName、imageTag、tarFilePath 不能为空");
+        }
+        ImageReferenceParser.Reason reason = ImageReferenceParser.validate(request.target(), false);
+        if (reason != null) {
+            throw new IllegalArgumentException("目标镜像地址格式不正确：" + request.target() + "，" + reason.getDescription());
+        }
+        Path tar = Path.of(request.getTarFilePath());
+        if (!Files.isRegularFile(tar)) {
+            throw new IllegalArgumentException("tar包不存在：" + request.getTarFilePath());
+        }
+        try {
+            return Files.size(tar);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取tar包大小失败：" + request.getTarFilePath(), e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void purgeExpired() {
+        Instant expiry = Instant.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.getFinishedAt();
+            return finishedAt != null && finishedAt.isBefore(expiry);
+        });
+    }
+
+    /**
+     * 在并发名额内依次启动排队的任务
+     * 启动后同步结束的任务（例如 skopeo 队列已满被拒绝）释放的名额由本次循环继续使用，不递归调用
+     */
+    private synchronized void dispatch() {
+        if (dispatching) {
+            return;
+        }
+        dispatching = true;
+        try {
+            while (running < properties.getParallelism() && !queue.isEmpty()) {
+                PushJob job = queue.pollFirst();
+                if (job.getState().isFinished()) {
+                    continue;
+                }
+                running++;
+                start(job);
+            }
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    private void start(PushJob job) {
+        if (!properties.isSkipExisting()) {
+            push(job);
+            return;
+        }
+        if (!job.begin(PushJobState.CHECKING)) {
+            release(job);
+            return;
+        }
+        CompletableFuture<PushOutcome> check = backend.check(job.getRequest());
+        if (!job.attach(check)) {
+            release(job);
+            return;
+        }
+        check.whenComplete((outcome, error) -> {
+            if (error == null && outcome.success()) {
+                log.info("推送任务 {} 的目标 {} 已存在，跳过推送", job.getId(), job.getTarget());
+                finish(job, PushJobState.SKIPPED, outcome.exitCode(), "目标镜像已存在");
+            } else {
+                // 镜像不存在或检查失败（认证、网络等）都继续推送，由推送步骤给出最终结果
+                push(job);
+            }
+        });
+    }
+
+    private void push(PushJob job) {
+        if (!job.begin(PushJobState.PUSHING)) {
+            release(job);
+            return;
+        }
+        CompletableFuture<PushOutcome> push = backend.push(job.getRequest());
+        if (!job.attach(push)) {
+            release(job);
+            return;
+        }
+        push.whenComplete((outcome, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    log.error("推送任务 {} 执行失败，目标：{}", job.getId(), job.getTarget(), cause);
+                }
+                finish(job, PushJobState.FAILED, null, "推送执行失败：" + cause);
+            } else if (outcome.success()) {
+                log.info("推送任务 {} 推送成功，目标：{}，耗时：{}ms", job.getId(), job.getTarget(),
+                        outcome.duration().toMillis());
+                finish(job, PushJobState.SUCCEEDED, outcome.exitCode(), outcome.message());
+            } else {
+                log.warn("推送任务 {} 推送失败，目标：{}，退出码：{}", job.getId(), job.getTarget(), outcome.exitCode());
+                finish(job, PushJobState.FAILED, outcome.exitCode(), outcome.message());
+            }
+        });
+    }
+
+    private void finish(PushJob job, PushJobState state, Integer exitCode, String message) {
+        job.finish(state, exitCode, message);
+        release(job);
+    }
+
+    private void release(PushJob job) {
+        if (!job.release()) {
+            return;
+        }
+        inFlight.remove(job.getTarget(), job);
+        synchronized (this) {
+            running--;
+        }
+        dispatch();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.provider.push;
+
+/**
+ * 推送任务状态
+ */
+public enum PushJobState {
+
+    /**
+     * 排队等待执行
+     */
+    QUEUED,
+
+    /**
+     * 正在检查目标镜像是否已存在
+     */
+    CHECKING,
+
+    /**
+     * 正在执行 skopeo copy
+     */
+    PUSHING,
+
+    /**
+     * 推送成功
+     */
+    SUCCEEDED,
+
+    /**
+     * 目标镜像已存在，未推送
+     */
+    SKIPPED,
+
+    /**
+     * 推送失败或超时
+     */
+    FAILED,
+
+    /**
+     * 已取消
+     */
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == SKIPPED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.provider.push;
+
+import java.time.Instant;
+
+/**
+ * 推送任务的查询结果，不包含仓库凭据
+ *
+ * @param submissions    提交次数，大于1表示有重复提交被合并到该任务
+ * @param tarBytes       tar 包大小
+ * @param configDigest   镜像 config 的摘要，tar 包无法解析时为空，下同
+ * @param layerCount     镜像层数
+ * @param imageBytes     需要推送的字节数（config 和全部层）
+ * @param durationMillis 从开始执行到结束（或当前）的耗时，排队中为空
+ * @param exitCode       最后一个 skopeo 命令的退出码
+ * @param message        失败原因或 skopeo 输出（已截断）
+ */
+public record PushJobView(String id, String target, PushJobState state, int submissions, long tarBytes,
+                          String configDigest, Integer layerCount, Long imageBytes, Instant submittedAt,
+                          Instant startedAt, Instant finishedAt, Long durationMillis, Integer exitCode,
+                          String message) {
+}
@@ -0,0 +1,14 @@
+package com.example.provider.push;
+
+import java.time.Duration;
+
+/**
+ * 推送任务中一个步骤（检查目标镜像或推送）的结果
+ *
+ * @param success  检查步骤表示目标镜像已存在，推送步骤表示推送成功
+ * @param exitCode skopeo 进程的退出码，原生推送为空
+ * @param duration 步骤耗时
+ * @param message  失败原因或推送摘要
+ */
+public record PushOutcome(boolean success, Integer exitCode, Duration duration, String message) {
+}
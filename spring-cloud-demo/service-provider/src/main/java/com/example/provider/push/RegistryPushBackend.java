@@ -0,0 +1,46 @@
+package com.example.provider.push;
+
+import com.example.provider.registry.RegistryClient;
+import com.example.provider.registry.RegistryPushResult;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过 RegistryClient 在进程内推送，不依赖 skopeo 和签名策略文件
+ * 只支持未压缩的 docker-archive / oci-archive tar 包
+ */
+public class RegistryPushBackend implements PushBackend {
+
+    private final RegistryClient client;
+
+    public RegistryPushBackend(RegistryClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<PushOutcome> check(PushJobRequest request) {
+        long start = System.nanoTime();
+        return PushBackend.map(client.manifestExists(request.target(), request.getHarborUsername(),
+                request.getHarborPassword()), exists -> new PushOutcome(exists, null,
+                Duration.ofNanos(System.nanoTime() - start), exists ? null : "目标镜像不存在"));
+    }
+
+    @Override
+    public CompletableFuture<PushOutcome> push(PushJobRequest request) {
+        return PushBackend.map(client.push(Path.of(request.getTarFilePath()), request.target(),
+                request.getHarborUsername(), request.getHarborPassword()), RegistryPushBackend::toOutcome);
+    }
+
+    @Override
+    public boolean requiresImageArchive() {
+        return true;
+    }
+
+    private static PushOutcome toOutcome(RegistryPushResult result) {
+        return new PushOutcome(true, null, result.duration(), "manifest：" + result.manifestDigest() + "，上传 "
+                + result.uploadedBlobs() + " 个、跳过 " + result.existingBlobs() + " 个已存在的 blob，共 "
+                + result.uploadedBytes() + " 字节");
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.provider.push;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * 多目标推送中的一个目标，参数含义同 SkopeoUtil.pushTarToHarbor
+ */
+@Data
+public class ReplicationDestination {
+
+    private String harborUrl;
+
+    private String harborUsername;
+
+    @ToString.Exclude
+    private String harborPassword;
+
+    private String harborProject;
+
+    private String imageName;
+
+    private String imageTag;
+
+    /**
+     * 目标镜像地址
+     */
+    public String target() {
+        return harborUrl + "/" + harborProject + "/" + imageName + ":" + imageTag;
+    }
+}
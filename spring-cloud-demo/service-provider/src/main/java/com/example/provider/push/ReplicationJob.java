@@ -0,0 +1,107 @@
+package com.example.provider.push;
+
+import com.example.provider.archive.ImageArchive;
+import com.example.provider.registry.RegistryPushResult;
+import com.example.provider.registry.RegistryReplication;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 多目标推送任务，各目标的状态直接取自 RegistryReplication 中对应的结果，开始执行前为 QUEUED
+ */
+public class ReplicationJob {
+
+    private final String id;
+
+    private final String tarFilePath;
+
+    private final List<String> targets;
+
+    private final ImageArchive archive;
+
+    private final RegistryReplication replication;
+
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Instant finishedAt;
+
+    ReplicationJob(String id, String tarFilePath, List<String> targets, ImageArchive archive,
+                   RegistryReplication replication) {
+        this.id = id;
+        this.tarFilePath = tarFilePath;
+        this.targets = targets;
+        this.archive = archive;
+        this.replication = replication;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    List<String> getTargets() {
+        return targets;
+    }
+
+    RegistryReplication getReplication() {
+        return replication;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void finished() {
+        finishedAt = Instant.now();
+    }
+
+    public ReplicationView toView() {
+        Instant finished = finishedAt;
+        List<ReplicationView.Destination> destinations = new ArrayList<>(targets.size());
+        boolean succeeded = true;
+        boolean cancelled = true;
+        for (int i = 0; i < targets.size(); i++) {
+            ReplicationView.Destination destination = destination(targets.get(i), replication.getResults().get(i),
+                    replication.isStarted());
+            destinations.add(destination);
+            succeeded &= destination.state() == PushJobState.SUCCEEDED;
+            cancelled &= destination.state() == PushJobState.CANCELLED;
+        }
+        PushJobState running = replication.isStarted() ? PushJobState.PUSHING : PushJobState.QUEUED;
+        PushJobState state = finished == null ? running
+                : succeeded ? PushJobState.SUCCEEDED
+                : cancelled ? PushJobState.CANCELLED
+                : PushJobState.FAILED;
+        long durationMillis = Duration.between(submittedAt, finished != null ? finished : Instant.now()).toMillis();
+        return new ReplicationView(id, tarFilePath, state, archive.getConfig().digest(), archive.getLayers().size(),
+                archive.getImageBytes(), replication.getSharedBytes(), replication.getFallbackBytes(), submittedAt,
+                finished, durationMillis, destinations);
+    }
+
+    private static ReplicationView.Destination destination(String target,
+                                                           CompletableFuture<RegistryPushResult> result,
+                                                           boolean started) {
+        if (!result.isDone()) {
+            return new ReplicationView.Destination(target, started ? PushJobState.PUSHING : PushJobState.QUEUED,
+                    null, null, null, null, null, null);
+        }
+        try {
+            RegistryPushResult value = result.join();
+            return new ReplicationView.Destination(target, PushJobState.SUCCEEDED, value.manifestDigest(),
+                    value.uploadedBlobs(), value.existingBlobs(), value.uploadedBytes(),
+                    value.duration().toMillis(), null);
+        } catch (CancellationException e) {
+            return new ReplicationView.Destination(target, PushJobState.CANCELLED, null, null, null, null, null,
+                    "已取消");
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new ReplicationView.Destination(target, PushJobState.FAILED, null, null, null, null, null,
+                    "推送执行失败：" + cause);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.provider.push;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 多目标推送请求：一个 tar 包推送到多个 Harbor 实例或项目
+ */
+@Data
+public class ReplicationRequest {
+
+    /**
+     * 本地未压缩的 docker-archive / oci-archive tar 包路径
+     */
+    private String tarFilePath;
+
+    private List<ReplicationDestination> destinations;
+}
@@ -0,0 +1,169 @@
+package com.example.provider.push;
+
+import com.example.provider.archive.ImageArchive;
+import com.example.provider.config.PushJobProperties;
+import com.example.provider.config.SkopeoUtil;
+import com.example.provider.inspect.ImageExistenceService;
+import com.example.provider.registry.RegistryClient;
+import com.example.provider.registry.RegistryDestination;
+import com.example.provider.registry.RegistryReplication;
+import com.example.provider.skopeo.ImageReferenceParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多目标推送：一个 tar 包同时推送到多个 Harbor 实例或项目
+ * - 由 RegistryClient.replicate 执行，tar 包中的每个层只读取一次，分发给各目标并行上传
+ * - 上传较慢的目标最多落后 provider.registry.replication-buffer，不拖慢其他目标
+ * - 提交后立即返回，各目标独立成功或失败，通过任务ID查询每个目标的结果
+ * - 与推送任务队列相互独立，由 RegistryClient 排队执行：同时执行的多目标推送数不超过
+ *   provider.registry.replication-parallelism，上传和读取使用 RegistryClient 中线程数固定的线程池
+ */
+@Slf4j
+public class ReplicationService {
+
+    private final PushJobProperties properties;
+
+    private final RegistryClient client;
+
+    private final ImageExistenceService imageExistenceService;
+
+    private final Map<String, ReplicationJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ReplicationService(PushJobProperties properties, RegistryClient client,
+                              ImageExistenceService imageExistenceService) {
+        this.properties = properties;
+        this.client = client;
+        this.imageExistenceService = imageExistenceService;
+    }
+
+    /**
+     * 提交多目标推送
+     *
+     * @throws IllegalArgumentException 参数不完整、目标地址不合法或重复、目标数超过上限、tar 包不存在或无法解析
+     * @throws IllegalStateException    排队数已达上限
+     */
+    public ReplicationView submit(ReplicationRequest request) {
+        List<ReplicationDestination> destinations = validate(request);
+        ImageArchive archive = SkopeoUtil.inspectTarArchive(request.getTarFilePath());
+        if (archive == null) {
+            throw new IllegalArgumentException("无法解析镜像tar包，多目标推送只支持未压缩的 docker-archive / oci-archive："
+                    + request.getTarFilePath());
+        }
+        purgeExpired();
+        List<String> targets = destinations.stream().map(ReplicationDestination::target).toList();
+        RegistryReplication replication = client.replicate(Path.of(request.getTarFilePath()), destinations.stream()
+                .map(d -> new RegistryDestination(d.target(), d.getHarborUsername(), d.getHarborPassword()))
+                .toList());
+        ReplicationJob job = new ReplicationJob("replication-" + sequence.incrementAndGet(),
+                request.getTarFilePath(), targets, archive, replication);
+        jobs.put(job.getId(), job);
+        log.info("多目标推送 {} 已提交，tar包：{}（{}个层，{}字节），目标：{}", job.getId(), request.getTarFilePath(),
+                archive.getLayers().size(), archive.getImageBytes(), targets);
+        for (int i = 0; i < targets.size(); i++) {
+            String target = targets.get(i);
+            replication.getResults().get(i).thenRun(() -> imageExistenceService.invalidate(target));
+        }
+        replication.completion().thenRun(() -> {
+            job.finished();
+            ReplicationView view = job.toView();
+            long failed = view.destinations().stream().filter(d -> d.state() != PushJobState.SUCCEEDED).count();
+            log.info("多目标推送 {} 已结束，成功 {} 个、失败或取消 {} 个，分发读取 {} 字节，自行读取 {} 字节，耗时 {}ms",
+                    job.getId(), targets.size() - failed, failed, view.sharedBytesRead(), view.fallbackBytesRead(),
+                    view.durationMillis());
+        });
+        return job.toView();
+    }
+
+    public Optional<ReplicationView> get(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ReplicationJob::toView);
+    }
+
+    /**
+     * 按提交顺序列出多目标推送
+     */
+    public List<ReplicationView> list() {
+        purgeExpired();
+        return jobs.values().stream()
+                .map(ReplicationJob::toView)
+                .sorted(Comparator.comparing(ReplicationView::submittedAt).thenComparing(ReplicationView::id))
+                .toList();
+    }
+
+    /**
+     * 取消尚未结束的目标，正在上传的层在当前请求结束后停止
+     *
+     * @return 不存在时为空
+     */
+    public Optional<ReplicationView> cancel(String id) {
+        ReplicationJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.getReplication().cancel();
+        log.info("多目标推送 {} 已取消", id);
+        return Optional.of(job.toView());
+    }
+
+    private List<ReplicationDestination> validate(ReplicationRequest request) {
+        if (isBlank(request.getTarFilePath())) {
+            throw new IllegalArgumentException("tarFilePath 不能为空");
+        }
+        if (!Files.isRegularFile(Path.of(request.getTarFilePath()))) {
+            throw new IllegalArgumentException("tar包不存在：" + request.getTarFilePath());
+        }
+        List<ReplicationDestination> destinations = request.getDestinations();
+        if (destinations == null || destinations.isEmpty()) {
+            throw new IllegalArgumentException("destinations 不能为空");
+        }
+        int maxDestinations = client.getProperties().getMaxDestinations();
+        if (destinations.size() > maxDestinations) {
+            throw new IllegalArgumentException("目标数 " + destinations.size() + " 超过上限 " + maxDestinations);
+        }
+        Set<String> targets = new HashSet<>();
+        List<ReplicationDestination> checked = new ArrayList<>(destinations.size());
+        for (ReplicationDestination destination : destinations) {
+            if (destination == null || isBlank(destination.getHarborUrl())
+                    || isBlank(destination.getHarborProject()) || isBlank(destination.getImageName())
+                    || isBlank(destination.getImageTag())) {
+                throw new IllegalArgumentException("每个目标的 harborUrl、harborProject、imageName、imageTag 不能为空");
+            }
+            String target = destination.target();
+            ImageReferenceParser.Reason reason = ImageReferenceParser.validate(target, false);
+            if (reason != null) {
+                throw new IllegalArgumentException("目标镜像地址格式不正确：" + target + "，" + reason.getDescription());
+            }
+            if (!targets.add(target)) {
+                throw new IllegalArgumentException("目标镜像地址重复：" + target);
+            }
+            checked.add(destination);
+        }
+        return checked;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void purgeExpired() {
+        Instant expiry = Instant.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.getFinishedAt();
+            return finishedAt != null && finishedAt.isBefore(expiry);
+        });
+    }
+}
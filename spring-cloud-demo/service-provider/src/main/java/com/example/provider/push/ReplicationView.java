@@ -0,0 +1,32 @@
+package com.example.provider.push;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 多目标推送的查询结果，不包含仓库凭据
+ *
+ * @param state             全部目标成功为 SUCCEEDED，全部取消为 CANCELLED，其余结束情况为 FAILED，排队中为 QUEUED，执行中为 PUSHING
+ * @param imageBytes        需要推送的字节数（config 和全部层）
+ * @param sharedBytesRead   从 tar 包读取后分发给各目标的字节数，不超过 imageBytes
+ * @param fallbackBytesRead 上传较慢或重试的目标自行从 tar 包读取的字节数
+ * @param durationMillis    从提交到结束（或当前）的耗时
+ * @param destinations      各目标的结果，顺序与请求相同
+ */
+public record ReplicationView(String id, String tarFilePath, PushJobState state, String configDigest, int layerCount,
+                              long imageBytes, long sharedBytesRead, long fallbackBytesRead, Instant submittedAt,
+                              Instant finishedAt, long durationMillis, List<Destination> destinations) {
+
+    /**
+     * 一个目标的结果
+     *
+     * @param uploadedBlobs  实际上传的 config 和层数，成功后才有值，下同
+     * @param existingBlobs  仓库中已存在、跳过上传的 config 和层数
+     * @param uploadedBytes  实际上传的字节数
+     * @param durationMillis 从打开 tar 包到该目标的 manifest 上传完成的耗时
+     * @param message        失败原因
+     */
+    public record Destination(String target, PushJobState state, String manifestDigest, Integer uploadedBlobs,
+                              Integer existingBlobs, Long uploadedBytes, Long durationMillis, String message) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.provider.push;
+
+import com.example.provider.config.SkopeoUtil;
+import com.example.provider.inspect.ImageExistenceService;
+import com.example.provider.inspect.ImageInspection;
+import com.example.provider.skopeo.SkopeoResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过 skopeo inspect / skopeo copy 执行，命令的超时和终止由 SkopeoExecutor 负责
+ * 检查目标镜像走 ImageExistenceService 的缓存，推送成功后使该镜像的缓存失效
+ */
+public class SkopeoPushBackend implements PushBackend {
+
+    private final ImageExistenceService imageExistenceService;
+
+    public SkopeoPushBackend(ImageExistenceService imageExistenceService) {
+        this.imageExistenceService = imageExistenceService;
+    }
+
+    @Override
+    public CompletableFuture<PushOutcome> check(PushJobRequest request) {
+        return PushBackend.map(imageExistenceService.check(request.target(), request.getHarborUsername(),
+                request.getHarborPassword(), false), SkopeoPushBackend::toOutcome);
+    }
+
+    @Override
+    public CompletableFuture<PushOutcome> push(PushJobRequest request) {
+        CompletableFuture<PushOutcome> push = PushBackend.map(SkopeoUtil.pushTarToHarborAsync(request.getHarborUrl(),
+                request.getHarborUsername(), request.getHarborPassword(), request.getTarFilePath(),
+                request.getHarborProject(), request.getImageName(), request.getImageTag()),
+                SkopeoPushBackend::toOutcome);
+        push.thenAccept(outcome -> {
+            if (outcome.success()) {
+                imageExistenceService.invalidate(request.target());
+            }
+        });
+        return push;
+    }
+
+    private static PushOutcome toOutcome(ImageInspection inspection) {
+        String message = inspection.exists() ? null
+                : inspection.status() == ImageInspection.Status.MISSING ? "目标镜像不存在" : inspection.error();
+        return new PushOutcome(inspection.exists(), null, Duration.ZERO, message);
+    }
+
+    private static PushOutcome toOutcome(SkopeoResult result) {
+        String message = result.isSuccess() ? null
+                : (result.timedOut() ? "skopeo命令执行超时，已终止进程\n" : "") + result.output();
+        return new PushOutcome(result.isSuccess(), result.exitCode(), result.duration(), message);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.provider.registry;
+
+import com.example.provider.archive.ImageBlob;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把 tar 包中一个 blob 只读取一次，分发给多个目标仓库的上传
+ * - 第一个目标开始上传时启动读取线程，按块顺序读取，每块放入各目标的有界队列，块数据各目标共用
+ * - 读取线程只比最快的目标多读 READ_AHEAD_CHUNKS 块，整体速度与最快的目标一致
+ * - 队列已满的目标转为自行读取：立即丢弃队列中的块，从已读出的位置起直接读取 tar 包，
+ *   慢的目标不会拖慢其他目标，转为自行读取后也不再占用队列内存
+ * - 重试或续传的位置与已分发的位置不一致时，该目标同样改为自行读取
+ */
+@Slf4j
+final class BlobFanOut {
+
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * 最快的目标队列中的块数少于该值时继续读取
+     */
+    private static final int READ_AHEAD_CHUNKS = 2;
+
+    private final Path path;
+
+    private final ImageBlob blob;
+
+    private final int chunkSize;
+
+    private final Executor executor;
+
+    /**
+     * 读取线程读取的字节数，各目标共用
+     */
+    private final AtomicLong sharedBytes;
+
+    /**
+     * 改为自行读取的目标读取的字节数
+     */
+    private final AtomicLong fallbackBytes;
+
+    private final Subscriber[] subscribers;
+
+    private boolean started;
+
+    BlobFanOut(Path path, ImageBlob blob, int destinations, int chunkSize, int bufferChunks, Executor executor,
+               AtomicLong sharedBytes, AtomicLong fallbackBytes) {
+        this.path = path;
+        this.blob = blob;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.sharedBytes = sharedBytes;
+        this.fallbackBytes = fallbackBytes;
+        this.subscribers = new Subscriber[destinations];
+        for (int i = 0; i < destinations; i++) {
+            subscribers[i] = new Subscriber(bufferChunks);
+        }
+    }
+
+    /**
+     * 第 index 个目标的数据来源
+     */
+    BlobSource subscriber(int index) {
+        return subscribers[index];
+    }
+
+    private synchronized void start() {
+        if (!started) {
+            started = true;
+            executor.execute(this::read);
+        }
+    }
+
+    private void read() {
+        long position = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (position < blob.size() && awaitSpace()) {
+                ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(chunkSize, blob.size() - position));
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, blob.offset() + position + chunk.position()) < 0) {
+                        throw new IOException("tar包已截断，位置：" + (blob.offset() + position + chunk.position()));
+                    }
+                }
+                sharedBytes.addAndGet(chunk.capacity());
+                offer(chunk.array());
+                position += chunk.capacity();
+            }
+        } catch (IOException e) {
+            // 各目标从已读出的位置起自行读取，由上传请求给出最终错误
+            log.debug("读取 {} 失败，各目标改为自行读取，位置：{}：{}", blob.entryName(), position, e.toString());
+            detachAll();
+        }
+    }
+
+    /**
+     * 等待任意一个仍在接收的目标（即最快的目标）取走数据，队列中少于 READ_AHEAD_CHUNKS 块
+     *
+     * @return 所有目标都已不再接收时为 false
+     */
+    private synchronized boolean awaitSpace() throws InterruptedIOException {
+        while (true) {
+            boolean attached = false;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.attached) {
+                    if (subscriber.queue.size() < READ_AHEAD_CHUNKS) {
+                        return true;
+                    }
+                    attached = true;
+                }
+            }
+            if (!attached) {
+                return false;
+            }
+            try {
+                wait(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("读取 " + blob.entryName() + " 时被中断");
+            }
+        }
+    }
+
+    private synchronized void offer(byte[] chunk) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.attached && !subscriber.queue.offer(chunk)) {
+                subscriber.detach();
+                log.debug("{} 的一个目标上传较慢，队列已满，改为自行读取", blob.digest());
+            }
+        }
+    }
+
+    private synchronized void detachAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.detach();
+        }
+    }
+
+    private synchronized void wakeReader() {
+        notifyAll();
+    }
+
+    /**
+     * 一个目标的读取状态，同一时间只有一个上传请求读取
+     */
+    private final class Subscriber implements BlobSource {
+
+        private final ArrayBlockingQueue<byte[]> queue;
+
+        /**
+         * 是否仍从读取线程接收数据，由 BlobFanOut.this 加锁修改；变为 false 时同时清空队列
+         */
+        private volatile boolean attached = true;
+
+        private volatile boolean released;
+
+        /**
+         * 最新打开的请求序号，之前打开的流不能再读取
+         */
+        private volatile int generation;
+
+        /**
+         * 已从队列中读出的字节数
+         */
+        private long position;
+
+        private byte[] current;
+
+        private int currentOffset;
+
+        Subscriber(int bufferChunks) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(bufferChunks, READ_AHEAD_CHUNKS));
+        }
+
+        @Override
+        public InputStream open(long offset, long length) throws IOException {
+            if (released) {
+                throw new IOException("已停止读取 " + blob.digest());
+            }
+            int opened = ++generation;
+            if (attached && offset == position) {
+                start();
+                return new SharedStream(opened, length);
+            }
+            detach();
+            current = null;
+            return new FileRangeInputStream(path, blob.offset() + offset, length, fallbackBytes);
+        }
+
+        @Override
+        public void release() {
+            released = true;
+            detach();
+            // 调用时该目标的上传请求都已结束，不会再读取当前块
+            current = null;
+        }
+
+        /**
+         * 不再接收数据并丢弃队列中的块；块按顺序分发，读取中的流从已读出的位置起自行读取，数据仍然连续
+         */
+        private void detach() {
+            synchronized (BlobFanOut.this) {
+                attached = false;
+                queue.clear();
+                BlobFanOut.this.notifyAll();
+            }
+        }
+
+        /**
+         * 按顺序读取队列中的块，目标转为自行读取后从 tar 包的当前位置继续读取
+         */
+        private final class SharedStream extends InputStream {
+
+            private final int opened;
+
+            private long remaining;
+
+            private InputStream fallback;
+
+            SharedStream(int opened, long length) {
+                this.opened = opened;
+                this.remaining = length;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (fallback != null) {
+                    return fallback.read(b, off, len);
+                }
+                if (remaining == 0) {
+                    return -1;
+                }
+                while (current == null || currentOffset == current.length) {
+                    if (released || opened != generation) {
+                        throw new IOException("已停止读取 " + blob.digest());
+                    }
+                    byte[] next;
+                    try {
+                        next = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("读取 " + blob.digest() + " 时被中断");
+                    }
+                    if (next != null) {
+                        current = next;
+                        currentOffset = 0;
+                        wakeReader();
+                    } else if (!attached && queue.isEmpty()) {
+                        // 不再接收数据后队列已清空且不会再增加，剩余部分自行读取
+                        current = null;
+                        fallback = new FileRangeInputStream(path, blob.offset() + position, remaining,
+                                fallbackBytes);
+                        return fallback.read(b, off, len);
+                    }
+                }
+                int read = (int) Math.min(Math.min(len, remaining), current.length - currentOffset);
+                System.arraycopy(current, currentOffset, b, off, read);
+                currentOffset += read;
+                position += read;
+                remaining -= read;
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (fallback != null) {
+                    fallback.close();
+                }
+            }
+        }
+    }
+}
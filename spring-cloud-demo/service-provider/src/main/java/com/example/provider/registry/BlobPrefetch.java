@@ -0,0 +1,77 @@
+package com.example.provider.registry;
+
+import com.example.provider.archive.ImageBlob;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * 向一个目标仓库预先上传的 blob，由 RegistryClient.prefetch 创建
+ * 单个 blob 上传失败不影响其他 blob，之后的推送会重新上传缺少的部分
+ */
+public final class BlobPrefetch {
+
+    /**
+     * 取消后尚未开始的 blob 不再上传
+     */
+    private final CompletableFuture<RegistryPushResult> stopped;
+
+    private final BiFunction<Path, ImageBlob, CompletableFuture<Long>> uploader;
+
+    private final List<CompletableFuture<Long>> uploads = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    BlobPrefetch(CompletableFuture<RegistryPushResult> stopped,
+                 BiFunction<Path, ImageBlob, CompletableFuture<Long>> uploader) {
+        this.stopped = stopped;
+        this.uploader = uploader;
+    }
+
+    /**
+     * 异步上传文件中的一段，仓库已有时跳过
+     *
+     * @param blob 位置、大小和摘要，摘要不能为空
+     */
+    public void upload(Path file, ImageBlob blob) {
+        CompletableFuture<Long> upload = uploader.apply(file, blob);
+        upload.thenAccept(uploadedBytes::addAndGet);
+        uploads.add(upload);
+    }
+
+    /**
+     * 已提交的 blob 全部结束（成功或失败）后完成
+     */
+    public CompletableFuture<Void> completion() {
+        return CompletableFuture.allOf(uploads.stream()
+                .map(upload -> upload.handle((value, error) -> null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    public int getSubmitted() {
+        return uploads.size();
+    }
+
+    /**
+     * 已成功处理（上传或仓库已有）的 blob 数
+     */
+    public long getSucceeded() {
+        return uploads.stream().filter(upload -> upload.isDone() && !upload.isCompletedExceptionally()).count();
+    }
+
+    /**
+     * 已成功处理的 blob 字节数，包括仓库已有而跳过的
+     */
+    public long getBytes() {
+        return uploadedBytes.get();
+    }
+
+    public void cancel() {
+        stopped.cancel(false);
+        uploads.forEach(upload -> upload.cancel(false));
+    }
+}
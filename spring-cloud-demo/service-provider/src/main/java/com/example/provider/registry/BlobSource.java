@@ -0,0 +1,21 @@
+package com.example.provider.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 一个 blob 的数据来源，上传请求按位置打开，位置从 blob 起始处算起
+ */
+interface BlobSource {
+
+    /**
+     * 打开 blob 中从 offset 开始的 length 字节；重试或续传时会以相同或更早的位置再次打开
+     */
+    InputStream open(long offset, long length) throws IOException;
+
+    /**
+     * 该 blob 不再需要读取（仓库已存在、上传完成或失败）
+     */
+    default void release() {
+    }
+}
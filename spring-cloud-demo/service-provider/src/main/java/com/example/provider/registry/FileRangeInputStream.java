@@ -0,0 +1,70 @@
+package com.example.provider.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按位置读取文件中的一段，用于把 tar 包中的层直接作为请求体发送，不解压、不复制到临时文件
+ * 每次读取都是独立的定位读，不依赖也不改变通道的当前位置
+ */
+final class FileRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+
+    private long position;
+
+    private final long end;
+
+    /**
+     * 累计读取的字节数，可为空
+     */
+    private final AtomicLong bytesRead;
+
+    FileRangeInputStream(Path path, long offset, long length) throws IOException {
+        this(path, offset, length, null);
+    }
+
+    FileRangeInputStream(Path path, long offset, long length, AtomicLong bytesRead) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.position = offset;
+        this.end = offset + length;
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+        if (read < 0) {
+            throw new IOException("tar包已截断，位置：" + position);
+        }
+        position += read;
+        if (bytesRead != null) {
+            bytesRead.addAndGet(read);
+        }
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,714 @@
+package com.example.provider.registry;
+
+import com.example.provider.archive.ImageArchive;
+import com.example.provider.archive.ImageBlob;
+import com.example.provider.config.RegistryProperties;
+import com.example.provider.skopeo.ImageReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 原生镜像仓库推送客户端，按 OCI distribution 协议推送 docker-archive / oci-archive tar 包
+ * - 每个 config 和层先 HEAD 检查，仓库已有时跳过
+ * - 小于 provider.registry.chunk-size 的层整体 PUT 上传，更大的层分块 PATCH 上传，
+ *   分块失败时查询仓库已接收的位置续传，上传会话失效时重新开始
+ * - 层数据按位置直接从 tar 包读取，不解压、不落临时文件；多个层在共用的上传线程池中并行上传
+ * - 全部层完成后 PUT manifest：oci-archive 原样上传，docker-archive 生成 Docker schema2 manifest
+ * - replicate 把一个 tar 包同时推送到多个目标，每个层只读取一次，分发给各目标的上传请求；
+ *   同时执行的多目标推送数不超过 provider.registry.replication-parallelism，其余按提交顺序排队
+ */
+@Slf4j
+public class RegistryClient implements AutoCloseable {
+
+    private static final String DOCKER_MANIFEST = "application/vnd.docker.distribution.manifest.v2+json";
+
+    private static final String MANIFEST_ACCEPT = String.join(", ", DOCKER_MANIFEST,
+            "application/vnd.docker.distribution.manifest.list.v2+json",
+            "application/vnd.oci.image.manifest.v1+json",
+            "application/vnd.oci.image.index.v1+json");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 多目标推送时每次从 tar 包读取、分发的块大小
+     */
+    private static final int REPLICATION_READ_SIZE = 1024 * 1024;
+
+    private final RegistryProperties properties;
+
+    private final HttpClient http;
+
+    /**
+     * 层上传线程，所有推送共用，决定同时上传的层数
+     */
+    private final ExecutorService uploads;
+
+    /**
+     * 每次推送的协调线程：打开 tar 包、等待层上传完成、上传 manifest，不占用层上传线程
+     */
+    private final ExecutorService coordinators;
+
+    /**
+     * 多目标推送的上传和读取线程
+     * 每个目标同一时间只上传一个层，同时读取的层不超过目标数，线程数按并发推送数 × 目标数上限 × 2 计算，
+     * 执行中的推送不会因线程不足而互相等待
+     */
+    private final ExecutorService replicationWorkers;
+
+    /**
+     * 排队中的多目标推送，和 runningReplications 一起由 this 加锁保护
+     */
+    private final Deque<PendingReplication> pendingReplications = new ArrayDeque<>();
+
+    private int runningReplications;
+
+    public RegistryClient(RegistryProperties properties) {
+        this.properties = properties;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (!properties.isTlsVerify()) {
+            builder.sslContext(trustAllContext());
+        }
+        this.http = builder.build();
+        this.uploads = Executors.newFixedThreadPool(properties.getUploadThreads(), threadFactory("registry-upload-"));
+        this.coordinators = Executors.newCachedThreadPool(threadFactory("registry-push-"));
+        int replicationThreads = 2 * properties.getReplicationParallelism() * properties.getMaxDestinations();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(replicationThreads, replicationThreads, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory("registry-replicate-"));
+        workers.allowCoreThreadTimeOut(true);
+        this.replicationWorkers = workers;
+    }
+
+    public RegistryProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 异步检查目标镜像（标签）是否存在
+     *
+     * @param target 目标镜像地址，例如 192.168.50.103/flow/cust-cont:20250617191632-x86
+     */
+    public CompletableFuture<Boolean> manifestExists(String target, String username, String password) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                RegistrySession session = session(target, username, password);
+                URI uri = session.uri("/manifests/" + reference(session.target()));
+                HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(uri)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .header("Accept", MANIFEST_ACCEPT));
+                if (response.statusCode() == 200) {
+                    return true;
+                }
+                if (response.statusCode() == 404) {
+                    return false;
+                }
+                throw new RegistryException("检查镜像是否存在失败：" + target, response.statusCode(),
+                        RegistrySession.body(response));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("检查镜像时被中断");
+            }
+        }, coordinators);
+    }
+
+    /**
+     * 异步推送 tar 包中的镜像
+     * 取消返回的 CompletableFuture 时，尚未开始的层不再上传，正在上传的层在当前请求结束后停止
+     *
+     * @param tarFile 本地 docker-archive 或 oci-archive tar 包
+     * @param target  目标镜像地址，标签为空时使用 latest
+     */
+    public CompletableFuture<RegistryPushResult> push(Path tarFile, String target, String username, String password) {
+        CompletableFuture<RegistryPushResult> result = new CompletableFuture<>();
+        coordinators.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                ImageArchive archive = ImageArchive.open(tarFile);
+                Push push = new Push(session(target, username, password), archive, result);
+                List<CompletableFuture<String>> digests = new ArrayList<>();
+                for (ImageBlob blob : blobs(archive)) {
+                    BlobSource source = (offset, length) ->
+                            new FileRangeInputStream(archive.getPath(), blob.offset() + offset, length);
+                    digests.add(CompletableFuture.supplyAsync(() -> push.upload(blob, source), uploads));
+                }
+                finish(push, digests, start);
+            } catch (Exception e) {
+                result.completeExceptionally(unwrap(e));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 把一个 tar 包中的镜像同时推送到多个目标
+     * - tar 包只打开一次，需要上传的每个 blob 只读取一次，由 BlobFanOut 分发给各目标的上传请求
+     * - 每个目标按相同顺序逐个上传 config 和各层，各目标同时上传同一个层，共用读取的数据；
+     *   上传和读取在 replicationWorkers 中执行，不使用层上传线程池，避免同一个层在部分目标排队等待而无法共用
+     * - 上传较慢的目标最多落后 provider.registry.replication-buffer，超过后改为自行从 tar 包读取，不拖慢其他目标
+     * - 各目标独立认证、检查已存在的层、上传 manifest，任一目标失败不影响其他目标
+     * - 同时执行的推送数达到 replication-parallelism 时排队，所有目标结束后开始下一个
+     *
+     * @param tarFile      本地 docker-archive 或 oci-archive tar 包
+     * @param destinations 目标镜像地址和凭据，结果按相同顺序返回
+     * @throws IllegalArgumentException 目标数超过 max-destinations
+     * @throws IllegalStateException    排队数已达 max-queued-replications
+     */
+    public RegistryReplication replicate(Path tarFile, List<RegistryDestination> destinations) {
+        if (destinations.size() > properties.getMaxDestinations()) {
+            throw new IllegalArgumentException("目标数 " + destinations.size() + " 超过上限 "
+                    + properties.getMaxDestinations());
+        }
+        List<CompletableFuture<RegistryPushResult>> results = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        RegistryReplication replication = new RegistryReplication(results);
+        synchronized (this) {
+            if (runningReplications >= properties.getReplicationParallelism()
+                    && pendingReplications.size() >= properties.getMaxQueuedReplications()) {
+                throw new IllegalStateException("多目标推送排队数已达上限：" + properties.getMaxQueuedReplications());
+            }
+            pendingReplications.addLast(new PendingReplication(tarFile, destinations, replication));
+        }
+        dispatchReplications();
+        return replication;
+    }
+
+    /**
+     * 在并发名额内依次启动排队的多目标推送，排队期间已全部取消的直接跳过
+     */
+    private void dispatchReplications() {
+        List<PendingReplication> starting = new ArrayList<>();
+        synchronized (this) {
+            while (runningReplications < properties.getReplicationParallelism() && !pendingReplications.isEmpty()) {
+                PendingReplication next = pendingReplications.pollFirst();
+                if (next.replication().isFinished()) {
+                    continue;
+                }
+                runningReplications++;
+                starting.add(next);
+            }
+        }
+        starting.forEach(this::startReplication);
+    }
+
+    private void startReplication(PendingReplication pending) {
+        RegistryReplication replication = pending.replication();
+        replication.started();
+        replication.completion().whenComplete((ignored, error) -> {
+            synchronized (this) {
+                runningReplications--;
+            }
+            // 在协调线程中启动下一个，避免在完成结果的线程上递归
+            coordinators.execute(this::dispatchReplications);
+        });
+        coordinators.execute(() -> {
+            try {
+                doReplicate(pending.tarFile(), pending.destinations(), replication);
+            } catch (Exception e) {
+                Throwable error = unwrap(e);
+                replication.getResults().forEach(result -> result.completeExceptionally(error));
+            }
+        });
+    }
+
+    private void doReplicate(Path tarFile, List<RegistryDestination> destinations, RegistryReplication replication)
+            throws IOException {
+        long start = System.nanoTime();
+        ImageArchive archive = ImageArchive.open(tarFile);
+        List<ImageBlob> blobs = new ArrayList<>();
+        for (ImageBlob blob : blobs(archive)) {
+            // 摘要未知的层在这里计算一次，各目标共用
+            blobs.add(blob.digest() != null ? blob : new ImageBlob(blob.entryName(), blob.offset(), blob.size(),
+                    blob.mediaType(), archive.computeDigest(blob)));
+        }
+        int bufferChunks = (int) Math.max(1, properties.getReplicationBuffer().toBytes() / REPLICATION_READ_SIZE);
+        List<BlobFanOut> fanOuts = new ArrayList<>(blobs.size());
+        for (ImageBlob blob : blobs) {
+            fanOuts.add(new BlobFanOut(archive.getPath(), blob, destinations.size(), REPLICATION_READ_SIZE,
+                    bufferChunks, replicationWorkers, replication.sharedBytes, replication.fallbackBytes));
+        }
+        List<Push> pushes = new ArrayList<>(destinations.size());
+        List<List<CompletableFuture<String>>> digests = new ArrayList<>(destinations.size());
+        for (int d = 0; d < destinations.size(); d++) {
+            RegistryDestination destination = destinations.get(d);
+            CompletableFuture<RegistryPushResult> result = replication.getResults().get(d);
+            int index = d;
+            // 目标结束（完成、失败或取消）后不再接收任何层的数据
+            result.whenComplete((value, error) -> fanOuts.forEach(fanOut -> fanOut.subscriber(index).release()));
+            try {
+                pushes.add(new Push(session(destination.target(), destination.username(), destination.password()),
+                        archive, result));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                pushes.add(null);
+            }
+            digests.add(new ArrayList<>(blobs.size()));
+        }
+        for (int d = 0; d < destinations.size(); d++) {
+            Push push = pushes.get(d);
+            if (push == null) {
+                continue;
+            }
+            // 每个目标按相同顺序逐个上传，各目标同时读取同一个层
+            CompletableFuture<String> previous = CompletableFuture.completedFuture(null);
+            for (int b = 0; b < blobs.size(); b++) {
+                ImageBlob blob = blobs.get(b);
+                BlobSource source = fanOuts.get(b).subscriber(d);
+                previous = previous.thenApplyAsync(digest -> push.upload(blob, source), replicationWorkers);
+                digests.get(d).add(previous);
+            }
+        }
+        for (int d = 0; d < destinations.size(); d++) {
+            if (pushes.get(d) != null) {
+                finish(pushes.get(d), digests.get(d), start);
+            }
+        }
+    }
+
+    /**
+     * 预先向目标仓库上传单个 blob，用于边接收 tar 包边推送
+     * 之后对同一目标的 push 检查到这些 blob 已存在会直接跳过，只需上传其余部分和 manifest
+     *
+     * @param target 目标镜像地址，各 blob 共用一个会话和令牌
+     */
+    public BlobPrefetch prefetch(String target, String username, String password) {
+        CompletableFuture<RegistryPushResult> stopped = new CompletableFuture<>();
+        Push push = new Push(session(target, username, password), null, stopped);
+        return new BlobPrefetch(stopped, (file, blob) -> {
+            BlobSource source = (offset, length) -> new FileRangeInputStream(file, blob.offset() + offset, length);
+            return CompletableFuture.supplyAsync(() -> {
+                push.upload(blob, source);
+                return blob.size();
+            }, uploads);
+        });
+    }
+
+    private static List<ImageBlob> blobs(ImageArchive archive) {
+        List<ImageBlob> blobs = new ArrayList<>(archive.getLayers().size() + 1);
+        blobs.add(archive.getConfig());
+        blobs.addAll(archive.getLayers());
+        return blobs;
+    }
+
+    /**
+     * 各层上传完成后上传 manifest 并完成 push.result；推送被取消或任意一层失败时，取消其余尚未开始的层
+     *
+     * @param digests 第一个是 config，其余按顺序是各层
+     */
+    private void finish(Push push, List<CompletableFuture<String>> digests, long start) {
+        CompletableFuture<RegistryPushResult> result = push.result;
+        result.whenComplete((value, error) -> digests.forEach(digest -> digest.cancel(false)));
+        digests.forEach(digest -> digest.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            }
+        }));
+        CompletableFuture.allOf(digests.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+            try {
+                push.checkCancelled();
+                List<String> layerDigests = digests.subList(1, digests.size()).stream()
+                        .map(CompletableFuture::join)
+                        .toList();
+                String manifestDigest = putManifest(push.session, push.archive, layerDigests);
+                RegistryPushResult pushResult = new RegistryPushResult(manifestDigest, push.uploadedBlobs.get(),
+                        push.existingBlobs.get(), push.uploadedBytes.get(),
+                        Duration.ofNanos(System.nanoTime() - start));
+                log.info("镜像已推送到 {}，manifest：{}，上传 {} 个、跳过 {} 个已存在的 blob，上传 {} 字节，耗时 {}ms",
+                        push.session.target(), manifestDigest, pushResult.uploadedBlobs(),
+                        pushResult.existingBlobs(), pushResult.uploadedBytes(), pushResult.duration().toMillis());
+                result.complete(pushResult);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.cancel(false);
+            } catch (Exception e) {
+                result.completeExceptionally(unwrap(e));
+            }
+        }, coordinators);
+    }
+
+    /**
+     * 去掉 CompletionException 和 UncheckedIOException 包装，任务信息中直接显示仓库返回的错误
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private RegistrySession session(String target, String username, String password) {
+        return new RegistrySession(http, properties, ImageReference.parse(target), username, password);
+    }
+
+    private static String reference(ImageReference target) {
+        if (target.digest() != null) {
+            return target.digest();
+        }
+        return target.tag() != null ? target.tag() : "latest";
+    }
+
+    /**
+     * 上传 manifest，返回仓库给出的摘要，仓库未返回时按内容计算
+     */
+    private String putManifest(RegistrySession session, ImageArchive archive, List<String> layerDigests)
+            throws IOException, InterruptedException {
+        byte[] manifest;
+        String mediaType;
+        if (archive.getFormat() == ImageArchive.Format.OCI_ARCHIVE) {
+            manifest = archive.getManifest();
+            mediaType = archive.getManifestMediaType();
+        } else {
+            manifest = dockerManifest(archive, layerDigests);
+            mediaType = DOCKER_MANIFEST;
+        }
+        URI uri = session.uri("/manifests/" + reference(session.target()));
+        HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(uri)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(manifest))
+                .header("Content-Type", mediaType));
+        if (response.statusCode() != 201 && response.statusCode() != 200) {
+            throw new RegistryException("上传 manifest 失败：" + session.target(), response.statusCode(),
+                    RegistrySession.body(response));
+        }
+        return response.headers().firstValue("Docker-Content-Digest").orElseGet(() -> sha256(manifest));
+    }
+
+    private static byte[] dockerManifest(ImageArchive archive, List<String> layerDigests) throws IOException {
+        ObjectNode manifest = MAPPER.createObjectNode();
+        manifest.put("schemaVersion", 2);
+        manifest.put("mediaType", DOCKER_MANIFEST);
+        manifest.set("config", descriptor(archive.getConfig(), archive.getConfig().digest()));
+        ArrayNode layers = manifest.putArray("layers");
+        for (int i = 0; i < archive.getLayers().size(); i++) {
+            layers.add(descriptor(archive.getLayers().get(i), layerDigests.get(i)));
+        }
+        return MAPPER.writeValueAsBytes(manifest);
+    }
+
+    private static ObjectNode descriptor(ImageBlob blob, String digest) {
+        ObjectNode descriptor = MAPPER.createObjectNode();
+        descriptor.put("mediaType", blob.mediaType());
+        descriptor.put("size", blob.size());
+        descriptor.put("digest", digest);
+        return descriptor;
+    }
+
+    /**
+     * 排队中的多目标推送
+     */
+    private record PendingReplication(Path tarFile, List<RegistryDestination> destinations,
+                                      RegistryReplication replication) {
+    }
+
+    /**
+     * 一次推送中各层共享的状态
+     */
+    private final class Push {
+
+        private final RegistrySession session;
+
+        /**
+         * 预先上传 blob 时为空，此时每个 blob 都带摘要
+         */
+        private final ImageArchive archive;
+
+        private final CompletableFuture<RegistryPushResult> result;
+
+        private final AtomicInteger uploadedBlobs = new AtomicInteger();
+
+        private final AtomicInteger existingBlobs = new AtomicInteger();
+
+        private final AtomicLong uploadedBytes = new AtomicLong();
+
+        Push(RegistrySession session, ImageArchive archive, CompletableFuture<RegistryPushResult> result) {
+            this.session = session;
+            this.archive = archive;
+            this.result = result;
+        }
+
+        /**
+         * 上传一个 blob，数据从 source 读取，结束后释放 source；返回其摘要，在上传线程中执行
+         */
+        String upload(ImageBlob blob, BlobSource source) {
+            try {
+                checkCancelled();
+                String digest = blob.digest() != null ? blob.digest() : archive.computeDigest(blob);
+                if (exists(digest)) {
+                    existingBlobs.incrementAndGet();
+                    log.debug("{} 中已存在 {}，跳过上传", session.target().repository(), digest);
+                    return digest;
+                }
+                long chunkSize = properties.getChunkSize().toBytes();
+                boolean chunked = chunkSize > 0 && blob.size() > chunkSize;
+                for (int attempt = 0; ; attempt++) {
+                    checkCancelled();
+                    try {
+                        if (chunked) {
+                            uploadChunked(blob, source, digest);
+                        } else {
+                            uploadMonolithic(blob, source, digest);
+                        }
+                        uploadedBlobs.incrementAndGet();
+                        return digest;
+                    } catch (IOException e) {
+                        if (attempt >= properties.getMaxRetries() || result.isDone()) {
+                            throw e;
+                        }
+                        log.warn("上传 {} 到 {} 失败，重新上传（第{}次重试）：{}", digest, session.target().repository(),
+                                attempt + 1, e.toString());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("上传被中断");
+            } finally {
+                source.release();
+            }
+        }
+
+        private boolean exists(String digest) throws IOException, InterruptedException {
+            URI uri = session.uri("/blobs/" + digest);
+            HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(uri)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody()));
+            if (response.statusCode() == 200) {
+                return true;
+            }
+            if (response.statusCode() == 404) {
+                return false;
+            }
+            throw new RegistryException("检查 blob 是否存在失败：" + digest, response.statusCode(),
+                    RegistrySession.body(response));
+        }
+
+        private URI startUpload() throws IOException, InterruptedException {
+            URI uri = session.uri("/blobs/uploads/");
+            HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+            if (response.statusCode() != 202) {
+                throw new RegistryException("创建上传会话失败：" + session.target().repository(),
+                        response.statusCode(), RegistrySession.body(response));
+            }
+            return location(response);
+        }
+
+        private void uploadMonolithic(ImageBlob blob, BlobSource source, String digest)
+                throws IOException, InterruptedException {
+            URI location = startUpload();
+            HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(withDigest(location, digest))
+                    .PUT(body(source, 0, blob.size()))
+                    .header("Content-Type", "application/octet-stream"));
+            if (response.statusCode() != 201) {
+                throw new RegistryException("上传 " + digest + " 失败", response.statusCode(),
+                        RegistrySession.body(response));
+            }
+            uploadedBytes.addAndGet(blob.size());
+        }
+
+        /**
+         * 分块上传，每块失败后查询仓库已接收的位置，从该位置继续
+         */
+        private void uploadChunked(ImageBlob blob, BlobSource source, String digest)
+                throws IOException, InterruptedException {
+            long chunkSize = properties.getChunkSize().toBytes();
+            URI location = startUpload();
+            long offset = 0;
+            int failures = 0;
+            while (offset < blob.size()) {
+                checkCancelled();
+                long start = offset;
+                long length = Math.min(chunkSize, blob.size() - start);
+                URI current = location;
+                try {
+                    HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(current)
+                            .method("PATCH", body(source, start, length))
+                            .header("Content-Type", "application/octet-stream")
+                            .header("Content-Range", start + "-" + (start + length - 1)));
+                    if (response.statusCode() != 202) {
+                        throw new RegistryException("上传 " + digest + " 的分块失败，位置：" + start,
+                                response.statusCode(), RegistrySession.body(response));
+                    }
+                    location = location(response);
+                    offset = received(response, start + length);
+                    uploadedBytes.addAndGet(offset - start);
+                    failures = 0;
+                } catch (IOException e) {
+                    if (++failures > properties.getMaxRetries()) {
+                        throw e;
+                    }
+                    HttpResponse<byte[]> status = session.send(() -> HttpRequest.newBuilder(current).GET());
+                    if (status.statusCode() != 204) {
+                        // 上传会话已失效，由外层重新开始
+                        throw new RegistryException("查询上传进度失败：" + digest, status.statusCode(),
+                                RegistrySession.body(status));
+                    }
+                    location = location(status);
+                    offset = received(status, 0);
+                    uploadedBytes.addAndGet(Math.max(0, offset - start));
+                    log.warn("上传 {} 的分块失败，从仓库已接收的 {} 字节处续传（第{}次重试）：{}", digest, offset, failures,
+                            e.toString());
+                }
+            }
+            URI finish = withDigest(location, digest);
+            HttpResponse<byte[]> response = session.send(() -> HttpRequest.newBuilder(finish)
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+            if (response.statusCode() != 201) {
+                throw new RegistryException("完成 " + digest + " 的上传失败", response.statusCode(),
+                        RegistrySession.body(response));
+            }
+        }
+
+        private HttpRequest.BodyPublisher body(BlobSource source, long offset, long length) {
+            return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> {
+                try {
+                    return source.open(offset, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }), length);
+        }
+
+        private URI location(HttpResponse<byte[]> response) throws IOException, InterruptedException {
+            String location = response.headers().firstValue("Location").orElseThrow(() ->
+                    new RegistryException("仓库未返回上传地址", response.statusCode(), null));
+            return session.resolve(location);
+        }
+
+        private URI withDigest(URI location, String digest) {
+            String uri = location.toString();
+            return URI.create(uri + (uri.indexOf('?') < 0 ? '?' : '&') + "digest="
+                    + URLEncoder.encode(digest, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 按 Range: 0-N 头得到仓库已接收的字节数，没有该头时使用 fallback
+         * 仓库尚未收到数据时也返回 0-0，这里按 0 处理，多收到的 1 字节由重传覆盖
+         */
+        private long received(HttpResponse<byte[]> response, long fallback) {
+            return response.headers().firstValue("Range")
+                    .map(range -> {
+                        long last = Long.parseLong(range.substring(range.indexOf('-') + 1).trim());
+                        return last == 0 ? 0 : last + 1;
+                    })
+                    .orElse(fallback);
+        }
+
+        void checkCancelled() {
+            if (result.isDone()) {
+                throw new CancellationException("推送已结束");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        coordinators.shutdownNow();
+        uploads.shutdownNow();
+        replicationWorkers.shutdownNow();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 不支持 SHA-256", e);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 不校验证书和主机名，对应 skopeo 的 --tls-verify=false
+     */
+    private static SSLContext trustAllContext() {
+        TrustManager trustAll = new X509ExtendedTrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{trustAll}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化TLS失败", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.provider.registry;
+
+/**
+ * 多目标推送中的一个目标
+ *
+ * @param target 目标镜像地址，标签为空时使用 latest
+ */
+public record RegistryDestination(String target, String username, String password) {
+
+    @Override
+    public String toString() {
+        return target;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.provider.registry;
+
+import java.io.IOException;
+
+/**
+ * 镜像仓库返回了非预期的状态码
+ */
+public class RegistryException extends IOException {
+
+    /**
+     * 错误信息中保留的响应内容上限
+     */
+    private static final int MAX_BODY_LENGTH = 512;
+
+    private final int statusCode;
+
+    public RegistryException(String message, int statusCode, String body) {
+        super(message + "，状态码：" + statusCode + (body == null || body.isBlank() ? ""
+                : "，响应：" + (body.length() > MAX_BODY_LENGTH ? body.substring(0, MAX_BODY_LENGTH) + "..." : body)));
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.provider.registry;
+
+import java.time.Duration;
+
+/**
+ * 一次原生推送的结果
+ *
+ * @param manifestDigest 仓库返回的 manifest 摘要
+ * @param uploadedBlobs  实际上传的 config 和层数
+ * @param existingBlobs  仓库中已存在、跳过上传的 config 和层数
+ * @param uploadedBytes  实际上传的字节数，不含重试时重复发送的部分
+ * @param duration       从打开 tar 包到 manifest 上传完成的耗时
+ */
+public record RegistryPushResult(String manifestDigest, int uploadedBlobs, int existingBlobs, long uploadedBytes,
+                                 Duration duration) {
+}
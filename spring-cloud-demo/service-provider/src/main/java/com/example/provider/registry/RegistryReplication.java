@@ -0,0 +1,75 @@
+package com.example.provider.registry;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次多目标推送，各目标的结果独立完成
+ */
+public final class RegistryReplication {
+
+    private final List<CompletableFuture<RegistryPushResult>> results;
+
+    /**
+     * 读取后分发给各目标的字节数，每个 blob 最多读取一次
+     */
+    final AtomicLong sharedBytes = new AtomicLong();
+
+    /**
+     * 上传较慢或重试的目标自行从 tar 包读取的字节数
+     */
+    final AtomicLong fallbackBytes = new AtomicLong();
+
+    private volatile boolean started;
+
+    RegistryReplication(List<CompletableFuture<RegistryPushResult>> results) {
+        this.results = List.copyOf(results);
+    }
+
+    /**
+     * 各目标的推送结果，顺序与提交的目标相同；取消其中一个只停止该目标
+     */
+    public List<CompletableFuture<RegistryPushResult>> getResults() {
+        return results;
+    }
+
+    /**
+     * 是否已开始执行，此前在 RegistryClient 中排队
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    void started() {
+        started = true;
+    }
+
+    /**
+     * 所有目标都已结束
+     */
+    boolean isFinished() {
+        return results.stream().allMatch(CompletableFuture::isDone);
+    }
+
+    public long getSharedBytes() {
+        return sharedBytes.get();
+    }
+
+    public long getFallbackBytes() {
+        return fallbackBytes.get();
+    }
+
+    /**
+     * 所有目标结束（成功、失败或取消）后完成，不传递失败
+     */
+    public CompletableFuture<Void> completion() {
+        return CompletableFuture.allOf(results.stream()
+                .map(result -> result.handle((value, error) -> null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    public void cancel() {
+        results.forEach(result -> result.cancel(false));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.provider.registry;
+
+import com.example.provider.config.RegistryProperties;
+import com.example.provider.skopeo.ImageReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 与一个仓库中一个镜像仓库路径（如 project/image）的会话
+ * - 首次请求前访问 /v2/ 确定协议：不校验证书时 HTTPS 连接失败改用 HTTP，与 skopeo --tls-verify=false 相同
+ * - 按 401 响应的 WWW-Authenticate 质询认证：Basic 直接使用用户名密码，Bearer 向令牌服务申请 pull,push 令牌
+ * - 令牌过期后再次收到 401 时重新认证并重发一次请求
+ */
+@Slf4j
+final class RegistrySession {
+
+    private static final Pattern CHALLENGE_PARAMETER = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+
+    private final RegistryProperties properties;
+
+    private final ImageReference target;
+
+    private final String username;
+
+    private final String password;
+
+    private URI base;
+
+    private volatile String authorization;
+
+    RegistrySession(HttpClient http, RegistryProperties properties, ImageReference target, String username,
+                    String password) {
+        this.http = http;
+        this.properties = properties;
+        this.target = target;
+        this.username = username;
+        this.password = password;
+    }
+
+    ImageReference target() {
+        return target;
+    }
+
+    /**
+     * 仓库中的路径，例如 /v2/project/image/blobs/sha256:...
+     */
+    URI uri(String path) throws IOException, InterruptedException {
+        return base().resolve("/v2/" + target.namespace() + "/" + target.name() + path);
+    }
+
+    /**
+     * 上传地址可能是相对路径
+     */
+    URI resolve(String location) throws IOException, InterruptedException {
+        return base().resolve(location);
+    }
+
+    /**
+     * 发送请求，收到 401 时按质询认证后重发一次
+     *
+     * @param request 每次调用创建新的请求，请求体是输入流时重发需要重新打开
+     */
+    HttpResponse<byte[]> send(Supplier<HttpRequest.Builder> request) throws IOException, InterruptedException {
+        base();
+        HttpResponse<byte[]> response = sendOnce(request.get());
+        if (response.statusCode() == 401) {
+            authenticate(response);
+            response = sendOnce(request.get());
+        }
+        return response;
+    }
+
+    private HttpResponse<byte[]> sendOnce(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        builder.timeout(properties.getRequestTimeout());
+        String current = authorization;
+        if (current != null) {
+            builder.header("Authorization", current);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private synchronized URI base() throws IOException, InterruptedException {
+        if (base != null) {
+            return base;
+        }
+        URI https = URI.create("https://" + target.registryWithPort());
+        HttpResponse<byte[]> ping;
+        try {
+            ping = ping(https);
+            base = https;
+        } catch (SSLException | ConnectException e) {
+            if (properties.isTlsVerify()) {
+                throw e;
+            }
+            URI plain = URI.create("http://" + target.registryWithPort());
+            log.debug("仓库 {} 的HTTPS连接失败（{}），改用HTTP", target.registryWithPort(), e.toString());
+            ping = ping(plain);
+            base = plain;
+        }
+        if (ping.statusCode() == 401) {
+            authenticate(ping);
+        } else if (ping.statusCode() != 200) {
+            throw new RegistryException("仓库不支持 v2 接口：" + base, ping.statusCode(), body(ping));
+        }
+        return base;
+    }
+
+    private HttpResponse<byte[]> ping(URI registry) throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(registry.resolve("/v2/")).GET()
+                .timeout(properties.getRequestTimeout()).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private void authenticate(HttpResponse<byte[]> unauthorized) throws IOException, InterruptedException {
+        String challenge = unauthorized.headers().firstValue("WWW-Authenticate").orElse("");
+        if (challenge.regionMatches(true, 0, "Basic", 0, 5)) {
+            authorization = basic();
+            return;
+        }
+        if (!challenge.regionMatches(true, 0, "Bearer", 0, 6)) {
+            throw new RegistryException("仓库要求认证但不支持其认证方式：" + challenge, 401, body(unauthorized));
+        }
+        Map<String, String> parameters = new HashMap<>();
+        Matcher matcher = CHALLENGE_PARAMETER.matcher(challenge);
+        while (matcher.find()) {
+            parameters.put(matcher.group(1), matcher.group(2));
+        }
+        String realm = parameters.get("realm");
+        if (realm == null) {
+            throw new RegistryException("Bearer 认证质询缺少 realm：" + challenge, 401, null);
+        }
+        StringBuilder tokenUri = new StringBuilder(realm).append(realm.indexOf('?') < 0 ? '?' : '&');
+        if (parameters.containsKey("service")) {
+            tokenUri.append("service=").append(encode(parameters.get("service"))).append('&');
+        }
+        tokenUri.append("scope=").append(encode("repository:" + target.namespace() + "/" + target.name()
+                + ":pull,push"));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(tokenUri.toString())).GET()
+                .timeout(properties.getRequestTimeout());
+        if (username != null && !username.isEmpty()) {
+            request.header("Authorization", basic());
+        }
+        HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new RegistryException("申请仓库令牌失败：" + realm, response.statusCode(), body(response));
+        }
+        JsonNode token = MAPPER.readTree(response.body());
+        String value = token.path("token").asText(token.path("access_token").asText(null));
+        if (value == null || value.isEmpty()) {
+            throw new RegistryException("令牌服务未返回令牌：" + realm, response.statusCode(), null);
+        }
+        authorization = "Bearer " + value;
+    }
+
+    private String basic() {
+        String credentials = (username == null ? "" : username) + ":" + (password == null ? "" : password);
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    static String body(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        return body == null ? null : new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.provider.skopeo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * 定长的进程输出缓冲
+ * 保留开头和结尾各一半，中间部分只计数；skopeo 的进度在开头、错误信息在结尾，两头都需要
+ */
+class CappedOutputBuffer {
+
+    private final byte[] head;
+
+    private final byte[] tail;
+
+    private int headLength;
+
+    /**
+     * 结尾部分按环形缓冲写入，tailPosition 为下一个写入位置
+     */
+    private int tailPosition;
+
+    private boolean tailWrapped;
+
+    private long totalBytes;
+
+    CappedOutputBuffer(int maxBytes) {
+        this.head = new byte[maxBytes / 2];
+        this.tail = new byte[maxBytes - head.length];
+    }
+
+    /**
+     * 读到流结束为止，超过上限的部分继续读取并丢弃，避免进程因管道写满而阻塞
+     */
+    void readFrom(InputStream in) throws IOException {
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            write(chunk, 0, n);
+        }
+    }
+
+    void write(byte[] bytes, int offset, int length) {
+        totalBytes += length;
+        int toHead = Math.min(length, head.length - headLength);
+        System.arraycopy(bytes, offset, head, headLength, toHead);
+        headLength += toHead;
+        offset += toHead;
+        length -= toHead;
+        if (length == 0 || tail.length == 0) {
+            return;
+        }
+        if (length >= tail.length) {
+            System.arraycopy(bytes, offset + length - tail.length, tail, 0, tail.length);
+            tailPosition = 0;
+            tailWrapped = true;
+            return;
+        }
+        int first = Math.min(length, tail.length - tailPosition);
+        System.arraycopy(bytes, offset, tail, tailPosition, first);
+        System.arraycopy(bytes, offset + first, tail, 0, length - first);
+        if (tailPosition + length >= tail.length) {
+            tailWrapped = true;
+        }
+        tailPosition = (tailPosition + length) % tail.length;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    boolean isTruncated() {
+        return totalBytes > head.length + tail.length;
+    }
+
+    String toString(Charset charset) {
+        StringBuilder text = new StringBuilder(new String(head, 0, headLength, charset));
+        if (isTruncated()) {
+            text.append("\n...省略 ").append(totalBytes - head.length - tail.length).append(" 字节...\n");
+        }
+        if (tailWrapped) {
+            byte[] ordered = new byte[tail.length];
+            System.arraycopy(tail, tailPosition, ordered, 0, tail.length - tailPosition);
+            System.arraycopy(tail, 0, ordered, tail.length - tailPosition, tailPosition);
+            text.append(new String(ordered, charset));
+        } else {
+            text.append(new String(tail, 0, tailPosition, charset));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.provider.skopeo;
+
+/**
+ * 解析后的镜像地址，例如 registry.example.com:5000/project/image:v1.0
+ *
+ * @param registry  仓库域名或IP地址
+ * @param ipAddress 仓库是否为IPv4地址
+ * @param port      仓库端口，未指定时为 -1
+ * @param namespace 命名空间/项目名
+ * @param name      镜像名
+ * @param tag       标签，未指定时为空
+ * @param digest    摘要（如 sha256:...），未指定时为空
+ */
+public record ImageReference(String registry, boolean ipAddress, int port, String namespace, String name,
+                             String tag, String digest) {
+
+    /**
+     * 解析镜像地址，允许带摘要，格式要求见 ImageReferenceParser
+     *
+     * @throws IllegalArgumentException 地址不合法，异常信息包含原因和出错位置
+     */
+    public static ImageReference parse(String reference) {
+        return ImageReferenceParser.parse(reference, true);
+    }
+
+    /**
+     * 仓库地址，带端口时包含端口
+     */
+    public String registryWithPort() {
+        return port < 0 ? registry : registry + ":" + port;
+    }
+
+    /**
+     * 不含标签和摘要的仓库路径，例如 registry.example.com:5000/project/image
+     */
+    public String repository() {
+        return registryWithPort() + "/" + namespace + "/" + name;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder reference = new StringBuilder(repository());
+        if (tag != null) {
+            reference.append(':').append(tag);
+        }
+        if (digest != null) {
+            reference.append('@').append(digest);
+        }
+        return reference.toString();
+    }
+}
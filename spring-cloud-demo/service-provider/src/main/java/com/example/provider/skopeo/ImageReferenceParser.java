@@ -0,0 +1,414 @@
+package com.example.provider.skopeo;
+
+/**
+ * 镜像地址解析器
+ * 从左到右单次扫描，不回溯，耗时与地址长度成正比；校验（isValid）不分配对象
+ *
+ * 接受的格式（与原 SkopeoUtil 中的正则一致，只支持私有仓库和IP地址仓库）：
+ * [docker://]仓库[:端口]/命名空间/镜像名[:标签]
+ * - 仓库：至少两段、以 '.' 分隔的域名（IPv4 地址也满足该格式），每段 1~63 个字母、数字或 '-'，首尾不能是 '-'
+ * - 端口：1~5 位数字，不以 0 开头
+ * - 命名空间、镜像名：小写字母和数字，可用单个 '.'、'_'、'-' 分隔
+ * - 标签：1~128 个字母、数字、'.'、'_'、'-'，不能以 '.' 或 '-' 开头
+ * 首尾空白字符会被忽略。解析时还可以允许标签后带 @摘要（algorithm:encoded），校验时不允许，与原正则一致
+ */
+public final class ImageReferenceParser {
+
+    private static final String DOCKER_PREFIX = "docker://";
+
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private static final int MAX_PORT_DIGITS = 5;
+
+    private static final int MAX_TAG_LENGTH = 128;
+
+    private static final int VALID = -1;
+
+    /**
+     * 扫描结果编码：低 5 位为 Reason 序号，其余为出错位置
+     */
+    private static final int REASON_BITS = 5;
+
+    // 解析时记录各部分位置的下标
+    private static final int HOST_START = 0;
+    private static final int HOST_END = 1;
+    private static final int PORT_START = 2;
+    private static final int PORT_END = 3;
+    private static final int NAMESPACE_START = 4;
+    private static final int NAMESPACE_END = 5;
+    private static final int NAME_START = 6;
+    private static final int NAME_END = 7;
+    private static final int TAG_START = 8;
+    private static final int TAG_END = 9;
+    private static final int DIGEST_START = 10;
+    private static final int DIGEST_END = 11;
+    private static final int IP_ADDRESS = 12;
+    private static final int MARK_COUNT = 13;
+
+    /**
+     * Reason.values() 每次调用都会复制数组
+     */
+    private static final Reason[] REASONS = Reason.values();
+
+    private ImageReferenceParser() {
+    }
+
+    /**
+     * 镜像地址不合法的原因
+     */
+    public enum Reason {
+
+        EMPTY("地址为空"),
+        INVALID_REGISTRY("仓库地址的每一段必须以字母或数字开头和结尾，只能包含字母、数字和 '-'"),
+        REGISTRY_LABEL_TOO_LONG("仓库地址的每一段不能超过 63 个字符"),
+        REGISTRY_WITHOUT_DOT("仓库地址必须是包含 '.' 的域名或IP地址，不支持 Docker Hub 简写"),
+        INVALID_PORT("端口必须是 1~5 位数字且不以 0 开头"),
+        MISSING_NAMESPACE("缺少命名空间/项目名"),
+        INVALID_NAMESPACE("命名空间只能包含小写字母和数字，并以单个 '.'、'_'、'-' 分隔"),
+        MISSING_NAME("缺少镜像名"),
+        INVALID_NAME("镜像名只能包含小写字母和数字，并以单个 '.'、'_'、'-' 分隔"),
+        TOO_MANY_PATH_COMPONENTS("只支持 命名空间/镜像名 两级路径"),
+        INVALID_TAG("标签只能包含字母、数字、'.'、'_'、'-'，且不能以 '.' 或 '-' 开头"),
+        TAG_TOO_LONG("标签不能超过 128 个字符"),
+        DIGEST_NOT_ALLOWED("不支持摘要（@sha256:...）"),
+        INVALID_DIGEST("摘要格式应为 算法:编码值，sha256 的编码值为 64 位小写十六进制"),
+        UNEXPECTED_CHARACTER("多余的字符");
+
+        private final String description;
+
+        Reason(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 校验镜像地址，不允许摘要，接受的地址与原正则完全相同
+     */
+    public static boolean isValid(CharSequence reference) {
+        return reference != null && scan(reference, false, null) == VALID;
+    }
+
+    /**
+     * 返回地址不合法的原因，合法时返回 null
+     */
+    public static Reason validate(CharSequence reference, boolean allowDigest) {
+        if (reference == null) {
+            return Reason.EMPTY;
+        }
+        int result = scan(reference, allowDigest, null);
+        return result == VALID ? null : reasonOf(result);
+    }
+
+    /**
+     * 解析镜像地址
+     *
+     * @throws IllegalArgumentException 地址不合法，异常信息包含原因和出错位置
+     */
+    public static ImageReference parse(String reference, boolean allowDigest) {
+        if (reference == null) {
+            throw new IllegalArgumentException("镜像地址不合法：" + Reason.EMPTY.getDescription());
+        }
+        int[] marks = new int[MARK_COUNT];
+        int result = scan(reference, allowDigest, marks);
+        if (result != VALID) {
+            throw new IllegalArgumentException(String.format("镜像地址不合法（第%d个字符）：%s，地址：%s",
+                    (result >>> REASON_BITS) + 1, reasonOf(result).getDescription(), reference));
+        }
+        int port = marks[PORT_START] < 0 ? -1
+                : Integer.parseInt(reference, marks[PORT_START], marks[PORT_END], 10);
+        return new ImageReference(
+                reference.substring(marks[HOST_START], marks[HOST_END]),
+                marks[IP_ADDRESS] == 1,
+                port,
+                reference.substring(marks[NAMESPACE_START], marks[NAMESPACE_END]),
+                reference.substring(marks[NAME_START], marks[NAME_END]),
+                marks[TAG_START] < 0 ? null : reference.substring(marks[TAG_START], marks[TAG_END]),
+                marks[DIGEST_START] < 0 ? null : reference.substring(marks[DIGEST_START], marks[DIGEST_END]));
+    }
+
+    private static Reason reasonOf(int result) {
+        return REASONS[result & ((1 << REASON_BITS) - 1)];
+    }
+
+    private static int error(Reason reason, int position) {
+        return (position << REASON_BITS) | reason.ordinal();
+    }
+
+    /**
+     * 扫描整个地址
+     *
+     * @param marks 不为空时记录各部分的起止位置
+     * @return 合法时返回 VALID，否则返回编码后的原因和位置
+     */
+    private static int scan(CharSequence s, boolean allowDigest, int[] marks) {
+        int start = 0;
+        int end = s.length();
+        // 与 String.trim 相同，忽略首尾 <= ' ' 的字符
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return error(Reason.EMPTY, start);
+        }
+        if (startsWith(s, start, end, DOCKER_PREFIX)) {
+            start += DOCKER_PREFIX.length();
+        }
+
+        // 仓库：label(.label)+，同时判断是否为 IPv4 地址
+        int i = start;
+        int labels = 0;
+        boolean ipAddress = true;
+        while (true) {
+            int labelStart = i;
+            if (i == end || !isAlphanumeric(s.charAt(i))) {
+                return error(Reason.INVALID_REGISTRY, i);
+            }
+            int value = 0;
+            while (i < end && (isAlphanumeric(s.charAt(i)) || s.charAt(i) == '-')) {
+                char c = s.charAt(i);
+                value = isDigit(c) && value <= 255 ? value * 10 + (c - '0') : 256;
+                i++;
+            }
+            if (s.charAt(i - 1) == '-') {
+                return error(Reason.INVALID_REGISTRY, i - 1);
+            }
+            if (i - labelStart > MAX_LABEL_LENGTH) {
+                return error(Reason.REGISTRY_LABEL_TOO_LONG, labelStart);
+            }
+            ipAddress &= i - labelStart <= 3 && value <= 255;
+            labels++;
+            if (i < end && s.charAt(i) == '.') {
+                i++;
+                continue;
+            }
+            break;
+        }
+        if (i < end && s.charAt(i) != ':' && s.charAt(i) != '/') {
+            return error(Reason.INVALID_REGISTRY, i);
+        }
+        if (labels < 2) {
+            return error(Reason.REGISTRY_WITHOUT_DOT, start);
+        }
+        if (marks != null) {
+            marks[HOST_START] = start;
+            marks[HOST_END] = i;
+            marks[IP_ADDRESS] = ipAddress && labels == 4 ? 1 : 0;
+            marks[PORT_START] = -1;
+        }
+
+        // 端口
+        if (i < end && s.charAt(i) == ':') {
+            i++;
+            int portStart = i;
+            if (i == end || s.charAt(i) < '1' || s.charAt(i) > '9') {
+                return error(Reason.INVALID_PORT, i);
+            }
+            while (i < end && isDigit(s.charAt(i))) {
+                if (i - portStart == MAX_PORT_DIGITS) {
+                    return error(Reason.INVALID_PORT, i);
+                }
+                i++;
+            }
+            if (marks != null) {
+                marks[PORT_START] = portStart;
+                marks[PORT_END] = i;
+            }
+        }
+        if (i == end) {
+            return error(Reason.MISSING_NAMESPACE, i);
+        }
+        if (s.charAt(i) != '/') {
+            return error(Reason.INVALID_PORT, i);
+        }
+        i++;
+
+        // 命名空间
+        int namespaceStart = i;
+        i = scanPathComponent(s, i, end);
+        if (i < 0) {
+            return error(Reason.INVALID_NAMESPACE, -i - 1);
+        }
+        if (i == end || s.charAt(i) == ':' || s.charAt(i) == '@') {
+            return error(Reason.MISSING_NAME, i);
+        }
+        if (s.charAt(i) != '/') {
+            return error(Reason.INVALID_NAMESPACE, i);
+        }
+        if (marks != null) {
+            marks[NAMESPACE_START] = namespaceStart;
+            marks[NAMESPACE_END] = i;
+        }
+        i++;
+
+        // 镜像名
+        int nameStart = i;
+        i = scanPathComponent(s, i, end);
+        if (i < 0) {
+            int position = -i - 1;
+            boolean missing = position == nameStart
+                    && (position == end || s.charAt(position) == ':' || s.charAt(position) == '@');
+            return error(missing ? Reason.MISSING_NAME : Reason.INVALID_NAME, position);
+        }
+        if (marks != null) {
+            marks[NAME_START] = nameStart;
+            marks[NAME_END] = i;
+            marks[TAG_START] = -1;
+            marks[DIGEST_START] = -1;
+        }
+        if (i == end) {
+            return VALID;
+        }
+        if (s.charAt(i) == '/') {
+            return error(Reason.TOO_MANY_PATH_COMPONENTS, i);
+        }
+        // 出现非法字符时归到前一个部分
+        Reason trailing = Reason.INVALID_NAME;
+
+        // 标签
+        if (s.charAt(i) == ':') {
+            i++;
+            int tagStart = i;
+            if (i == end || !(isAlphanumeric(s.charAt(i)) || s.charAt(i) == '_')) {
+                return error(Reason.INVALID_TAG, i);
+            }
+            while (i < end && isTagCharacter(s.charAt(i))) {
+                if (i - tagStart == MAX_TAG_LENGTH) {
+                    return error(Reason.TAG_TOO_LONG, i);
+                }
+                i++;
+            }
+            if (marks != null) {
+                marks[TAG_START] = tagStart;
+                marks[TAG_END] = i;
+            }
+            if (i == end) {
+                return VALID;
+            }
+            trailing = Reason.INVALID_TAG;
+        }
+
+        // 摘要
+        if (s.charAt(i) == '@') {
+            if (!allowDigest) {
+                return error(Reason.DIGEST_NOT_ALLOWED, i);
+            }
+            i++;
+            int digestStart = i;
+            i = scanDigest(s, i, end);
+            if (i < 0) {
+                return error(Reason.INVALID_DIGEST, -i - 1);
+            }
+            if (marks != null) {
+                marks[DIGEST_START] = digestStart;
+                marks[DIGEST_END] = i;
+            }
+            if (i == end) {
+                return VALID;
+            }
+            trailing = Reason.UNEXPECTED_CHARACTER;
+        }
+        return error(trailing, i);
+    }
+
+    /**
+     * 扫描一级路径：[a-z0-9]+([._-][a-z0-9]+)*
+     *
+     * @return 路径结束位置；不合法时返回 -(出错位置 + 1)
+     */
+    private static int scanPathComponent(CharSequence s, int i, int end) {
+        while (true) {
+            if (i == end || !isLowerAlphanumeric(s.charAt(i))) {
+                return -i - 1;
+            }
+            while (i < end && isLowerAlphanumeric(s.charAt(i))) {
+                i++;
+            }
+            if (i < end && isPathSeparator(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * 扫描摘要：algorithm:encoded，algorithm 为 [a-z0-9]+([+._-][a-z0-9]+)*，encoded 为 [a-zA-Z0-9=_-]+，
+     * sha256 的 encoded 必须是 64 位小写十六进制
+     *
+     * @return 摘要结束位置；不合法时返回 -(出错位置 + 1)
+     */
+    private static int scanDigest(CharSequence s, int i, int end) {
+        int algorithmStart = i;
+        while (true) {
+            if (i == end || !isLowerAlphanumeric(s.charAt(i))) {
+                return -i - 1;
+            }
+            while (i < end && isLowerAlphanumeric(s.charAt(i))) {
+                i++;
+            }
+            if (i < end && (isPathSeparator(s.charAt(i)) || s.charAt(i) == '+')) {
+                i++;
+                continue;
+            }
+            break;
+        }
+        boolean sha256 = i - algorithmStart == 6 && startsWith(s, algorithmStart, i, "sha256");
+        if (i == end || s.charAt(i) != ':') {
+            return -i - 1;
+        }
+        i++;
+        int encodedStart = i;
+        while (i < end) {
+            char c = s.charAt(i);
+            boolean valid = sha256 ? isDigit(c) || (c >= 'a' && c <= 'f')
+                    : isAlphanumeric(c) || c == '=' || c == '_' || c == '-';
+            if (!valid) {
+                break;
+            }
+            i++;
+        }
+        if (i == encodedStart || (sha256 && i - encodedStart != 64)) {
+            return -i - 1;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(CharSequence s, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerAlphanumeric(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isLowerAlphanumeric(c) || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isPathSeparator(char c) {
+        return c == '.' || c == '_' || c == '-';
+    }
+
+    private static boolean isTagCharacter(char c) {
+        return isAlphanumeric(c) || c == '.' || c == '_' || c == '-';
+    }
+}
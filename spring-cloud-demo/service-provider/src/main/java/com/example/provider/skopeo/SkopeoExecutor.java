@@ -0,0 +1,242 @@
+package com.example.provider.skopeo;
+
+import com.example.provider.config.SkopeoProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * skopeo 命令执行器
+ * - 命令在有界线程池中执行，线程和队列都满时返回的 CompletableFuture 以 RejectedExecutionException 失败
+ * - 每个命令有超时时间，超时或取消 CompletableFuture 时终止 skopeo 及其子进程
+ * - 输出由工作线程边读边写入定长缓冲，超过上限只保留开头和结尾
+ */
+@Slf4j
+public class SkopeoExecutor implements AutoCloseable {
+
+    private static final List<String> CREDENTIAL_OPTIONS = List.of("--creds", "--src-creds", "--dest-creds");
+
+    private final SkopeoProperties properties;
+
+    private final ThreadPoolExecutor workers;
+
+    private final ScheduledExecutorService timer;
+
+    /**
+     * 正在运行的进程，关闭执行器时一并终止
+     */
+    private final Set<Process> running = ConcurrentHashMap.newKeySet();
+
+    public SkopeoExecutor(SkopeoProperties properties) {
+        this(properties, properties.getWorkerThreads(), properties.getQueueCapacity(), "skopeo");
+    }
+
+    /**
+     * 使用单独的线程数和队列容量创建执行器，例如只执行 inspect 的执行器，其余配置同 properties
+     *
+     * @param name 线程名前缀
+     */
+    public SkopeoExecutor(SkopeoProperties properties, int workerThreads, int queueCapacity, String name) {
+        this.properties = properties;
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory(name + "-worker-", false), new ThreadPoolExecutor.AbortPolicy());
+        this.workers.allowCoreThreadTimeOut(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-timer-", true));
+    }
+
+    public SkopeoProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 使用默认超时时间执行 skopeo 命令
+     *
+     * @param arguments skopeo 的参数，不含可执行文件本身
+     */
+    public CompletableFuture<SkopeoResult> execute(List<String> arguments) {
+        return execute(arguments, properties.getTimeout());
+    }
+
+    /**
+     * 执行 skopeo 命令
+     *
+     * @param arguments skopeo 的参数，不含可执行文件本身
+     * @param timeout   从进程启动开始计算的超时时间，不含排队时间
+     * @return 进程退出后完成；无法启动进程时以 IOException 失败，排队已满时以 RejectedExecutionException 失败
+     */
+    public CompletableFuture<SkopeoResult> execute(List<String> arguments, Duration timeout) {
+        List<String> command = new ArrayList<>(arguments.size() + 1);
+        command.add(properties.getBinary());
+        command.addAll(arguments);
+        Task task = new Task(command, timeout);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("skopeo任务队列已满（{}个执行中，{}个排队），拒绝命令：{}", workers.getActiveCount(),
+                    workers.getQueue().size(), describe(command));
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * 用于日志的命令行，隐藏仓库凭据
+     */
+    public static String describe(List<String> command) {
+        List<String> masked = new ArrayList<>(command.size());
+        boolean maskNext = false;
+        for (String argument : command) {
+            if (maskNext) {
+                masked.add("******");
+                maskNext = false;
+                continue;
+            }
+            int eq = argument.indexOf('=');
+            String option = eq < 0 ? argument : argument.substring(0, eq);
+            if (CREDENTIAL_OPTIONS.contains(option)) {
+                if (eq < 0) {
+                    maskNext = true;
+                    masked.add(argument);
+                } else {
+                    masked.add(option + "=******");
+                }
+            } else {
+                masked.add(argument);
+            }
+        }
+        return String.join(" ", masked);
+    }
+
+    /**
+     * 先终止子进程再终止 skopeo 本身（父进程退出后子进程无法再通过 descendants 找到），
+     * 超过宽限时间仍未退出的强制终止
+     */
+    private void destroyTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        descendants.forEach(ProcessHandle::destroy);
+        process.destroy();
+        Runnable forcibly = () -> {
+            descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        };
+        try {
+            timer.schedule(forcibly, properties.getKillGracePeriod().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            forcibly.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        running.forEach(process -> {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        });
+        timer.shutdownNow();
+    }
+
+    public boolean isClosed() {
+        return workers.isShutdown();
+    }
+
+    private static ThreadFactory threadFactory(String prefix, boolean daemon) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    private final class Task implements Runnable {
+
+        private final List<String> command;
+
+        private final Duration timeout;
+
+        private final CompletableFuture<SkopeoResult> future = new CompletableFuture<>();
+
+        private volatile boolean timedOut;
+
+        Task(List<String> command, Duration timeout) {
+            this.command = command;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                // 排队期间已被取消
+                return;
+            }
+            String description = describe(command);
+            long start = System.nanoTime();
+            Process process;
+            try {
+                process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            } catch (IOException e) {
+                log.error("启动skopeo进程失败：{}", description, e);
+                future.completeExceptionally(e);
+                return;
+            }
+            running.add(process);
+            log.debug("skopeo进程已启动，pid：{}，超时：{}，命令：{}", process.pid(), timeout, description);
+            ScheduledFuture<?> timeoutKill = timer.schedule(() -> {
+                timedOut = true;
+                log.warn("skopeo命令执行超过{}，终止进程 {}：{}", timeout, process.pid(), description);
+                destroyTree(process);
+            }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            future.whenComplete((result, error) -> {
+                if (future.isCancelled() && process.isAlive()) {
+                    log.info("skopeo命令已取消，终止进程 {}：{}", process.pid(), description);
+                    destroyTree(process);
+                }
+            });
+
+            CappedOutputBuffer output = new CappedOutputBuffer((int) properties.getMaxOutputSize().toBytes());
+            try (InputStream in = process.getInputStream()) {
+                output.readFrom(in);
+            } catch (IOException e) {
+                log.debug("读取skopeo输出中断：{}", e.getMessage());
+            }
+            try {
+                // 输出流结束后进程仍可能未退出，此时依然受超时控制
+                int exitCode = process.waitFor();
+                SkopeoResult result = new SkopeoResult(exitCode, Duration.ofNanos(System.nanoTime() - start),
+                        output.toString(Charset.defaultCharset()), output.getTotalBytes(), output.isTruncated(),
+                        timedOut);
+                log.debug("skopeo进程 {} 已退出，退出码：{}，耗时：{}ms，输出：{}字节", process.pid(), exitCode,
+                        result.duration().toMillis(), result.outputBytes());
+                future.complete(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                destroyTree(process);
+                future.completeExceptionally(e);
+            } finally {
+                timeoutKill.cancel(false);
+                running.remove(process);
+            }
+        }
+    }
+}
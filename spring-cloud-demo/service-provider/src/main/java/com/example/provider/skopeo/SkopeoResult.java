@@ -0,0 +1,21 @@
+package com.example.provider.skopeo;
+
+import java.time.Duration;
+
+/**
+ * skopeo 命令的执行结果
+ *
+ * @param exitCode    进程退出码，超时被终止时为终止后的退出码
+ * @param duration    从进程启动到退出的耗时，不含排队时间
+ * @param output      标准输出和错误输出合并后的内容，超过上限时中间部分被省略
+ * @param outputBytes 进程实际输出的字节数
+ * @param truncated   输出是否被截断
+ * @param timedOut    是否因超时被终止
+ */
+public record SkopeoResult(int exitCode, Duration duration, String output, long outputBytes,
+                           boolean truncated, boolean timedOut) {
+
+    public boolean isSuccess() {
+        return !timedOut && exitCode == 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.provider.upload;
+
+import com.example.provider.archive.ImageBlob;
+import com.example.provider.archive.TarEntry;
+import com.example.provider.archive.TarStreamScanner;
+import com.example.provider.config.ImageUploadProperties;
+import com.example.provider.push.PushJobRequest;
+import com.example.provider.push.PushJobService;
+import com.example.provider.push.PushJobView;
+import com.example.provider.registry.BlobPrefetch;
+import com.example.provider.registry.RegistryClient;
+import com.example.provider.skopeo.ImageReferenceParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 接收上传的镜像 tar 包并提交推送任务，客户端不需要先把 tar 包复制到 provider 所在机器
+ * - 请求体按流读取，经一个固定大小的堆缓冲区写入本地文件，内存占用与 tar 包大小无关；
+ *   写入文件时由 JDK 按线程缓存的临时直接缓冲区中转，不会每次上传都申请直接内存
+ * - 写入的同时计算整个 tar 包和其中每个文件的 sha256，blobs/sha256/ 下的文件与文件名中的摘要不一致时拒绝
+ * - 使用原生推送时，每个层接收完成后立即上传到目标仓库；接收完成后提交的推送任务检查到这些层已存在会直接跳过，
+ *   只需上传 config 和 manifest。等待预先上传结束时不占用请求线程，超过 prefetch-wait-timeout 后取消其余的预先上传，
+ *   由推送任务正常上传
+ * - 接收完成后提交到推送任务队列，推送方式、去重和跳过已存在镜像与 /provider/push/jobs 相同
+ */
+@Slf4j
+public class ImageUploadService {
+
+    private static final String OCI_BLOBS = "blobs/sha256/";
+
+    /**
+     * 小于该大小的文件（config、manifest 等）不预先上传，由推送任务一并处理
+     */
+    private static final long PREFETCH_MIN_BYTES = 1024 * 1024;
+
+    private final ImageUploadProperties properties;
+
+    private final Path directory;
+
+    private final boolean prefetch;
+
+    private final PushJobService pushJobService;
+
+    private final RegistryClient registryClient;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ImageUploadService(ImageUploadProperties properties, Path directory, boolean prefetch,
+                              PushJobService pushJobService, RegistryClient registryClient) {
+        this.properties = properties;
+        this.directory = directory;
+        this.prefetch = prefetch;
+        this.pushJobService = pushJobService;
+        this.registryClient = registryClient;
+    }
+
+    /**
+     * 接收请求体中的 tar 包并提交推送任务
+     * 请求体在调用线程中读取，之后等待预先上传和提交任务都在返回的 CompletableFuture 中进行
+     *
+     * @param target 推送目标和凭据，tarFilePath 由本方法填写
+     * @return 预先上传结束（或等待超时）并提交推送任务后完成；任务队列已满时以 IllegalStateException 失败
+     * @throws IllegalArgumentException 参数不完整、目标地址不合法、不是 tar 包或超过大小上限
+     * @throws IOException              接收或写入失败（例如客户端断开），已写入的部分会被删除
+     */
+    public CompletableFuture<ImageUploadView> upload(PushJobRequest target, InputStream body) throws IOException {
+        validate(target);
+        long start = System.nanoTime();
+        Path file = directory.resolve("upload-" + System.currentTimeMillis() + "-" + sequence.incrementAndGet()
+                + ".tar");
+        BlobPrefetch blobs = prefetch
+                ? registryClient.prefetch(target.target(), target.getHarborUsername(), target.getHarborPassword())
+                : null;
+        MessageDigest digest = sha256();
+        TarStreamScanner scanner = new TarStreamScanner((entry, entryDigest) ->
+                entryCompleted(file, entry, entryDigest, blobs));
+        long bytes = 0;
+        boolean received = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             ReadableByteChannel in = Channels.newChannel(body)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) properties.getBufferSize().toBytes());
+            long maxSize = properties.getMaxSize().toBytes();
+            boolean eof = false;
+            while (!eof) {
+                eof = in.read(buffer) < 0;
+                if (buffer.hasRemaining() && !eof) {
+                    continue;
+                }
+                buffer.flip();
+                bytes += buffer.remaining();
+                if (bytes > maxSize) {
+                    throw new IllegalArgumentException("tar包超过大小上限：" + properties.getMaxSize());
+                }
+                digest.update(buffer.duplicate());
+                // 先写入文件，接收完成的层才能从文件中读取并预先上传
+                ByteBuffer write = buffer.duplicate();
+                while (write.hasRemaining()) {
+                    channel.write(write);
+                }
+                scan(scanner, buffer, eof);
+                buffer.clear();
+            }
+            received = true;
+        } finally {
+            if (!received) {
+                if (blobs != null) {
+                    blobs.cancel();
+                }
+                Files.deleteIfExists(file);
+            }
+        }
+        long receiveNanos = System.nanoTime() - start;
+        long size = bytes;
+        String tarDigest = "sha256:" + HexFormat.of().formatHex(digest.digest());
+        // 等预先上传结束再提交任务，避免推送任务重复上传同一个层
+        return awaitPrefetch(blobs, file).thenApply(ignored -> {
+            PushJobView job;
+            try {
+                job = submit(target, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            double throughput = size / 1048576.0 / Math.max(receiveNanos / 1e9, 1e-9);
+            ImageUploadView view = new ImageUploadView(file.toString(), size, tarDigest, scanner.getEntries(),
+                    durationMillis, Math.round(throughput * 10) / 10.0, blobs == null ? 0 : blobs.getSucceeded(),
+                    blobs == null ? 0 : blobs.getBytes(), job);
+            log.info("tar包已接收：{}（{}字节，{} MB/s），接收期间预先上传 {} 个层，推送任务：{}，目标：{}", file, size,
+                    view.throughputMbps(), view.prefetchedBlobs(), job.id(), target.target());
+            return view;
+        });
+    }
+
+    /**
+     * 接收 multipart/form-data 请求体中第一个文件部分
+     *
+     * @param contentType 请求的 Content-Type，包含 boundary
+     */
+    public CompletableFuture<ImageUploadView> uploadMultipart(PushJobRequest target, String contentType,
+                                                              InputStream body) throws IOException {
+        validate(target);
+        int bufferSize = (int) properties.getBufferSize().toBytes();
+        return upload(target, new MultipartFileStream(body, contentType, bufferSize));
+    }
+
+    /**
+     * 预先上传全部结束后完成，单个 blob 失败不影响；超时后取消尚未完成的预先上传，缺少的层由推送任务上传
+     */
+    private CompletableFuture<Void> awaitPrefetch(BlobPrefetch blobs, Path file) {
+        if (blobs == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Duration timeout = properties.getPrefetchWaitTimeout();
+        return blobs.completion()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    log.warn("等待预先上传超过{}，取消其余的预先上传，由推送任务上传：{}", timeout, file);
+                    blobs.cancel();
+                    return null;
+                });
+    }
+
+    private void scan(TarStreamScanner scanner, ByteBuffer buffer, boolean eof) {
+        try {
+            scanner.update(buffer);
+            if (eof) {
+                scanner.finish();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("不是有效的镜像tar包：" + e.getMessage(), e);
+        }
+    }
+
+    private void entryCompleted(Path file, TarEntry entry, String digest, BlobPrefetch blobs) throws IOException {
+        String name = entry.name();
+        if (name.startsWith(OCI_BLOBS) && !digest.equals("sha256:" + name.substring(OCI_BLOBS.length()))) {
+            throw new IOException(name + " 的内容与文件名中的摘要不一致，实际为 " + digest);
+        }
+        boolean layer = name.startsWith(OCI_BLOBS) || name.endsWith("/layer.tar");
+        if (blobs != null && layer && entry.size() >= PREFETCH_MIN_BYTES) {
+            blobs.upload(file, new ImageBlob(name, entry.dataOffset(), entry.size(), "application/octet-stream",
+                    digest));
+        }
+    }
+
+    private PushJobView submit(PushJobRequest target, Path file) throws IOException {
+        target.setTarFilePath(file.toString());
+        PushJobView job;
+        try {
+            job = pushJobService.submit(target);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        if (job.submissions() > 1) {
+            // 合并到了相同目标正在执行的任务，该任务使用它自己的 tar 包
+            Files.deleteIfExists(file);
+        } else if (properties.isDeleteAfterPush()) {
+            pushJobService.whenFinished(job.id()).ifPresent(finished -> finished.thenRun(() -> delete(file)));
+        }
+        return job;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除上传的tar包失败：{}：{}", file, e.toString());
+        }
+    }
+
+    private static void validate(PushJobRequest target) {
+        if (isBlank(target.getHarborUrl()) || isBlank(target.getHarborProject()) || isBlank(target.getImageName())
+                || isBlank(target.getImageTag())) {
+            throw new IllegalArgumentException("harborUrl、harborProject、imageName、imageTag 不能为空");
+        }
+        ImageReferenceParser.Reason reason = ImageReferenceParser.validate(target.target(), false);
+        if (reason != null) {
+            throw new IllegalArgumentException("目标镜像地址格式不正确：" + target.target() + "，" + reason.getDescription());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 不支持 SHA-256", e);
+        }
+    }
+}
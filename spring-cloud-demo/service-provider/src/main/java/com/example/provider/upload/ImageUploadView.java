@@ -0,0 +1,20 @@
+package com.example.provider.upload;
+
+import com.example.provider.push.PushJobView;
+
+/**
+ * 镜像 tar 包上传结果
+ *
+ * @param tarFilePath     tar 包在 provider 上的保存路径
+ * @param bytes           接收的字节数
+ * @param digest          整个 tar 包的 sha256 摘要，接收时计算
+ * @param entries         tar 包中的条目数
+ * @param durationMillis  从开始接收到提交推送任务的耗时
+ * @param throughputMbps  接收速度（MB/s）
+ * @param prefetchedBlobs 接收期间已上传到目标仓库（或仓库已有）的层数，未启用时为 0
+ * @param prefetchedBytes 接收期间已上传到目标仓库（或仓库已有）的层字节数
+ * @param job             提交的推送任务，目标相同的任务正在执行时为已有任务
+ */
+public record ImageUploadView(String tarFilePath, long bytes, String digest, int entries, long durationMillis,
+                              double throughputMbps, long prefetchedBlobs, long prefetchedBytes, PushJobView job) {
+}
@@ -0,0 +1,215 @@
+package com.example.provider.upload;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按流读取 multipart/form-data 请求体中第一个文件部分的内容，不缓存整个请求体，也不写临时文件
+ * 文件之前的普通字段直接跳过，文件部分之后的内容不再读取
+ */
+final class MultipartFileStream extends InputStream {
+
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=(?:\"([^\"]+)\"|([^;\\s]+))");
+
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]*)\"");
+
+    /**
+     * 部分头中单行的长度上限
+     */
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+
+    private final InputStream in;
+
+    /**
+     * 部分之间的分隔符 CRLF--boundary
+     */
+    private final byte[] delimiter;
+
+    private final byte[] buffer;
+
+    private int start;
+
+    private int end;
+
+    private boolean eof;
+
+    private boolean finished;
+
+    /**
+     * 缓冲区中已确认属于文件内容的部分的结束位置
+     */
+    private int dataEnd;
+
+    /**
+     * dataEnd 处是否为分隔符
+     */
+    private boolean atDelimiter;
+
+    private String fileName;
+
+    MultipartFileStream(InputStream in, String contentType, int bufferSize) throws IOException {
+        Matcher matcher = BOUNDARY.matcher(contentType == null ? "" : contentType);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("multipart 请求缺少 boundary：" + contentType);
+        }
+        String boundary = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(bufferSize, MAX_HEADER_LINE) + delimiter.length];
+        // 请求体以 --boundary 开头，前面补上 CRLF 后与其他分隔符统一处理
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        end = 2;
+        openFilePart();
+    }
+
+    /**
+     * 文件部分的文件名，未提供时为空字符串
+     */
+    String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            return -1;
+        }
+        while (start == dataEnd) {
+            if (atDelimiter) {
+                finished = true;
+                return -1;
+            }
+            if (eof) {
+                throw new EOFException("multipart 请求体不完整，缺少结束分隔符");
+            }
+            fill();
+            scan();
+        }
+        return copy(b, off, Math.min(len, dataEnd - start));
+    }
+
+    /**
+     * 从 dataEnd 继续查找分隔符，已确认的内容不重复查找；末尾可能是分隔符的前半部分，暂不计入内容
+     */
+    private void scan() {
+        int found = indexOfDelimiter(dataEnd);
+        if (found >= 0) {
+            dataEnd = found;
+            atDelimiter = true;
+        } else {
+            dataEnd = Math.max(dataEnd, end - (delimiter.length - 1));
+        }
+    }
+
+    private int copy(byte[] b, int off, int length) {
+        System.arraycopy(buffer, start, b, off, length);
+        start += length;
+        return length;
+    }
+
+    /**
+     * 依次跳过各部分，直到带 filename 的部分，停在其内容开头
+     */
+    private void openFilePart() throws IOException {
+        while (true) {
+            skipPastDelimiter();
+            String after = readLine();
+            if (after.startsWith("--")) {
+                throw new IllegalArgumentException("multipart 请求中没有文件");
+            }
+            String disposition = null;
+            for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+                if (line.regionMatches(true, 0, "Content-Disposition:", 0, 20)) {
+                    disposition = line;
+                }
+            }
+            Matcher matcher = disposition == null ? null : FILE_NAME.matcher(disposition);
+            if (matcher != null && matcher.find()) {
+                fileName = matcher.group(1);
+                dataEnd = start;
+                scan();
+                return;
+            }
+        }
+    }
+
+    private void skipPastDelimiter() throws IOException {
+        while (true) {
+            int found = indexOfDelimiter(start);
+            if (found >= 0) {
+                start = found + delimiter.length;
+                return;
+            }
+            start = Math.max(start, end - (delimiter.length - 1));
+            if (eof) {
+                throw new IllegalArgumentException("multipart 请求中没有文件");
+            }
+            fill();
+        }
+    }
+
+    /**
+     * 读取一行（不含 CRLF），用于分隔符之后的剩余部分和部分头
+     */
+    private String readLine() throws IOException {
+        while (true) {
+            for (int i = start; i + 1 < end; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, start, i - start, StandardCharsets.UTF_8);
+                    start = i + 2;
+                    return line;
+                }
+            }
+            if (end - start > MAX_HEADER_LINE) {
+                throw new IllegalArgumentException("multipart 部分头过长");
+            }
+            if (eof) {
+                throw new EOFException("multipart 请求体不完整");
+            }
+            fill();
+        }
+    }
+
+    private int indexOfDelimiter(int from) {
+        int last = end - delimiter.length;
+        for (int i = from; i <= last; i++) {
+            if (buffer[i] != delimiter[0]) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            dataEnd = Math.max(0, dataEnd - start);
+            start = 0;
+        }
+        int read = in.read(buffer, end, buffer.length - end);
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.provider.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 损坏的 PAX 扩展头按 IOException 报告，不抛出运行时异常
+ */
+class TarIndexTest {
+
+    @Test
+    void parsesPaxRecords() throws IOException {
+        assertThat(TarIndex.parsePax(pax("16 size=1048576\n20 path=blobs/a.tar\n")))
+                .containsEntry("size", "1048576")
+                .containsEntry("path", "blobs/a.tar");
+        assertThat(TarIndex.paxSize("1048576")).isEqualTo(1_048_576L);
+    }
+
+    @Test
+    void rejectsAMalformedPaxSize() {
+        assertThatThrownBy(() -> TarIndex.paxSize("12x")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> TarIndex.paxSize("")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsMalformedPaxRecords() {
+        assertThatThrownBy(() -> TarIndex.parsePax(pax("x size=1\n"))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> TarIndex.parsePax(pax("2 "))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> TarIndex.parsePax(pax("99 size=1\n"))).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] pax(String records) {
+        return records.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.provider.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * TarStreamScanner 按任意大小分段接收时的解析结果与一次接收相同，头部、PAX 扩展头和数据都可以跨 update 调用
+ */
+class TarStreamScannerTest {
+
+    private final byte[] layer = content(1500, 'a');
+
+    private final byte[] config = "{\"rootfs\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void reportsOffsetsAndDigestsOfRegularFiles() throws IOException {
+        byte[] tar = new TarWriter()
+                .file("config.json", config)
+                .entry("l1/", '5', new byte[0])
+                .file("l1/layer.tar", layer)
+                .finish();
+
+        List<String> completed = scan(tar, tar.length);
+
+        assertThat(completed).containsExactly(
+                "config.json@512+" + config.length + "=" + sha256(config),
+                "l1/layer.tar@2048+" + layer.length + "=" + sha256(layer));
+    }
+
+    @Test
+    void producesTheSameResultForEveryChunkSize() throws IOException {
+        Map<String, String> pax = new LinkedHashMap<>();
+        pax.put("path", "blobs/sha256/" + "x".repeat(120));
+        pax.put("size", String.valueOf(layer.length));
+        byte[] tar = new TarWriter()
+                .file("config.json", config)
+                .pax(pax)
+                .entry("ignored", '0', layer, 0)
+                .longName("very/long/" + "n".repeat(150) + "/layer.tar")
+                .file("short", layer)
+                .finish();
+        List<String> expected = scan(tar, tar.length);
+        assertThat(expected).hasSize(3);
+        assertThat(expected.get(1)).startsWith("blobs/sha256/" + "x".repeat(120) + "@");
+        assertThat(expected.get(2)).startsWith("very/long/");
+
+        for (int chunk : new int[]{1, 7, 100, 511, 512, 513, 1000}) {
+            assertThat(scan(tar, chunk)).as("分段大小 %d", chunk).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rejectsAMalformedPaxSize() {
+        byte[] tar = new TarWriter()
+                .pax(Map.of("size", "12x"))
+                .file("layer.tar", layer)
+                .finish();
+
+        assertThatThrownBy(() -> scan(tar, 100))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("PAX扩展头的size不是有效数字：12x");
+    }
+
+    @Test
+    void rejectsACorruptedHeader() {
+        byte[] tar = new TarWriter().file("layer.tar", layer).finish();
+        tar[10] ^= 1;
+
+        assertThatThrownBy(() -> scan(tar, tar.length)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void reportsATruncatedArchiveOnFinish() {
+        byte[] whole = new TarWriter().file("layer.tar", layer).toByteArray();
+        byte[] truncated = new byte[whole.length - 600];
+        System.arraycopy(whole, 0, truncated, 0, truncated.length);
+
+        assertThatThrownBy(() -> scan(truncated, 64)).isInstanceOf(EOFException.class);
+        assertThatThrownBy(() -> scan(new byte[0], 64)).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void stopsReportingAfterTheEndMarker() throws IOException {
+        byte[] tar = new TarWriter().file("layer.tar", layer).finish();
+        byte[] padded = new byte[tar.length + 4096];
+        System.arraycopy(tar, 0, padded, 0, tar.length);
+
+        TarStreamScanner scanner = new TarStreamScanner((entry, digest) -> { });
+        scanner.update(ByteBuffer.wrap(padded));
+        scanner.finish();
+
+        assertThat(scanner.getEntries()).isEqualTo(1);
+        assertThat(scanner.getPosition()).isEqualTo(padded.length);
+    }
+
+    /**
+     * 按 chunk 字节分段扫描，返回每个完成的文件：名称@数据位置+大小=摘要
+     */
+    private static List<String> scan(byte[] tar, int chunk) throws IOException {
+        List<String> completed = new ArrayList<>();
+        TarStreamScanner scanner = new TarStreamScanner((entry, digest) ->
+                completed.add(entry.name() + "@" + entry.dataOffset() + "+" + entry.size() + "=" + digest));
+        for (int offset = 0; offset < tar.length; offset += chunk) {
+            ByteBuffer buffer = ByteBuffer.wrap(tar, offset, Math.min(chunk, tar.length - offset));
+            int position = buffer.position();
+            scanner.update(buffer);
+            assertThat(buffer.position()).isEqualTo(position);
+        }
+        scanner.finish();
+        return completed;
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] content(int size, char first) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (first + i % 13);
+        }
+        return data;
+    }
+}
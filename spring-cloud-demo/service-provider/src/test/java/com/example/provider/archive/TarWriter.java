@@ -0,0 +1,97 @@
+package com.example.provider.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 测试用的 tar 包写入：ustar 头部，数据按 512 字节补齐，可加 PAX 扩展头和 GNU 长文件名条目，最后是两个全零块
+ */
+public final class TarWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    public TarWriter file(String name, byte[] data) {
+        return entry(name, '0', data);
+    }
+
+    /**
+     * 写入 PAX 扩展头，作用于下一个条目
+     */
+    public TarWriter pax(Map<String, String> records) {
+        StringBuilder text = new StringBuilder();
+        records.forEach((key, value) -> text.append(paxRecord(key, value)));
+        return entry("PaxHeaders/entry", 'x', text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写入 GNU 长文件名条目，作用于下一个条目
+     */
+    public TarWriter longName(String name) {
+        return entry("././@LongLink", 'L', (name + "\0").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TarWriter entry(String name, char type, byte[] data) {
+        return entry(name, type, data, data.length);
+    }
+
+    /**
+     * @param headerSize 写入头部的大小，可以与实际数据长度不同
+     */
+    public TarWriter entry(String name, char type, byte[] data, long headerSize) {
+        byte[] header = new byte[512];
+        put(header, 0, name.length() > 100 ? name.substring(0, 100) : name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", headerSize));
+        put(header, 136, "00000000000");
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        put(header, 148, "        ");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        put(header, 148, String.format("%06o", checksum));
+        header[154] = 0;
+        header[155] = ' ';
+        out.writeBytes(header);
+        out.writeBytes(data);
+        out.writeBytes(new byte[(512 - data.length % 512) % 512]);
+        return this;
+    }
+
+    /**
+     * 写入结束标记，返回整个 tar 包
+     */
+    public byte[] finish() {
+        out.writeBytes(new byte[1024]);
+        return out.toByteArray();
+    }
+
+    /**
+     * 不写结束标记，返回目前写入的内容
+     */
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    /**
+     * "长度 key=value\n"，长度包含自身的位数
+     */
+    private static String paxRecord(String key, String value) {
+        int body = key.length() + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int length = body + Integer.toString(body).length();
+        if (Integer.toString(length).length() != Integer.toString(body).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.provider.push;
+
+import com.example.provider.archive.TarWriter;
+import com.example.provider.config.PushJobProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PushJobService 排队的任务在推送同步结束时（例如 skopeo 队列已满直接拒绝）依次启动，调用深度不随排队数增长
+ */
+class PushJobServiceTest {
+
+    private static final int QUEUED = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsQueuedJobsThatFinishSynchronouslyWithoutRecursing() throws IOException {
+        PushJobProperties properties = new PushJobProperties();
+        properties.setParallelism(1);
+        properties.setSkipExisting(false);
+        CompletableFuture<PushOutcome> first = new CompletableFuture<>();
+        List<Integer> depths = new ArrayList<>();
+        PushBackend backend = new PushBackend() {
+            @Override
+            public CompletableFuture<PushOutcome> check(PushJobRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<PushOutcome> push(PushJobRequest request) {
+                if (request.getImageTag().equals("v0")) {
+                    return first;
+                }
+                depths.add(Thread.currentThread().getStackTrace().length);
+                return CompletableFuture.completedFuture(new PushOutcome(true, 0, Duration.ZERO, "ok"));
+            }
+        };
+        PushJobService service = new PushJobService(properties, backend);
+        String tar = dockerArchive().toString();
+
+        List<PushJobView> submitted = new ArrayList<>();
+        for (int i = 0; i <= QUEUED; i++) {
+            submitted.add(service.submit(request(tar, "v" + i)));
+        }
+        assertThat(service.list(PushJobState.QUEUED)).hasSize(QUEUED);
+
+        first.complete(new PushOutcome(true, 0, Duration.ZERO, "ok"));
+
+        assertThat(depths).hasSize(QUEUED);
+        assertThat(depths.stream().mapToInt(Integer::intValue).max().getAsInt()
+                - depths.stream().mapToInt(Integer::intValue).min().getAsInt()).isLessThan(10);
+        assertThat(submitted).allSatisfy(view ->
+                assertThat(service.get(view.id()).orElseThrow().state()).isEqualTo(PushJobState.SUCCEEDED));
+    }
+
+    private static PushJobRequest request(String tar, String tag) {
+        PushJobRequest request = new PushJobRequest();
+        request.setHarborUrl("192.168.1.100:5000");
+        request.setHarborProject("ns");
+        request.setImageName("app");
+        request.setImageTag(tag);
+        request.setTarFilePath(tar);
+        return request;
+    }
+
+    /**
+     * docker save 格式的 tar 包：manifest.json、config 和一个层
+     */
+    private Path dockerArchive() throws IOException {
+        byte[] layer = "layer".repeat(100).getBytes(StandardCharsets.UTF_8);
+        byte[] config = ("{\"rootfs\":{\"type\":\"layers\",\"diff_ids\":[\"" + sha256(layer) + "\"]}}")
+                .getBytes(StandardCharsets.UTF_8);
+        String configName = sha256(config).substring("sha256:".length()) + ".json";
+        byte[] manifest = ("[{\"Config\":\"" + configName + "\",\"RepoTags\":[\"ns/app:v1\"],"
+                + "\"Layers\":[\"l1/layer.tar\"]}]").getBytes(StandardCharsets.UTF_8);
+        Path tar = directory.resolve("image.tar");
+        Files.write(tar, new TarWriter()
+                .file(configName, config)
+                .file("l1/layer.tar", layer)
+                .file("manifest.json", manifest)
+                .finish());
+        return tar;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.provider.registry;
+
+import com.example.provider.archive.TarWriter;
+import com.example.provider.config.RegistryProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RegistryClient 针对进程内仓库 RegistryStub 的推送流程：整体上传、分块上传、断线续传、跳过已存在的 blob、
+ * Bearer 认证和多目标推送的排队
+ */
+class RegistryClientTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private RegistryStub registry;
+
+    private RegistryClient client;
+
+    private final byte[] smallLayer = content(3000, 'a');
+
+    private final byte[] largeLayer = content(10_000, 'k');
+
+    @AfterEach
+    void close() {
+        if (client != null) {
+            client.close();
+        }
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void uploadsSmallBlobsMonolithically() throws Exception {
+        registry = new RegistryStub(null, null);
+        client = new RegistryClient(properties(DataSize.ofMegabytes(1)));
+
+        RegistryPushResult result = push(registry.reference("ns/app", "v1"), null, null);
+
+        assertThat(result.uploadedBlobs()).isEqualTo(3);
+        assertThat(result.existingBlobs()).isZero();
+        assertThat(registry.count("POST upload")).isEqualTo(3);
+        assertThat(registry.count("PUT upload")).isEqualTo(3);
+        assertThat(registry.count("PATCH upload")).isZero();
+        assertPushed("ns/app", "v1", result);
+    }
+
+    @Test
+    void uploadsLargeBlobsInChunks() throws Exception {
+        registry = new RegistryStub(null, null);
+        client = new RegistryClient(properties(DataSize.ofBytes(4096)));
+
+        RegistryPushResult result = push(registry.reference("ns/app", "v1"), null, null);
+
+        // 只有 10000 字节的层超过分块大小，分 3 块上传
+        assertThat(registry.count("PATCH upload")).isEqualTo(3);
+        assertThat(result.uploadedBytes()).isEqualTo(config().length + smallLayer.length + largeLayer.length);
+        assertPushed("ns/app", "v1", result);
+    }
+
+    @Test
+    void resumesFromTheRegistryOffsetAfterADroppedPatch() throws Exception {
+        registry = new RegistryStub(null, null);
+        registry.dropPatch(2);
+        client = new RegistryClient(properties(DataSize.ofBytes(4096)));
+
+        RegistryPushResult result = push(registry.reference("ns/app", "v1"), null, null);
+
+        // 第 2 块只收到一半：查询一次进度后从仓库已接收的 6144 字节处续传，剩余 3856 字节一次发完
+        assertThat(registry.count("GET upload")).isEqualTo(1);
+        assertThat(registry.count("PATCH upload")).isEqualTo(3);
+        assertThat(registry.count("POST upload")).isEqualTo(3);
+        assertThat(result.uploadedBytes()).isEqualTo(config().length + smallLayer.length + largeLayer.length);
+        assertPushed("ns/app", "v1", result);
+    }
+
+    @Test
+    void skipsBlobsThatAlreadyExist() throws Exception {
+        registry = new RegistryStub(null, null);
+        registry.putBlob(config());
+        registry.putBlob(largeLayer);
+        client = new RegistryClient(properties(DataSize.ofBytes(4096)));
+
+        RegistryPushResult result = push(registry.reference("ns/app", "v1"), null, null);
+
+        assertThat(result.existingBlobs()).isEqualTo(2);
+        assertThat(result.uploadedBlobs()).isEqualTo(1);
+        assertThat(result.uploadedBytes()).isEqualTo(smallLayer.length);
+        assertThat(registry.count("POST upload")).isEqualTo(1);
+        assertThat(registry.count("PATCH upload")).isZero();
+        assertPushed("ns/app", "v1", result);
+    }
+
+    @Test
+    void authenticatesWithABearerToken() throws Exception {
+        registry = new RegistryStub("user", "secret");
+        client = new RegistryClient(properties(DataSize.ofMegabytes(1)));
+        String target = registry.reference("ns/app", "v1");
+
+        RegistryPushResult result = push(target, "user", "secret");
+
+        assertPushed("ns/app", "v1", result);
+        // 同一会话只申请一次令牌，scope 包含推送需要的 pull,push
+        assertThat(registry.count("GET token")).isEqualTo(1);
+        assertThat(registry.tokenScopes()).containsExactly("repository:ns/app:pull,push");
+        assertThat(client.manifestExists(target, "user", "secret").get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.manifestExists(registry.reference("ns/app", "v2"), "user", "secret")
+                .get(10, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void failsWhenTheTokenServiceRejectsTheCredentials() throws Exception {
+        registry = new RegistryStub("user", "secret");
+        client = new RegistryClient(properties(DataSize.ofMegabytes(1)));
+        Path tar = dockerArchive();
+
+        assertThatThrownBy(() -> client.push(tar, registry.reference("ns/app", "v1"), "user", "wrong")
+                .get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(RegistryException.class, e -> assertThat(e.getStatusCode()).isEqualTo(401));
+        assertThat(registry.manifest("ns/app", "v1")).isNull();
+    }
+
+    @Test
+    void queuesReplicationsBeyondTheParallelism() throws Exception {
+        registry = new RegistryStub(null, null);
+        CountDownLatch gate = registry.holdUploads();
+        RegistryProperties properties = properties(DataSize.ofMegabytes(1));
+        properties.setReplicationParallelism(1);
+        properties.setMaxQueuedReplications(1);
+        client = new RegistryClient(properties);
+
+        RegistryReplication running = client.replicate(dockerArchive(), List.of(destination("ns/a"),
+                destination("ns/b")));
+        RegistryReplication queued = client.replicate(dockerArchive(), List.of(destination("ns/c")));
+        assertThat(running.isStarted()).isTrue();
+        assertThat(queued.isStarted()).isFalse();
+        assertThatThrownBy(() -> client.replicate(dockerArchive(), List.of(destination("ns/d"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        gate.countDown();
+        running.completion().get(30, TimeUnit.SECONDS);
+        queued.completion().get(30, TimeUnit.SECONDS);
+        assertThat(queued.isStarted()).isTrue();
+        assertPushed("ns/a", "v1", running.getResults().get(0).join());
+        assertPushed("ns/b", "v1", running.getResults().get(1).join());
+        assertPushed("ns/c", "v1", queued.getResults().get(0).join());
+        assertThat(registry.manifest("ns/d", "v1")).isNull();
+    }
+
+    private RegistryDestination destination(String repository) {
+        return new RegistryDestination(registry.reference(repository, "v1"), null, null);
+    }
+
+    private RegistryPushResult push(String target, String username, String password) throws Exception {
+        return client.push(dockerArchive(), target, username, password).get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 仓库中的 manifest 引用的 config 和层都已上传，且内容与 tar 包中的一致
+     */
+    private void assertPushed(String repository, String tag, RegistryPushResult result) throws IOException {
+        byte[] manifest = registry.manifest(repository, tag);
+        assertThat(manifest).isNotNull();
+        assertThat(result.manifestDigest()).isEqualTo(RegistryStub.sha256(manifest));
+        JsonNode json = MAPPER.readTree(manifest);
+        assertThat(json.path("config").path("digest").asText()).isEqualTo(RegistryStub.sha256(config()));
+        assertThat(registry.blob(RegistryStub.sha256(config()))).isEqualTo(config());
+        List<byte[]> layers = List.of(smallLayer, largeLayer);
+        assertThat(json.path("layers")).hasSize(layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            JsonNode layer = json.path("layers").get(i);
+            assertThat(layer.path("digest").asText()).isEqualTo(RegistryStub.sha256(layers.get(i)));
+            assertThat(layer.path("size").asLong()).isEqualTo(layers.get(i).length);
+            assertThat(registry.blob(layer.path("digest").asText())).isEqualTo(layers.get(i));
+        }
+    }
+
+    private RegistryProperties properties(DataSize chunkSize) {
+        RegistryProperties properties = new RegistryProperties();
+        properties.setChunkSize(chunkSize);
+        properties.setUploadThreads(2);
+        properties.setConnectTimeout(Duration.ofSeconds(5));
+        properties.setRequestTimeout(Duration.ofSeconds(10));
+        return properties;
+    }
+
+    /**
+     * config 中的 diff_ids 与层一致，推送时不需要再计算层的摘要
+     */
+    private byte[] config() {
+        return ("{\"rootfs\":{\"type\":\"layers\",\"diff_ids\":[\"" + RegistryStub.sha256(smallLayer) + "\",\""
+                + RegistryStub.sha256(largeLayer) + "\"]}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * docker save 格式的 tar 包：manifest.json、config 和两个层
+     */
+    private Path dockerArchive() throws IOException {
+        byte[] config = config();
+        String configName = RegistryStub.sha256(config).substring("sha256:".length()) + ".json";
+        byte[] manifest = ("[{\"Config\":\"" + configName + "\",\"RepoTags\":[\"ns/app:v1\"],"
+                + "\"Layers\":[\"l1/layer.tar\",\"l2/layer.tar\"]}]").getBytes(StandardCharsets.UTF_8);
+        Path tar = Files.createTempFile(tempDir, "image", ".tar");
+        Files.write(tar, new TarWriter()
+                .file(configName, config)
+                .file("l1/layer.tar", smallLayer)
+                .file("l2/layer.tar", largeLayer)
+                .file("manifest.json", manifest)
+                .finish());
+        return tar;
+    }
+
+    private static byte[] content(int size, char first) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (first + i % 13);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.provider.registry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试用的进程内镜像仓库，实现 RegistryClient 用到的 OCI distribution 接口
+ * - 整体上传（POST + PUT）和分块上传（POST + PATCH... + PUT），完成上传时校验摘要
+ * - 查询上传进度（GET 上传地址返回 204 和 Range）
+ * - 设置了用户名密码时要求 Bearer 令牌，令牌服务按 Basic 认证签发
+ * - 可以指定第 N 个 PATCH 只接收一半数据后断开连接，模拟上传中途网络中断
+ * - 可以暂停开始上传（POST），用于保持推送处于执行中
+ * 与 Go 实现的仓库一样，对发到 HTTP 端口的 TLS 握手立即回复 400，使客户端的 HTTPS 探测失败后改用 HTTP；
+ * JDK HttpServer 收到握手数据会一直等待请求行，因此由前置的 ServerSocket 识别握手，其余连接原样转发
+ */
+final class RegistryStub implements AutoCloseable {
+
+    private static final Pattern UPLOAD = Pattern.compile("/v2/(.+)/blobs/uploads/([\\w-]+)");
+
+    private static final Pattern BLOB = Pattern.compile("/v2/(.+)/blobs/(sha256:[0-9a-f]+)");
+
+    private static final Pattern MANIFEST = Pattern.compile("/v2/(.+)/manifests/([^/]+)");
+
+    private final HttpServer server;
+
+    private final ServerSocket front;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final String username;
+
+    private final String password;
+
+    private final String token = "token-" + UUID.randomUUID();
+
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    private final Map<String, ByteArrayOutputStream> uploads = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> manifests = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    private final List<String> tokenScopes = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger patches = new AtomicInteger();
+
+    private volatile int dropPatch = -1;
+
+    private volatile CountDownLatch uploadGate;
+
+    /**
+     * @param username 为空时不要求认证
+     */
+    RegistryStub(String username, String password) throws IOException {
+        this.username = username;
+        this.password = password;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        this.front = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    /**
+     * 镜像地址，例如 127.0.0.1:12345/ns/app:v1
+     */
+    String reference(String repository, String tag) {
+        return "127.0.0.1:" + front.getLocalPort() + "/" + repository + ":" + tag;
+    }
+
+    /**
+     * 第 n 个（从 1 开始）PATCH 请求只接收一半数据后断开连接
+     */
+    void dropPatch(int n) {
+        dropPatch = n;
+    }
+
+    /**
+     * 开始上传的请求等待返回的 latch 放行，最多等待 30 秒
+     */
+    CountDownLatch holdUploads() {
+        CountDownLatch gate = new CountDownLatch(1);
+        uploadGate = gate;
+        return gate;
+    }
+
+    void putBlob(byte[] data) {
+        blobs.put(sha256(data), data);
+    }
+
+    byte[] blob(String digest) {
+        return blobs.get(digest);
+    }
+
+    byte[] manifest(String repository, String tag) {
+        return manifests.get(repository + ":" + tag);
+    }
+
+    /**
+     * 按 方法 + 接口 统计的请求数，例如 "PATCH upload"、"HEAD blob"
+     */
+    int count(String request) {
+        AtomicInteger counter = counters.get(request);
+        return counter == null ? 0 : counter.get();
+    }
+
+    List<String> tokenScopes() {
+        return tokenScopes;
+    }
+
+    private void accept() {
+        while (!front.isClosed()) {
+            try {
+                Socket client = front.accept();
+                executor.execute(() -> forward(client));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 第一个字节是 0x16 时为 TLS 握手，回复 400 后关闭；否则与 HttpServer 建立连接双向转发
+     */
+    private void forward(Socket client) {
+        try (client; Socket backend = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+            PushbackInputStream in = new PushbackInputStream(client.getInputStream());
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            if (first == 0x16) {
+                client.getOutputStream().write("HTTP/1.0 400 Bad Request\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            in.unread(first);
+            executor.execute(() -> {
+                try {
+                    in.transferTo(backend.getOutputStream());
+                    backend.shutdownOutput();
+                } catch (IOException ignored) {
+                    // 任一方向断开时整个连接随之关闭
+                }
+            });
+            backend.getInputStream().transferTo(client.getOutputStream());
+        } catch (IOException ignored) {
+            // 客户端或 HttpServer 断开连接
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/token")) {
+                issueToken(exchange);
+                return;
+            }
+            if (!authorized(exchange)) {
+                return;
+            }
+            if (path.equals("/v2/")) {
+                send(exchange, 200, null);
+                return;
+            }
+            Matcher upload = UPLOAD.matcher(path);
+            if (upload.matches()) {
+                increment(method + " upload");
+                handleUpload(exchange, method, upload.group(1), upload.group(2));
+                return;
+            }
+            if (path.endsWith("/blobs/uploads/") && method.equals("POST")) {
+                increment("POST upload");
+                exchange.getRequestBody().readAllBytes();
+                awaitGate();
+                String id = UUID.randomUUID().toString();
+                uploads.put(id, new ByteArrayOutputStream());
+                exchange.getResponseHeaders().set("Location", path + id + "?_state=stub");
+                send(exchange, 202, null);
+                return;
+            }
+            Matcher blob = BLOB.matcher(path);
+            if (blob.matches() && method.equals("HEAD")) {
+                increment("HEAD blob");
+                send(exchange, blobs.containsKey(blob.group(2)) ? 200 : 404, null);
+                return;
+            }
+            Matcher manifest = MANIFEST.matcher(path);
+            if (manifest.matches()) {
+                increment(method + " manifest");
+                String key = manifest.group(1) + ":" + manifest.group(2);
+                if (method.equals("PUT")) {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    manifests.put(key, body);
+                    exchange.getResponseHeaders().set("Docker-Content-Digest", sha256(body));
+                    send(exchange, 201, null);
+                } else {
+                    send(exchange, manifests.containsKey(key) ? 200 : 404, null);
+                }
+                return;
+            }
+            send(exchange, 404, null);
+        }
+    }
+
+    private void handleUpload(HttpExchange exchange, String method, String repository, String id)
+            throws IOException {
+        ByteArrayOutputStream upload = uploads.get(id);
+        if (upload == null) {
+            send(exchange, 404, "upload unknown");
+            return;
+        }
+        String location = "/v2/" + repository + "/blobs/uploads/" + id;
+        switch (method) {
+            case "GET" -> {
+                exchange.getResponseHeaders().set("Location", location);
+                exchange.getResponseHeaders().set("Range", "0-" + Math.max(upload.size() - 1, 0));
+                send(exchange, 204, null);
+            }
+            case "PATCH" -> {
+                long start = Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Range").split("-")[0]);
+                if (patches.incrementAndGet() == dropPatch) {
+                    long half = Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Length")) / 2;
+                    byte[] received = exchange.getRequestBody().readNBytes((int) half);
+                    synchronized (upload) {
+                        if (start == upload.size()) {
+                            upload.write(received);
+                        }
+                    }
+                    // 未发送响应头就关闭交换，连接随之断开
+                    return;
+                }
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                synchronized (upload) {
+                    if (start != upload.size()) {
+                        send(exchange, 416, "expected offset " + upload.size());
+                        return;
+                    }
+                    upload.write(body);
+                    exchange.getResponseHeaders().set("Range", "0-" + (upload.size() - 1));
+                }
+                exchange.getResponseHeaders().set("Location", location);
+                send(exchange, 202, null);
+            }
+            case "PUT" -> {
+                upload.write(exchange.getRequestBody().readAllBytes());
+                uploads.remove(id);
+                byte[] data = upload.toByteArray();
+                String digest = query(exchange.getRequestURI(), "digest");
+                if (!sha256(data).equals(digest)) {
+                    send(exchange, 400, "digest mismatch");
+                    return;
+                }
+                blobs.put(digest, data);
+                exchange.getResponseHeaders().set("Location", "/v2/" + repository + "/blobs/" + digest);
+                send(exchange, 201, null);
+            }
+            default -> send(exchange, 405, null);
+        }
+    }
+
+    private boolean authorized(HttpExchange exchange) throws IOException {
+        if (username == null || ("Bearer " + token).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            return true;
+        }
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer realm=\"http://127.0.0.1:"
+                + front.getLocalPort() + "/token\",service=\"stub\"");
+        send(exchange, 401, null);
+        return false;
+    }
+
+    private void issueToken(HttpExchange exchange) throws IOException {
+        increment("GET token");
+        tokenScopes.add(query(exchange.getRequestURI(), "scope"));
+        String basic = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        if (username == null || !basic.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            send(exchange, 401, "invalid credentials");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, "{\"token\":\"" + token + "\"}");
+    }
+
+    private void awaitGate() throws IOException {
+        CountDownLatch gate = uploadGate;
+        try {
+            if (gate != null && !gate.await(30, TimeUnit.SECONDS)) {
+                throw new IOException("等待放行上传超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待放行上传时被中断");
+        }
+    }
+
+    private void increment(String request) {
+        counters.computeIfAbsent(request, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        // 请求体未读到末尾时，HttpServer 发送无响应体的响应后会关闭连接，客户端复用该连接时出错
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        boolean empty = bytes.length == 0 || status == 204 || exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, empty ? -1 : bytes.length);
+        if (!empty) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String query(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int eq = parameter.indexOf('=');
+            if (eq > 0 && parameter.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(parameter.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            front.close();
+        } catch (IOException ignored) {
+            // 测试结束时关闭，忽略
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.provider.skopeo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CappedOutputBuffer 的头尾保留和环形缓冲下标计算
+ */
+class CappedOutputBufferTest {
+
+    @Test
+    void keepsEverythingUnderTheCap() {
+        CappedOutputBuffer buffer = new CappedOutputBuffer(16);
+        write(buffer, "hello ");
+        write(buffer, "world");
+
+        assertThat(buffer.isTruncated()).isFalse();
+        assertThat(buffer.getTotalBytes()).isEqualTo(11);
+        assertThat(buffer.toString(StandardCharsets.US_ASCII)).isEqualTo("hello world");
+    }
+
+    @Test
+    void keepsEverythingWhenExactlyAtTheCap() {
+        CappedOutputBuffer buffer = new CappedOutputBuffer(10);
+        write(buffer, "0123456789");
+
+        assertThat(buffer.isTruncated()).isFalse();
+        assertThat(buffer.toString(StandardCharsets.US_ASCII)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void keepsHeadAndTailWhenOneWriteExceedsTheCap() {
+        CappedOutputBuffer buffer = new CappedOutputBuffer(6);
+        write(buffer, "abcdefghijklmnopqrstuvwxyz");
+
+        assertThat(buffer.isTruncated()).isTrue();
+        assertThat(buffer.getTotalBytes()).isEqualTo(26);
+        assertThat(buffer.toString(StandardCharsets.US_ASCII)).isEqualTo("abc\n...省略 20 字节...\nxyz");
+    }
+
+    @Test
+    void wrapsTheTailRingAcrossSmallWrites() {
+        CappedOutputBuffer buffer = new CappedOutputBuffer(8);
+        for (char c = 'a'; c <= 'z'; c++) {
+            write(buffer, String.valueOf(c));
+        }
+
+        assertThat(buffer.toString(StandardCharsets.US_ASCII)).isEqualTo("abcd\n...省略 18 字节...\nwxyz");
+    }
+
+    @Test
+    void splitsAWriteAcrossTheEndOfTheRing() {
+        CappedOutputBuffer buffer = new CappedOutputBuffer(8);
+        // 头部 abcd，尾部先写入 efg，tailPosition 为 3
+        write(buffer, "abcdefg");
+        // 两个字节写到环尾，一个字节绕回环头
+        write(buffer, "hij");
+
+        assertThat(buffer.toString(StandardCharsets.US_ASCII)).isEqualTo("abcd\n...省略 2 字节...\nghij");
+    }
+
+    @Test
+    void handlesOddCapsAndATailOnlyBuffer() {
+        CappedOutputBuffer odd = new CappedOutputBuffer(5);
+        write(odd, "0123456789");
+        assertThat(odd.toString(StandardCharsets.US_ASCII)).isEqualTo("01\n...省略 5 字节...\n789");
+
+        CappedOutputBuffer tailOnly = new CappedOutputBuffer(1);
+        write(tailOnly, "xyz");
+        assertThat(tailOnly.toString(StandardCharsets.US_ASCII)).isEqualTo("\n...省略 2 字节...\nz");
+    }
+
+    @Test
+    void matchesAReferenceModelForRandomChunkSizes() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int cap = 1 + random.nextInt(64);
+            byte[] data = new byte[random.nextInt(512)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ('a' + random.nextInt(26));
+            }
+            CappedOutputBuffer buffer = new CappedOutputBuffer(cap);
+            int offset = 0;
+            while (offset < data.length) {
+                int length = Math.min(data.length - offset, random.nextInt(cap * 2 + 1));
+                buffer.write(data, offset, length);
+                offset += length;
+            }
+
+            assertThat(buffer.getTotalBytes()).isEqualTo(data.length);
+            assertThat(buffer.toString(StandardCharsets.US_ASCII))
+                    .as("cap=%d, size=%d", cap, data.length)
+                    .isEqualTo(expected(data, cap));
+        }
+    }
+
+    @Test
+    void readsTheWholeStreamBeyondTheCap() throws IOException {
+        byte[] data = new byte[100_000];
+        Arrays.fill(data, (byte) 'x');
+        data[0] = 'A';
+        data[data.length - 1] = 'Z';
+        CappedOutputBuffer buffer = new CappedOutputBuffer(64);
+
+        buffer.readFrom(new ByteArrayInputStream(data));
+
+        assertThat(buffer.getTotalBytes()).isEqualTo(100_000);
+        String text = buffer.toString(StandardCharsets.US_ASCII);
+        assertThat(text).startsWith("A").endsWith("Z").contains("...省略 99936 字节...");
+    }
+
+    private static void write(CappedOutputBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        buffer.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 参考实现：未超过上限时原样输出，否则取开头 cap/2 字节和结尾 cap - cap/2 字节
+     */
+    private static String expected(byte[] data, int cap) {
+        if (data.length <= cap) {
+            return new String(data, StandardCharsets.US_ASCII);
+        }
+        int head = cap / 2;
+        int tail = cap - head;
+        return new String(data, 0, head, StandardCharsets.US_ASCII)
+                + "\n...省略 " + (data.length - cap) + " 字节...\n"
+                + new String(data, data.length - tail, tail, StandardCharsets.US_ASCII);
+    }
+}
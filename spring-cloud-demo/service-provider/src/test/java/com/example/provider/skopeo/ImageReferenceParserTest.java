@@ -0,0 +1,306 @@
+package com.example.provider.skopeo;
+
+import com.example.provider.skopeo.ImageReferenceParser.Reason;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ImageReferenceParser 校验结果与替换前 SkopeoUtil 中的正则完全相同；不合法时给出原因和出错位置；
+ * 解析时可以允许摘要
+ */
+class ImageReferenceParserTest {
+
+    /**
+     * 替换前 SkopeoUtil 中的正则（DOCKER_REGISTRY_PATTERN），作为对比基线
+     */
+    private static final Pattern LEGACY_REGEX = Pattern.compile("^"
+            + "(?:"
+            + "(?:[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?"
+            + "(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?)*)"
+            + "|"
+            + "(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)"
+            + ")"
+            + "(?::[1-9][0-9]{0,4})?"
+            + "/"
+            + "[a-z0-9]+(?:[._-][a-z0-9]+)*"
+            + "/"
+            + "[a-z0-9]+(?:[._-][a-z0-9]+)*"
+            + "(?::[a-zA-Z0-9_][a-zA-Z0-9._-]{0,127})?$");
+
+    private static final String SHA256 = "sha256:" + "0123456789abcdef".repeat(4);
+
+    /**
+     * 生成地址时使用的字符，包含各部分允许和不允许的字符
+     */
+    private static final String ALPHABET = "abcz09AZ-._:/@+= \t!";
+
+    @Test
+    void acceptsExactlyWhatTheLegacyRegexAccepts() {
+        Random random = new Random(20250617L);
+        int valid = 0;
+        for (int i = 0; i < 300_000; i++) {
+            String reference = mutate(random, reference(random));
+            boolean expected = legacyIsValid(reference);
+            assertThat(ImageReferenceParser.isValid(reference)).as("地址：[%s]", reference).isEqualTo(expected);
+            assertThat(ImageReferenceParser.validate(reference, false) == null).as("地址：[%s]", reference)
+                    .isEqualTo(expected);
+            if (expected) {
+                valid++;
+                assertThat(ImageReferenceParser.parse(reference, false).toString())
+                        .isEqualTo(stripped(reference));
+            }
+        }
+        // 生成的地址中合法和不合法的都要足够多，对比才有意义
+        assertThat(valid).isBetween(30_000, 270_000);
+    }
+
+    @Test
+    void acceptsTheDocumentedExamples() {
+        assertThat(ImageReferenceParser.isValid("registry.example.com/namespace/repository:tag")).isTrue();
+        assertThat(ImageReferenceParser.isValid("registry.example.com:5000/project/image:v1.0")).isTrue();
+        assertThat(ImageReferenceParser.isValid("192.168.1.100:5000/namespace/repository:tag")).isTrue();
+        assertThat(ImageReferenceParser.isValid("192.168.50.103/flow/cust-cont:20250617191632-x86")).isTrue();
+        assertThat(ImageReferenceParser.isValid(" docker://registry.example.com/ns/app\n")).isTrue();
+        assertThat(ImageReferenceParser.isValid("registry.example.com/ns/app:" + "v".repeat(128))).isTrue();
+        assertThat(ImageReferenceParser.isValid(null)).isFalse();
+    }
+
+    @Test
+    void reportsTheReasonAndPositionOfEachRejection() {
+        assertRejected("   ", Reason.EMPTY, 4);
+        assertThat(ImageReferenceParser.validate(null, true)).isEqualTo(Reason.EMPTY);
+
+        assertRejected("-reg.example.com/ns/app", Reason.INVALID_REGISTRY, 1);
+        assertRejected("reg-.example.com/ns/app", Reason.INVALID_REGISTRY, 4);
+        assertRejected("reg_x.com/ns/app", Reason.INVALID_REGISTRY, 4);
+        assertRejected("reg..com/ns/app", Reason.INVALID_REGISTRY, 5);
+
+        assertRejected("docker://" + "a".repeat(64) + ".com/ns/app", Reason.REGISTRY_LABEL_TOO_LONG, 10);
+
+        assertRejected("localhost:5000/ns/app", Reason.REGISTRY_WITHOUT_DOT, 1);
+        assertRejected("ubuntu:20.04", Reason.REGISTRY_WITHOUT_DOT, 1);
+
+        assertRejected("reg.example.com:0123/ns/app", Reason.INVALID_PORT, 17);
+        assertRejected("reg.example.com:123456/ns/app", Reason.INVALID_PORT, 22);
+        assertRejected("reg.example.com:12a/ns/app", Reason.INVALID_PORT, 19);
+
+        assertRejected("reg.example.com", Reason.MISSING_NAMESPACE, 16);
+        assertRejected("reg.example.com:5000", Reason.MISSING_NAMESPACE, 21);
+
+        assertRejected("reg.example.com/NS/app", Reason.INVALID_NAMESPACE, 17);
+        assertRejected("reg.example.com/ns_/app", Reason.INVALID_NAMESPACE, 20);
+        assertRejected("reg.example.com/ns!x/app", Reason.INVALID_NAMESPACE, 19);
+
+        assertRejected("reg.example.com/ns", Reason.MISSING_NAME, 19);
+        assertRejected("reg.example.com/ns:v1", Reason.MISSING_NAME, 19);
+        assertRejected("reg.example.com/ns/", Reason.MISSING_NAME, 20);
+        assertRejected("reg.example.com/ns/:v1", Reason.MISSING_NAME, 20);
+
+        assertRejected("reg.example.com/ns/App", Reason.INVALID_NAME, 20);
+        assertRejected("reg.example.com/ns/app..x", Reason.INVALID_NAME, 24);
+        assertRejected("reg.example.com/ns/app!", Reason.INVALID_NAME, 23);
+
+        assertRejected("reg.example.com/ns/group/app", Reason.TOO_MANY_PATH_COMPONENTS, 25);
+
+        assertRejected("reg.example.com/ns/app:", Reason.INVALID_TAG, 24);
+        assertRejected("reg.example.com/ns/app:.v1", Reason.INVALID_TAG, 24);
+        assertRejected("reg.example.com/ns/app:v1!", Reason.INVALID_TAG, 26);
+
+        assertRejected("reg.example.com/ns/app:" + "v".repeat(129), Reason.TAG_TOO_LONG, 152);
+    }
+
+    @Test
+    void rejectsDigestsUnlessAllowed() {
+        String reference = "reg.example.com/ns/app@" + SHA256;
+
+        assertThat(ImageReferenceParser.isValid(reference)).isFalse();
+        assertThat(LEGACY_REGEX.matcher(reference).matches()).isFalse();
+        assertRejected(reference, false, Reason.DIGEST_NOT_ALLOWED, 23);
+        assertThat(ImageReferenceParser.validate(reference, true)).isNull();
+    }
+
+    @Test
+    void reportsInvalidDigests() {
+        String base = "reg.example.com/ns/app@";
+
+        assertRejected(base + "sha256:abc", true, Reason.INVALID_DIGEST, 34);
+        assertRejected(base + "sha256:" + "A".repeat(64), true, Reason.INVALID_DIGEST, 31);
+        assertRejected(base + "sha256", true, Reason.INVALID_DIGEST, 30);
+        assertRejected(base + ":abc", true, Reason.INVALID_DIGEST, 24);
+        assertRejected(base + "sha256:", true, Reason.INVALID_DIGEST, 31);
+        assertRejected(base + "sha512+b64:", true, Reason.INVALID_DIGEST, 35);
+        assertRejected(base + SHA256 + "!", true, Reason.UNEXPECTED_CHARACTER, 95);
+        assertRejected(base + SHA256 + "@" + SHA256, true, Reason.UNEXPECTED_CHARACTER, 95);
+    }
+
+    @Test
+    void parsesDigestsWhenAllowed() {
+        ImageReference tagged = ImageReferenceParser.parse("registry.example.com:5000/ns/app:v1@" + SHA256, true);
+
+        assertThat(tagged.registry()).isEqualTo("registry.example.com");
+        assertThat(tagged.port()).isEqualTo(5000);
+        assertThat(tagged.namespace()).isEqualTo("ns");
+        assertThat(tagged.name()).isEqualTo("app");
+        assertThat(tagged.tag()).isEqualTo("v1");
+        assertThat(tagged.digest()).isEqualTo(SHA256);
+        assertThat(tagged).hasToString("registry.example.com:5000/ns/app:v1@" + SHA256);
+
+        ImageReference untagged = ImageReference.parse("docker://192.168.1.100/ns/app@" + SHA256);
+        assertThat(untagged.ipAddress()).isTrue();
+        assertThat(untagged.port()).isEqualTo(-1);
+        assertThat(untagged.tag()).isNull();
+        assertThat(untagged.digest()).isEqualTo(SHA256);
+        assertThat(untagged.repository()).isEqualTo("192.168.1.100/ns/app");
+
+        // 其他算法的编码值不限制长度，可以包含 '='、'_'、'-' 和大写字母
+        ImageReference other = ImageReference.parse("reg.example.com/ns/app@multihash+base58:QmRZ_x-2=");
+        assertThat(other.digest()).isEqualTo("multihash+base58:QmRZ_x-2=");
+    }
+
+    @Test
+    void parsesTheRegistry() {
+        ImageReference ip = ImageReferenceParser.parse("  192.168.50.103:5000/flow/cust-cont:x86  ", false);
+        assertThat(ip.registry()).isEqualTo("192.168.50.103");
+        assertThat(ip.ipAddress()).isTrue();
+        assertThat(ip.registryWithPort()).isEqualTo("192.168.50.103:5000");
+        assertThat(ip.digest()).isNull();
+
+        // 原正则把这些当作域名接受
+        assertThat(ImageReferenceParser.parse("256.1.1.1/ns/app", false).ipAddress()).isFalse();
+        assertThat(ImageReferenceParser.parse("1.2.3/ns/app", false).ipAddress()).isFalse();
+        assertThat(ImageReferenceParser.parse("1.2.3.4.5/ns/app", false).ipAddress()).isFalse();
+        assertThat(ImageReferenceParser.parse("Reg-1.Example.com/ns/app", false).registry())
+                .isEqualTo("Reg-1.Example.com");
+    }
+
+    /**
+     * 校验和解析都给出相同的原因，解析的异常信息包含从 1 开始的出错位置
+     */
+    private static void assertRejected(String reference, Reason reason, int position) {
+        assertRejected(reference, false, reason, position);
+        if (reason != Reason.DIGEST_NOT_ALLOWED) {
+            assertThat(ImageReferenceParser.validate(reference, true)).as("地址：[%s]", reference).isEqualTo(reason);
+        }
+        assertThat(legacyIsValid(reference)).as("地址：[%s]", reference).isFalse();
+    }
+
+    private static void assertRejected(String reference, boolean allowDigest, Reason reason, int position) {
+        assertThat(ImageReferenceParser.validate(reference, allowDigest)).as("地址：[%s]", reference).isEqualTo(reason);
+        assertThatThrownBy(() -> ImageReferenceParser.parse(reference, allowDigest))
+                .as("地址：[%s]", reference)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("第" + position + "个字符")
+                .hasMessageContaining(reason.getDescription());
+    }
+
+    /**
+     * 替换前 SkopeoUtil.isValidDockerRepositoryUrl 的实现
+     */
+    private static boolean legacyIsValid(String reference) {
+        if (reference == null || reference.trim().isEmpty()) {
+            return false;
+        }
+        String trimmed = reference.trim();
+        if (trimmed.startsWith("docker://")) {
+            trimmed = trimmed.substring(9);
+        }
+        return LEGACY_REGEX.matcher(trimmed).matches();
+    }
+
+    private static String stripped(String reference) {
+        String trimmed = reference.trim();
+        return trimmed.startsWith("docker://") ? trimmed.substring(9) : trimmed;
+    }
+
+    /**
+     * 生成接近合法的地址：各部分的长度在边界附近取值，字符大多合法
+     */
+    private static String reference(Random random) {
+        StringBuilder s = new StringBuilder();
+        if (random.nextInt(8) == 0) {
+            s.append(random.nextBoolean() ? " " : "\t");
+        }
+        if (random.nextInt(4) == 0) {
+            s.append("docker://");
+        }
+        int labels = random.nextInt(10) == 0 ? 1 : 2 + random.nextInt(4);
+        boolean ip = random.nextInt(3) == 0;
+        for (int i = 0; i < labels; i++) {
+            if (i > 0) {
+                s.append('.');
+            }
+            s.append(ip ? String.valueOf(random.nextInt(random.nextBoolean() ? 256 : 1000)) : label(random));
+        }
+        if (random.nextInt(3) == 0) {
+            s.append(':').append(random.nextInt(10) == 0 ? "0" : "").append(1 + random.nextInt(120_000));
+        }
+        int components = random.nextInt(10) == 0 ? random.nextInt(4) : 2;
+        for (int i = 0; i < components; i++) {
+            s.append('/').append(pathComponent(random));
+        }
+        if (random.nextBoolean()) {
+            int length = random.nextInt(4) == 0 ? 126 + random.nextInt(4) : 1 + random.nextInt(12);
+            s.append(':').append(word(random, "aZ09_.-", length));
+        }
+        if (random.nextInt(10) == 0) {
+            s.append('@').append(SHA256);
+        }
+        if (random.nextInt(8) == 0) {
+            s.append(random.nextBoolean() ? " " : "\n");
+        }
+        return s.toString();
+    }
+
+    private static String label(Random random) {
+        int length = random.nextInt(5) == 0 ? 61 + random.nextInt(5) : 1 + random.nextInt(8);
+        StringBuilder s = new StringBuilder(word(random, "aZ09-", length));
+        if (random.nextInt(4) != 0) {
+            s.setCharAt(0, 'r');
+            s.setCharAt(length - 1, 'g');
+        }
+        return s.toString();
+    }
+
+    private static String pathComponent(Random random) {
+        StringBuilder s = new StringBuilder();
+        int parts = 1 + random.nextInt(3);
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                s.append("._-".charAt(random.nextInt(3)));
+            }
+            s.append(word(random, "az09", 1 + random.nextInt(4)));
+        }
+        return s.toString();
+    }
+
+    private static String word(Random random, String characters, int length) {
+        StringBuilder s = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            s.append(characters.charAt(random.nextInt(characters.length())));
+        }
+        return s.toString();
+    }
+
+    /**
+     * 一半保持不变，其余随机插入、删除或替换一个字符
+     */
+    private static String mutate(Random random, String reference) {
+        if (random.nextBoolean() || reference.isEmpty()) {
+            return reference;
+        }
+        StringBuilder s = new StringBuilder(reference);
+        int position = random.nextInt(s.length());
+        char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        switch (random.nextInt(3)) {
+            case 0 -> s.insert(position, c);
+            case 1 -> s.deleteCharAt(position);
+            default -> s.setCharAt(position, c);
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.provider.skopeo;
+
+import com.example.provider.config.SkopeoProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SkopeoExecutor 的超时终止、取消、排队拒绝和输出截断
+ * 用 test resources 中的 fake-skopeo.sh 代替 skopeo，通过 /bin/sh 执行，不依赖脚本的可执行权限
+ */
+@EnabledOnOs({OS.LINUX, OS.MAC})
+class SkopeoExecutorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SkopeoExecutor executor;
+
+    @AfterEach
+    void closeExecutor() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    void returnsOutputAndExitCode() throws Exception {
+        executor = new SkopeoExecutor(properties(2, 2));
+
+        SkopeoResult success = executor.execute(fake("output", "10")).get(10, TimeUnit.SECONDS);
+        assertThat(success.isSuccess()).isTrue();
+        assertThat(success.output()).isEqualTo("xxxxxxxxxx");
+        assertThat(success.outputBytes()).isEqualTo(10);
+        assertThat(success.timedOut()).isFalse();
+
+        SkopeoResult failure = executor.execute(fake("exit", "3")).get(10, TimeUnit.SECONDS);
+        assertThat(failure.isSuccess()).isFalse();
+        assertThat(failure.exitCode()).isEqualTo(3);
+        assertThat(failure.output()).contains("fake skopeo failed");
+    }
+
+    @Test
+    void capsLargeOutput() throws Exception {
+        SkopeoProperties properties = properties(1, 1);
+        properties.setMaxOutputSize(DataSize.ofBytes(1024));
+        executor = new SkopeoExecutor(properties);
+
+        SkopeoResult result = executor.execute(fake("output", "200000")).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.outputBytes()).isEqualTo(200_000);
+        assertThat(result.truncated()).isTrue();
+        assertThat(result.output()).contains("...省略 198976 字节...").hasSizeLessThan(1100);
+    }
+
+    @Test
+    void killsTheProcessTreeOnTimeout() throws Exception {
+        executor = new SkopeoExecutor(properties(1, 1));
+        Path pidFile = tempDir.resolve("tree.pid");
+
+        CompletableFuture<SkopeoResult> future = executor.execute(fake("tree", pidFile.toString(), "60"),
+                Duration.ofMillis(500));
+        long[] pids = readPids(pidFile);
+        SkopeoResult result = future.get(10, TimeUnit.SECONDS);
+
+        assertThat(result.timedOut()).isTrue();
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.duration()).isLessThan(Duration.ofSeconds(10));
+        awaitDead(pids);
+    }
+
+    @Test
+    void killsTheProcessTreeOnCancel() throws Exception {
+        executor = new SkopeoExecutor(properties(1, 1));
+        Path pidFile = tempDir.resolve("cancel.pid");
+
+        CompletableFuture<SkopeoResult> future = executor.execute(fake("tree", pidFile.toString(), "60"));
+        long[] pids = readPids(pidFile);
+        assertThat(future.cancel(true)).isTrue();
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        awaitDead(pids);
+    }
+
+    @Test
+    void rejectsWhenWorkersAndQueueAreFull() throws Exception {
+        executor = new SkopeoExecutor(properties(1, 1));
+        Path pidFile = tempDir.resolve("busy.pid");
+        Path marker = tempDir.resolve("queued-ran");
+
+        CompletableFuture<SkopeoResult> running = executor.execute(fake("tree", pidFile.toString(), "2"));
+        readPids(pidFile);
+        CompletableFuture<SkopeoResult> queued = executor.execute(fake("touch", marker.toString()));
+        CompletableFuture<SkopeoResult> rejected = executor.execute(fake("output", "1"));
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+
+        // 排队中被取消的命令不再启动进程；队列按顺序执行，之后提交的命令完成时被取消的命令已出队
+        queued.cancel(true);
+        running.get(10, TimeUnit.SECONDS);
+        SkopeoResult next = executeWhenAccepted(fake("output", "1")).get(10, TimeUnit.SECONDS);
+        assertThat(next.isSuccess()).isTrue();
+        assertThat(marker).doesNotExist();
+    }
+
+    @Test
+    void failsWhenTheBinaryCannotBeStarted() {
+        SkopeoProperties properties = properties(1, 1);
+        properties.setBinary(tempDir.resolve("missing-skopeo").toString());
+        executor = new SkopeoExecutor(properties);
+
+        assertThatThrownBy(() -> executor.execute(List.of("inspect")).get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void masksCredentialsInDescription() {
+        String description = SkopeoExecutor.describe(List.of("skopeo", "copy", "--src-creds", "u:secret",
+                "--dest-creds=u:secret", "docker://a", "docker://b"));
+
+        assertThat(description).doesNotContain("secret")
+                .isEqualTo("skopeo copy --src-creds ****** --dest-creds=****** docker://a docker://b");
+    }
+
+    /**
+     * 执行中的进程结束后，工作线程和队列要稍后才空出来，期间提交的命令仍会被拒绝
+     */
+    private CompletableFuture<SkopeoResult> executeWhenAccepted(List<String> arguments) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            CompletableFuture<SkopeoResult> future = executor.execute(arguments);
+            boolean rejected = future.isCompletedExceptionally()
+                    && future.handle((value, error) -> error instanceof RejectedExecutionException).join();
+            if (!rejected || System.nanoTime() - deadline > 0) {
+                return future;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private SkopeoProperties properties(int workerThreads, int queueCapacity) {
+        SkopeoProperties properties = new SkopeoProperties();
+        properties.setBinary("/bin/sh");
+        properties.setWorkerThreads(workerThreads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setTimeout(Duration.ofSeconds(30));
+        properties.setKillGracePeriod(Duration.ofMillis(200));
+        return properties;
+    }
+
+    private static List<String> fake(String... arguments) throws URISyntaxException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(SkopeoExecutorTest.class.getResource("/skopeo/fake-skopeo.sh").toURI()).toString());
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    /**
+     * 等待替身脚本写出 pid 文件，返回脚本自身和 sleep 子进程的 pid
+     */
+    private static long[] readPids(Path pidFile) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(pidFile)) {
+            assertThat(System.nanoTime()).as("等待 %s", pidFile).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+        String[] parts = Files.readString(pidFile).trim().split("\\s+");
+        return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+    }
+
+    private static void awaitDead(long[] pids) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (long pid : pids) {
+            while (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                assertThat(System.nanoTime()).as("进程 %d 未被终止", pid).isLessThan(deadline);
+                Thread.sleep(20);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.provider.upload;
+
+import com.example.provider.archive.TarWriter;
+import com.example.provider.config.ImageUploadProperties;
+import com.example.provider.config.PushJobProperties;
+import com.example.provider.push.PushBackend;
+import com.example.provider.push.PushJobRequest;
+import com.example.provider.push.PushJobService;
+import com.example.provider.push.PushOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ImageUploadService 边接收边校验 tar 包：blobs/sha256/ 下的文件内容必须与文件名中的摘要一致
+ * 不预先上传，推送任务的执行方式换成不会结束的替身
+ */
+class ImageUploadServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ImageUploadService service;
+
+    private final byte[] layer = "layer-content".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @BeforeEach
+    void setUp() {
+        ImageUploadProperties properties = new ImageUploadProperties();
+        properties.setBufferSize(DataSize.ofBytes(100));
+        properties.setDeleteAfterPush(false);
+        PushBackend backend = new PushBackend() {
+            @Override
+            public CompletableFuture<PushOutcome> check(PushJobRequest request) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<PushOutcome> push(PushJobRequest request) {
+                return new CompletableFuture<>();
+            }
+        };
+        service = new ImageUploadService(properties, directory, false,
+                new PushJobService(new PushJobProperties(), backend), null);
+    }
+
+    @Test
+    void acceptsBlobsMatchingTheirDigest() throws Exception {
+        byte[] tar = new TarWriter()
+                .file("oci-layout", "{}".getBytes(StandardCharsets.UTF_8))
+                .file("blobs/sha256/" + sha256(layer), layer)
+                .finish();
+
+        ImageUploadView view = service.upload(target(), new ByteArrayInputStream(tar)).get(10, TimeUnit.SECONDS);
+
+        assertThat(view.bytes()).isEqualTo(tar.length);
+        assertThat(view.digest()).isEqualTo("sha256:" + sha256(tar));
+        assertThat(view.entries()).isEqualTo(2);
+        assertThat(view.job().id()).startsWith("push-");
+        assertThat(Files.readAllBytes(Path.of(view.tarFilePath()))).isEqualTo(tar);
+    }
+
+    @Test
+    void rejectsABlobWhoseContentDoesNotMatchItsName() throws Exception {
+        byte[] tar = new TarWriter()
+                .file("blobs/sha256/" + sha256("something else".getBytes(StandardCharsets.UTF_8)), layer)
+                .finish();
+
+        assertThatThrownBy(() -> service.upload(target(), new ByteArrayInputStream(tar)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("与文件名中的摘要不一致")
+                .hasMessageContaining(sha256(layer));
+        // 接收失败时删除已写入的部分
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsABodyThatIsNotATar() {
+        byte[] body = "not a tar".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> service.upload(target(), new ByteArrayInputStream(body)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("不是有效的镜像tar包");
+    }
+
+    private static PushJobRequest target() {
+        PushJobRequest request = new PushJobRequest();
+        request.setHarborUrl("192.168.1.100:5000");
+        request.setHarborProject("ns");
+        request.setImageName("app");
+        request.setImageTag("v1");
+        return request;
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
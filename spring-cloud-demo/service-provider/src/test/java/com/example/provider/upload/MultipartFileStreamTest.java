@@ -0,0 +1,144 @@
+package com.example.provider.upload;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MultipartFileStream 读取第一个文件部分：每次只收到少量字节、分隔符被拆到两次 fill() 之间时内容仍然完整
+ */
+class MultipartFileStreamTest {
+
+    private static final String BOUNDARY = "----demoBoundary7MA4YWxk";
+
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+
+    /**
+     * 文件内容中包含分隔符的前缀，不能被当成分隔符
+     */
+    private final byte[] file = ("tar-data\r\n--" + BOUNDARY.substring(0, 10) + "\r\n-- more\r\n")
+            .repeat(200).getBytes(StandardCharsets.ISO_8859_1);
+
+    @Test
+    void readsTheFileWhateverTheReadSize() throws IOException {
+        byte[] body = body(true);
+        for (int chunk : new int[]{1, 2, 3, 5, BOUNDARY.length() + 3, 97, 4096, body.length}) {
+            MultipartFileStream stream = new MultipartFileStream(new ChunkedInputStream(body, chunk), CONTENT_TYPE,
+                    64);
+            assertThat(stream.readAllBytes()).as("每次读取 %d 字节", chunk).isEqualTo(file);
+            assertThat(stream.getFileName()).isEqualTo("image.tar");
+            assertThat(stream.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void skipsFieldsBeforeTheFilePart() throws IOException {
+        MultipartFileStream stream = new MultipartFileStream(new ChunkedInputStream(body(true), 7), CONTENT_TYPE,
+                64);
+
+        assertThat(new String(stream.readAllBytes(), StandardCharsets.ISO_8859_1))
+                .isEqualTo(new String(file, StandardCharsets.ISO_8859_1))
+                .doesNotContain("harbor.example.com");
+    }
+
+    @Test
+    void acceptsAQuotedBoundary() throws IOException {
+        MultipartFileStream stream = new MultipartFileStream(new ByteArrayInputStream(body(true)),
+                "multipart/form-data; boundary=\"" + BOUNDARY + "\"", 64);
+
+        assertThat(stream.readAllBytes()).isEqualTo(file);
+    }
+
+    @Test
+    void failsWhenTheClosingBoundaryIsMissing() throws IOException {
+        MultipartFileStream stream = new MultipartFileStream(new ChunkedInputStream(body(false), 13), CONTENT_TYPE,
+                64);
+
+        assertThatThrownBy(stream::readAllBytes)
+                .isInstanceOf(EOFException.class)
+                .hasMessageContaining("缺少结束分隔符");
+    }
+
+    @Test
+    void rejectsRequestsWithoutAFile() {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"imageTag\"\r\n\r\n"
+                + "v1\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        assertThatThrownBy(() -> new MultipartFileStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.ISO_8859_1)), CONTENT_TYPE, 64))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("没有文件");
+        assertThatThrownBy(() -> new MultipartFileStream(new ByteArrayInputStream(new byte[0]),
+                "multipart/form-data", 64))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("boundary");
+    }
+
+    /**
+     * 两个普通字段、文件部分，文件之后还有一个字段；closed 为 false 时在文件内容后截断
+     */
+    private byte[] body(boolean closed) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"harborUrl\"\r\n\r\n"
+                + "harbor.example.com\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"imageTag\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + "v1\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"image.tar\"\r\n"
+                + "Content-Type: application/x-tar\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(file);
+        if (closed) {
+            out.writeBytes(("\r\n--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"after\"\r\n\r\n"
+                    + "ignored\r\n"
+                    + "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 每次 read 最多返回 chunk 字节，模拟网络分段到达
+     */
+    private static final class ChunkedInputStream extends InputStream {
+
+        private final byte[] data;
+
+        private final int chunk;
+
+        private int position;
+
+        ChunkedInputStream(byte[] data, int chunk) {
+            this.data = data;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int length = Math.min(Math.min(len, chunk), data.length - position);
+            System.arraycopy(data, position, b, off, length);
+            position += length;
+            return length;
+        }
+    }
+}
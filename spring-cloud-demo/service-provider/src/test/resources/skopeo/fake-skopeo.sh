@@ -0,0 +1,27 @@
+#!/bin/sh
+# 测试用的 skopeo 替身，由 /bin/sh 执行，第一个参数决定行为：
+#   output <字节数>                输出指定字节数的 x 后退出
+#   exit <退出码>                  输出一行后以指定退出码退出
+#   tree <pid文件> <秒数>          启动 sleep 子进程，把自身和子进程的 pid 写入文件后等待子进程结束
+#   touch <文件>                   创建文件后退出，用于确认命令是否被执行
+case "$1" in
+  output)
+    head -c "$2" /dev/zero | tr '\0' 'x'
+    ;;
+  exit)
+    echo "fake skopeo failed"
+    exit "$2"
+    ;;
+  tree)
+    sleep "$3" &
+    echo "$$ $!" > "$2.tmp" && mv "$2.tmp" "$2"
+    wait
+    ;;
+  touch)
+    touch "$2"
+    ;;
+  *)
+    echo "unknown mode: $1"
+    exit 64
+    ;;
+esac